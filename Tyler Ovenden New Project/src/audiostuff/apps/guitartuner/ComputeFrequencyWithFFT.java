@@ -1,6 +1,6 @@
 // Guitar Tuner Application Code
 // Written by: Craig A. Lindley
-// Last Update: 02/27/99
+// Last Update: 10/18/26
 
 package audiostuff.apps.guitartuner;
 
@@ -45,15 +45,13 @@ public class ComputeFrequencyWithFFT {
 		if (buffer.length < FFT_SIZE)
 			return -1;
 
-		// Move the sample data into the arrays for processing. The
+		// Move the sample data into the array for processing. The
 		// data consists of real data only.
-		for(int i=0; i < FFT_SIZE; i++) {
+		for(int i=0; i < FFT_SIZE; i++)
 			realArray[i] = buffer[i];
-			imagArray[i] = 0.0;
-		}
 
-		// Do the forward fft
-		fft.doFFT(realArray, imagArray, false);
+		// Do the forward fft. The real transform fills in imagArray.
+		fft.doRealFFT(realArray, imagArray);
 
 		// See which bucket has the pitch with the most power
 		double maxPower = 0.0;
@@ -0,0 +1,218 @@
+// Guitar Tuner Application Code
+// Last Update: 10/18/26
+
+package audiostuff.apps.guitartuner;
+
+/*
+Pitch detection with the YIN algorithm of de Cheveigne and Kawahara.
+For every candidate period, or lag, tau the difference function
+
+	d(tau) = sum over the window of (x[n] - x[n - tau])^2
+
+is small when the signal repeats every tau samples. Rather than
+recomputing the whole function for each estimate, the sums are kept up
+to date one sample at a time: the term of the newest sample is added and
+the term of the sample leaving the window is taken away. An estimate can
+therefore be made after any number of new samples at a cost that does
+not depend on the window length.
+
+The difference function is normalized by its cumulative mean, the first
+dip below YINTHRESHOLD is taken as the period and parabolic
+interpolation around that dip gives a fractional period. One less the
+normalized dip is returned as the confidence of the estimate; it is near
+one for a clean periodic signal and near zero for noise or silence.
+*/
+
+public class ComputeFrequencyWithYIN {
+
+	// Dip in the normalized difference function accepted as a period
+	public static final double YINTHRESHOLD = 0.15;
+
+	// The sums are rebuilt from the history this often so that rounding
+	// error from the running updates cannot accumulate
+	private static final int RESYNCINTERVAL = 1 << 15;
+
+	/**
+	 * Class constructor
+	 *
+	 * @param int samplingRate is the rate at which the data to be
+	 * examined was sampled at.
+	 * @param double minFreq is the lowest frequency to detect
+	 * @param double maxFreq is the highest frequency to detect
+	 */
+	public ComputeFrequencyWithYIN(int samplingRate, double minFreq,
+								   double maxFreq) {
+
+		if ((minFreq <= 0) || (maxFreq <= minFreq) ||
+			(maxFreq >= samplingRate / 4.0))
+			throw new IllegalArgumentException("Invalid frequency range");
+
+		this.samplingRate = samplingRate;
+
+		// Range of periods searched. One extra lag at each end is needed
+		// for the interpolation.
+		minLag = Math.max(2, (int) (samplingRate / maxFreq));
+		maxLag = (int) Math.ceil(samplingRate / minFreq) + 1;
+
+		// The window must hold at least one period of the lowest note
+		window = maxLag;
+
+		// History must reach back a window plus the longest lag
+		int size = 1;
+		while (size < window + maxLag + 1)
+			size <<= 1;
+		history = new double[size];
+		mask = size - 1;
+
+		diff = new double[maxLag + 1];
+		cmnd = new double[maxLag + 1];
+
+		confidence = 0.0;
+	}
+
+	/**
+	 * Add samples and estimate the frequency of the most recent window
+	 *
+	 * @param double [] buffer is the buffer of new sampled data
+	 * @param int length is the number of samples in buffer
+	 *
+	 * @return double containing the frequency or -1 if too few samples
+	 * have been seen yet. getConfidence() tells how trustworthy the
+	 * estimate is.
+	 */
+	public double computeFrequency(double [] buffer, int length) {
+
+		for (int i=0; i < length; i++)
+			addSample(buffer[i]);
+
+		if (count < window + maxLag) {
+			confidence = 0.0;
+			return -1;
+		}
+		return estimate();
+	}
+
+	/**
+	 * Return the confidence of the last estimate
+	 *
+	 * @return double between 0 and 1. Higher values mean the signal was
+	 * more clearly periodic.
+	 */
+	public double getConfidence() {
+
+		return confidence;
+	}
+
+	/**
+	 * Return the number of samples the window spans
+	 *
+	 * @return int containing the window length in samples
+	 */
+	public int getWindowLength() {
+
+		return window;
+	}
+
+	// Bring the difference function up to date with one new sample
+	private void addSample(double x) {
+
+		double [] history = this.history;
+		double [] diff = this.diff;
+		int mask = this.mask;
+
+		int newest = (int) (count & mask);
+		history[newest] = x;
+
+		if (count >= window) {
+			// A sample leaves the window as this one enters it
+			int oldest = newest - window;
+			double xo = history[oldest & mask];
+			for (int tau=1; tau <= maxLag; tau++) {
+				double a = x  - history[(newest - tau) & mask];
+				double b = xo - history[(oldest - tau) & mask];
+				diff[tau] += a * a - b * b;
+			}
+		}	else	{
+			for (int tau=1; tau <= maxLag; tau++) {
+				double a = x - history[(newest - tau) & mask];
+				diff[tau] += a * a;
+			}
+		}
+		count++;
+
+		if ((++sinceResync >= RESYNCINTERVAL) && (count >= window + maxLag))
+			resync();
+	}
+
+	// Recompute the difference function from the history
+	private void resync() {
+
+		sinceResync = 0;
+
+		int newest = (int) ((count - 1) & mask);
+		for (int tau=1; tau <= maxLag; tau++) {
+			double sum = 0.0;
+			for (int i=0; i < window; i++) {
+				double a = history[(newest - i) & mask] -
+						   history[(newest - i - tau) & mask];
+				sum += a * a;
+			}
+			diff[tau] = sum;
+		}
+	}
+
+	// Pick the period from the current difference function
+	private double estimate() {
+
+		// Cumulative mean normalized difference
+		double running = 0.0;
+		cmnd[0] = 1.0;
+		for (int tau=1; tau <= maxLag; tau++) {
+			running += diff[tau];
+			cmnd[tau] = (running > 0.0) ? diff[tau] * tau / running : 1.0;
+		}
+
+		// First dip below the threshold, followed down to its minimum
+		int best = -1;
+		for (int tau=minLag; tau < maxLag; tau++) {
+			if (cmnd[tau] < YINTHRESHOLD) {
+				while ((tau + 1 < maxLag) && (cmnd[tau + 1] < cmnd[tau]))
+					tau++;
+				best = tau;
+				break;
+			}
+		}
+		// No clear dip so fall back to the deepest one
+		if (best == -1) {
+			best = minLag;
+			for (int tau=minLag + 1; tau < maxLag; tau++)
+				if (cmnd[tau] < cmnd[best])
+					best = tau;
+		}
+		confidence = Math.max(0.0, Math.min(1.0, 1.0 - cmnd[best]));
+
+		// Fit a parabola through the dip and its neighbours
+		double s0 = cmnd[best - 1];
+		double s1 = cmnd[best];
+		double s2 = cmnd[best + 1];
+		double denom = s0 - 2 * s1 + s2;
+		double period = best;
+		if (denom > 0.0)
+			period += (s0 - s2) / (2 * denom);
+
+		return samplingRate / period;
+	}
+
+	// Private class data
+	private int samplingRate;
+	private int minLag;
+	private int maxLag;
+	private int window;
+	private double [] history;		// Circular buffer of recent samples
+	private int mask;
+	private long count;				// Samples seen so far
+	private int sinceResync;
+	private double [] diff;			// Difference function by lag
+	private double [] cmnd;			// Normalized difference function
+	private double confidence;
+}
@@ -1,12 +1,13 @@
 // Guitar Tuner Application 
 // Written by: Craig A. Lindley
-// Last Update: 04/01/99
+// Last Update: 10/18/26
 
 package audiostuff.apps.guitartuner;
 
 import java.awt.*;
 import audiostuff.craigl.beans.leds.LabeledLED;
 import audiostuff.craigl.filters.*;
+import audiostuff.craigl.processors.Resampler;
 import audiostuff.craigl.scope.*;
 import audiostuff.craigl.utils.*;
 import audiostuff.craigl.winrecorder.WinRecorder;
@@ -14,9 +15,9 @@ import audiostuff.craigl.winrecorder.WinRecorder;
 public class Tuner extends AbstractAudio {
 
 	/**
-	 * This application is a tuner for guitars and basses. A fast Fourier
-	 * transform is used to determine the frequency of the vibrating open
-	 * strings. A meter and LEDs exist in the user interface to indicate
+	 * This application is a tuner for guitars and basses. The YIN pitch
+	 * detector is used to determine the frequency of the vibrating open
+	 * strings and is updated every HOPSIZE samples. A meter and LEDs exist in the user interface to indicate
 	 * the note being tuned and how close to the reference the note is.
 	 * This application is "tuned" for guitar but works for basses because
 	 * of the harmonics they generate when a string is plucked.
@@ -33,6 +34,15 @@ public class Tuner extends AbstractAudio {
 	
 	private static final double THRESHOLD		= 150.0;
 
+	// Samples read between frequency estimates, about 23 ms
+	private static final int HOPSIZE			= 256;
+
+	// Estimates less certain than this are treated as no signal
+	private static final double MINCONFIDENCE	= 0.8;
+
+	// Hops without a signal before the display is cleared
+	private static final int SILENTHOPS			= 20;
+
 	// Note tables for instruments. These are the MIDI note numbers.
 	private int [] SixStringGuitarTable	= {40, 45, 50, 55, 59, 64};
 	private int [] FourStringBassTable	= {28, 33, 38, 43};
@@ -43,6 +53,10 @@ public class Tuner extends AbstractAudio {
 
 		super("Tuner", PROCESSOR);
 
+		// The filters and the pitch detector are designed for DEFAULTSAMPLERATE. A
+		// source running at another rate is resampled to it.
+		setSamplingRate(DEFAULTSAMPLERATE);
+
 		// Get count of notes to calculate
 		int noteCount = SixStringGuitarTable.length;
 
@@ -69,11 +83,17 @@ public class Tuner extends AbstractAudio {
 			new IIRLowpassFilterDesign(cutoffFrequency, DEFAULTSAMPLERATE, 1);
 		lpfd.doFilterDesign();
 
-		// Implement the filter design
-		lowPassShelf = new IIRLowpassFilter(lpfd);
-
-		// Instantiate class which will do the frequency determination
-		cfwfft = new ComputeFrequencyWithFFT(DEFAULTSAMPLERATE);
+		// Implement the filter design. Each section keeps its own history.
+		lowPassShelf  = new IIRLowpassFilter(lpfd);
+		lowPassShelf1 = new IIRLowpassFilter(lpfd);
+
+		// Instantiate class which will do the frequency determination.
+		// Search from half an octave below the lowest note to half an
+		// octave above the highest.
+		double halfOctave = Math.sqrt(2.0);
+		yin = new ComputeFrequencyWithYIN(DEFAULTSAMPLERATE,
+						noteTable[0] / halfOctave,
+						noteTable[noteTable.length - 1] * halfOctave);
 	}
 
     /**
@@ -166,7 +186,8 @@ public class Tuner extends AbstractAudio {
 		// Is the freq greater than the highest note in the table?
 		else if (noteTable[noteTable.length - 1] <= freq) {
 			// Yes it is. Is it within range of the table's note?
-			if (calculateFrequencyDifference(0, freq) <= CENTSHALFHALFSTEP)
+			if (calculateFrequencyDifference(noteTable.length - 1, freq) <=
+				CENTSHALFHALFSTEP)
 				return noteTable.length - 1;
 			else
 				return -1;
@@ -204,72 +225,65 @@ public class Tuner extends AbstractAudio {
 	}
 	
 	/**
-	 * An infinite loop that samples the input, calculates the frequency
-	 * and updates the meter and the LEDs in the tuners UI.
+	 * A loop that samples the input, calculates the frequency and
+	 * updates the meter and the LEDs in the tuners UI. It runs until the
+	 * input runs out of samples.
 	 */
 	public void doTuner() {
 
-		double [] freqs = new double[2];
-
-		// Buffer size for approximately 1/2 second of samples
-		int sampleBufferSize = AudioConstants.SAMPLEBUFFERSIZE;
-
-		// Allocate the sample buffers
-		short [] sampleBuffer    = new short[sampleBufferSize];
-		double [] sampleBufferD  = new double [sampleBufferSize];
-		double [] sampleBufferD1 = new double [sampleBufferSize];
+		// Allocate the sample buffers for one hop
+		short [] sampleBuffer    = new short[HOPSIZE];
+		double [] sampleBufferD  = new double [HOPSIZE];
+		double [] sampleBufferD1 = new double [HOPSIZE];
 
-		// Calculate the highest note that should be considered in
-		// frequency calculations.
-		double maxFreq = noteTable[noteTable.length - 1];
+		double lastFreq = -1;
+		int silentHops = 0;
+		int lastIndex = -1;
+		int lastCents = 0;
+		boolean updateLEDState = false;
 
-		// Do forever
 		while(true) {
 			
-			// Must calculate the same frequency twice before registering
-			// a reading.
-			for (int i=0; i < 2; i++) {
-				// Load up a buffer of samples by requesting from previous
-				// processing stage.
-				previous.getSamples(sampleBuffer, sampleBufferSize);
-				
-				// Run the lowpass filters on the data
-				lowPassShelf.doFilterNoSum(sampleBuffer, sampleBufferD, sampleBufferSize);
-				lowPassShelf.doFilterNoSum(sampleBufferD, sampleBufferD1, sampleBufferSize);
-
-				// Calculate and store the frequency
-				freqs[i] = cfwfft.computeFrequency(maxFreq, sampleBufferD1);
-			}
-			// Frequencies close enough to use?
-			if (Math.abs(freqs[0] - freqs[1]) > 5)
+			// Load up a hop of samples by requesting from previous
+			// processing stage.
+			int length = previous.getSamples(sampleBuffer, HOPSIZE);
+			if (length == -1)
+				return;
+
+			// Run the lowpass filters on the data
+			lowPassShelf.doFilterNoSum(sampleBuffer, sampleBufferD, length);
+			lowPassShelf1.doFilterNoSum(sampleBufferD, sampleBufferD1, length);
+
+			// Calculate the frequency of the latest window
+			double freq = yin.computeFrequency(sampleBufferD1, length);
+
+			if ((freq == -1) || (yin.getConfidence() < MINCONFIDENCE)) {
+				// Nothing is being picked up. Turn off interface once
+				// the input has been quiet for a while.
+				lastFreq = -1;
+				if (++silentHops == SILENTHOPS) {
+					// Set meter to 0
+					tui.tuneMeter.setValue(0);
+
+					// Turn all LEDs off as well
+					setLEDsOff(indicatorLEDTable);
+					setLEDsOff(noteLEDTable);
+					lastIndex = -1;
+				}
 				continue;
+			}
+			silentHops = 0;
 
-			// Take the average of the detected frequencies
-			double freq = (freqs[0] + freqs[1]) / 2.0;
-
-			if (freq == 0.0) {
-				// Nothing is being picked up, turn off interface.
-				
-				// Set meter to 0
-				tui.tuneMeter.setValue(0);
-
-				// Turn all LEDs off as well
-				setLEDsOff(indicatorLEDTable);
-				setLEDsOff(noteLEDTable);
+			// Must calculate close to the same frequency twice in a row
+			// before registering a reading.
+			double prevFreq = lastFreq;
+			lastFreq = freq;
+			if ((prevFreq == -1) || (Math.abs(freq - prevFreq) > 5))
 				continue;
-			}
 
-			System.out.println("freq: " + freq);
+			// Take the average of the detected frequencies
+			freq = (freq + prevFreq) / 2.0;
 
-			// Blink the update LED in the UI
-			tui.updateLED.setLEDState(true);
-			
-			try {
-				Thread.currentThread().sleep(200);
-			}
-			catch(Exception e) {}
-			tui.updateLED.setLEDState(false);
-			
 			// Find the note corresponding to the frequency
 			int index = findClosestNoteIndex(freq);
 			
@@ -281,6 +295,18 @@ public class Tuner extends AbstractAudio {
 			// reference.
 			int cents = calculateFrequencyDifference(index, freq);
 
+			// Only touch the UI when the reading changes
+			if ((index == lastIndex) && (cents == lastCents))
+				continue;
+			lastIndex = index;
+			lastCents = cents;
+
+			System.out.println("freq: " + freq);
+
+			// Toggle the update LED in the UI
+			updateLEDState = !updateLEDState;
+			tui.updateLED.setLEDState(updateLEDState);
+			
 			// Update the UI components with the results of the calculations
 			
 			// First the meter
@@ -337,6 +363,9 @@ public class Tuner extends AbstractAudio {
 			Tuner tuner = new Tuner();
 			ll.addElement(tuner);
 
+			// Convert the recorder's samples to the tuner's rate if needed
+			Resampler.insertWhereNeeded(ll);
+
 			// Run the tuner code 
 			tuner.doTuner();
 		}
@@ -346,9 +375,10 @@ public class Tuner extends AbstractAudio {
 	private static TunerUI tui;
 	private static double [] noteTable;
 	private IIRLowpassFilter lowPassShelf;
+	private IIRLowpassFilter lowPassShelf1;
 	
     private LabeledLED [] indicatorLEDTable;
     private LabeledLED [] noteLEDTable;
-	private ComputeFrequencyWithFFT cfwfft;
+	private ComputeFrequencyWithYIN yin;
 }
 
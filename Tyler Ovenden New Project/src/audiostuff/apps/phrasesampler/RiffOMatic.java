@@ -1,21 +1,20 @@
 // RiffOMatic Phrase Sampler Application 
 // Written by: Craig A. Lindley
-// Last Update: 02/13/99
+// Last Update: 10/18/26
 
 package audiostuff.apps.phrasesampler;
 
 import java.awt.Color;
 import audiostuff.craigl.utils.*;
-import audiostuff.craigl.processors.PitchShifterWithUI;
+import audiostuff.craigl.processors.PhaseVocoder;
 import audiostuff.craigl.winrecorder.WinRecorder;
 import audiostuff.craigl.winplayer.WinPlayer;
 
 /*
-Half speed playback at normal pitch is accomplished by using the
-pitch shifter to shift the program material up one octave and then
-doubling the number of samples. The PitchShifterWithUI class is used
-to shift the pitch and the inner class, SampleDouble, is used to double
-the number of samples.
+Practice speed playback at normal pitch is accomplished by time
+stretching the program material with a PhaseVocoder. The speed is set
+in percent of full speed with the practice speed pot and may be changed
+while the phrase is playing.
 */
 
 public class RiffOMatic extends AbstractAudio {
@@ -23,73 +22,6 @@ public class RiffOMatic extends AbstractAudio {
 	// Sample at 11025 samples/second
 	private static final int DEFAULTSAMPLERATE = 11025;
 	
-	// Inner class for doubling (and interpolating) samples.
-	// First sample is normal and the second
-	// sample is the average of the first and second sample.
-	private static class SampleDoubler extends AbstractAudio {
-
-		public SampleDoubler() {
-
-			super("SampleDoubler", PROCESSOR);
-
-			// Allocate local sample buffer
-			localBuffer = new short[AudioConstants.SAMPLEBUFFERSIZE];
-
-			availableSamples = 0;
-			sampleIndex = 0;
-		}
-
-		// Method needed for AbstractAudio interface
-		public int getSamples(short [] buffer, int length) {
-
-			// Don't perform processing if stage is bypassed
-			if (getByPass())
-				return previous.getSamples(buffer, length);
-
-			// Fill output buffer with length number of samples
-			for (int i=0; i < length; i++) {
-				// See if samples are available from previous stage
-				if (availableSamples == 0) {
-					sampleIndex = 0;
-					availableSamples = 
-						previous.getSamples(localBuffer, AudioConstants.SAMPLEBUFFERSIZE);
-				}
-				// Was EOF found ?
-				if (availableSamples == -1) {
-					// EOF was detected, reset variables
-					availableSamples = 0;
-					sampleIndex = 0;
-
-					// Return EOF indication
-					return -1;
-				}
-				// Process even and odd samples differently
-				if ((i % 2) == 0) { 
-					// Even index so move sample from source to destination
-					buffer[i] = localBuffer[sampleIndex];
-				}	else	{
-					// Odd index so create new sample by interpolation
-					
-					// Keep second index in range.
-					int sample1Index = sampleIndex + 1;
-					if (sample1Index == AudioConstants.SAMPLEBUFFERSIZE)
-						sample1Index--;
-
-					buffer[i] = (short)(((int) localBuffer[sampleIndex] + 
-										 (int) localBuffer[sample1Index]) / 2);
-					// Update counts and indices
-					sampleIndex++;
-					availableSamples--;
-				}
-			}
-			return length;
-		}
-		// Private class data
-		private short [] localBuffer;
-		private int availableSamples;
-		private int sampleIndex;
-	}
-	
 	// Class constructor
 	public RiffOMatic() {
 
@@ -107,6 +39,16 @@ public class RiffOMatic extends AbstractAudio {
 		loopingMode = false;
 	}
 
+	// Process a change of the practice speed pot
+	public void practiceSpeedChanged(int percent) {
+
+		practiceSpeed = percent;
+
+		// Takes effect at once if practice playback is under way
+		if (pv != null)
+			pv.setTimeStretch(100.0 / percent);
+	}
+
 	// Process a change of the sample duration pot
 	public void sampleDurationChanged(int valueInSeconds) {
 
@@ -249,17 +191,15 @@ public class RiffOMatic extends AbstractAudio {
 	// Do full speed playback
 	public void fullSpeedPlayButtonPressed() {
 
-		pswui.setByPass(true);
-		sd.setByPass(true);
+		pv.setByPass(true);
 		doPlayBack();
 	}
 
-	// Do half speed playback
-	public void halfSpeedPlayButtonPressed() {
+	// Do practice speed playback
+	public void practiceSpeedPlayButtonPressed() {
 
-		pswui.setPitchShift(12);
-		pswui.setByPass(false);
-		sd.setByPass(false);
+		pv.setTimeStretch(100.0 / practiceSpeed);
+		pv.setByPass(false);
 		doPlayBack();
 	}
 
@@ -313,24 +253,12 @@ public class RiffOMatic extends AbstractAudio {
 		// Create the sampler source and link it in
 		ll.addElement(new RiffOMatic());
 
-		// Create the pitch shifter processor
-		pswui = new PitchShifterWithUI();
-		
-		// Configure the pitch shifter
-		pswui.setDryLevel(0);
-		pswui.setWetLevel(100);
-		pswui.setFeedbackLevel(0);
-		pswui.setByPass(true);
-		
-		// Link in the pitch shifter
-		ll.addElement(pswui);
-
-		// Create sample doubler
-		sd = new SampleDoubler();
-		sd.setByPass(true);
+		// Create the time stretcher for practice speed playback
+		pv = new PhaseVocoder();
+		pv.setByPass(true);
 		
-		// Link in the sample doubler
-		ll.addElement(sd);
+		// Link in the time stretcher
+		ll.addElement(pv);
 
 		// Create a player
 		winplayer = new WinPlayer();
@@ -343,8 +271,7 @@ public class RiffOMatic extends AbstractAudio {
 	private static WinRecorder recorder;
 	private static RiffOMaticUI romui;
 	private static WinPlayer winplayer;
-	private static PitchShifterWithUI pswui;
-	private static SampleDoubler sd;
+	private static PhaseVocoder pv;
 	
 	private Object lock = new Object();
 	private boolean loopingMode;
@@ -356,5 +283,6 @@ public class RiffOMatic extends AbstractAudio {
 	private short [] sampleBuffer;
 	private int bufferCount;
 	private double meterGranularity;
+	private int practiceSpeed = RiffOMaticUI.DEFAULTPRACTICESPEED;
 }
 
@@ -1,6 +1,6 @@
 // RiffOMatic Phrase Sampler Application User Interface
 // Written by: Craig A. Lindley
-// Last Update: 11/09/99
+// Last Update: 10/18/26
 
 package audiostuff.apps.phrasesampler;
 
@@ -25,6 +25,11 @@ public class RiffOMaticUI extends BaseUI implements CloseableFrameIF {
 	public static final int MAXSAMPLETIMEINSECONDS	   = 30;
 	public static final int DEFAULTSAMPLETIMEINSECONDS = 20;
 
+	// Practice speed in percent of full speed
+	public static final int MINPRACTICESPEED	 =  25;
+	public static final int MAXPRACTICESPEED	 = 100;
+	public static final int DEFAULTPRACTICESPEED =  50;
+
 	public RiffOMaticUI(RiffOMatic rom) {
 		
 		super("Phrase Sampler", null);
@@ -195,7 +200,7 @@ public class RiffOMaticUI extends BaseUI implements CloseableFrameIF {
 		
 		Panel p = new Panel();
 		Box box = new Box(p, "Playback");
-		p.setLayout(new GridLayout(3, 1));
+		p.setLayout(new GridLayout(4, 1));
 
 		// Add the normal speed play button
 		SquareButton fsp = createLabeledButton(false, "Full Speed");
@@ -210,18 +215,41 @@ public class RiffOMaticUI extends BaseUI implements CloseableFrameIF {
 		});
 		p.add(fsp);
 		
-		// Add the 1/2 speed play button
-		SquareButton hsp = createLabeledButton(false, "1/2 Speed");
+		// Add the practice speed play button
+		SquareButton psp = createLabeledButton(false, "Practice");
 		
 		// Install an action listener which will be signalled
 		// everytime this button is clicked.
-		hsp.addActionListener(new ActionListener () {
+		psp.addActionListener(new ActionListener () {
 			public void actionPerformed(ActionEvent e) {
 				if (e.getActionCommand().equals("ON"))
-					rom.halfSpeedPlayButtonPressed();
+					rom.practiceSpeedPlayButtonPressed();
+			}
+		});
+		p.add(psp);
+
+		// Create the practice speed pot
+		final IntValuedPot practiceSpeedPot = 
+			createPot(AudioConstants.KNOBSIZE,
+						"Practice Speed", 
+						"" + MINPRACTICESPEED + "%, , , , , , , , , ," +
+						MAXPRACTICESPEED + "%",
+						MAXPRACTICESPEED, MINPRACTICESPEED);
+
+		practiceSpeedPot.setPanelColor(PANELCOLOR);
+		practiceSpeedPot.setKnobColor(KNOBCOLOR);
+		practiceSpeedPot.setTextColor(LETTERCOLOR);
+		p.add(practiceSpeedPot);
+
+		// Set the default value
+		practiceSpeedPot.setIntValue(DEFAULTPRACTICESPEED);
+		
+		// Add listener to this pot
+		practiceSpeedPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				rom.practiceSpeedChanged(practiceSpeedPot.getIntValue());
 			}
 		});
-		p.add(hsp);
 
 		// Add the single/loop mode button
 		SquareButton mode = createLabeledButton(true, "Looping");
@@ -1,73 +1,82 @@
 // AU File Writer Class
 // Written by: Craig A. Lindley
-// Last Update: 09/03/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.au;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 import audiostuff.craigl.utils.*;
 
 public class AUWrite implements FileWriterIF {
 
+	// Size of the header written
+	private static final int AUHDRSIZE = 28;
+
+	// Data size value meaning the size is unknown
+	private static final long UNKNOWNSIZE = 0xFFFFFFFFL;
+
 	public AUWrite(String fileName, int sampleRate, int numberOfChannels) {
 
 		// Save incoming
 		this.fileName = fileName;
 		this.sampleRate = sampleRate;
 		this.numberOfChannels = numberOfChannels;
+	}
 
-		// Create buffer for reading samples
-		sampleBuffer = new short[AudioConstants.SAMPLEBUFFERSIZE];
-		
-		// Create byte buffer for converting data
-		sampleBufferBytes = new byte[AudioConstants.SAMPLEBUFFERSIZE * 2];
+	public AUWrite(String fileName, int sampleRate, int numberOfChannels,
+				   boolean writeBehind) {
+
+		this(fileName, sampleRate, numberOfChannels);
+
+		this.writeBehind = writeBehind;
 	}
 
 	// Write the incoming samples into a 16 bit AU file
 	// Writing terminates when samples are exhausted
+	// Files with more data than the header can describe are marked as
+	// having an unknown data size, meaning the data runs to end of file
 	public boolean writeFile(AbstractAudio aa) {
 
-		// Open output stream
+		// Find the block size of the signal chain before the file is
+		// created
+		int blockSize = aa.getBlockSize();
+		if (blockSize == -1)
+			return false;
+
+		BufferedSampleWriter writer = null;
+
+		// Open output channel
 		try {
 			out = new RandomAccessFile(fileName, "rw");
-		
-			// Specified file is now open for writing
-			// Create AU file header with zero data length
-			byte [] header = build16BitAuHeader(sampleRate, numberOfChannels, 0);
-				
-			// Write the header to the file
-			out.write(header);
+			out.setLength(0);
+			FileChannel fc = out.getChannel();
 
-			// Now write all the file data
-			int totalBytes =0;
+			// Leave room for the header. It is written once the data
+			// length is known.
+			fc.position(AUHDRSIZE);
+			writer = new BufferedSampleWriter(fc, ByteOrder.BIG_ENDIAN, writeBehind);
+
+			// Create buffer for reading samples
+			// sized by the block size of the signal chain
+			sampleBuffer = new short[blockSize];
 
-			// Read first buffer of samples
-			int length = aa.previous.getSamples(sampleBuffer, AudioConstants.SAMPLEBUFFERSIZE);
-			
+			// Now write all the file data
+			int length = aa.previous.getSamples(sampleBuffer, blockSize);
 			while (length > 0) {
-				int index=0;
-				for (int i=0; i < length; i++) {
-					short sample = sampleBuffer[i];
-					sampleBufferBytes[index++] = (byte) (sample >> 8);
-					sampleBufferBytes[index++] = (byte) (sample & 255);
-				}
-				// Write bytes to output file
-				out.write(sampleBufferBytes, 0, length * 2);
-				
-				// Update total byte count
-				totalBytes += length * 2;
-				
+				writer.write(sampleBuffer, length);
+
 				// Read the next buffer full
-				length = aa.previous.getSamples(sampleBuffer, AudioConstants.SAMPLEBUFFERSIZE);
+				length = aa.previous.getSamples(sampleBuffer, blockSize);
 			}
-			// Go back to the start of the file and rewrite header
-			out.seek(0);
+			writer.close();
 
-			// New header has correct audio byte count
-			header = build16BitAuHeader(sampleRate, numberOfChannels, totalBytes);
-				
-			// Write the header to the file
-			out.write(header);
+			// Write header with correct audio byte count
+			long totalBytes = Math.min(writer.getBytesWritten(), UNKNOWNSIZE);
+			byte [] header =
+				build16BitAuHeader(sampleRate, numberOfChannels, (int) totalBytes);
+			writer.writeAt(ByteBuffer.wrap(header), 0);
 
 			// All done
 			out.close();
@@ -77,6 +86,18 @@ public class AUWrite implements FileWriterIF {
 			System.out.println(ioe.getMessage());
 			return false;
 		}
+		finally {
+			// Stop the write behind thread before the file is closed if
+			// writing failed part way
+			if (writer != null)
+				writer.abort();
+
+			try {
+				if (out != null)
+					out.close();
+			}
+			catch(IOException e) {}
+		}
 	}
 
 	// Synthesize an AU file header for writing to the file
@@ -137,8 +158,8 @@ public class AUWrite implements FileWriterIF {
 	private String fileName;
 	private int sampleRate;
 	private int numberOfChannels;
+	private boolean writeBehind;
 	private short [] sampleBuffer;
-	private byte  [] sampleBufferBytes;
 	private RandomAccessFile out;
 }
 
@@ -0,0 +1,184 @@
+// MappedAURead Class for reading AU files through memory mapping
+// Last Update: 10/18/26
+
+package audiostuff.craigl.au;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Reads AU files like AURead does but maps the sample data of the file
+ * into memory instead of reading it through a stream. The samples are
+ * copied out of the mapping by a MappedDecoder so large files are read
+ * without a system call per buffer, and seek() can move to any sample in
+ * constant time.
+ */
+public class MappedAURead extends AudioFileDecoder {
+
+	// Data size value meaning the size is unknown
+	private static final long UNKNOWNSIZE = 0xFFFFFFFFL;
+
+	public MappedAURead(String fileName, ReadCompleteIF readCompleteIF) {
+		super(fileName, readCompleteIF);
+
+		o("AU File: " + fileName);
+
+		raf = null;
+		decoder = null;
+	}
+
+	// Provide samples to subsequent stages of processing
+	public int getSamples(short [] buffer, int length) {
+
+		if (decoder == null) {
+			// Attempt to initialize decoder
+			if (!initializeDecoder())
+				return -1;
+		}
+		// Read samples through the decoder
+		int samplesRead = decoder.getSamples(buffer, length);
+
+		// See if we have reached the end of the samples
+		if (samplesRead <= 0) {
+			// Close file and prepare for it to be reopened
+			close();
+			decoder = null;
+
+			// Do call back for signaling
+			if (readCompleteIF != null)
+				readCompleteIF.signalReadComplete();
+		}
+		return samplesRead;
+	}
+
+	/**
+	 * Move to a sample offset in the file. The next getSamples call
+	 * returns samples starting there.
+	 *
+	 * @param long sampleOffset is the offset of the sample to move to. It
+	 * should be a multiple of the number of channels.
+	 *
+	 * @return boolean true if the file could be positioned
+	 */
+	public boolean seek(long sampleOffset) {
+
+		if (!initializeDecoder())
+			return false;
+
+		((MappedDecoder) decoder).seek(sampleOffset);
+		return true;
+	}
+
+	/**
+	 * Return the number of samples in the file
+	 *
+	 * @return long containing the sample count or -1 if the file cannot
+	 * be read.
+	 */
+	public long getTotalSamples() {
+
+		if (!initializeDecoder())
+			return -1;
+
+		return ((MappedDecoder) decoder).getTotalSamples();
+	}
+
+	// Stage told to reset
+	public void reset() {
+
+		if (raf != null) {
+			// Close file and prepare for it to be reopened
+			close();
+			decoder = null;
+
+			// Do call back for signaling
+			if (readCompleteIF != null)
+				readCompleteIF.signalReadComplete();
+		}
+	}
+
+	// Read AU file header and map the data with the appropriate decoder
+	public boolean initializeDecoder() {
+
+		// See if we have a decoder already
+		if (decoder != null)
+			return true;
+
+		try {
+			raf = new RandomAccessFile(fileName, "r");
+			FileChannel fc = raf.getChannel();
+
+			// Read the whole header. AU files are big endian.
+			ByteBuffer bb = ByteBuffer.allocate(24);
+			while (bb.hasRemaining()) {
+				if (fc.read(bb, bb.position()) < 0)
+					throw new EOFException("Unexpected end of file");
+			}
+			long signature = bb.getInt(0) & 0xFFFFFFFFL;
+
+			if (signature != chunkName('.','s','n','d')) {
+				close();
+				return false;
+			}
+			// Read the header information
+			offset				= bb.getInt(4) & 0xFFFFFFFFL;
+			totalBytes			= bb.getInt(8) & 0xFFFFFFFFL;
+			format				= bb.getInt(12);
+			sampleRate			= bb.getInt(16);
+			numberOfChannels	= bb.getInt(20);
+
+			// An unknown size means the data runs to the end of the file
+			if (totalBytes == UNKNOWNSIZE)
+				totalBytes = fc.size() - offset;
+
+			// Now select appropriate decoder
+			if (format == 1) {
+				// Mu-law format
+				decoder = new DecodeMappedPcm8(fc, offset, totalBytes,
+					DecodeMappedPcm8.MULAW);
+			}
+			else if (format == 2) {
+				// 8 bit linear PCM format
+				decoder = new DecodeMappedPcm8(fc, offset, totalBytes,
+					DecodeMappedPcm8.SIGNED);
+			}
+			else if (format == 3) {
+				// 16 bit linear PCM format
+				decoder = new DecodeMappedPcm16(fc, offset, totalBytes / 2,
+					ByteOrder.BIG_ENDIAN);
+			}
+			else	{
+				o("Don't support AU format: " +  format);
+				close();
+				return false;
+			}
+			// Signal all is well
+			return true;
+		}
+		catch(IOException ioe) {
+			o(ioe.getMessage());
+			close();
+			return false;
+		}
+	}
+
+	// Close the file ignoring errors
+	private void close() {
+
+		if (raf != null) {
+			try {
+				raf.close();
+			}
+			catch(IOException ioe) {}
+			raf = null;
+		}
+	}
+
+	// Private class data
+	private RandomAccessFile raf;
+	private long offset;
+	private long totalBytes;
+	private int  format;
+}
@@ -0,0 +1,477 @@
+// Batch Render Application
+// Last Update: 10/18/26
+
+package audiostuff.craigl.batch;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.au.*;
+import audiostuff.craigl.wave.*;
+import audiostuff.craigl.processors.Resampler;
+
+/**
+ * Renders WAV and AU files through a chain of processors without any user
+ * interface. Every file gets its own instance of the chain, made up of a
+ * memory mapped file reader, the processors named on the command line and
+ * a sink that writes the result with WaveWrite or AUWrite. The files are
+ * rendered in parallel on a fork join pool with one thread per processor
+ * core unless told otherwise.
+ *
+ * For every file the time taken and the realtime factor, the length of
+ * the audio divided by the time taken to render it, are reported. When
+ * all files are done the aggregate realtime factor, the total length of
+ * audio divided by the elapsed time, is reported.
+ *
+ * Usage:
+ *
+ *	java audiostuff.craigl.batch.BatchRender [options] -p processors -o dir inputs
+ *
+ *	-p aadj chorus ...	the processors of the chain in order. Processor
+ *						names are those of AudioTest plus convreverb=file,
+ *						a convolution reverb using the impulse response
+ *						in file. Processor names continue until the next
+ *						option.
+ *	-o dir				directory the rendered files are written to
+ *	-threads n			number of files to render at once
+ *	-writebehind		write output files on a separate thread
+ *	-stats n			time every stage of the chains and print the
+ *						figures every n seconds and at the end. With n
+ *						of 0 they are printed only at the end. See
+ *						Instrumentation.
+ *	inputs				files, directories or file name patterns such as
+ *						takes/*.wav. Directories are searched for WAV and
+ *						AU files.
+ *
+ * The rendered files have the same names and formats as the input files.
+ */
+public class BatchRender {
+
+	private static final String USAGE =
+		"\nBatchRender cmd line arguments are as follows:\n" +
+		"\t[-threads n] [-writebehind] [-stats n] -p (processor)+ -o dir (file | dir | pattern)+\n" +
+		"Processors are:\n" +
+		"\taadj cache chorus compexp delay distortion eq peq pan phaser\n" +
+		"\tpshift reverb fdnreverb dynamics convreverb=file";
+
+	// Processor names and the headless processors they stand for
+	private static final String [][] PROCESSORS = {
+		{"aadj",		"audiostuff.craigl.processors.AmplitudeAdjust"},
+		{"cache",		"audiostuff.craigl.processors.Cache"},
+		{"chorus",		"audiostuff.craigl.processors.Chorus"},
+		{"compexp",		"audiostuff.craigl.processors.CompExp"},
+		{"delay",		"audiostuff.craigl.processors.Delay"},
+		{"distortion",	"audiostuff.craigl.processors.Distortion"},
+		{"eq",			"audiostuff.craigl.processors.GraphicEQ"},
+		{"peq",			"audiostuff.craigl.processors.ParametricEQ"},
+		{"pan",			"audiostuff.craigl.processors.Panner"},
+		{"phaser",		"audiostuff.craigl.processors.Phaser"},
+		{"pshift",		"audiostuff.craigl.processors.PitchShifter"},
+		{"reverb",		"audiostuff.craigl.processors.Reverb"},
+		{"fdnreverb",	"audiostuff.craigl.processors.FDNReverb"},
+		{"dynamics",	"audiostuff.craigl.processors.Dynamics"},
+		{"convreverb",	"audiostuff.craigl.processors.ConvolutionReverb"},
+	};
+
+	/**
+	 * BatchRender class constructor
+	 *
+	 * @param String [] processors holds the processor names of the chain
+	 * in order. A name may be followed by =argument.
+	 * @param File outputDirectory is the directory to write to
+	 * @param int threads is the number of files to render at once
+	 * @param boolean writeBehind is true to write files on a separate
+	 * thread
+	 *
+	 * @throws IllegalArgumentException if a processor name is unknown
+	 */
+	public BatchRender(String [] processors, File outputDirectory,
+					   int threads, boolean writeBehind) {
+
+		// Check the chain before any file is touched
+		for (int i=0; i < processors.length; i++)
+			lookUp(processors[i]);
+
+		if (threads < 1)
+			throw new IllegalArgumentException("Thread count must be at least 1");
+
+		// Save incoming
+		this.processors = processors;
+		this.outputDirectory = outputDirectory;
+		this.threads = threads;
+		this.writeBehind = writeBehind;
+	}
+
+	/**
+	 * Time every stage of the chains. See Instrumentation.
+	 *
+	 * @param boolean instrumented is true to put probes in the chains
+	 */
+	public void setInstrumented(boolean instrumented) {
+
+		this.instrumented = instrumented;
+	}
+
+	/**
+	 * Render files and report on each as it completes
+	 *
+	 * @param File [] files holds the files to render
+	 *
+	 * @return boolean true if every file was rendered
+	 */
+	public boolean render(File [] files) {
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Job [] jobs = new Job[files.length];
+
+		long start = System.nanoTime();
+		for (int i=0; i < files.length; i++) {
+			jobs[i] = new Job(files[i]);
+			pool.execute(jobs[i]);
+		}
+		pool.shutdown();
+		try {
+			while (!pool.awaitTermination(1, TimeUnit.SECONDS))
+				;
+		}
+		catch(InterruptedException ie) {
+			pool.shutdownNow();
+			return false;
+		}
+		double elapsed = (System.nanoTime() - start) / 1.0e9;
+
+		// Sum up
+		boolean allRendered = true;
+		double audioSeconds = 0;
+		double renderSeconds = 0;
+		for (int i=0; i < jobs.length; i++) {
+			if (jobs[i].rendered) {
+				audioSeconds += jobs[i].audioSeconds;
+				renderSeconds += jobs[i].renderSeconds;
+			}
+			else
+				allRendered = false;
+		}
+		System.out.println(String.format(
+			"Files: %d, audio: %.1f s, elapsed: %.2f s, threads: %d, " +
+			"%.1fx realtime (%.1fx per thread)",
+			new Object[] {new Integer(files.length), new Double(audioSeconds),
+				new Double(elapsed), new Integer(threads),
+				new Double(audioSeconds / elapsed),
+				new Double(audioSeconds / renderSeconds)}));
+
+		return allRendered;
+	}
+
+	/**
+	 * Render one file through a new instance of the chain
+	 *
+	 * @param Job job holds the file to render and receives the results
+	 */
+	protected void render(Job job) {
+
+		String inName = job.file.getPath();
+		File outFile = new File(outputDirectory, job.file.getName());
+		String outName = outFile.getPath();
+
+		// Choose reader and writer by the file's contents
+		AbstractAudio reader;
+		long totalSamples;
+		boolean isWave = MappedWaveRead.isWaveFile(inName);
+		if (isWave) {
+			MappedWaveRead mwr = new MappedWaveRead(inName, null);
+			totalSamples = mwr.getTotalSamples();
+			reader = mwr;
+		}
+		else {
+			MappedAURead mar = new MappedAURead(inName, null);
+			totalSamples = mar.getTotalSamples();
+			reader = mar;
+		}
+		if (totalSamples < 0) {
+			job.message = "can't read file";
+			return;
+		}
+
+		// Build the chain
+		LinkedListVector chain = new LinkedListVector();
+		chain.addElement(reader);
+		try {
+			for (int i=0; i < processors.length; i++)
+				chain.addElement(createProcessor(processors[i]));
+		}
+		catch(Exception e) {
+			job.message = "can't create processor: " + e;
+			return;
+		}
+		RenderSink sink = new RenderSink();
+		chain.addElement(sink);
+
+		// Convert rates for devices that need one of their own
+		Resampler.insertWhereNeeded(chain);
+
+		if (instrumented)
+			Instrumentation.instrument(chain);
+
+		if (!sink.negotiateParameters()) {
+			job.message = "can't negotiate format";
+			return;
+		}
+		int sampleRate = sink.getSamplingRate();
+		int channels = sink.getNumberOfChannels();
+
+		FileWriterIF writer;
+		if (isWave)
+			writer = new WaveWrite(outName, sampleRate, channels, writeBehind);
+		else
+			writer = new AUWrite(outName, sampleRate, channels, writeBehind);
+
+		long start = System.nanoTime();
+		if (!writer.writeFile(sink)) {
+			job.message = "can't write " + outName;
+			return;
+		}
+		job.renderSeconds = (System.nanoTime() - start) / 1.0e9;
+		job.audioSeconds = (double) totalSamples / channels / sampleRate;
+		job.rendered = true;
+	}
+
+	// Create a processor from its name
+	private static AbstractAudio createProcessor(String spec) throws Exception {
+
+		String className = lookUp(spec);
+		Class<?> c = Class.forName(className);
+
+		int index = spec.indexOf('=');
+		if (index == -1)
+			return (AbstractAudio) c.newInstance();
+
+		// Pass the argument to the constructor taking a string
+		return (AbstractAudio) c.getConstructor(new Class<?>[] {String.class}).
+			newInstance(new Object[] {spec.substring(index + 1)});
+	}
+
+	// Return the class name of a processor given its name
+	private static String lookUp(String spec) {
+
+		int index = spec.indexOf('=');
+		String name = (index == -1) ? spec : spec.substring(0, index);
+
+		for (int i=0; i < PROCESSORS.length; i++)
+			if (PROCESSORS[i][0].equalsIgnoreCase(name))
+				return PROCESSORS[i][1];
+
+		throw new IllegalArgumentException("Unknown processor: " + name);
+	}
+
+	/**
+	 * Expand a command line input into the files it names. A directory
+	 * names the WAV and AU files in it and a name containing wildcards
+	 * names the matching files in its directory.
+	 *
+	 * @param String input is the file, directory or pattern
+	 * @param Vector<File> files receives the files found
+	 */
+	public static void expand(String input, Vector<File> files) {
+
+		File f = new File(input);
+		if (f.isFile()) {
+			files.addElement(f);
+			return;
+		}
+
+		PathMatcher matcher;
+		if (f.isDirectory())
+			matcher = FileSystems.getDefault().getPathMatcher(
+				"glob:*.{wav,WAV,au,AU}");
+		else {
+			matcher = FileSystems.getDefault().getPathMatcher(
+				"glob:" + f.getName());
+			f = f.getAbsoluteFile().getParentFile();
+		}
+
+		String [] names = (f == null) ? null : f.list();
+		if (names == null)
+			return;
+
+		Arrays.sort(names);
+		for (int i=0; i < names.length; i++) {
+			File file = new File(f, names[i]);
+			if (file.isFile() && matcher.matches(Paths.get(names[i])))
+				files.addElement(file);
+		}
+	}
+
+	/**
+	 * Batch render entry point
+	 */
+	public static void main(String [] args) {
+
+		Vector<String> processorList = new Vector<String>();
+		Vector<File> inputs = new Vector<File>();
+		File outputDirectory = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean writeBehind = false;
+		int statsPeriod = -1;
+
+		for (int i=0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-writebehind"))
+				writeBehind = true;
+
+			else if (arg.equals("-p")) {
+				// Processors continue until the next option
+				while ((i + 1 < args.length) && !args[i + 1].startsWith("-"))
+					processorList.addElement(args[++i]);
+			}
+			else if (!arg.startsWith("-"))
+				expand(arg, inputs);
+
+			else if (i + 1 >= args.length) {
+				System.out.println("Missing value for " + arg);
+				System.exit(1);
+			}
+			else if (arg.equals("-o"))
+				outputDirectory = new File(args[++i]);
+			else if (arg.equals("-threads"))
+				threads = Integer.parseInt(args[++i]);
+			else if (arg.equals("-stats"))
+				statsPeriod = Integer.parseInt(args[++i]);
+			else {
+				System.out.println("Unknown option " + arg);
+				System.out.println(USAGE);
+				System.exit(1);
+			}
+		}
+
+		if (outputDirectory == null) {
+			System.out.println("Output directory must be given with -o");
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			System.out.println("Can't create " + outputDirectory);
+			System.exit(1);
+		}
+		if (inputs.size() == 0) {
+			System.out.println("No input files found");
+			System.exit(1);
+		}
+
+		String [] processors = new String[processorList.size()];
+		processorList.copyInto(processors);
+		File [] files = new File[inputs.size()];
+		inputs.copyInto(files);
+
+		BatchRender br = null;
+		try {
+			br = new BatchRender(processors, outputDirectory,
+								 Math.min(threads, files.length), writeBehind);
+		}
+		catch(IllegalArgumentException iae) {
+			System.out.println(iae.getMessage());
+			System.out.println(USAGE);
+			System.exit(1);
+		}
+		if (statsPeriod >= 0) {
+			br.setInstrumented(true);
+			if (statsPeriod > 0)
+				Instrumentation.startDump(statsPeriod, System.out);
+		}
+		boolean rendered = br.render(files);
+
+		if (statsPeriod >= 0) {
+			Instrumentation.stopDump();
+			Instrumentation.dump(System.out);
+		}
+		System.exit(rendered ? 0 : 1);
+	}
+
+	/**
+	 * Rendering of one file. Prints its result when done.
+	 */
+	protected class Job implements Runnable {
+
+		public Job(File file) {
+
+			this.file = file;
+		}
+
+		public void run() {
+
+			try {
+				render(this);
+			}
+			catch(RuntimeException re) {
+				message = re.toString();
+			}
+
+			if (rendered)
+				System.out.println(String.format("%-32s %8.1f s audio %8.2f s %8.1fx realtime",
+					new Object[] {file.getName(), new Double(audioSeconds),
+						new Double(renderSeconds),
+						new Double(audioSeconds / renderSeconds)}));
+			else
+				System.out.println(String.format("%-32s failed: %s",
+					new Object[] {file.getName(), message}));
+		}
+
+		public File file;
+		public boolean rendered;
+		public String message;
+		public double audioSeconds;
+		public double renderSeconds;
+	}
+
+	// Private class data
+	private String [] processors;
+	private File outputDirectory;
+	private int threads;
+	private boolean writeBehind;
+	private boolean instrumented;
+}
+
+/**
+ * Sink device for the end of a render chain. It takes on the format of
+ * the file being read, whatever its sampling rate, and hands the chain to
+ * a file writer.
+ */
+class RenderSink extends AbstractAudio {
+
+	public RenderSink() {
+
+		super("Render Sink", SINK);
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		return previous.getSamples(buffer, length);
+	}
+
+	// Negotiate the format of the chain. Unlike the default negotiation
+	// a failure is returned rather than ending the application.
+	public boolean negotiateParameters() {
+
+		MyInt channelsMin = new MyInt(1);
+		MyInt channelsMax = new MyInt(AudioConstants.MAXCHANNELS);
+		MyInt channelsPreferred = new MyInt(1);
+
+		minMaxChannels(channelsMin, channelsMax, channelsPreferred);
+		if (channelsMin.getValue() > channelsMax.getValue())
+			return false;
+
+		MyInt rateMin = new MyInt(1);
+		MyInt rateMax = new MyInt(Integer.MAX_VALUE);
+		MyInt ratePreferred = new MyInt(44100);
+
+		minMaxSamplingRate(rateMin, rateMax, ratePreferred);
+		if (rateMin.getValue() > rateMax.getValue())
+			return false;
+
+		setChannelsRecursive(channelsPreferred.getValue());
+		setSamplingRateRecursive(ratePreferred.getValue());
+		return true;
+	}
+}
@@ -0,0 +1,61 @@
+// Benchmark Target Base Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+/**
+ * Base class for everything the ProcessorBenchmark can measure. A target
+ * is set up once for each combination of sampling rate, number of channels
+ * and block size and is then asked to process one block at a time.
+ */
+public abstract class BenchmarkTarget {
+
+	/**
+	 * BenchmarkTarget class constructor
+	 *
+	 * @param String name is the name displayed in benchmark reports
+	 */
+	public BenchmarkTarget(String name) {
+
+		this.name = name;
+	}
+
+	/**
+	 * Return the name of this target
+	 *
+	 * @return String containing the target's name
+	 */
+	public String getName() {
+
+		return name;
+	}
+
+	/**
+	 * Prepare the target for a run. Anything that allocates should be
+	 * done here rather than in processBlock().
+	 *
+	 * @param int sampleRate is the sampling rate to run at
+	 * @param int numberOfChannels is the number of channels to run with
+	 * @param int blockSize is the number of samples per block
+	 *
+	 * @throws UnsupportedOperationException if the target cannot run in
+	 * this environment or configuration.
+	 */
+	public abstract void setUp(int sampleRate, int numberOfChannels,
+							   int blockSize) throws Exception;
+
+	/**
+	 * Process one block of samples
+	 *
+	 * @return int containing the number of samples processed
+	 */
+	public abstract int processBlock();
+
+	/**
+	 * Release anything acquired by setUp(). The default does nothing.
+	 */
+	public void tearDown() {}
+
+	// Private class data
+	private String name;
+}
@@ -0,0 +1,171 @@
+// Decoder Benchmark Target Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Benchmark target for the file decoders in the utils package. During set
+ * up one second of the test signal is encoded into a temporary file, which
+ * the selected decoder then reads over and over, one block per call. With
+ * the allocation column of the report this shows whether a decoder
+ * allocates in its steady state.
+ */
+public class DecoderTarget extends BenchmarkTarget {
+
+	// The decoders this target can measure
+	public static final int PCM8SIGNED		= 0;
+	public static final int PCM8UNSIGNED	= 1;
+	public static final int PCM16BE			= 2;
+	public static final int PCM16LE			= 3;
+	public static final int MULAW			= 4;
+	public static final int MAPPEDPCM16LE	= 5;
+
+	// Names of the decoders above
+	private static final String [] NAMES = {
+		"DecodePcm8Signed", "DecodePcm8UnSigned", "DecodePcm16BESigned",
+		"DecodePcm16LESigned", "DecodeG711MuLaw", "DecodeMappedPcm16"
+	};
+
+	/**
+	 * DecoderTarget class constructor
+	 *
+	 * @param int decoderType is one of the decoder constants above
+	 */
+	public DecoderTarget(int decoderType) {
+
+		super(NAMES[decoderType]);
+
+		this.decoderType = decoderType;
+	}
+
+	/**
+	 * Write the test file and open the decoder on it
+	 */
+	public void setUp(int sampleRate, int numberOfChannels,
+					  int blockSize) throws Exception {
+
+		this.blockSize = blockSize;
+		buffer = new short[blockSize];
+
+		// Get one second of the test signal
+		SyntheticSource source = new SyntheticSource(sampleRate, numberOfChannels);
+		short [] samples = new short[sampleRate * numberOfChannels];
+		source.getSamples(samples, samples.length);
+
+		// Encode it the way the decoder expects
+		boolean wide = (decoderType == PCM16BE) || (decoderType == PCM16LE) ||
+					   (decoderType == MAPPEDPCM16LE);
+		byte [] data = new byte[samples.length * (wide ? 2 : 1)];
+		for (int i=0; i < samples.length; i++) {
+			int s = samples[i];
+			switch (decoderType) {
+				case PCM8SIGNED:
+					data[i] = (byte) (s >> 8);
+					break;
+
+				case PCM8UNSIGNED:
+					data[i] = (byte) ((s >> 8) + 128);
+					break;
+
+				case PCM16BE:
+					data[2 * i] = (byte) (s >> 8);
+					data[2 * i + 1] = (byte) s;
+					break;
+
+				case MULAW:
+					// Any byte is a valid mu-law sample
+					data[i] = (byte) s;
+					break;
+
+				default:
+					data[2 * i] = (byte) s;
+					data[2 * i + 1] = (byte) (s >> 8);
+					break;
+			}
+		}
+		file = File.createTempFile("decoder", ".raw");
+		file.deleteOnExit();
+		FileOutputStream fos = new FileOutputStream(file);
+		fos.write(data);
+		fos.close();
+
+		// The stream decoders are told the file is endless and are rewound
+		// when they reach its end.
+		cdis = new ConvertDataInputStream(file.getPath());
+		switch (decoderType) {
+			case PCM8SIGNED:
+				decoder = new DecodePcm8Signed(cdis, Long.MAX_VALUE);
+				break;
+
+			case PCM8UNSIGNED:
+				decoder = new DecodePcm8UnSigned(cdis, Long.MAX_VALUE);
+				break;
+
+			case PCM16BE:
+				decoder = new DecodePcm16BESigned(cdis, Long.MAX_VALUE);
+				break;
+
+			case PCM16LE:
+				decoder = new DecodePcm16LESigned(cdis, Long.MAX_VALUE);
+				break;
+
+			case MULAW:
+				decoder = new DecodeG711MuLaw(cdis, Long.MAX_VALUE);
+				break;
+
+			case MAPPEDPCM16LE:
+				decoder = new DecodeMappedPcm16(cdis.getChannel(), 0,
+					samples.length, ByteOrder.LITTLE_ENDIAN);
+				break;
+		}
+	}
+
+	/**
+	 * Decode one block
+	 */
+	public int processBlock() {
+
+		int len = decoder.getSamples(buffer, blockSize);
+		if (len <= 0) {
+			// Start the file over
+			try {
+				if (decoder instanceof MappedDecoder)
+					((MappedDecoder) decoder).seek(0);
+				else
+					cdis.seek(0);
+			}
+			catch(IOException ioe) {
+				return 0;
+			}
+			len = decoder.getSamples(buffer, blockSize);
+		}
+		return (len < 0) ? 0 : len;
+	}
+
+	/**
+	 * Close and delete the test file
+	 */
+	public void tearDown() {
+
+		try {
+			cdis.close();
+		}
+		catch(IOException ioe) {}
+		file.delete();
+
+		cdis = null;
+		decoder = null;
+	}
+
+	// Private class data
+	private int decoderType;
+	private int blockSize;
+	private short [] buffer;
+	private File file;
+	private ConvertDataInputStream cdis;
+	private AbstractDecoderIF decoder;
+}
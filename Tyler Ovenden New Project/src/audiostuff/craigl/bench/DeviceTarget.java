@@ -0,0 +1,163 @@
+// Device Benchmark Target Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+import java.awt.AWTError;
+import java.awt.HeadlessException;
+import java.lang.reflect.*;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Benchmark target that measures an AbstractAudio device placed between a
+ * SyntheticSource and a sink that pulls one negotiated block at a time.
+ * The device is created from its class name using a no argument
+ * constructor if it has one, otherwise a constructor taking a Blinker.
+ * Devices whose constructors build a user interface can only be measured
+ * when a display is available.
+ */
+public class DeviceTarget extends BenchmarkTarget {
+
+	/**
+	 * DeviceTarget class constructor
+	 *
+	 * @param String className is the fully qualified class name of the
+	 * device to measure.
+	 * @param boolean useFloat is true to pull float samples through the
+	 * chain and false to pull short samples.
+	 */
+	public DeviceTarget(String className, boolean useFloat) {
+
+		super(className.substring(className.lastIndexOf('.') + 1));
+
+		// Save incoming
+		this.className = className;
+		this.useFloat = useFloat;
+	}
+
+	/**
+	 * Create the device to be measured. Override to configure a device
+	 * in ways its constructor does not.
+	 *
+	 * @return AbstractAudio device to measure
+	 */
+	protected AbstractAudio createDevice() throws Exception {
+
+		Class<?> c = Class.forName(className);
+		try {
+			try {
+				return (AbstractAudio) c.getConstructor(new Class<?>[0]).
+					newInstance(new Object[0]);
+			}
+			catch(NoSuchMethodException nsme) {
+				return (AbstractAudio) c.getConstructor(
+					new Class<?>[] {Blinker.class}).
+					newInstance(new Object[] {getBlinker()});
+			}
+		}
+		catch(InvocationTargetException ite) {
+			Throwable t = ite.getTargetException();
+			if ((t instanceof HeadlessException) || (t instanceof AWTError))
+				throw new UnsupportedOperationException(
+					"requires a display to build its user interface");
+
+			throw ite;
+		}
+	}
+
+	/**
+	 * Build the chain and negotiate its parameters
+	 */
+	public void setUp(int sampleRate, int numberOfChannels,
+					  int blockSize) throws Exception {
+
+		source = new SyntheticSource(sampleRate, numberOfChannels);
+		device = createDevice();
+		sink = new BenchmarkSink(blockSize);
+
+		LinkedListVector chain = new LinkedListVector();
+		chain.addElement(source);
+		chain.addElement(device);
+		chain.addElement(sink);
+
+		// Negotiate just as a real sink would
+		sink.getSamplingRate();
+		sink.getNumberOfChannels();
+		this.blockSize = sink.getBlockSize();
+		if (this.blockSize == -1)
+			throw new UnsupportedOperationException(
+				"Couldn't negotiate block size");
+
+		shortBuffer = new short[this.blockSize];
+		floatBuffer = new float[this.blockSize];
+	}
+
+	/**
+	 * Pull one block through the device
+	 */
+	public int processBlock() {
+
+		int len;
+		if (useFloat)
+			len = sink.getSamples(floatBuffer, blockSize);
+		else
+			len = sink.getSamples(shortBuffer, blockSize);
+
+		return (len < 0) ? 0 : len;
+	}
+
+	/**
+	 * Let go of the chain
+	 */
+	public void tearDown() {
+
+		source = null;
+		device = null;
+		sink = null;
+	}
+
+	// All devices share one Blinker as it starts a thread
+	private static synchronized Blinker getBlinker() {
+
+		if (blinker == null)
+			blinker = new Blinker();
+
+		return blinker;
+	}
+
+	// Private class data
+	private static Blinker blinker = null;
+	private String className;
+	private boolean useFloat;
+	private SyntheticSource source;
+	private AbstractAudio device;
+	private BenchmarkSink sink;
+	private int blockSize;
+	private short [] shortBuffer;
+	private float [] floatBuffer;
+}
+
+/**
+ * Sink device that asks the chain for a particular block size and passes
+ * sample requests along to the device being measured.
+ */
+class BenchmarkSink extends AbstractAudio {
+
+	public BenchmarkSink(int blockSize) {
+
+		super("Benchmark Sink", SINK);
+
+		setBlockSizeLimits(0, 0, blockSize);
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		return previous.getSamples(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		return previous.getSamples(buffer, length);
+	}
+}
@@ -0,0 +1,396 @@
+// Kernel Benchmark Target Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+import java.util.Arrays;
+import audiostuff.craigl.compexp.MultibandDynamics;
+import audiostuff.craigl.filters.*;
+import audiostuff.craigl.processors.ConvolutionReverb;
+import audiostuff.craigl.reverb.*;
+import audiostuff.craigl.spectrumanalyzer.*;
+import audiostuff.craigl.utils.DelayLine;
+
+/**
+ * Benchmark target for the DSP building blocks that are not AbstractAudio
+ * devices: SchroederReverb, the IIR filters, the graphic equalizer's
+ * bands run one filter after another and together in an
+ * IIRBandpassFilterBank, the complex and real
+ * forms of the FFT and the PartitionedConvolver, which is given a
+ * synthetic impulse response of CONVOLVERIRSECONDS seconds. Each block of the test signal is taken from a
+ * SyntheticSource and run through the selected kernel.
+ *
+ * The delay kernels run a feedback delay of DELAYMS milliseconds. The
+ * modulo kernel keeps the ring buffer loop the delay processors used
+ * before DelayLine, wrapping its indices with a remainder on every
+ * sample, as a baseline for the DelayLine kernels. The interpolating
+ * kernels sweep the tap over DELAYSWEEPMS milliseconds as a chorus does.
+ *
+ * The FeedbackDelayNetwork kernels run the network with 8 and 16 lines
+ * so its cost per line may be compared with the four combs and two
+ * allpass networks of SchroederReverb.
+ *
+ * The MultibandDynamics kernels compress the whole signal and five
+ * bands of it, with the CompExp defaults and a look-ahead of
+ * DYNAMICSLOOKAHEADMS milliseconds.
+ */
+public class KernelTarget extends BenchmarkTarget {
+
+	// The kernels this target can measure
+	public static final int SCHROEDERREVERB	= 0;
+	public static final int IIRBANDPASS		= 1;
+	public static final int IIRLOWPASS		= 2;
+	public static final int IIRHIGHPASS		= 3;
+	public static final int FFT				= 4;
+	public static final int REALFFT			= 5;
+	public static final int CONVOLVER		= 6;
+	public static final int IIRSERIALBANDS	= 7;
+	public static final int IIRBANDPASSBANK	= 8;
+	public static final int MODULODELAY		= 9;
+	public static final int DELAYLINE		= 10;
+	public static final int DELAYLINEAR		= 11;
+	public static final int DELAYCUBIC		= 12;
+	public static final int DELAYALLPASS	= 13;
+	public static final int FDN8			= 14;
+	public static final int FDN16			= 15;
+	public static final int DYNAMICS		= 16;
+	public static final int DYNAMICS5		= 17;
+
+	// Names of the kernels above
+	private static final String [] NAMES = {
+		"SchroederReverb", "IIRBandpassFilter", "IIRLowpassFilter",
+		"IIRHighpassFilter", "FFT", "RealFFT", "PartitionedConvolver",
+		"IIRBandpassFilter x9", "IIRBandpassFilterBank", "Delay loop modulo",
+		"DelayLine", "DelayLine linear", "DelayLine cubic",
+		"DelayLine allpass", "FeedbackDelayNetwork 8 lines",
+		"FeedbackDelayNetwork 16 lines", "MultibandDynamics 1 band",
+		"MultibandDynamics 5 bands"
+	};
+
+	// Parameters used to design the filters
+	private static final int FILTERFREQ = 1000;
+	private static final double FILTERQ = 1.4;
+	private static final double DAMPINGFACTOR = 1.0;
+
+	// Bands of the graphic equalizer
+	private static final int [] BANDFREQS = {
+		50, 100, 200, 400, 800, 1600, 3200, 6400, 12800
+	};
+
+	// Largest FFT the FFT class supports
+	private static final int MAXFFTBITS = 15;
+
+	// Length of the impulse response given to the convolver
+	private static final int CONVOLVERIRSECONDS = 3;
+
+	// Delay and sweep of the delay kernels
+	private static final int DELAYMS = 100;
+	private static final int DELAYSWEEPMS = 5;
+	private static final double DELAYFEEDBACK = 0.5;
+
+	// Look-ahead of the dynamics kernels
+	private static final double DYNAMICSLOOKAHEADMS = 5.0;
+
+	/**
+	 * KernelTarget class constructor
+	 *
+	 * @param int kernel is one of the kernel constants above
+	 */
+	public KernelTarget(int kernel) {
+
+		super(NAMES[kernel]);
+
+		this.kernel = kernel;
+	}
+
+	/**
+	 * Create the kernel and its buffers
+	 */
+	public void setUp(int sampleRate, int numberOfChannels,
+					  int blockSize) throws Exception {
+
+		this.blockSize = blockSize;
+
+		source = new SyntheticSource(sampleRate, numberOfChannels);
+		buffer = new float[blockSize];
+		dBuffer = new double[blockSize];
+
+		switch (kernel) {
+
+			case SCHROEDERREVERB:
+				reverb = new SchroederReverb(sampleRate, numberOfChannels);
+				break;
+
+			case FDN8:
+				fdn = new FeedbackDelayNetwork(sampleRate, numberOfChannels, 8);
+				break;
+
+			case FDN16:
+				fdn = new FeedbackDelayNetwork(sampleRate, numberOfChannels, 16);
+				break;
+
+			case DYNAMICS:
+			case DYNAMICS5:
+				dynamics = new MultibandDynamics(sampleRate, numberOfChannels,
+												 (kernel == DYNAMICS) ? 1 : 5);
+				dynamics.setLookAheadInMs(DYNAMICSLOOKAHEADMS);
+				break;
+
+			case IIRBANDPASS:
+				IIRBandpassFilterDesign bpfd = new IIRBandpassFilterDesign(
+					FILTERFREQ, sampleRate, FILTERQ);
+				bpfd.doFilterDesign();
+				filter = new IIRBandpassFilter(bpfd);
+				break;
+
+			case IIRLOWPASS:
+				IIRLowpassFilterDesign lpfd = new IIRLowpassFilterDesign(
+					FILTERFREQ, sampleRate, DAMPINGFACTOR);
+				lpfd.doFilterDesign();
+				filter = new IIRLowpassFilter(lpfd);
+				break;
+
+			case IIRHIGHPASS:
+				IIRHighpassFilterDesign hpfd = new IIRHighpassFilterDesign(
+					FILTERFREQ, sampleRate, DAMPINGFACTOR);
+				hpfd.doFilterDesign();
+				filter = new IIRHighpassFilter(hpfd);
+				break;
+
+			case IIRSERIALBANDS:
+			case IIRBANDPASSBANK:
+				// Only bands below the Nyquist frequency are used
+				int bands = 0;
+				while ((bands < BANDFREQS.length) &&
+					   (2 * BANDFREQS[bands] < sampleRate))
+					bands++;
+				IIRBandpassFilterDesign [] designs = new IIRBandpassFilterDesign[bands];
+				filters = new IIRFilterBase[bands];
+				for (int i=0; i < bands; i++) {
+					designs[i] = new IIRBandpassFilterDesign(
+						BANDFREQS[i], sampleRate, FILTERQ);
+					designs[i].doFilterDesign();
+					filters[i] = new IIRBandpassFilter(designs[i]);
+				}
+				bank = new IIRBandpassFilterBank(designs);
+				break;
+
+			case FFT:
+			case REALFFT:
+				// Transform the smallest power of two holding a block
+				int bits = 1;
+				while (((1 << bits) < blockSize) && (bits < MAXFFTBITS))
+					bits++;
+				fft = new FFT(bits);
+				xr = new double[1 << bits];
+				xi = new double[1 << bits];
+				break;
+
+			case CONVOLVER:
+				// A decaying noise burst stands in for a room response
+				int irLength = CONVOLVERIRSECONDS * sampleRate;
+				double [] ir = new double[irLength];
+				long seed = 54321;
+				for (int i=0; i < irLength; i++) {
+					seed = (seed * 1103515245 + 12345) & 0x7FFFFFFF;
+					double noise = (((seed >> 8) % 2001) - 1000) / 1000.0;
+					ir[i] = noise * Math.exp(-6.9 * i / irLength);
+				}
+				// Blocks are gathered into partitions as ConvolutionReverb
+				// does, one convolver per channel.
+				convolvers = new PartitionedConvolver[numberOfChannels];
+				for (int ch=0; ch < numberOfChannels; ch++)
+					convolvers[ch] = new PartitionedConvolver(
+						ir, irLength, ConvolutionReverb.PARTITIONSIZEDEF);
+
+				this.numberOfChannels = numberOfChannels;
+				partition = new double[numberOfChannels][ConvolutionReverb.PARTITIONSIZEDEF];
+				position = 0;
+				break;
+
+			case MODULODELAY:
+			case DELAYLINE:
+			case DELAYLINEAR:
+			case DELAYCUBIC:
+			case DELAYALLPASS:
+				delay = ((DELAYMS * sampleRate) / 1000) * numberOfChannels;
+				sweep = ((DELAYSWEEPMS * sampleRate) / 1000) * numberOfChannels;
+
+				// The ring buffer of the old delay loops held a block as
+				// well as the delay
+				ring = new float[blockSize + delay];
+				readIndex = blockSize;
+				writeIndex = 0;
+				delayLine = new DelayLine(delay + sweep);
+				phase = 0.0;
+				phaseStep = 1.0 / sampleRate;
+				break;
+		}
+	}
+
+	/**
+	 * Run one block through the kernel
+	 */
+	public int processBlock() {
+
+		source.getSamples(buffer, blockSize);
+
+		switch (kernel) {
+
+			case SCHROEDERREVERB:
+				reverb.doReverb(buffer, blockSize);
+				break;
+
+			case FDN8:
+			case FDN16:
+				fdn.doReverb(buffer, blockSize);
+				break;
+
+			case DYNAMICS:
+			case DYNAMICS5:
+				dynamics.doDynamics(buffer, blockSize);
+				break;
+
+			case IIRBANDPASS:
+			case IIRLOWPASS:
+			case IIRHIGHPASS:
+				// Filters sum into their output buffer
+				Arrays.fill(dBuffer, 0.0);
+				filter.doFilter(buffer, dBuffer, blockSize);
+				break;
+
+			case IIRSERIALBANDS:
+				Arrays.fill(dBuffer, 0.0);
+				for (int i=0; i < filters.length; i++)
+					filters[i].doFilter(buffer, dBuffer, blockSize);
+				break;
+
+			case IIRBANDPASSBANK:
+				Arrays.fill(dBuffer, 0.0);
+				bank.doFilter(buffer, dBuffer, blockSize);
+				break;
+
+			case FFT:
+				int n = Math.min(blockSize, xr.length);
+				for (int i=0; i < n; i++)
+					xr[i] = buffer[i];
+				Arrays.fill(xr, n, xr.length, 0.0);
+				Arrays.fill(xi, 0.0);
+				fft.doFFT(xr, xi, false);
+				break;
+
+			case REALFFT:
+				n = Math.min(blockSize, xr.length);
+				for (int i=0; i < n; i++)
+					xr[i] = buffer[i];
+				Arrays.fill(xr, n, xr.length, 0.0);
+				fft.doRealFFT(xr, xi);
+				break;
+
+			case CONVOLVER:
+				int ch = 0;
+				for (int i=0; i < blockSize; i++) {
+					partition[ch][position] = buffer[i];
+					if (++ch == numberOfChannels) {
+						ch = 0;
+						if (++position == partition[0].length) {
+							position = 0;
+							for (int c=0; c < numberOfChannels; c++)
+								convolvers[c].process(partition[c], partition[c]);
+						}
+					}
+				}
+				break;
+
+			case MODULODELAY:
+				for (int i=0; i < blockSize; i++) {
+					float delaySample = ring[readIndex++];
+					float inputSample = buffer[i];
+					buffer[i] = inputSample + delaySample;
+					ring[writeIndex++] = (float) (inputSample + (delaySample * DELAYFEEDBACK));
+					readIndex  %= ring.length;
+					writeIndex %= ring.length;
+				}
+				break;
+
+			case DELAYLINE:
+				for (int i=0; i < blockSize; i++) {
+					float delaySample = delayLine.read(delay);
+					float inputSample = buffer[i];
+					buffer[i] = inputSample + delaySample;
+					delayLine.write((float) (inputSample + (delaySample * DELAYFEEDBACK)));
+				}
+				break;
+
+			case DELAYLINEAR:
+			case DELAYCUBIC:
+			case DELAYALLPASS:
+				for (int i=0; i < blockSize; i++) {
+					// A triangle sweep once a second
+					phase += phaseStep;
+					if (phase >= 1.0)
+						phase -= 1.0;
+					double tap = delay + (sweep * Math.abs((2.0 * phase) - 1.0));
+
+					float delaySample;
+					if (kernel == DELAYLINEAR)
+						delaySample = delayLine.readLinear(tap);
+					else if (kernel == DELAYCUBIC)
+						delaySample = delayLine.readCubic(tap);
+					else
+						delaySample = delayLine.readAllpass(tap);
+
+					float inputSample = buffer[i];
+					buffer[i] = inputSample + delaySample;
+					delayLine.write((float) (inputSample + (delaySample * DELAYFEEDBACK)));
+				}
+				break;
+		}
+		return blockSize;
+	}
+
+	/**
+	 * Let go of the kernel
+	 */
+	public void tearDown() {
+
+		reverb = null;
+		fdn = null;
+		dynamics = null;
+		filter = null;
+		filters = null;
+		bank = null;
+		fft = null;
+		convolvers = null;
+		ring = null;
+		delayLine = null;
+	}
+
+	// Private class data
+	private int kernel;
+	private int blockSize;
+	private SyntheticSource source;
+	private float [] buffer;
+	private double [] dBuffer;
+	private SchroederReverb reverb;
+	private FeedbackDelayNetwork fdn;
+	private MultibandDynamics dynamics;
+	private IIRFilterBase filter;
+	private IIRFilterBase [] filters;
+	private IIRBandpassFilterBank bank;
+	private FFT fft;
+	private double [] xr;
+	private double [] xi;
+	private PartitionedConvolver [] convolvers;
+	private double [][] partition;
+	private int numberOfChannels;
+	private int position;
+	private int delay;
+	private int sweep;
+	private float [] ring;
+	private int readIndex;
+	private int writeIndex;
+	private DelayLine delayLine;
+	private double phase;
+	private double phaseStep;
+}
@@ -0,0 +1,316 @@
+// Processor Benchmark Application
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Measures the throughput and allocation rate of every processor in the
+ * processors package together with SchroederReverb, the
+ * FeedbackDelayNetwork, the IIR filters,
+ * the FFT, the PartitionedConvolver and the file decoders. Each target
+ * is run at every combination of the selected sampling rates, channel
+ * counts and block sizes. A run consists of a warm up period, so the JIT
+ * compiler has settled, followed by a timed measurement period.
+ *
+ * For each run the report shows samples processed per second, how many
+ * times faster than real time that is, and the bytes allocated per second
+ * and per block by the thread driving the target. Allocation figures
+ * require a JVM that supports thread allocation accounting and are shown
+ * as -1 otherwise.
+ *
+ * Usage:
+ *
+ *	java audiostuff.craigl.bench.ProcessorBenchmark [options]
+ *
+ *	-rates 11025,22050,44100	sampling rates to run at
+ *	-channels 1,2				channel counts to run with
+ *	-blocks 64,256,1024,7500	block sizes to run with
+ *	-warmup 500					warm up time per run in milliseconds
+ *	-time 1000					measurement time per run in milliseconds
+ *	-match name					only run targets whose name contains name
+ *	-float						pull float samples through device chains
+ */
+public class ProcessorBenchmark {
+
+	// Processors measured as AbstractAudio devices. The processors without
+	// a user interface are used so no display is needed.
+	private static final String [] DEVICES = {
+		"audiostuff.craigl.processors.AmplitudeAdjust",
+		"audiostuff.craigl.processors.Chorus",
+		"audiostuff.craigl.processors.CompExp",
+		"audiostuff.craigl.processors.CompExpHard",
+		"audiostuff.craigl.processors.Delay",
+		"audiostuff.craigl.processors.Distortion",
+		"audiostuff.craigl.processors.Dynamics",
+		"audiostuff.craigl.processors.FDNReverb",
+		"audiostuff.craigl.processors.GraphicEQ",
+		"audiostuff.craigl.processors.Panner",
+		"audiostuff.craigl.processors.ParametricEQ",
+		"audiostuff.craigl.processors.Phaser",
+		"audiostuff.craigl.processors.PitchShifter",
+		"audiostuff.craigl.processors.Reverb",
+	};
+
+	// File decoders measured directly
+	private static final int [] DECODERS = {
+		DecoderTarget.PCM8SIGNED,
+		DecoderTarget.PCM8UNSIGNED,
+		DecoderTarget.PCM16BE,
+		DecoderTarget.PCM16LE,
+		DecoderTarget.MULAW,
+		DecoderTarget.MAPPEDPCM16LE,
+	};
+
+	// Kernels measured directly
+	private static final int [] KERNELS = {
+		KernelTarget.SCHROEDERREVERB,
+		KernelTarget.FDN8,
+		KernelTarget.FDN16,
+		KernelTarget.DYNAMICS,
+		KernelTarget.DYNAMICS5,
+		KernelTarget.IIRBANDPASS,
+		KernelTarget.IIRLOWPASS,
+		KernelTarget.IIRHIGHPASS,
+		KernelTarget.IIRSERIALBANDS,
+		KernelTarget.IIRBANDPASSBANK,
+		KernelTarget.FFT,
+		KernelTarget.REALFFT,
+		KernelTarget.CONVOLVER,
+		KernelTarget.MODULODELAY,
+		KernelTarget.DELAYLINE,
+		KernelTarget.DELAYLINEAR,
+		KernelTarget.DELAYCUBIC,
+		KernelTarget.DELAYALLPASS,
+	};
+
+	/**
+	 * ProcessorBenchmark class constructor
+	 *
+	 * @param int [] rates contains the sampling rates to run at
+	 * @param int [] channels contains the channel counts to run with
+	 * @param int [] blocks contains the block sizes to run with
+	 * @param long warmupMs is the warm up time per run in milliseconds
+	 * @param long timeMs is the measurement time per run in milliseconds
+	 */
+	public ProcessorBenchmark(int [] rates, int [] channels, int [] blocks,
+							  long warmupMs, long timeMs) {
+
+		// Save incoming
+		this.rates = rates;
+		this.channels = channels;
+		this.blocks = blocks;
+		this.warmupMs = warmupMs;
+		this.timeMs = timeMs;
+
+		threadBean = ManagementFactory.getThreadMXBean();
+	}
+
+	/**
+	 * Run a target at every configuration and print the results
+	 *
+	 * @param BenchmarkTarget target is the target to measure
+	 */
+	public void run(BenchmarkTarget target) {
+
+		for (int r=0; r < rates.length; r++) {
+			for (int c=0; c < channels.length; c++) {
+				for (int b=0; b < blocks.length; b++) {
+					try {
+						target.setUp(rates[r], channels[c], blocks[b]);
+					}
+					catch(UnsupportedOperationException uoe) {
+						System.out.println(target.getName() + " skipped: " +
+										   uoe.getMessage());
+						return;
+					}
+					catch(Exception e) {
+						System.out.println(target.getName() + " failed: " + e);
+						return;
+					}
+					Result result = measure(target);
+					target.tearDown();
+
+					print(target.getName(), rates[r], channels[c],
+						  blocks[b], result);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Warm up then measure a target that has been set up
+	 *
+	 * @param BenchmarkTarget target is the target to measure
+	 *
+	 * @return Result of the measurement
+	 */
+	public Result measure(BenchmarkTarget target) {
+
+		// Warm up
+		long end = System.nanoTime() + (warmupMs * 1000000L);
+		while (System.nanoTime() < end)
+			target.processBlock();
+
+		// Measure
+		long samples = 0;
+		long blockCount = 0;
+		long startBytes = allocatedBytes();
+		long start = System.nanoTime();
+		end = start + (timeMs * 1000000L);
+		long now = start;
+		while (now < end) {
+			samples += target.processBlock();
+			blockCount++;
+			now = System.nanoTime();
+		}
+		long endBytes = allocatedBytes();
+
+		Result result = new Result();
+		result.seconds = (now - start) / 1.0e9;
+		result.samples = samples;
+		result.blocks = blockCount;
+		result.bytes = ((startBytes < 0) || (endBytes < 0)) ?
+			-1 : endBytes - startBytes;
+
+		return result;
+	}
+
+	/**
+	 * Print the column headings for the report
+	 */
+	public static void printHeader() {
+
+		System.out.println(String.format("%-22s %6s %3s %6s %14s %10s %14s %12s",
+			"Target", "Rate", "Ch", "Block", "Samples/s", "xRealtime",
+			"Alloc B/s", "Alloc B/blk"));
+	}
+
+	// Print one line of the report
+	private void print(String name, int rate, int ch, int block,
+					   Result result) {
+
+		double samplesPerSec = result.samples / result.seconds;
+		double realTime = samplesPerSec / ((double) rate * ch);
+		double bytesPerSec = (result.bytes < 0) ?
+			-1 : result.bytes / result.seconds;
+		double bytesPerBlock = ((result.bytes < 0) || (result.blocks == 0)) ?
+			-1 : (double) result.bytes / result.blocks;
+
+		System.out.println(String.format("%-22s %6d %3d %6d %14.0f %10.1f %14.0f %12.1f",
+			name, rate, ch, block, samplesPerSec, realTime,
+			bytesPerSec, bytesPerBlock));
+	}
+
+	// Return the bytes allocated by this thread or -1 if unavailable
+	private long allocatedBytes() {
+
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean tb =
+				(com.sun.management.ThreadMXBean) threadBean;
+
+			if (tb.isThreadAllocatedMemorySupported() &&
+				tb.isThreadAllocatedMemoryEnabled())
+				return tb.getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	// Parse a comma separated list of integers
+	private static int [] parseList(String s) {
+
+		StringTokenizer st = new StringTokenizer(s, ",");
+		int [] values = new int[st.countTokens()];
+		for (int i=0; i < values.length; i++)
+			values[i] = Integer.parseInt(st.nextToken().trim());
+
+		return values;
+	}
+
+	/**
+	 * Benchmark entry point
+	 */
+	public static void main(String [] args) {
+
+		int [] rates = {11025, 22050, 44100};
+		int [] channels = {1, 2};
+		int [] blocks = {64, 256, 1024, 7500};
+		long warmupMs = 500;
+		long timeMs = 1000;
+		String match = null;
+		boolean useFloat = false;
+
+		for (int i=0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-float"))
+				useFloat = true;
+
+			else if (i + 1 >= args.length) {
+				System.out.println("Missing value for " + arg);
+				System.exit(1);
+			}
+			else if (arg.equals("-rates"))
+				rates = parseList(args[++i]);
+			else if (arg.equals("-channels"))
+				channels = parseList(args[++i]);
+			else if (arg.equals("-blocks"))
+				blocks = parseList(args[++i]);
+			else if (arg.equals("-warmup"))
+				warmupMs = Long.parseLong(args[++i]);
+			else if (arg.equals("-time"))
+				timeMs = Long.parseLong(args[++i]);
+			else if (arg.equals("-match"))
+				match = args[++i];
+			else {
+				System.out.println("Unknown option " + arg);
+				System.exit(1);
+			}
+		}
+
+		// Build the list of targets
+		Vector<BenchmarkTarget> targets = new Vector<BenchmarkTarget>();
+		for (int i=0; i < DEVICES.length; i++)
+			targets.addElement(new DeviceTarget(DEVICES[i], useFloat));
+
+		for (int i=0; i < KERNELS.length; i++)
+			targets.addElement(new KernelTarget(KERNELS[i]));
+
+		for (int i=0; i < DECODERS.length; i++)
+			targets.addElement(new DecoderTarget(DECODERS[i]));
+
+		ProcessorBenchmark pb =
+			new ProcessorBenchmark(rates, channels, blocks, warmupMs, timeMs);
+
+		printHeader();
+		for (int i=0; i < targets.size(); i++) {
+			BenchmarkTarget target = targets.elementAt(i);
+			if ((match == null) || (target.getName().indexOf(match) != -1))
+				pb.run(target);
+		}
+
+		// Device user interfaces may have started threads
+		System.exit(0);
+	}
+
+	/**
+	 * Results of measuring one configuration of a target
+	 */
+	public static class Result {
+
+		public double seconds;
+		public long samples;
+		public long blocks;
+		public long bytes;
+	}
+
+	// Private class data
+	private int [] rates;
+	private int [] channels;
+	private int [] blocks;
+	private long warmupMs;
+	private long timeMs;
+	private ThreadMXBean threadBean;
+}
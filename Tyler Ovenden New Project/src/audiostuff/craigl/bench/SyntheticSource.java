@@ -0,0 +1,125 @@
+// Synthetic Source Device Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.bench;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * A source device that produces an endless, repeatable test signal at a
+ * fixed sampling rate and number of channels. The signal is a mix of two
+ * sine waves and some noise, computed once when the source is created, so
+ * producing samples costs no more than an array copy and never allocates.
+ */
+public class SyntheticSource extends AbstractAudio {
+
+	// Frequencies of the test tones in Hz
+	private static final double TONE1 = 220.0;
+	private static final double TONE2 = 1375.0;
+
+	/**
+	 * SyntheticSource class constructor
+	 *
+	 * @param int sampleRate is the sampling rate the source will insist on
+	 * @param int numberOfChannels is the number of channels the source will
+	 * insist on.
+	 */
+	public SyntheticSource(int sampleRate, int numberOfChannels) {
+
+		super("Synthetic Source", SOURCE);
+
+		// Save incoming
+		this.sampleRate = sampleRate;
+		this.numberOfChannels = numberOfChannels;
+
+		// Build one second of the test signal
+		int frames = sampleRate;
+		shortTable = new short[frames * numberOfChannels];
+		floatTable = new float[frames * numberOfChannels];
+
+		long seed = 12345;
+		int index = 0;
+		for (int i=0; i < frames; i++) {
+			double t = (double) i / sampleRate;
+			double tone =
+				(8000.0 * Math.sin(2.0 * Math.PI * TONE1 * t)) +
+				(4000.0 * Math.sin(2.0 * Math.PI * TONE2 * t));
+
+			for (int ch=0; ch < numberOfChannels; ch++) {
+				// Simple linear congruential noise generator
+				seed = (seed * 1103515245 + 12345) & 0x7FFFFFFF;
+				double noise = ((seed >> 8) % 2001) - 1000;
+
+				short sample = (short) (tone + noise);
+				shortTable[index] = sample;
+				floatTable[index++] = sample;
+			}
+		}
+		offset = 0;
+	}
+
+	/**
+	 * Return the test signal. The source never runs out of samples.
+	 */
+	public int getSamples(short [] buffer, int length) {
+
+		int done = 0;
+		while (done < length) {
+			int count = Math.min(length - done, shortTable.length - offset);
+			System.arraycopy(shortTable, offset, buffer, done, count);
+			done += count;
+			offset = (offset + count) % shortTable.length;
+		}
+		return length;
+	}
+
+	/**
+	 * Return the test signal as float samples.
+	 */
+	public int getSamples(float [] buffer, int length) {
+
+		int done = 0;
+		while (done < length) {
+			int count = Math.min(length - done, floatTable.length - offset);
+			System.arraycopy(floatTable, offset, buffer, done, count);
+			done += count;
+			offset = (offset + count) % floatTable.length;
+		}
+		return length;
+	}
+
+	/**
+	 * Start the test signal over again
+	 */
+	public void reset() {
+
+		offset = 0;
+	}
+
+	/**
+	 * The source dictates the sampling rate
+	 */
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		min.setValue(sampleRate);
+		max.setValue(sampleRate);
+		preferred.setValue(sampleRate);
+	}
+
+	/**
+	 * The source dictates the number of channels
+	 */
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		min.setValue(numberOfChannels);
+		max.setValue(numberOfChannels);
+		preferred.setValue(numberOfChannels);
+	}
+
+	// Private class data
+	private int sampleRate;
+	private int numberOfChannels;
+	private short [] shortTable;
+	private float [] floatTable;
+	private int offset;
+}
@@ -0,0 +1,226 @@
+// Dynamics Band Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.compexp;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * The level following and gain riding for one band of a dynamics
+ * processor. All channels of the band share one envelope, so the stereo
+ * image does not wander as the gain changes.
+ *
+ * An envelope detector measures the level of each frame, either its
+ * peak or its RMS over RMSWINDOWMS. The peak detector jumps to each new
+ * peak and falls away from it at the release rate. The GainComputer
+ * turns the level into a gain, which moves towards that target at the
+ * attack rate when the gain is falling. When it is rising it follows the
+ * peak detector directly, or moves at the release rate after the RMS
+ * detector. The gain is kept as a logarithm throughout, so the
+ * smoothing runs in dB and the ballistics sound the same at every
+ * level.
+ *
+ * With a look-ahead the gain is worked out from the incoming samples but
+ * applied to samples that have been delayed, so the gain is already on
+ * its way down when a transient reaches the output.
+ */
+public class DynamicsBand {
+
+	// Envelope detectors
+	public static final int PEAK = 0;
+	public static final int RMS = 1;
+
+	// Averaging time of the RMS detector
+	public static final double RMSWINDOWMS = 5.0;
+
+	/**
+	 * DynamicsBand class constructor
+	 *
+	 * @param int sampleRate is the sample rate of the samples processed
+	 * @param int numberOfChannels is the number of interleaved channels
+	 * @param GainComputer computer holds the static curve, which may be
+	 * shared with other bands
+	 * @param int maxLookAhead is the longest look-ahead, in frames, that
+	 * will be asked for
+	 */
+	public DynamicsBand(int sampleRate, int numberOfChannels,
+						GainComputer computer, int maxLookAhead) {
+
+		// Save incoming
+		this.sampleRate = sampleRate;
+		this.numberOfChannels = numberOfChannels;
+		this.computer = computer;
+
+		line = new DelayLine(Math.max(maxLookAhead, 1) * numberOfChannels);
+		rmsCoefficient = coefficient(RMSWINDOWMS);
+
+		// Start out with the fastest ballistics and no gain change
+		attackCoefficient = 1.0f;
+		releaseCoefficient = 1.0f;
+		detector = PEAK;
+		reset();
+	}
+
+	/**
+	 * Set the attack and release times
+	 *
+	 * @param double attackInMs is the time the gain takes to fall most
+	 * of the way to a lower target
+	 * @param double releaseInMs is the time it takes to rise again
+	 */
+	public void setTimes(double attackInMs, double releaseInMs) {
+
+		attackCoefficient = coefficient(attackInMs);
+		releaseCoefficient = coefficient(releaseInMs);
+	}
+
+	/**
+	 * Select the envelope detector
+	 *
+	 * @param int detector is PEAK or RMS
+	 */
+	public void setDetector(int detector) {
+
+		if ((detector != PEAK) && (detector != RMS))
+			throw new IllegalArgumentException("Unknown detector");
+
+		this.detector = detector;
+	}
+
+	/**
+	 * Set the look-ahead. The delay line is cleared so no old samples
+	 * are replayed.
+	 *
+	 * @param int lookAhead is the look-ahead in frames
+	 */
+	public void setLookAhead(int lookAhead) {
+
+		int delay = lookAhead * numberOfChannels;
+		if ((lookAhead < 0) || (delay > line.getMaxDelay()))
+			throw new IllegalArgumentException("Look-ahead out of range");
+
+		if (delay != this.delay) {
+			this.delay = delay;
+			line.clear();
+		}
+	}
+
+	/**
+	 * Forget the signal seen so far
+	 */
+	public void reset() {
+
+		line.clear();
+		meanSquare = DETECTORFLOOR;
+		envelope = DETECTORFLOOR;
+		gain = computer.getGain(FastMath.log2(DETECTORFLOOR));
+	}
+
+	/**
+	 * Process a block of samples in place
+	 *
+	 * @param float [] buffer holds the interleaved samples
+	 * @param int length is the number of samples in buffer
+	 */
+	public void process(float [] buffer, int length) {
+
+		int channels = numberOfChannels;
+		boolean rms = (detector == RMS);
+		float rmsCoeff = rmsCoefficient;
+		float attack = attackCoefficient;
+		float release = releaseCoefficient;
+
+		// The peak detector releases itself, so the gain follows it
+		// straight back up
+		float rise = rms ? release : 1.0f;
+		float ms = meanSquare;
+		float env = envelope;
+		float g = gain;
+		int d = delay;
+
+		// A partial frame at the end of the block is passed thru
+		// unchanged
+		int frameEnd = length - (length % channels);
+
+		for (int i=0; i < frameEnd; i += channels) {
+
+			// Measure the frame. Both detectors stay above DETECTORFLOOR
+			// so silence never reaches the logarithm as zero or a
+			// denormal.
+			float level;
+			if (rms) {
+				float sum = 0.0f;
+				for (int ch=0; ch < channels; ch++) {
+					float s = buffer[i + ch];
+					sum += s * s;
+				}
+				ms += rmsCoeff * ((sum / channels) + DETECTORFLOOR - ms);
+				level = 0.5f * FastMath.log2(ms);
+			}	else	{
+				float peak = DETECTORFLOOR;
+				for (int ch=0; ch < channels; ch++)
+					peak = Math.max(peak, Math.abs(buffer[i + ch]));
+				env = Math.max(peak, env + (release * (peak - env)));
+				level = FastMath.log2(env);
+			}
+
+			// Move the gain towards the curve
+			float target = computer.getGain(level);
+			g += ((target < g) ? attack : rise) * (target - g);
+			float factor = FastMath.exp2(g);
+
+			// Apply it to the frame, or to the frame the look-ahead
+			// has held back
+			if (d == 0) {
+				for (int ch=0; ch < channels; ch++)
+					buffer[i + ch] *= factor;
+			}	else	{
+				for (int ch=0; ch < channels; ch++) {
+					float delayed = line.read(d);
+					line.write(buffer[i + ch]);
+					buffer[i + ch] = delayed * factor;
+				}
+			}
+		}
+		meanSquare = ms;
+		envelope = env;
+		gain = g;
+	}
+
+	/**
+	 * Return the gain being applied
+	 *
+	 * @return double containing the gain in dB
+	 */
+	public double getGainInDB() {
+
+		return gain * FastMath.DBPERLOG2;
+	}
+
+	// One pole smoothing coefficient for a time constant
+	private float coefficient(double timeInMs) {
+
+		double frames = timeInMs * sampleRate / 1000.0;
+		if (frames < 1.0)
+			return 1.0f;
+
+		return (float) (1.0 - Math.exp(-1.0 / frames));
+	}
+
+	// Smallest level the detectors report, about -150 dB below full scale
+	private static final float DETECTORFLOOR = 1.0e-3f;
+
+	// Private class data
+	private int sampleRate;
+	private int numberOfChannels;
+	private GainComputer computer;
+	private DelayLine line;
+	private int delay;
+	private int detector;
+	private float rmsCoefficient;
+	private float attackCoefficient;
+	private float releaseCoefficient;
+	private float meanSquare;
+	private float envelope;
+	private float gain;
+}
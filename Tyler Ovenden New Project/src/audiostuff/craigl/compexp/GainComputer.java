@@ -0,0 +1,148 @@
+// Gain Computer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.compexp;
+
+import audiostuff.craigl.utils.FastMath;
+
+/**
+ * The static curve of a dynamics processor: the gain to apply for each
+ * level the envelope detector reports. The curve is worked out in dB
+ * whenever a parameter changes and kept in a table indexed by the base
+ * two logarithm of the level, so each sample costs a table lookup
+ * rather than the comparisons and logarithms of the curve itself.
+ *
+ * The parameters mean what they do on the sliders of CompExpUI. Above
+ * the threshold the above threshold ratio compresses (negative values,
+ * 1:1+|v|), expands (positive values, 1+v:1) or, at MINATRATIO, limits.
+ * Below the threshold each dB the level falls becomes belowRatio dB, up
+ * to MINBTRATIO where the processor gates. The two slopes meet in a soft
+ * knee KNEEDB wide centered on the threshold, except when gating, and
+ * the makeup gain is added everywhere.
+ *
+ * Levels and gains passed in and out of the table are base two
+ * logarithms: of the sample magnitude, full scale being 32767, and of
+ * the gain factor. FastMath converts both ways.
+ */
+public class GainComputer {
+
+	// Parameter limits, the same as those of CompExp
+	public static final double MINBTRATIO = 25.0;
+	public static final double MINATRATIO = -11.0;
+
+	// Width of the soft knee
+	public static final double KNEEDB = 6.0;
+
+	// Range of levels covered by the table, relative to full scale
+	public static final double MINLEVELDB = -120.0;
+	public static final double MAXLEVELDB = 24.0;
+
+	// Range of gain the curve may apply before the makeup gain
+	public static final double MINGAINDB = -120.0;
+	public static final double MAXGAINDB = 24.0;
+
+	/**
+	 * GainComputer class constructor. The curve starts out at unity gain.
+	 */
+	public GainComputer() {
+
+		table = new float[TABLESIZE + 1];
+		setCurve(0.0, 1.0, 0.0, 0.0);
+	}
+
+	/**
+	 * Work out the curve for a set of parameters
+	 *
+	 * @param double thresholdInDB is the threshold relative to full scale
+	 * @param double belowRatio is the below threshold expansion ratio,
+	 * from 1 to MINBTRATIO where it gates
+	 * @param double aboveRatio is the above threshold ratio, from
+	 * MINATRATIO where it limits thru zero, 1:1, to positive values
+	 * which expand
+	 * @param double gainInDB is the makeup gain
+	 */
+	public void setCurve(double thresholdInDB, double belowRatio,
+						 double aboveRatio, double gainInDB) {
+
+		if (belowRatio < 1.0)
+			throw new IllegalArgumentException("Below threshold ratio must be at least 1");
+
+		// Slopes of output level against input level on either side
+		// of the threshold
+		double belowSlope = (belowRatio >= MINBTRATIO) ? GATESLOPE : belowRatio;
+		double aboveSlope;
+		if (aboveRatio <= MINATRATIO)
+			aboveSlope = 0.0;
+		else if (aboveRatio < 0.0)
+			aboveSlope = 1.0 / (1.0 - aboveRatio);
+		else
+			aboveSlope = 1.0 + aboveRatio;
+
+		// A gate closes hard at the threshold. A soft knee would start
+		// closing it half a knee above.
+		double knee = (belowRatio >= MINBTRATIO) ? 0.0 : KNEEDB;
+		double halfKnee = knee / 2.0;
+		for (int i=0; i <= TABLESIZE; i++) {
+			double level = MINLEVELDB + (i / STEPSPERDB);
+			double x = level - thresholdInDB;
+
+			// Below the knee the output follows belowSlope. Thru the knee
+			// a quadratic bends it round onto aboveSlope, meeting both
+			// lines with the same slope.
+			double output = belowSlope * x;
+			if (x > halfKnee)
+				output = aboveSlope * x;
+			else if (x > -halfKnee)
+				output += (aboveSlope - belowSlope) *
+					(x + halfKnee) * (x + halfKnee) / (2.0 * knee);
+
+			double gain = output - x;
+			if (gain < MINGAINDB)
+				gain = MINGAINDB;
+			else if (gain > MAXGAINDB)
+				gain = MAXGAINDB;
+
+			table[i] = (float) ((gain + gainInDB) / FastMath.DBPERLOG2);
+		}
+	}
+
+	/**
+	 * Return the gain for a level
+	 *
+	 * @param float level is log2 of the level in sample units
+	 *
+	 * @return float containing log2 of the gain factor
+	 */
+	public float getGain(float level) {
+
+		float position = (level - MINLEVELLOG2) * STEPSPERLOG2;
+		if (position <= 0.0f)
+			return table[0];
+		if (position >= TABLESIZE)
+			return table[TABLESIZE];
+
+		int index = (int) position;
+		float low = table[index];
+		return low + ((position - index) * (table[index + 1] - low));
+	}
+
+	// Output slope below threshold when gating. Steep enough that the
+	// gain hits MINGAINDB a few dB below the knee.
+	private static final double GATESLOPE = 100.0;
+
+	// Table resolution. A quarter of a dB between entries keeps the
+	// linear interpolation error of the soft knee well under 0.01 dB.
+	private static final double STEPSPERDB = 4.0;
+	private static final int TABLESIZE =
+		(int) ((MAXLEVELDB - MINLEVELDB) * STEPSPERDB);
+
+	// The same in the units of getGain()
+	private static final float STEPSPERLOG2 =
+		(float) (STEPSPERDB * FastMath.DBPERLOG2);
+	private static final float MINLEVELLOG2 =
+		(float) ((Math.log(32767.0) / Math.log(2.0)) +
+				 (MINLEVELDB / FastMath.DBPERLOG2));
+
+	// Private class data
+	private float [] table;
+}
@@ -0,0 +1,277 @@
+// Multiband Dynamics Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.compexp;
+
+import audiostuff.craigl.filters.LinkwitzRileyCrossover;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Compressor/expander/limiter/noise gate engine that can work on the
+ * whole signal or split it into up to MAXBANDS frequency bands with a
+ * LinkwitzRileyCrossover and ride the gain of each band on its own, so
+ * a loud bass note no longer pulls down the rest of the mix. The bands
+ * share one static curve and one set of ballistics. They are processed
+ * in parallel when there is more than one processor and added back
+ * together afterwards.
+ *
+ * The parameters may be changed from another thread while samples are
+ * processed. They are picked up at the start of the next block.
+ */
+public class MultibandDynamics implements ChannelProcessorIF {
+
+	// Number of bands
+	public static final int MINBANDS = 1;
+	public static final int MAXBANDS = 5;
+
+	// Longest look-ahead
+	public static final double MAXLOOKAHEADMS = 20.0;
+
+	// Crossover frequencies for each number of bands. Those too close
+	// to the Nyquist frequency are left out at low sample rates.
+	private static final double [][] CROSSOVERS = {
+		{},
+		{1000},
+		{250, 2500},
+		{150, 800, 4000},
+		{100, 400, 1600, 6400}
+	};
+
+	// Highest crossover frequency as a fraction of the sample rate
+	private static final double MAXCROSSOVER = 0.4;
+
+	/**
+	 * MultibandDynamics class constructor
+	 *
+	 * @param int sampleRate is the sample rate of the samples processed
+	 * @param int numberOfChannels is the number of interleaved channels
+	 * @param int bands is the number of bands, from MINBANDS to MAXBANDS
+	 */
+	public MultibandDynamics(int sampleRate, int numberOfChannels, int bands) {
+
+		if ((bands < MINBANDS) || (bands > MAXBANDS))
+			throw new IllegalArgumentException(
+				"bands must be between " + MINBANDS + " and " + MAXBANDS);
+
+		// Save incoming
+		this.sampleRate = sampleRate;
+		this.numberOfChannels = numberOfChannels;
+
+		// Keep the crossovers the sample rate allows
+		double [] crossovers = CROSSOVERS[bands - 1];
+		int splits = 0;
+		while ((splits < crossovers.length) &&
+			   (crossovers[splits] < MAXCROSSOVER * sampleRate))
+			splits++;
+
+		if (splits > 0) {
+			double [] frequencies = new double[splits];
+			System.arraycopy(crossovers, 0, frequencies, 0, splits);
+			crossover = new LinkwitzRileyCrossover(sampleRate, numberOfChannels,
+												   frequencies);
+		}
+
+		// All bands follow the same curve
+		computer = new GainComputer();
+		int maxLookAhead = (int) (MAXLOOKAHEADMS * sampleRate / 1000.0);
+		this.bands = new DynamicsBand[splits + 1];
+		for (int i=0; i < this.bands.length; i++)
+			this.bands[i] = new DynamicsBand(sampleRate, numberOfChannels,
+											 computer, maxLookAhead);
+
+		bandBuffers = new float[this.bands.length][1];
+		fanOut = new ChannelFanOut(this.bands.length, this, 2);
+
+		// Start out with the CompExp defaults
+		thresholdInDB = -16.0;
+		belowRatio = 1.0;
+		aboveRatio = 0.0;
+		attackInMs = 50.0;
+		releaseInMs = 100.0;
+		gainInDB = 0.0;
+		detector = DynamicsBand.PEAK;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Return the number of bands in use, which may be fewer than asked
+	 * for at low sample rates
+	 *
+	 * @return int containing the number of bands
+	 */
+	public int getBands() {
+
+		return bands.length;
+	}
+
+	/**
+	 * Return the delay added by the look-ahead
+	 *
+	 * @return int latency in sample frames
+	 */
+	public int getLatency() {
+
+		return lookAhead;
+	}
+
+	public void setThreshold(double thresholdInDB) {
+
+		this.thresholdInDB = thresholdInDB;
+		parametersChanged = true;
+	}
+
+	public void setBelowThresholdRatio(double ratio) {
+
+		if (ratio < 1.0)
+			throw new IllegalArgumentException("Below threshold ratio must be at least 1");
+
+		belowRatio = ratio;
+		parametersChanged = true;
+	}
+
+	public void setAboveThresholdRatio(double dBRatio) {
+
+		aboveRatio = dBRatio;
+		parametersChanged = true;
+	}
+
+	public void setAttack(double attackInMs) {
+
+		this.attackInMs = attackInMs;
+		parametersChanged = true;
+	}
+
+	public void setRelease(double releaseInMs) {
+
+		this.releaseInMs = releaseInMs;
+		parametersChanged = true;
+	}
+
+	public void setGain(double gainInDB) {
+
+		this.gainInDB = gainInDB;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Select the envelope detector
+	 *
+	 * @param int detector is DynamicsBand.PEAK or DynamicsBand.RMS
+	 */
+	public void setDetector(int detector) {
+
+		if ((detector != DynamicsBand.PEAK) && (detector != DynamicsBand.RMS))
+			throw new IllegalArgumentException("Unknown detector");
+
+		this.detector = detector;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Set the look-ahead
+	 *
+	 * @param double lookAheadInMs is from zero to MAXLOOKAHEADMS
+	 */
+	public void setLookAheadInMs(double lookAheadInMs) {
+
+		if ((lookAheadInMs < 0.0) || (lookAheadInMs > MAXLOOKAHEADMS))
+			throw new IllegalArgumentException(
+				"Look-ahead must be between 0 and " + MAXLOOKAHEADMS + " ms");
+
+		lookAhead = (int) (lookAheadInMs * sampleRate / 1000.0);
+		parametersChanged = true;
+	}
+
+	/**
+	 * Forget the signal seen so far
+	 */
+	public void reset() {
+
+		if (crossover != null)
+			crossover.reset();
+
+		for (int i=0; i < bands.length; i++)
+			bands[i].reset();
+	}
+
+	/**
+	 * Process a block of samples in place
+	 *
+	 * @param float [] buffer holds the interleaved samples
+	 * @param int length is the number of samples in buffer
+	 */
+	public void doDynamics(float [] buffer, int length) {
+
+		// Only whole frames are processed. The samples of a partial frame
+		// at the end are left as they are.
+		length -= length % numberOfChannels;
+		if (length <= 0)
+			return;
+
+		if (parametersChanged)
+			updateParameters();
+
+		// A single band needs no splitting
+		if (crossover == null) {
+			bands[0].process(buffer, length);
+			return;
+		}
+
+		if (bandBuffers[0].length < length)
+			for (int i=0; i < bandBuffers.length; i++)
+				bandBuffers[i] = new float[length];
+
+		crossover.split(buffer, bandBuffers, length);
+
+		blockLength = length;
+		fanOut.run();
+
+		// Add the bands back together
+		System.arraycopy(bandBuffers[0], 0, buffer, 0, length);
+		for (int b=1; b < bandBuffers.length; b++) {
+			float [] band = bandBuffers[b];
+			for (int i=0; i < length; i++)
+				buffer[i] += band[i];
+		}
+	}
+
+	// Process one band of the block for the ChannelFanOut
+	public void processChannel(int band) {
+
+		bands[band].process(bandBuffers[band], blockLength);
+	}
+
+	// Pass the parameters on. Runs on the processing thread between
+	// blocks so the bands never see the curve half built.
+	private void updateParameters() {
+
+		parametersChanged = false;
+
+		computer.setCurve(thresholdInDB, belowRatio, aboveRatio, gainInDB);
+		for (int i=0; i < bands.length; i++) {
+			bands[i].setTimes(attackInMs, releaseInMs);
+			bands[i].setDetector(detector);
+			bands[i].setLookAhead(lookAhead);
+		}
+	}
+
+	// Private class data
+	private int sampleRate;
+	private int numberOfChannels;
+	private LinkwitzRileyCrossover crossover;
+	private GainComputer computer;
+	private DynamicsBand [] bands;
+	private float [][] bandBuffers;
+	private ChannelFanOut fanOut;
+	private int blockLength;
+
+	private volatile boolean parametersChanged;
+	private volatile double thresholdInDB;
+	private volatile double belowRatio;
+	private volatile double aboveRatio;
+	private volatile double attackInMs;
+	private volatile double releaseInMs;
+	private volatile double gainInDB;
+	private volatile int detector;
+	private volatile int lookAhead;
+}
@@ -1,6 +1,6 @@
 // File Writer With UI Code
 // Written by: Craig A. Lindley
-// Last Update: 08/29/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.filewriter;
 
@@ -147,7 +147,7 @@ public class FileWriterWithUI extends CloseableFrame
 
 			// Get everyone else's idea of format
 			MyInt channelsMin = new MyInt(1);
-			MyInt channelsMax = new MyInt(2);
+			MyInt channelsMax = new MyInt(AudioConstants.MAXCHANNELS);
 			MyInt channelsPreferred = new MyInt(1);
 
 			aa.minMaxChannels(channelsMin, channelsMax, channelsPreferred);
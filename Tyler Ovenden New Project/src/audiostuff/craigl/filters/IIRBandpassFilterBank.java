@@ -0,0 +1,195 @@
+// IIRBandpassFilterBank Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.filters;
+
+import audiostuff.craigl.utils.SmoothedParameter;
+
+// A bank of the optimized bandpass filters of IIRBandpassFilter run in
+// parallel, as a graphic equalizer uses them. Rather than running each
+// filter over the whole buffer in turn, every input sample is passed
+// through all of the bands before moving to the next sample and the band
+// outputs are summed into the output buffer once. The input history is
+// shared by all bands as they see the same input. The history is kept
+// for each channel so the channels of a signal are filtered apart.
+//
+// The coefficients, history and gains of the bands are held in parallel
+// arrays so the inner loop over the bands is a straight run of array
+// arithmetic the JIT compiler can unroll. Band gains may be changed from
+// another thread while the bank runs and move smoothly to their new
+// values like those of the individual filters.
+
+public class IIRBandpassFilterBank {
+
+	// IIRBandpassFilterBank class constructor
+	// designs holds one filter design per band
+	public IIRBandpassFilterBank(IIRBandpassFilterDesign [] designs) {
+
+		bands = designs.length;
+
+		alpha = new double[bands];
+		beta  = new double[bands];
+		gamma = new double[bands];
+		gain  = new double[bands];
+
+		amplitudes = new SmoothedParameter[bands];
+		for (int k=0; k < bands; k++) {
+			alpha[k] = designs[k].getAlpha();
+			beta[k]  = designs[k].getBeta();
+			gamma[k] = designs[k].getGamma();
+			amplitudes[k] = new SmoothedParameter(1.0);
+		}
+
+		// A single channel until told otherwise
+		setChannels(1);
+	}
+
+	// Set the number of channels the bank keeps history for. The
+	// history of every channel is cleared.
+	public void setChannels(int channels) {
+
+		inputs = new double[channels][2];
+		y1 = new double[channels][bands];
+		y2 = new double[channels][bands];
+	}
+
+	// Return the number of channels the bank keeps history for
+	public int getChannels() {
+
+		return inputs.length;
+	}
+
+	// Return the number of bands in the bank
+	public int getBands() {
+
+		return bands;
+	}
+
+	// Set the amplitude adjustment of one band. See IIRFilterBase.
+	public void setAmplitudeAdj(int band, double amplitudeAdj) {
+
+		amplitudes[band].set(amplitudeAdj);
+	}
+
+	// Run all of the bands over a buffer of samples summing their
+	// outputs into outBuffer
+	public void doFilter(short [] inBuffer, double [] outBuffer,
+						 int length) {
+
+		if (shortBuffer.length < length)
+			shortBuffer = new float[length];
+
+		for (int i=0; i < length; i++)
+			shortBuffer[i] = inBuffer[i];
+
+		doFilter(shortBuffer, outBuffer, length);
+	}
+
+	// Run all of the bands over a buffer of float samples
+	public void doFilter(float [] inBuffer, double [] outBuffer,
+						 int length) {
+
+		beginBlock(length);
+		doFilter(0, inBuffer, outBuffer, length);
+	}
+
+	// Run all of the bands over one channel of a block. beginBlock(int)
+	// must have been called for the block. Channels may be filtered at
+	// the same time on different threads.
+	public void doFilter(int channel, float [] inBuffer, double [] outBuffer,
+						 int frames) {
+
+		double [] h = inputs[channel];
+		double [] y1 = this.y1[channel];
+		double [] y2 = this.y2[channel];
+		boolean ramping = this.ramping;
+
+		double x1 = h[0];
+		double x2 = h[1];
+
+		for (int index=0; index < frames; index++) {
+
+			// Fetch sample
+			double x = inBuffer[index];
+
+			outBuffer[index] += ramping ?
+				runBandsRamping(x - x2, y1, y2, index * bands) :
+				runBands(x - x2, y1, y2);
+
+			// Age the input history
+			x2 = x1;
+			x1 = x;
+		}
+
+		// Save the history for the next block
+		h[0] = x1;
+		h[1] = x2;
+	}
+
+	// Called once before each block to pick up gain changes. While any
+	// gain is moving the gain of every band is worked out for each frame
+	// here so all of the channels share it.
+	public void beginBlock(int frames) {
+
+		ramping = false;
+		for (int k=0; k < bands; k++) {
+			if (amplitudes[k].update())
+				ramping = true;
+			gain[k] = amplitudes[k].getValue();
+		}
+
+		if (!ramping)
+			return;
+
+		if (rampGains.length < frames * bands)
+			rampGains = new double[frames * bands];
+
+		for (int i=0; i < frames; i++)
+			for (int k=0; k < bands; k++)
+				rampGains[(i * bands) + k] = amplitudes[k].next();
+	}
+
+	// Run one sample through every band with fixed gains. d is the
+	// current input less the input two samples ago.
+	private double runBands(double d, double [] y1, double [] y2) {
+
+		double sum = 0.0;
+		for (int k=0; k < bands; k++) {
+			// Run the difference equation
+			double y = 2 * (alpha[k] * d + gamma[k] * y1[k] - beta[k] * y2[k]);
+			y2[k] = y1[k];
+			y1[k] = y;
+			sum += gain[k] * y;
+		}
+		return sum;
+	}
+
+	// Run one sample through every band while gains are moving. The
+	// gains of the frame start at offset in rampGains.
+	private double runBandsRamping(double d, double [] y1, double [] y2,
+								   int offset) {
+
+		double sum = 0.0;
+		for (int k=0; k < bands; k++) {
+			double y = 2 * (alpha[k] * d + gamma[k] * y1[k] - beta[k] * y2[k]);
+			y2[k] = y1[k];
+			y1[k] = y;
+			sum += rampGains[offset + k] * y;
+		}
+		return sum;
+	}
+
+	// Private class data
+	private int bands;
+	private double [] alpha;
+	private double [] beta;
+	private double [] gamma;
+	private double [] gain;
+	private SmoothedParameter [] amplitudes;
+	private double [] rampGains = new double[0];
+	private boolean ramping;
+	private double [][] y1;			// Previous output of each band
+	private double [][] y2;			// Output before that
+	private double [][] inputs;		// Previous two inputs
+	private float [] shortBuffer = new float[0];
+}
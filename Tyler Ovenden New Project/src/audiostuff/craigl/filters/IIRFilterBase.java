@@ -1,15 +1,24 @@
 // IIR Filter Base Class
 // Written by: Craig A. Lindley
-// Last Update: 09/03/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.filters;
 
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.utils.SmoothedParameter;
+
 // Base class for all IIR filters.
+// The filters are second order sections. Their history, the last two
+// inputs and outputs, is kept for each channel between blocks and in
+// locals while a block is filtered, so the channels of a signal never
+// see each other's samples.
+// Coefficients and amplitude adjustment may be changed from another
+// thread while the filter runs. A new set of coefficients is handed over
+// as a whole and takes effect at the start of the next block, and the
+// amplitude adjustment moves smoothly to its new value.
 
 public abstract class IIRFilterBase {
 
-	protected static final int HISTORYSIZE = 3;
-
 	// IIRFilterBase class constructor
 	// alpha, beta and gamma are precalculated filter coefficients
 	// that are passed into this filter element.
@@ -20,11 +29,11 @@ public abstract class IIRFilterBase {
 		this.beta = beta;
 		this.gamma = gamma;
 
-		amplitudeAdj = 1.0;
- 
-		// Allocate history buffers
-		inArray  = new double[HISTORYSIZE];
-		outArray = new double[HISTORYSIZE];
+		amplitude = new SmoothedParameter(1.0);
+		pendingCoefficients = new AtomicReference<double []>();
+
+		// A single channel until told otherwise
+		setChannels(1);
 	}
 
 	// Filter coefficients can also be extracted by passing in 
@@ -35,9 +44,8 @@ public abstract class IIRFilterBase {
 
 	public void updateFilterCoefficients(IIRFilterDesignBase fdb) {
 		
-		this.alpha = fdb.getAlpha();
-		this.beta  = fdb.getBeta();
-		this.gamma = fdb.getGamma();
+		pendingCoefficients.set(
+			new double[] {fdb.getAlpha(), fdb.getBeta(), fdb.getGamma()});
 	}
 	
 	public void setAlpha(double alpha) {
@@ -55,26 +63,89 @@ public abstract class IIRFilterBase {
 		this.gamma = gamma;
 	}
 	
-	// Abstract method that runs the filter algorithm
-	public abstract void doFilter(short [] inBuffer, double [] outBuffer,
-								  int length);
+	// Set the number of channels the filter keeps history for. The
+	// history of every channel is cleared.
+	public void setChannels(int channels) {
+
+		history = new double[channels][4];
+	}
+
+	// Return the number of channels the filter keeps history for
+	public int getChannels() {
+
+		return history.length;
+	}
+
+	// Abstract method that runs the filter algorithm over one channel
+	// of a block. beginBlock(int) must have been called for the block.
+	// The filtered samples, scaled by the amplitude adjustment, are
+	// summed into outBuffer. Channels may be filtered at the same time
+	// on different threads.
+	public abstract void doFilter(int channel, float [] inBuffer,
+								  double [] outBuffer, int frames);
+
+	// Run the filter algorithm over a single channel of samples
+	public void doFilter(short [] inBuffer, double [] outBuffer,
+						 int length) {
+
+		if (shortBuffer.length < length)
+			shortBuffer = new float[length];
+
+		for (int i=0; i < length; i++)
+			shortBuffer[i] = inBuffer[i];
+
+		doFilter(shortBuffer, outBuffer, length);
+	}
+
+	// Float version used by devices that process float samples
+	public void doFilter(float [] inBuffer, double [] outBuffer,
+						 int length) {
+
+		beginBlock(length);
+		doFilter(0, inBuffer, outBuffer, length);
+	}
 	
 	// Set the amplitude adjustment to be applied to filtered data
 	// Values typically range from -.25 to +4.0 or -12 to +12 db.
 	public void setAmplitudeAdj(double amplitudeAdj) {
 
-		this.amplitudeAdj = amplitudeAdj;
+		amplitude.set(amplitudeAdj);
+	}
+
+	// Called once before each block to pick up new coefficients and
+	// work out the amplitude adjustment of every frame, which all of
+	// the channels share
+	public void beginBlock(int frames) {
+
+		beginBlock();
+
+		if (gains.length < frames)
+			gains = new double[frames];
+
+		for (int i=0; i < frames; i++)
+			gains[i] = amplitude.next();
+	}
+
+	// Pick up new coefficients and amplitude adjustment
+	protected void beginBlock() {
+
+		double [] c = pendingCoefficients.getAndSet(null);
+		if (c != null) {
+			alpha = c[0];
+			beta  = c[1];
+			gamma = c[2];
+		}
+		amplitude.update();
 	}
 		
 	// Private class data
 	protected double alpha;
 	protected double beta;
 	protected double gamma;
-	protected double amplitudeAdj;
-	protected double [] inArray;
-	protected double [] outArray;
-	protected int iIndex;
-	protected int jIndex;
-	protected int kIndex;
+	protected SmoothedParameter amplitude;
+	protected AtomicReference<double []> pendingCoefficients;
+	protected double [] gains = new double[0];	// Amplitude of each frame
+	protected double [][] history;	// x1, x2, y1, y2 of each channel
+	private float [] shortBuffer = new float[0];
 }
 
@@ -1,6 +1,6 @@
 // IIRLowpassFilter Class
 // Written by: Craig A. Lindley
-// Last Update: 02/15/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.filters;
 
@@ -23,86 +23,122 @@ public class IIRLowpassFilter extends IIRFilterBase {
 		super(fd);
 	}
 
-	// Run the filter algorithm
-	public void doFilter(short [] inBuffer, double [] outBuffer,
-						 int length) {
+	// Run the filter algorithm over one channel
+	public void doFilter(int channel, float [] inBuffer, double [] outBuffer,
+						 int frames) {
 
-		for (int index=0; index < length; index++) {
+		double [] gains = this.gains;
+		double [] h = history[channel];
+
+		// Work on local copies of the coefficients and history
+		double a = alpha;
+		double b = beta;
+		double c = gamma;
+		double x1 = h[0];
+		double x2 = h[1];
+		double y1 = h[2];
+		double y2 = h[3];
+
+		for (int index=0; index < frames; index++) {
 
 			// Fetch sample
-			inArray[iIndex] = (double) inBuffer[index];
-			
-			// Do indices maintainance
-			jIndex = iIndex - 2;
-			if (jIndex < 0) jIndex += HISTORYSIZE;
-			kIndex = iIndex - 1;
-			if (kIndex < 0) kIndex += HISTORYSIZE;
+			double x = inBuffer[index];
 
 			// Run the lowpass difference equation
-			double out = outArray[iIndex] = 
-				2.0 * 
-				(alpha * (inArray[iIndex] + (2 * inArray[kIndex]) + inArray[jIndex]) +
-				 gamma * outArray[kIndex] -
-				 beta  * outArray[jIndex]);
-			
-			outBuffer[index] += amplitudeAdj * out;
-
-			iIndex = (iIndex + 1) % HISTORYSIZE;
+			double y = 2.0 * (a * (x + (2 * x1) + x2) + c * y1 - b * y2);
+
+			outBuffer[index] += gains[index] * y;
+
+			// Age the history
+			x2 = x1;
+			x1 = x;
+			y2 = y1;
+			y1 = y;
 		}
+
+		// Save the history for the next block
+		h[0] = x1;
+		h[1] = x2;
+		h[2] = y1;
+		h[3] = y2;
 	}
 	
 	public void doFilterNoSum(short [] inBuffer, double [] outBuffer,
 						 int length) {
 
+		beginBlock();
+
+		// Work on local copies of the coefficients and history
+		double a = alpha;
+		double b = beta;
+		double c = gamma;
+		double [] h = history[0];
+		double x1 = h[0];
+		double x2 = h[1];
+		double y1 = h[2];
+		double y2 = h[3];
+
 		for (int index=0; index < length; index++) {
 
 			// Fetch sample
-			inArray[iIndex] = (double) inBuffer[index];
-			
-			// Do indices maintainance
-			jIndex = iIndex - 2;
-			if (jIndex < 0) jIndex += HISTORYSIZE;
-			kIndex = iIndex - 1;
-			if (kIndex < 0) kIndex += HISTORYSIZE;
+			double x = (double) inBuffer[index];
 
 			// Run the lowpass difference equation
-			double out = outArray[iIndex] = 
-				2.0 * 
-				(alpha * (inArray[iIndex] + (2 * inArray[kIndex]) + inArray[jIndex]) +
-				 gamma * outArray[kIndex] -
-				 beta  * outArray[jIndex]);
-			
-			outBuffer[index] = out;
-
-			iIndex = (iIndex + 1) % HISTORYSIZE;
+			double y = 2.0 * (a * (x + (2 * x1) + x2) + c * y1 - b * y2);
+
+			outBuffer[index] = y;
+
+			// Age the history
+			x2 = x1;
+			x1 = x;
+			y2 = y1;
+			y1 = y;
 		}
+
+		// Save the history for the next block
+		h[0] = x1;
+		h[1] = x2;
+		h[2] = y1;
+		h[3] = y2;
 	}
 	
 	public void doFilterNoSum(double [] inBuffer, double [] outBuffer,
 						 int length) {
 
+		beginBlock();
+
+		// Work on local copies of the coefficients and history
+		double a = alpha;
+		double b = beta;
+		double c = gamma;
+		double [] h = history[0];
+		double x1 = h[0];
+		double x2 = h[1];
+		double y1 = h[2];
+		double y2 = h[3];
+
 		for (int index=0; index < length; index++) {
 
 			// Fetch sample
-			inArray[iIndex] = inBuffer[index];
-			
-			// Do indices maintainance
-			jIndex = iIndex - 2;
-			if (jIndex < 0) jIndex += HISTORYSIZE;
-			kIndex = iIndex - 1;
-			if (kIndex < 0) kIndex += HISTORYSIZE;
+			double x = inBuffer[index];
 
 			// Run the lowpass difference equation
-			double out = outArray[iIndex] = 
-				2.0 * 
-				(alpha * (inArray[iIndex] + (2 * inArray[kIndex]) + inArray[jIndex]) +
-				 gamma * outArray[kIndex] -
-				 beta  * outArray[jIndex]);
-			
-			outBuffer[index] = out;
-
-			iIndex = (iIndex + 1) % HISTORYSIZE;
+			double y = 2.0 * (a * (x + (2 * x1) + x2) + c * y1 - b * y2);
+
+			outBuffer[index] = y;
+
+			// Age the history
+			x2 = x1;
+			x1 = x;
+			y2 = y1;
+			y1 = y;
 		}
+
+		// Save the history for the next block
+		h[0] = x1;
+		h[1] = x2;
+		h[2] = y1;
+		h[3] = y2;
 	}
 }
 
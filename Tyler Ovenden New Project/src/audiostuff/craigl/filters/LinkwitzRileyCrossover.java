@@ -0,0 +1,229 @@
+// Linkwitz-Riley Crossover Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.filters;
+
+/**
+ * Splits interleaved samples into frequency bands with fourth order
+ * Linkwitz-Riley filters, each a pair of second order Butterworth
+ * sections, falling away at 24 dB per octave. The lowpass and highpass
+ * halves of a Linkwitz-Riley split add back to an allpass filter, so
+ * the bands sum to the input with a flat frequency response.
+ *
+ * The bands are split off from the bottom up. Each band below the top
+ * one is also run thru the allpass of every split above it, so all of
+ * the bands come out with the same phase and still add back flat.
+ */
+public class LinkwitzRileyCrossover {
+
+	/**
+	 * LinkwitzRileyCrossover class constructor
+	 *
+	 * @param int sampleRate is the sample rate of the samples split
+	 * @param int numberOfChannels is the number of interleaved channels
+	 * @param double [] frequencies holds the crossover frequencies in
+	 * ascending order, one fewer than the number of bands
+	 */
+	public LinkwitzRileyCrossover(int sampleRate, int numberOfChannels,
+								  double [] frequencies) {
+
+		if (frequencies.length < 1)
+			throw new IllegalArgumentException("At least one crossover frequency is required");
+
+		for (int i=0; i < frequencies.length; i++) {
+			if ((frequencies[i] <= 0.0) || (frequencies[i] >= sampleRate / 2.0))
+				throw new IllegalArgumentException(
+					"Crossover frequencies must be between 0 and " + (sampleRate / 2));
+			if ((i > 0) && (frequencies[i] <= frequencies[i - 1]))
+				throw new IllegalArgumentException(
+					"Crossover frequencies must be in ascending order");
+		}
+
+		splits = frequencies.length;
+
+		lowpass = new Section[splits][2];
+		highpass = new Section[splits][2];
+		allpass = new Section[splits][];
+		for (int i=0; i < splits; i++) {
+			for (int j=0; j < 2; j++) {
+				lowpass[i][j] = new Section(LOWPASS, frequencies[i], sampleRate, numberOfChannels);
+				highpass[i][j] = new Section(HIGHPASS, frequencies[i], sampleRate, numberOfChannels);
+			}
+
+			// The band below split i is aligned with the splits above it
+			allpass[i] = new Section[splits - 1 - i];
+			for (int j=0; j < allpass[i].length; j++)
+				allpass[i][j] = new Section(ALLPASS, frequencies[i + 1 + j],
+											sampleRate, numberOfChannels);
+		}
+		rest = new float[1];
+	}
+
+	/**
+	 * Return the number of bands the samples are split into
+	 *
+	 * @return int containing the number of bands
+	 */
+	public int getBands() {
+
+		return splits + 1;
+	}
+
+	/**
+	 * Split a block of samples into bands
+	 *
+	 * @param float [] buffer holds the interleaved samples
+	 * @param float [][] bands receives the interleaved samples of each
+	 * band, lowest first. Each must hold at least length samples.
+	 * @param int length is the number of samples in buffer
+	 */
+	public void split(float [] buffer, float [][] bands, int length) {
+
+		if (rest.length < length)
+			rest = new float[length];
+
+		System.arraycopy(buffer, 0, rest, 0, length);
+
+		for (int i=0; i < splits; i++) {
+			// The band below this split
+			lowpass[i][0].filter(rest, bands[i], length);
+			lowpass[i][1].filter(bands[i], bands[i], length);
+			for (int j=0; j < allpass[i].length; j++)
+				allpass[i][j].filter(bands[i], bands[i], length);
+
+			// Everything above it is split again
+			highpass[i][0].filter(rest, rest, length);
+			highpass[i][1].filter(rest, rest, length);
+		}
+		System.arraycopy(rest, 0, bands[splits], 0, length);
+	}
+
+	/**
+	 * Clear the history of all of the filters
+	 */
+	public void reset() {
+
+		for (int i=0; i < splits; i++) {
+			for (int j=0; j < 2; j++) {
+				lowpass[i][j].reset();
+				highpass[i][j].reset();
+			}
+			for (int j=0; j < allpass[i].length; j++)
+				allpass[i][j].reset();
+		}
+	}
+
+	// Kinds of section
+	private static final int LOWPASS = 0;
+	private static final int HIGHPASS = 1;
+	private static final int ALLPASS = 2;
+
+	// A second order section with a Q of 1/sqrt(2), in transposed
+	// direct form II with its history kept for each channel. The history
+	// is double so the low crossovers stay clean at high sample rates.
+	private static class Section {
+
+		Section(int kind, double frequency, int sampleRate, int channels) {
+
+			double w0 = 2.0 * Math.PI * frequency / sampleRate;
+			double cosw0 = Math.cos(w0);
+			double alpha = Math.sin(w0) / (2.0 * Q);
+			double a0 = 1.0 + alpha;
+
+			switch (kind) {
+				case LOWPASS:
+					b0 = (1.0 - cosw0) / 2.0;
+					b1 = 1.0 - cosw0;
+					b2 = b0;
+					break;
+				case HIGHPASS:
+					b0 = (1.0 + cosw0) / 2.0;
+					b1 = -(1.0 + cosw0);
+					b2 = b0;
+					break;
+				default:
+					b0 = 1.0 - alpha;
+					b1 = -2.0 * cosw0;
+					b2 = 1.0 + alpha;
+					break;
+			}
+			b0 /= a0;
+			b1 /= a0;
+			b2 /= a0;
+			a1 = (-2.0 * cosw0) / a0;
+			a2 = (1.0 - alpha) / a0;
+
+			z1 = new double[channels];
+			z2 = new double[channels];
+		}
+
+		// Filter interleaved samples from in to out, which may be the
+		// same buffer
+		void filter(float [] in, float [] out, int length) {
+
+			int channels = z1.length;
+			if (channels == 2) {
+				filterStereo(in, out, length);
+				return;
+			}
+			for (int ch=0; ch < channels; ch++) {
+				double s1 = z1[ch];
+				double s2 = z2[ch];
+				for (int i=ch; i < length; i += channels) {
+					double x = in[i];
+					double y = (b0 * x) + s1;
+					s1 = (b1 * x) - (a1 * y) + s2;
+					s2 = (b2 * x) - (a2 * y);
+					out[i] = (float) y;
+				}
+				z1[ch] = s1;
+				z2[ch] = s2;
+			}
+		}
+
+		// The same for two channels, run side by side. Each sample of a
+		// channel waits on the one before, so interleaving the two
+		// channels keeps the processor busy while it waits.
+		private void filterStereo(float [] in, float [] out, int length) {
+
+			double l1 = z1[0], l2 = z2[0];
+			double r1 = z1[1], r2 = z2[1];
+			for (int i=0; i < length - 1; i += 2) {
+				double xl = in[i];
+				double xr = in[i + 1];
+				double yl = (b0 * xl) + l1;
+				double yr = (b0 * xr) + r1;
+				l1 = (b1 * xl) - (a1 * yl) + l2;
+				r1 = (b1 * xr) - (a1 * yr) + r2;
+				l2 = (b2 * xl) - (a2 * yl);
+				r2 = (b2 * xr) - (a2 * yr);
+				out[i] = (float) yl;
+				out[i + 1] = (float) yr;
+			}
+			z1[0] = l1;
+			z2[0] = l2;
+			z1[1] = r1;
+			z2[1] = r2;
+		}
+
+		void reset() {
+
+			java.util.Arrays.fill(z1, 0.0);
+			java.util.Arrays.fill(z2, 0.0);
+		}
+
+		private double b0, b1, b2, a1, a2;
+		private double [] z1;
+		private double [] z2;
+	}
+
+	// Q of a Butterworth section
+	private static final double Q = 1.0 / Math.sqrt(2.0);
+
+	// Private class data
+	private int splits;
+	private Section [][] lowpass;
+	private Section [][] highpass;
+	private Section [][] allpass;
+	private float [] rest;
+}
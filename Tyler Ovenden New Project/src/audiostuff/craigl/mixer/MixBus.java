@@ -0,0 +1,174 @@
+// Mix Bus Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.mixer;
+
+import java.util.ArrayList;
+import audiostuff.craigl.utils.*;
+
+/**
+ * A multi-track mixer. Each Track owns a signal chain of its own and the
+ * bus sums the tracks into one stereo signal. The bus is the source of
+ * the chain that follows it, so the mix may pass thru master effects on
+ * its way to a player or a file writer.
+ *
+ * For every block the tracks are rendered at the same time on the pool of
+ * worker threads shared with ChannelFanOut, each track placing its block
+ * in a stereo buffer of its own with its gain and pan applied. The bus
+ * then adds the track buffers together a tile at a time. Each tile of the
+ * output stays in the first level cache while every track is added into
+ * it, instead of the whole output being read and written once per track.
+ *
+ * The mix runs until every track has ended. Tracks may be added and
+ * removed while the mix runs. Per track render times are kept in the
+ * StageStats of each track and printed by Instrumentation.dump().
+ */
+public class MixBus extends AbstractAudio implements ChannelProcessorIF {
+
+	// Frames summed per tile. Two tiles of stereo float samples fit in
+	// the first level cache with plenty to spare.
+	public static final int TILEFRAMES = 512;
+
+	/**
+	 * MixBus class constructor
+	 *
+	 * @param int samplingRate is the rate of the mix. Every track runs at
+	 * this rate.
+	 */
+	public MixBus(int samplingRate) {
+
+		super("Mix Bus", SOURCE);
+
+		this.samplingRate = samplingRate;
+		setSamplingRate(samplingRate);
+
+		tracks = new Track[0];
+	}
+
+	/**
+	 * Add a track
+	 *
+	 * @param String name is the name of the track, which its render
+	 * statistics are kept under
+	 * @param LinkedListVector chain holds the devices of the track's
+	 * chain, source first. The track adds its own sink to it.
+	 *
+	 * @return Track added to the mix
+	 */
+	public synchronized Track addTrack(String name, LinkedListVector chain) {
+
+		Track track = new Track(name, chain, samplingRate);
+
+		// The audio thread works from its own copy of the track list
+		Track [] grown = new Track[tracks.length + 1];
+		System.arraycopy(tracks, 0, grown, 0, tracks.length);
+		grown[tracks.length] = track;
+		tracks = grown;
+
+		return track;
+	}
+
+	/**
+	 * Remove a track
+	 *
+	 * @param Track track is the track to take out of the mix
+	 *
+	 * @return boolean true if the track was in the mix
+	 */
+	public synchronized boolean removeTrack(Track track) {
+
+		ArrayList<Track> kept = new ArrayList<Track>();
+		for (int i=0; i < tracks.length; i++)
+			if (tracks[i] != track)
+				kept.add(tracks[i]);
+
+		if (kept.size() == tracks.length)
+			return false;
+
+		Track [] shrunk = new Track[kept.size()];
+		kept.toArray(shrunk);
+		tracks = shrunk;
+		return true;
+	}
+
+	/**
+	 * Return the tracks in the mix
+	 *
+	 * @return Track [] holding the tracks in the order they were added
+	 */
+	public Track [] getTracks() {
+
+		return tracks.clone();
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		// Pick up changes to the track list at a block boundary
+		Track [] current = tracks;
+		if (current != rendering) {
+			rendering = current;
+			fanOut = (current.length == 0) ? null :
+				new ChannelFanOut(current.length, this, 2);
+		}
+
+		boolean allEnded = true;
+		for (int i=0; i < rendering.length; i++)
+			allEnded &= rendering[i].isEnded();
+
+		if (allEnded)
+			return -1;
+
+		frames = length / 2;
+		fanOut.run();
+
+		// Sum the tracks a tile at a time
+		int samples = 2 * frames;
+		for (int start=0; start < samples; start += 2 * TILEFRAMES) {
+			int end = Math.min(start + 2 * TILEFRAMES, samples);
+			float [] first = rendering[0].getBuffer();
+			System.arraycopy(first, start, buffer, start, end - start);
+
+			for (int i=1; i < rendering.length; i++) {
+				float [] track = rendering[i].getBuffer();
+				for (int k=start; k < end; k++)
+					buffer[k] += track[k];
+			}
+		}
+		return samples;
+	}
+
+	// Render one track. Called with each track index in turn, possibly
+	// on a separate thread.
+	public void processChannel(int track) {
+
+		rendering[track].render(frames);
+	}
+
+	// The mix is always stereo
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		min.setValue(2);
+		max.setValue(2);
+		preferred.setValue(2);
+	}
+
+	// Start every track over
+	protected void reset() {
+
+		Track [] current = tracks;
+		for (int i=0; i < current.length; i++)
+			current[i].reset();
+	}
+
+	// Private class data
+	private int samplingRate;
+	private volatile Track [] tracks;
+	private Track [] rendering;			// Tracks of the block being mixed
+	private ChannelFanOut fanOut;
+	private int frames;
+}
@@ -0,0 +1,269 @@
+// Track Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.mixer;
+
+import audiostuff.craigl.processors.Panner;
+import audiostuff.craigl.processors.Resampler;
+import audiostuff.craigl.utils.*;
+
+/**
+ * One track of a MixBus. A track owns a signal chain, typically a source
+ * such as a file reader or an Oscillator followed by effects, and places
+ * its output in the stereo mix with a gain and a pan value. Mono and
+ * stereo chains are accepted. Pan follows the Panner pan law, so a stereo
+ * track keeps its separation and is weighted left or right.
+ *
+ * The chain is negotiated on its own, at the sampling rate of the bus. A
+ * chain that cannot run at that rate gets a Resampler automatically.
+ *
+ * The time every block of the track takes to render is recorded in
+ * StageStats named after the track, so the tracks that are expensive
+ * show up in Instrumentation.dump() and over JMX.
+ *
+ * Tracks are created by MixBus.addTrack(). Gain, pan and mute may be
+ * changed from any thread while the mix runs.
+ */
+public class Track {
+
+	// Parameter defaults
+	public static final double GAINDEF = 1.0;
+	public static final int PANDEF = 50;
+
+	// Tracks are made by the bus
+	Track(String name, LinkedListVector chain, int samplingRate) {
+
+		if ((chain == null) || chain.isEmpty())
+			throw new IllegalArgumentException("Track needs a chain");
+
+		this.name = name;
+
+		// End the chain with a sink of our own and convert to the rate
+		// of the bus where the chain needs it
+		sink = new TrackSink(samplingRate);
+		chain.addElement(sink);
+		Resampler.insertWhereNeeded(chain);
+
+		gain = new SmoothedParameter(GAINDEF);
+		pan = new SmoothedParameter(PANDEF);
+		stats = Instrumentation.getStats("Track " + name);
+		nanosPerFrame = 1.0e9 / samplingRate;
+		buffer = new float[0];
+		input = new float[0];
+	}
+
+	/**
+	 * Return the name of the track
+	 *
+	 * @return String containing the track name
+	 */
+	public String getName() {
+
+		return name;
+	}
+
+	/**
+	 * Set the gain of the track
+	 *
+	 * @param double gain multiplies the samples of the track
+	 */
+	public void setGain(double gain) {
+
+		this.gain.set(gain);
+	}
+
+	/**
+	 * Set where the track sits in the stereo mix
+	 *
+	 * @param int panValue runs from 0 (hard left) thru 50 (center) to
+	 * 100 (hard right)
+	 */
+	public void setPanValue(int panValue) {
+
+		if ((panValue < 0) || (panValue > 100))
+			throw new IllegalArgumentException("Pan value must be 0 .. 100");
+
+		pan.set(panValue);
+	}
+
+	/**
+	 * Silence the track. A muted track is still rendered so it stays in
+	 * step with the others.
+	 *
+	 * @param boolean mute if true the track is left out of the mix
+	 */
+	public void setMute(boolean mute) {
+
+		this.mute = mute;
+	}
+
+	/**
+	 * Return whether the track is muted
+	 *
+	 * @return boolean true if the track is muted
+	 */
+	public boolean getMute() {
+
+		return mute;
+	}
+
+	/**
+	 * Return whether the chain of the track has ended
+	 *
+	 * @return boolean true once the chain has returned end of input
+	 */
+	public boolean isEnded() {
+
+		return ended;
+	}
+
+	/**
+	 * Return the render statistics of the track
+	 *
+	 * @return StageStats of the track
+	 */
+	public StageStats getStats() {
+
+		return stats;
+	}
+
+	// Render a block of frames into the stereo buffer of the track. Once
+	// the chain has ended the track renders silence.
+	void render(int frames) {
+
+		long start = System.nanoTime();
+
+		int length = 2 * frames;
+		if (buffer.length < length) {
+			buffer = new float[length];
+			input = new float[length];
+		}
+
+		int channels = 1;
+		if (!ended) {
+			channels = sink.getNumberOfChannels();
+
+			// A chain that cannot agree on its rate or channels with the
+			// bus is left silent
+			if ((channels == -1) || (sink.getSamplingRate() == -1)) {
+				ended = true;
+				channels = 1;
+			}
+		}
+		int wanted = frames * channels;
+		int filled = 0;
+		while (!ended && (filled < wanted)) {
+			int len = sink.read(input, filled, wanted - filled);
+			if (len == -1)
+				ended = true;
+			else if (len == 0)
+				break;
+			else
+				filled += len;
+		}
+		int framesFilled = filled / channels;
+
+		// Place the samples in the mix
+		gain.update();
+		pan.update();
+		boolean silent = mute;
+		int k = 0;
+		for (int frame=0; frame < framesFilled; frame++) {
+			double p = pan.next();
+			double g = gain.next();
+			if (silent)
+				g = 0.0;
+			float left = (float) (g * Panner.leftPanFactor(p));
+			float right = (float) (g * Panner.rightPanFactor(p));
+			if (channels == 1) {
+				float s = input[frame];
+				buffer[k++] = s * left;
+				buffer[k++] = s * right;
+			}	else	{
+				buffer[k++] = input[2 * frame] * left;
+				buffer[k++] = input[2 * frame + 1] * right;
+			}
+		}
+		for (; k < length; k++)
+			buffer[k] = 0.0f;
+
+		stats.record(System.nanoTime() - start, filled,
+					 (long) (frames * nanosPerFrame));
+	}
+
+	// Return the buffer render() fills
+	float [] getBuffer() {
+
+		return buffer;
+	}
+
+	// Start the chain over
+	void reset() {
+
+		sink.doReset();
+		ended = false;
+	}
+
+	// Ends the chain of the track. It asks for the sampling rate of the
+	// bus and for at most two channels.
+	private static class TrackSink extends AbstractAudio {
+
+		TrackSink(int samplingRate) {
+
+			super("Track Sink", SINK);
+
+			setSamplingRate(samplingRate);
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+
+		// Read samples into part of a buffer
+		int read(float [] buffer, int offset, int length) {
+
+			if (offset == 0)
+				return previous.getSamples(buffer, length);
+
+			if (partial.length < length)
+				partial = new float[length];
+
+			int len = previous.getSamples(partial, length);
+			if (len > 0)
+				System.arraycopy(partial, 0, buffer, offset, len);
+
+			return len;
+		}
+
+		public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+			super.minMaxChannels(min, max, preferred);
+
+			if (max.getValue() > 2)
+				max.setValue(2);
+
+			if (preferred.getValue() > 2)
+				preferred.setValue(2);
+		}
+
+		private float [] partial = new float[0];
+	}
+
+	// Private class data
+	private String name;
+	private TrackSink sink;
+	private SmoothedParameter gain;
+	private SmoothedParameter pan;
+	private volatile boolean mute;
+	private volatile boolean ended;
+	private StageStats stats;
+	private double nanosPerFrame;
+	private float [] buffer;			// Stereo output of the last block
+	private float [] input;				// Samples from the chain
+}
@@ -1,16 +1,16 @@
 // PCMSourceStream Class
 // Written by: Craig A. Lindley
-// Last Update: 08/02/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.pcmplayer;
-
-import javax.media.*;
+
+import javax.media.*;
 import javax.media.protocol.*;
 import audiostuff.craigl.utils.*;
-import audiostuff.craigl.au.*;
-
-public class PCMSourceStream implements PullSourceStream {
-
+import audiostuff.craigl.au.*;
+
+public class PCMSourceStream implements PullSourceStream {
+
     public PCMSourceStream(ContentDescriptor cd, AbstractAudio aa,
 						   int channels, int sampleRate) {
 		// Save incoming
@@ -29,53 +29,57 @@ public class PCMSourceStream implements PullSourceStream {
 		header = AUWrite.build16BitAuHeader(sampleRate, channels, Integer.MAX_VALUE);
 		headerBytesLeft = header.length;
 
-		// Allocate buffer for samples.
-		sampleBuffer = new short[AudioConstants.SAMPLEBUFFERSIZE];
-    }
-
-    /*************************************************************************
-     * Controls interface
-     *************************************************************************/
-
+		// Allocate buffer for samples sized by the block size of the chain.
+		// If the chain could not agree on one the default size is used.
+		int blockSize = aa.getBlockSize();
+		if (blockSize == -1)
+			blockSize = AudioConstants.SAMPLEBUFFERSIZE;
+		sampleBuffer = new short[blockSize];
+    }
+
+    /*************************************************************************
+     * Controls interface
+     *************************************************************************/
+
 	public Object [] getControls() {
 
 		return new Object[0];
-	}
+	}
 
     public Object getControl(String controlType) {
 
-		return null;
-    }
-    
-    /*************************************************************************
-     * SourceStream interface
-     *************************************************************************/
-    
+		return null;
+    }
+    
+    /*************************************************************************
+     * SourceStream interface
+     *************************************************************************/
+    
     public ContentDescriptor getContentDescriptor() {
 
-		return cd;
-    }
+		return cd;
+    }
 
     public long getContentLength() {
 
-		return SourceStream.LENGTH_UNKNOWN;
-    }
-
+		return SourceStream.LENGTH_UNKNOWN;
+    }
+
 
     public boolean endOfStream() {
 
 		return endOfMedia;
-    }
+    }
 
-    /*************************************************************************
-     * PullSourceStream interface (extends SourceStream)
-     *************************************************************************/
-    
+    /*************************************************************************
+     * PullSourceStream interface (extends SourceStream)
+     *************************************************************************/
+    
     public boolean willReadBlock() {
 
-		return false;
-    }
-
+		return false;
+    }
+
     public int read(byte[] buffer, int offset, int nToRead) {
 
 		if (endOfMedia)
@@ -112,7 +116,7 @@ public class PCMSourceStream implements PullSourceStream {
 				sampleOffset = 0;
 
 				samplesAvailable = 
-					aa.previous.getSamples(sampleBuffer, AudioConstants.SAMPLEBUFFERSIZE);
+					aa.previous.getSamples(sampleBuffer, sampleBuffer.length);
 				
 				endOfMedia = ((samplesAvailable == 0) || (samplesAvailable == -1));
 			}
@@ -126,7 +130,7 @@ public class PCMSourceStream implements PullSourceStream {
 			numberOfBytesProvided += 2;
 			samplesAvailable -= 1;
 		}
-		return numberOfBytesProvided;
+		return numberOfBytesProvided;
     }
 
 
@@ -147,4 +151,4 @@ public class PCMSourceStream implements PullSourceStream {
 	protected boolean endOfMedia;
 	protected int headerByteOffset;
 	protected int sampleOffset;
-}
+}
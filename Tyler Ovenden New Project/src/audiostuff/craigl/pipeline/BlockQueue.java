@@ -0,0 +1,209 @@
+// Block Queue Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded single producer/single consumer queue of float sample blocks.
+ * All blocks are allocated up front so moving samples between pipeline
+ * workers never allocates. The producer claims an empty block, fills it
+ * and publishes it. The consumer takes the oldest published block, reads
+ * it and releases it back to the producer. Because there is exactly one
+ * producer and one consumer, the head and tail counters are the only
+ * shared state and no locks are needed.
+ */
+public class BlockQueue {
+
+	// Number of times a waiting thread spins before it starts parking
+	private static final int SPINCOUNT = 100;
+
+	// Time a waiting thread parks for before rechecking the queue
+	private static final long PARKNANOS = 50000;
+
+	/**
+	 * BlockQueue class constructor
+	 *
+	 * @param int depth is the maximum number of blocks the queue can hold
+	 * @param int blockSize is the size in samples of each block
+	 */
+	public BlockQueue(int depth, int blockSize) {
+
+		if ((depth <= 0) || (blockSize <= 0))
+			throw new IllegalArgumentException("depth and blockSize must be > 0");
+
+		// Save incoming
+		this.depth = depth;
+		this.blockSize = blockSize;
+
+		// Allocate all of the blocks and their length slots
+		blocks = new float[depth][blockSize];
+		lengths = new int[depth];
+
+		head = 0;
+		tail = 0;
+		maxSize = 0;
+		stopped = false;
+	}
+
+	/**
+	 * Return the size of each block in samples
+	 *
+	 * @return int containing the block size
+	 */
+	public int getBlockSize() {
+
+		return blockSize;
+	}
+
+	/**
+	 * Return the maximum number of blocks the queue can hold
+	 *
+	 * @return int containing the queue capacity
+	 */
+	public int getCapacity() {
+
+		return depth;
+	}
+
+	/**
+	 * Return the number of blocks currently published but not yet
+	 * released by the consumer.
+	 *
+	 * @return int containing the current queue depth
+	 */
+	public int size() {
+
+		return (int) (tail - head);
+	}
+
+	/**
+	 * Return the largest queue depth seen since the queue was created.
+	 *
+	 * @return int containing the high water mark
+	 */
+	public int getMaxSize() {
+
+		return maxSize;
+	}
+
+	/**
+	 * Producer side. Wait for an empty block to become available and
+	 * return it for filling. The block must be handed back with publish().
+	 *
+	 * @return float [] block to fill or null if the queue was stopped
+	 */
+	public float [] claim() {
+
+		int spins = 0;
+		while ((tail - head) == depth) {
+			if (stopped)
+				return null;
+			spins = pause(spins);
+		}
+		if (stopped)
+			return null;
+
+		return blocks[(int) (tail % depth)];
+	}
+
+	/**
+	 * Producer side. Publish the block returned by the last claim().
+	 *
+	 * @param int length is the number of valid samples in the block or -1
+	 * to indicate the end of the input has been reached.
+	 */
+	public void publish(int length) {
+
+		lengths[(int) (tail % depth)] = length;
+
+		// The volatile write makes the block contents visible to the consumer
+		tail++;
+
+		int s = (int) (tail - head);
+		if (s > maxSize)
+			maxSize = s;
+	}
+
+	/**
+	 * Consumer side. Wait for a published block and return it. The length
+	 * of the block is available from takenLength(). The block must be
+	 * handed back with release().
+	 *
+	 * @return float [] oldest published block or null if the queue was
+	 * stopped.
+	 */
+	public float [] take() {
+
+		int spins = 0;
+		while (head == tail) {
+			if (stopped)
+				return null;
+			spins = pause(spins);
+		}
+		return blocks[(int) (head % depth)];
+	}
+
+	/**
+	 * Consumer side. Return the length of the block returned by the
+	 * last take().
+	 *
+	 * @return int containing the number of samples in the block or -1
+	 * for end of input.
+	 */
+	public int takenLength() {
+
+		return lengths[(int) (head % depth)];
+	}
+
+	/**
+	 * Consumer side. Hand the block returned by the last take() back to
+	 * the producer.
+	 */
+	public void release() {
+
+		head++;
+	}
+
+	/**
+	 * Wake up and release any thread waiting on the queue. Subsequent
+	 * claim() and take() calls return null until the queue is cleared.
+	 */
+	public void stop() {
+
+		stopped = true;
+	}
+
+	/**
+	 * Discard all queued blocks and make the queue usable again after a
+	 * stop(). Must only be called when neither producer nor consumer is
+	 * active.
+	 */
+	public void clear() {
+
+		head = tail;
+		stopped = false;
+	}
+
+	// Spin for a while then start parking the waiting thread
+	private int pause(int spins) {
+
+		if (spins < SPINCOUNT) {
+			Thread.yield();
+			return spins + 1;
+		}
+		LockSupport.parkNanos(PARKNANOS);
+		return spins;
+	}
+
+	// Private class data
+	private int depth;
+	private int blockSize;
+	private float [][] blocks;
+	private int [] lengths;
+	private volatile long head;
+	private volatile long tail;
+	private volatile boolean stopped;
+	private volatile int maxSize;
+}
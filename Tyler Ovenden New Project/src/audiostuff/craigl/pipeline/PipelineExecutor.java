@@ -0,0 +1,210 @@
+// Pipeline Executor Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.pipeline;
+
+import java.util.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * The PipelineExecutor converts a chain of AbstractAudio devices held in a
+ * LinkedListVector from the normal pull model into a pipelined, multi-threaded
+ * chain. The chain is divided into groups of consecutive devices and a
+ * PipelineStage is inserted in front of each group except the first. Each
+ * stage owns a worker thread that runs the devices in front of it, so every
+ * group of devices executes on its own thread, joined to its neighbours by
+ * bounded single producer/single consumer block queues.
+ *
+ * The sink device at the end of the chain still drives the processing by
+ * calling getSamples() on its previous device, so no changes are needed to
+ * any existing device. When the sink asks for blockSize samples at a time
+ * the output is identical to the unpipelined chain.
+ *
+ * Usage:
+ *
+ *	PipelineExecutor pe = new PipelineExecutor(chain, 4096);
+ *	... run the chain as before ...
+ *	System.out.println(pe);
+ *	pe.shutdown();
+ */
+public class PipelineExecutor {
+
+	// Default number of blocks each stage may buffer
+	public static final int DEFAULTQUEUEDEPTH = 4;
+
+	/**
+	 * PipelineExecutor class constructor. Each device in the chain other
+	 * than the first gets its own worker thread.
+	 *
+	 * @param LinkedListVector chain is the list of devices to pipeline. The
+	 * first device must be the source and the last the sink.
+	 * @param int blockSize is the number of samples moved per block
+	 */
+	public PipelineExecutor(LinkedListVector chain, int blockSize) {
+
+		this(chain, everyDevice(chain), blockSize, DEFAULTQUEUEDEPTH);
+	}
+
+	/**
+	 * PipelineExecutor class constructor.
+	 *
+	 * @param LinkedListVector chain is the list of devices to pipeline. The
+	 * first device must be the source and the last the sink.
+	 * @param int [] groupStarts contains the indices, in ascending order, of
+	 * the devices that start a new group. A stage is inserted in front of
+	 * each of these devices. Index 0 is ignored as nothing precedes it.
+	 * @param int blockSize is the number of samples moved per block
+	 * @param int queueDepth is the number of blocks each stage may buffer
+	 */
+	public PipelineExecutor(LinkedListVector chain, int [] groupStarts,
+							int blockSize, int queueDepth) {
+
+		if ((chain == null) || (chain.size() < 2))
+			throw new IllegalArgumentException("chain must contain a source and a sink");
+
+		// Save incoming
+		this.chain = chain;
+		this.blockSize = blockSize;
+		this.queueDepth = queueDepth;
+
+		// Find the devices that start each group before the chain is altered
+		Vector<AbstractAudio> heads = new Vector<AbstractAudio>();
+		int lastIndex = 0;
+		for (int i = 0; i < groupStarts.length; i++) {
+			int index = groupStarts[i];
+			if ((index <= lastIndex) || (index >= chain.size()))
+				continue;
+			heads.addElement(chain.elementAt(index));
+			lastIndex = index;
+		}
+
+		// Insert a stage in front of each group head
+		stages = new PipelineStage[heads.size()];
+		for (int i = 0; i < stages.length; i++) {
+			AbstractAudio head = heads.elementAt(i);
+			PipelineStage stage =
+				new PipelineStage(head.getName(), blockSize, queueDepth);
+
+			chain.insertElementAt(stage, chain.indexOf(head));
+			stages[i] = stage;
+		}
+	}
+
+	/**
+	 * Return the number of stages, and therefore worker threads, the
+	 * executor created.
+	 *
+	 * @return int containing the stage count
+	 */
+	public int getNumberOfStages() {
+
+		return stages.length;
+	}
+
+	/**
+	 * Return the specified stage
+	 *
+	 * @param int index is the index of the stage to return
+	 *
+	 * @return PipelineStage at the specified index
+	 */
+	public PipelineStage getStage(int index) {
+
+		return stages[index];
+	}
+
+	/**
+	 * Return the current queue depth of the specified stage
+	 *
+	 * @param int index is the index of the stage
+	 *
+	 * @return int containing the number of blocks waiting in the stage
+	 */
+	public int getQueueDepth(int index) {
+
+		return stages[index].getQueueDepth();
+	}
+
+	/**
+	 * Return the largest queue depth seen by the specified stage
+	 *
+	 * @param int index is the index of the stage
+	 *
+	 * @return int containing the queue high water mark
+	 */
+	public int getMaxQueueDepth(int index) {
+
+		return stages[index].getQueue().getMaxSize();
+	}
+
+	/**
+	 * Return the block size used by all stages
+	 *
+	 * @return int containing the block size in samples
+	 */
+	public int getBlockSize() {
+
+		return blockSize;
+	}
+
+	/**
+	 * Return the queue capacity used by all stages
+	 *
+	 * @return int containing the capacity in blocks
+	 */
+	public int getQueueCapacity() {
+
+		return queueDepth;
+	}
+
+	/**
+	 * Stop all worker threads and remove the stages from the chain,
+	 * returning it to the normal pull model. Must not be called while
+	 * the sink is pulling samples.
+	 */
+	public void shutdown() {
+
+		// Stop from the sink end so no worker waits on a stopped neighbour
+		for (int i = stages.length - 1; i >= 0; i--)
+			stages[i].stop();
+
+		for (int i = 0; i < stages.length; i++)
+			chain.removeElement(stages[i]);
+
+		stages = new PipelineStage[0];
+	}
+
+	/**
+	 * Convert executor state to a string for display
+	 *
+	 * @return String containing the state of each stage
+	 */
+	public String toString() {
+
+		String retString = "<PipelineExecutor: Stages: " + stages.length +
+			" Block Size: " + blockSize + ">\n";
+
+		for (int i = 0; i < stages.length; i++)
+			retString += stages[i];
+
+		return retString;
+	}
+
+	// Return group start indices placing every device after the source
+	// into its own group.
+	private static int [] everyDevice(LinkedListVector chain) {
+
+		int size = (chain == null) ? 0 : chain.size();
+		int [] starts = new int[Math.max(size - 1, 0)];
+		for (int i = 0; i < starts.length; i++)
+			starts[i] = i + 1;
+
+		return starts;
+	}
+
+	// Private class data
+	private LinkedListVector chain;
+	private int blockSize;
+	private int queueDepth;
+	private PipelineStage [] stages;
+}
@@ -0,0 +1,244 @@
+// Pipeline Stage Device Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.pipeline;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * A PipelineStage is an AbstractAudio device that decouples the devices
+ * in front of it from the devices behind it. It owns a worker thread that
+ * pulls blocks of samples from the previous device and stores them in a
+ * BlockQueue. The devices following the stage pull their samples out of the
+ * queue, so the two groups of devices run concurrently on consecutive
+ * blocks.
+ *
+ * The worker is started lazily by the first getSamples() call, which means
+ * the chain has already negotiated its sampling rate and number of channels
+ * by the time any samples move. The worker asks the previous device for
+ * exactly blockSize samples each time and every block is handed downstream
+ * unchanged, so a sink that requests blockSize samples per call sees the
+ * same data it would see from a purely pulled chain.
+ *
+ * Blocks are carried as float samples, so a chain of devices that
+ * process floats natively is not rounded to 16 bits at the stage. The
+ * short version of getSamples() converts on the way out like any other
+ * float device.
+ */
+public class PipelineStage extends AbstractAudio implements Runnable {
+
+	/**
+	 * PipelineStage class constructor
+	 *
+	 * @param String name is the name of this stage used for identification
+	 * @param int blockSize is the number of samples requested from the
+	 * previous device for each block.
+	 * @param int queueDepth is the maximum number of blocks buffered between
+	 * the previous device and the following devices.
+	 */
+	public PipelineStage(String name, int blockSize, int queueDepth) {
+
+		super(name, PROCESSOR);
+
+		this.blockSize = blockSize;
+		queue = new BlockQueue(queueDepth, blockSize);
+
+		worker = null;
+		currentBlock = null;
+		currentLength = 0;
+		currentOffset = 0;
+		blocksMoved = 0;
+	}
+
+	/**
+	 * Return the queue this stage uses to hand blocks downstream
+	 *
+	 * @return BlockQueue used by this stage
+	 */
+	public BlockQueue getQueue() {
+
+		return queue;
+	}
+
+	/**
+	 * Return the number of blocks currently waiting in this stage
+	 *
+	 * @return int containing the queue depth
+	 */
+	public int getQueueDepth() {
+
+		return queue.size();
+	}
+
+	/**
+	 * Return the number of blocks that have passed through this stage
+	 *
+	 * @return long containing the block count
+	 */
+	public long getBlocksMoved() {
+
+		return blocksMoved;
+	}
+
+	/**
+	 * Determine if the worker thread of this stage is running
+	 *
+	 * @return boolean true if the worker is running
+	 */
+	public boolean isRunning() {
+
+		return (worker != null) && worker.isAlive();
+	}
+
+	/**
+	 * Start the worker thread if it is not already running. Normally
+	 * this happens automatically on the first getSamples() call.
+	 */
+	public synchronized void start() {
+
+		if (worker != null)
+			return;
+
+		queue.clear();
+		worker = new Thread(this, "Pipeline: " + getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stop the worker thread and discard any queued blocks. Every stage
+	 * in front of this one is stopped as well.
+	 */
+	public synchronized void stop() {
+
+		if (worker == null)
+			return;
+
+		// The worker may be waiting on a stage further up the chain so
+		// signal every stage in front of this one before joining.
+		AbstractAudio aa = this;
+		while (aa != null) {
+			if (aa instanceof PipelineStage)
+				((PipelineStage) aa).queue.stop();
+			aa = aa.previous;
+		}
+		try {
+			worker.join();
+		}
+		catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		worker = null;
+		currentBlock = null;
+		currentLength = 0;
+		currentOffset = 0;
+		queue.clear();
+
+		// The stages in front were left with stopped queues, so stop them
+		// properly too. Stopping the nearest one stops the rest and each
+		// one restarts on the next request.
+		aa = previous;
+		while ((aa != null) && !(aa instanceof PipelineStage))
+			aa = aa.previous;
+		if (aa != null)
+			((PipelineStage) aa).stop();
+	}
+
+	/**
+	 * Worker thread body. Pull blocks from the previous device until it
+	 * indicates end of input or the stage is stopped.
+	 */
+	public void run() {
+
+		while (true) {
+			float [] block = queue.claim();
+			if (block == null)
+				return;				// Stage was stopped
+
+			int len = previous.getSamples(block, blockSize);
+			queue.publish(len);
+
+			if (len == -1)
+				return;				// End of input reached
+		}
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are moved as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	/**
+	 * Return samples from the queue. If the caller asks for fewer samples
+	 * than a block contains the remainder is returned by the next call.
+	 */
+	public int getSamples(float [] buffer, int length) {
+
+		if (worker == null)
+			start();
+
+		if (currentBlock == null) {
+			// Wait for the next block from the worker
+			currentBlock = queue.take();
+			if (currentBlock == null)
+				return -1;
+
+			currentLength = queue.takenLength();
+			currentOffset = 0;
+
+			if (currentLength == -1) {
+				// End of input. Retire the worker so that the next request
+				// pulls the previous devices again just like a pulled chain.
+				queue.release();
+				currentBlock = null;
+				stop();
+				return -1;
+			}
+		}
+		int count = Math.min(length, currentLength - currentOffset);
+		System.arraycopy(currentBlock, currentOffset, buffer, 0, count);
+		currentOffset += count;
+
+		if (currentOffset >= currentLength) {
+			// Block used up, give it back to the worker
+			currentBlock = null;
+			queue.release();
+			blocksMoved++;
+		}
+		return count;
+	}
+
+	/**
+	 * The worker must not be running while the previous devices are
+	 * being reset so stop it first. It restarts on the next request.
+	 */
+	protected void propagateReset() {
+
+		stop();
+
+		super.propagateReset();
+	}
+
+	/**
+	 * Convert stage state to a string for display
+	 *
+	 * @return String describing this stage
+	 */
+	public String toString() {
+
+		return "<PipelineStage: " + getName() +
+			" Depth: " + queue.size() + "/" + queue.getCapacity() +
+			" Max: " + queue.getMaxSize() +
+			" Blocks: " + blocksMoved + ">\n";
+	}
+
+	// Private class data
+	private int blockSize;
+	private BlockQueue queue;
+	private Thread worker;
+	private float [] currentBlock;
+	private int currentLength;
+	private int currentOffset;
+	private volatile long blocksMoved;
+}
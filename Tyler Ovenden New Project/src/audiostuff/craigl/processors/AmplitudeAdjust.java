@@ -0,0 +1,47 @@
+// Audio Amplitude Adjustment Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * Amplitude adjustment processor with no user interface. Samples are
+ * multiplied by the adjustment value which starts out at 1.0.
+ * AmplitudeAdjustWithUI adds a user interface on top of this class.
+ */
+public class AmplitudeAdjust extends AbstractAudio {
+
+	/**
+	 * AmplitudeAdjust class constructor
+	 */
+	public AmplitudeAdjust() {
+		
+		super("AmplitudeAdjust", PROCESSOR);
+	}
+
+	public double getAmplitudeAdj() {
+
+		return adjValue;
+	}
+	
+	public void setAmplitudeAdj(double adjValue) {
+
+		this.adjValue = adjValue;
+	}
+	
+	public int getSamples(short [] buffer, int length) {
+
+		int len = previous.getSamples(buffer, length);
+		if (getByPass())
+			return len;
+		
+		for (int i=0; i < len; i++)
+			buffer[i] = (short)(buffer[i] * adjValue);
+
+		return len; 
+	}
+
+    // Private class data
+	private double adjValue = 1.0;
+}
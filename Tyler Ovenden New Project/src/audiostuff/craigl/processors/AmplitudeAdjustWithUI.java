@@ -1,46 +1,21 @@
 // Audio Amplitude Adjustment Processor with UI 
 // Written by: Craig A. Lindley
-// Last Update: 11/11/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
 import java.awt.Rectangle;
 import audiostuff.craigl.beans.blinker.*;
 import audiostuff.craigl.utils.*;
-import audiostuff.craigl.uiutils.*;
 
-public class AmplitudeAdjustWithUI extends AbstractAudio
+public class AmplitudeAdjustWithUI extends AmplitudeAdjust
 						implements AudioUIIF {
 
 	public AmplitudeAdjustWithUI(Blinker blink) {
 		
-		super("AmplitudeAdjust", PROCESSOR);
-
 		aaui = new AmplitudeAdjustUI(blink, this);
 	}
 
-	public double getAmplitudeAdj() {
-
-		return adjValue;
-	}
-	
-	public void setAmplitudeAdj(double adjValue) {
-
-		this.adjValue = adjValue;
-	}
-	
-	public int getSamples(short [] buffer, int length) {
-
-		int len = previous.getSamples(buffer, length);
-		if (getByPass())
-			return len;
-		
-		for (int i=0; i < len; i++)
-			buffer[i] = (short)(buffer[i] * adjValue);
-
-		return len; 
-	}
-
     public void showUI(boolean isVisible) {
         
         aaui.setVisible(isVisible);
@@ -62,6 +37,5 @@ public class AmplitudeAdjustWithUI extends AbstractAudio
     }
 
     // Private class data
-	private double adjValue = 1.0;
 	private AmplitudeAdjustUI aaui = null;
 }
@@ -1,21 +1,49 @@
 // Audio Sample Cacheing Processor 
 // Written by: Craig A. Lindley
-// Last Update: 01/08/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
+import java.io.IOException;
 import audiostuff.craigl.utils.*;
 
+/**
+ * Keeps every sample that passes through it so they can be played again
+ * without running the devices before it again. The samples are read from
+ * the previous stage once, as they are first asked for, and kept in a
+ * SampleStore outside the Java heap that spills to a temporary file past
+ * a memory limit. A reset moves back to the start of the cached samples.
+ *
+ * Any number of CacheReaders may be created with newReader(). Each is a
+ * source device for a chain of its own that reads the same samples with
+ * its own position, so a decoded file can feed several chains, on
+ * separate threads if need be, while being decoded only once. Whichever
+ * reader first needs samples that are not yet cached reads them from the
+ * previous stage for all of them.
+ */
 public class Cache extends AbstractAudio {
 
+	// Samples kept in memory before spilling to disk, 128 MB
+	public static final long DEFAULTMEMORYLIMIT = 64L << 20;
+
 	// Class constructor
 	public Cache() {
 		
+		this(DEFAULTMEMORYLIMIT);
+	}
+
+	/**
+	 * Cache class constructor
+	 *
+	 * @param long memoryLimit is the number of samples to keep in memory
+	 * before spilling to a temporary file
+	 */
+	public Cache(long memoryLimit) {
+		
 		super("Cache", PROCESSOR);
 
-		// Indicate the cache is uninitialized
-		cacheSize = 0;			// Size of cache required
-		cacheBufferOffset = 0;	// Offset to where current samples are
+		store = new SampleStore(memoryLimit);
+		cursor = store.newCursor();
 	}
 
 	// Process any reset messages received by this stage
@@ -24,72 +52,116 @@ public class Cache extends AbstractAudio {
 		o("Cache reset");
 
 		// Reset cache sample offset to the beginning
-		cacheBufferOffset = 0;
+		cursor.setPosition(0);
 	}
 
 	// Return samples from the cache
 	public int getSamples(short [] buffer, int length) {
 
-		// Determine if cache already contains samples
-		if (cacheSize == 0) {
-			
-			// Allocate a move buffer
-			moveBuffer = new short [length];
-			
-			// Cache uninitialized, determine required cache size
-			int len = 0;
-
-			while(len != -1) {
-				cacheSize += len;
-				len = previous.getSamples(moveBuffer, length);
-			}
-			o("Required cache size in samples: " + cacheSize);
-			
-			// Allocate buffer for cache
-			cacheBuffer = new short [cacheSize];
+		return read(cursor, buffer, length);
+	}
 
-			// Now fill the cache buffer samples. NOTE: previous
-			// stages must have reset for this to work.
+	/**
+	 * Create a source device reading the cached samples from the start
+	 *
+	 * @return CacheReader with a position of its own
+	 */
+	public CacheReader newReader() {
 
-			len = previous.getSamples(moveBuffer, length);
-			while(len != -1) {
+		return new CacheReader(this);
+	}
 
-				System.arraycopy(moveBuffer, 0, cacheBuffer, cacheBufferOffset, len);
-				cacheBufferOffset += len;
-				len = previous.getSamples(moveBuffer, length);
-			}
-			// Pt at the beginning of the data in the cache
-			cacheBufferOffset = 0;
+	/**
+	 * Return the number of samples cached so far
+	 *
+	 * @return long containing the sample count
+	 */
+	public long getCachedSamples() {
+
+		return store.getLength();
+	}
+
+	/**
+	 * Determine if every sample of the previous stage has been cached
+	 *
+	 * @return boolean true once the previous stage has ended or caching
+	 * has failed
+	 */
+	public boolean isComplete() {
+
+		return complete;
+	}
+
+	/**
+	 * Release the cached samples and the temporary file. The cache and
+	 * its readers must not be used afterwards.
+	 */
+	public void close() {
+
+		store.close();
+	}
+
+	// Create a cursor on the cached samples for a reader
+	SampleStore.Cursor newCursor() {
+
+		return store.newCursor();
+	}
+
+	// Read samples at a cursor, caching more first if it is at the end
+	int read(SampleStore.Cursor cursor, short [] buffer, int length) {
+
+		int len = cursor.read(buffer, 0, length);
+		while (len == 0) {
+			if (!fill(cursor.getPosition()))
+				return -1;		// Everything has been read
+			len = cursor.read(buffer, 0, length);
 		}
-		// Return samples from the cache
-		
-		// Calculate data remaining in the cache
-		int dataRemaining = cacheSize - cacheBufferOffset;
-		
-		// Return end of file indication if no more data
-		if (dataRemaining == 0)
-			return -1;
+		return len;
+	}
 
-		int samplesRead;
+	// Make sure there are samples beyond position, reading a block from
+	// the previous stage if there are not. Returns false once the
+	// previous stage has ended and there are none, or if the samples
+	// could not be stored.
+	private synchronized boolean fill(long position) {
+
+		// Another reader may have got them already
+		if (store.getLength() > position)
+			return true;
+		if (complete)
+			return false;
+
+		if (moveBuffer == null) {
+			int size = getBlockSize();
+			if (size == -1) {
+				complete = true;
+				return false;
+			}
+			moveBuffer = new short[size];
+		}
 
-		if (length <= dataRemaining) {
-			// Cache has the required amount of data to return
-			System.arraycopy(cacheBuffer, cacheBufferOffset, buffer, 0, length);
-			cacheBufferOffset += length;
-			return length;
-		
-		}	else	{
-		
-			// Cache is short of data
-			System.arraycopy(cacheBuffer, cacheBufferOffset, buffer, 0, dataRemaining);
-			cacheBufferOffset += dataRemaining;
-			return dataRemaining;
+		int len = previous.getSamples(moveBuffer, moveBuffer.length);
+		if (len == -1) {
+			complete = true;
+			o("Cached samples: " + store.getLength());
+			return false;
+		}
+		try {
+			store.append(moveBuffer, 0, len);
+		}
+		catch(IOException ioe) {
+			// Give up caching. The readers see the end of the samples.
+			System.out.println("Can't spill cache to disk: " + ioe);
+			store.close();
+			complete = true;
+			return false;
 		}
+		return true;
 	}
 	
 	// Private class data
-	private int cacheSize;
-	private int cacheBufferOffset;
+	private SampleStore store;
+	private SampleStore.Cursor cursor;
 	private short [] moveBuffer;
-	private short [] cacheBuffer;
+	private volatile boolean complete;
 }
@@ -0,0 +1,65 @@
+// Cache Reader Source
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * A source device that reads the samples of a Cache with a position of
+ * its own. Created by Cache.newReader(). Its format is that of the
+ * Cache, and a reset moves it back to the first sample. Readers of the
+ * same Cache may run on separate threads.
+ */
+public class CacheReader extends AbstractAudio {
+
+	// Class constructor
+	CacheReader(Cache cache) {
+
+		super("Cache Reader", SOURCE);
+
+		this.cache = cache;
+		cursor = cache.newCursor();
+	}
+
+	// Return samples from the cache
+	public int getSamples(short [] buffer, int length) {
+
+		return cache.read(cursor, buffer, length);
+	}
+
+	// Move back to the first sample
+	protected void reset() {
+
+		cursor.setPosition(0);
+	}
+
+	// This is the first device in its chain. The rate is that of
+	// the cache.
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		int rate;
+		synchronized(cache) {
+			rate = cache.getSamplingRate();
+		}
+		min.setValue(rate);
+		max.setValue(rate);
+		preferred.setValue(rate);
+	}
+
+	// The number of channels is that of the cache
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		int channels;
+		synchronized(cache) {
+			channels = cache.getNumberOfChannels();
+		}
+		min.setValue(channels);
+		max.setValue(channels);
+		preferred.setValue(channels);
+	}
+
+	// Private class data
+	private Cache cache;
+	private SampleStore.Cursor cursor;
+}
@@ -0,0 +1,392 @@
+// Chorus Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Chorus/flanger processor with no user interface. Its parameters are
+ * set by calling the setter methods and start out at the default values
+ * below. ChorusWithUI adds a user interface on top of this class.
+ *
+ * The setters may be called from any thread while samples are being
+ * processed. Level changes are smoothed, LFO changes are picked up at the
+ * start of the next block and so is a new delay. A delay longer than
+ * the delay lines have room for gets bigger lines, built by the calling
+ * thread and swapped in at the start of the next block, so the effect
+ * keeps running throughout.
+ *
+ * Any number of channels is handled. Samples are processed in planar
+ * form: the LFO sweep and levels are worked out once per block and each
+ * channel then runs through its own delay line, on a separate thread
+ * when there are many channels.
+ */
+public class Chorus extends AbstractAudio implements ChannelProcessorIF {
+
+	// Parameter defaults
+	public static final int DEFAULTDELAYINMS = 18;
+	public static final int DEFAULTDEPTHINMS = 10;
+	public static final int DEFAULTRATEINHZ  = 2;
+	public static final int DEFAULTDEPTHLEVEL= 10;
+	public static final int DEFAULTDRYLEVEL  = 30;
+	public static final int DEFAULTWETLEVEL  = 30;
+	public static final int DEFAULTFEEDBACKLEVEL = 0;
+
+	// Largest depth the delay buffers have room for
+	public static final double MAXDEPTHINMS = 30;
+
+	/**
+	 * Chorus class constructor
+	 */
+	public Chorus() {
+
+		this("Chorus");
+	}
+
+	/**
+	 * Chorus class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected Chorus(String name) {
+		
+		super(name, PROCESSOR);
+
+		initializationComplete = false;
+		isSinLFO = false;
+		invertPhase = false;
+
+		// Start out with the default parameters
+		delayInMs = DEFAULTDELAYINMS;
+		rateInHz = DEFAULTRATEINHZ;
+		halfDepth = DEFAULTDEPTHLEVEL / 2.0;
+		dryLevel = new SmoothedParameter(DEFAULTDRYLEVEL);
+		wetLevel = new SmoothedParameter(DEFAULTWETLEVEL);
+		feedbackLevel = DEFAULTFEEDBACKLEVEL;
+		feedback = new SmoothedParameter(DEFAULTFEEDBACKLEVEL);
+		pendingDelay = new AtomicReference<DelayLine []>();
+	}
+
+	// Process the samples that pass thru this effect		
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Process the planar samples that pass thru this effect
+	public int getSamples(float [][] buffers, int frames) {
+
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffers, frames);
+
+        // Read number of samples requested from previous stage.
+		// Samples are processed in place.
+		int len = previous.getSamples(buffers, frames);
+		if (len <= 0)
+			return len;
+
+		// Pick up parameter changes made since the last block and
+		// work out where every channel reads from
+		beginBlock(buffers, len);
+
+		fanOut.run();
+
+		return len;
+	}
+
+	/**
+	 * Run the delay over one channel of the current block. Called by the
+	 * channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] buffer = blockBuffers[channel];
+		DelayLine delayLine = delayLines[channel];
+
+		for (int i=0; i < blockFrames; i++) {
+
+			// Fetch the input sample
+			float inputSample = buffer[i];
+
+			// Fetch the swept delay tap
+			float delaySample = delayLine.readLinear(delays[i]);
+
+			// Sum wet and dry portions of the output
+			buffer[i] = (float)
+				(((inputSample * dryLevels[i]) / 100) +
+				 ((delaySample * wetLevels[i]) / 100));
+
+			// Calculate sample for storage in delay buffer
+			inputSample += (delaySample * feedbacks[i]) / 100;
+
+			// Store sample
+			delayLine.write(inputSample);
+		}
+	}
+
+	// Set a new delay value from UI
+	public void setDelayInMs(int delayInMs) {
+
+		this.delayInMs = delayInMs;
+
+		// Before initialization the delay is simply remembered
+		if (!initializationComplete)
+			return;
+
+		int delayOffset = (delayInMs * sampleRate) / 1000;
+
+		// Build longer delay lines for the processing thread to swap in
+		// if need be
+		if (delayOffset + depthRoom > delayLines[0].getMaxDelay()) {
+			DelayLine [] lines = new DelayLine[numberOfChannels];
+			for (int ch=0; ch < numberOfChannels; ch++)
+				lines[ch] = new DelayLine(delayOffset + depthRoom);
+			pendingDelay.set(lines);
+		}
+		this.delayOffset = delayOffset;
+	}
+
+	// Set a new LFO rate from UI
+	public void setRateInHz(double rateInHz) {
+
+		this.rateInHz = rateInHz;
+
+		// Step size is calculated at the start of the next block
+		lfoChanged = true;
+	}
+
+	// Set a new LFO mode from the UI
+	public void setLFOMode(boolean isSinLFO) {
+
+		this.isSinLFO = isSinLFO;
+
+		// Step size is calculated at the start of the next block
+		lfoChanged = true;
+	}
+
+	// Set a new depth value from UI
+	public void setDepthLevel(double depthInMs) {
+
+		halfDepth = Math.min(depthInMs, MAXDEPTHINMS) / 2.0;
+
+		// Step size is calculated at the start of the next block
+		lfoChanged = true;
+	}
+
+	// Install changes made by the setters and work out the delay taps
+	// and levels of the block. These are the same for every channel so
+	// they are calculated once here. Called by the processing thread at
+	// the start of each block.
+	private void beginBlock(float [][] buffers, int frames) {
+
+		DelayLine [] pending = pendingDelay.getAndSet(null);
+		if (pending != null) {
+			// Keep the signal already in the delay
+			for (int ch=0; ch < delayLines.length; ch++)
+				pending[ch].copyHistory(delayLines[ch]);
+			delayLines = pending;
+		}
+		// A delay set after the lines are picked up waits for the
+		// next block
+		double maxDelay = delayLines[0].getMaxDelay();
+		double delay = Math.min(delayOffset + halfDepthInSamples,
+								maxDelay - halfDepthInSamples);
+
+		if (lfoChanged) {
+			lfoChanged = false;
+			calculateStepSize();
+		}
+
+		dryLevel.update();
+		wetLevel.update();
+		feedback.update();
+
+		if ((fanOut == null) || (buffers.length != channelsRun)) {
+			channelsRun = buffers.length;
+			fanOut = new ChannelFanOut(channelsRun, this);
+		}
+		if (delays.length < frames) {
+			delays = new double[frames];
+			dryLevels = new double[frames];
+			wetLevels = new double[frames];
+			feedbacks = new double[frames];
+		}
+		blockBuffers = buffers;
+		blockFrames = frames;
+
+		for (int i=0; i < frames; i++) {
+
+			// The sweep moves the tap either side of the delay, which
+			// is never less than a sample
+			delays[i] = Math.max(delay - sweepValue, 1.0);
+
+			dryLevels[i] = dryLevel.next();
+			wetLevels[i] = wetLevel.next();
+			feedbacks[i] = feedback.next();
+
+			// Calculate new sweep value
+			if (sinLFO) {
+				// LFO is sinusoidal
+				sampleNumber %= sampleRate;
+				sweepValue = halfDepthInSamples * 
+					Math.sin(radiansPerSample * sampleNumber++);
+
+			}	else	{
+				
+				// LFO is triangular
+				sweepValue += step;
+
+				// Keep sweep in range
+				if ((sweepValue >=  halfDepthInSamples) ||
+					(sweepValue <= -halfDepthInSamples)) {
+					// Change direction of sweep
+					step *= -1;
+				}
+			}
+		}
+	}
+
+	// Calculate new sweep value from LFO rate and depth
+	private void calculateStepSize() {
+
+		// Calculate half depth in samples
+		halfDepthInSamples = (halfDepth * sampleRate) / 1000;
+		
+		sweepValue = 0.0;
+		
+		// Calculations for triangle wave
+		double periodInSamples = (1.0 / rateInHz) * sampleRate;
+		double quarterPeriod = periodInSamples / 4.0;
+
+		step = halfDepthInSamples / quarterPeriod;
+
+		// Calculations for sin wave
+		sinLFO = isSinLFO;
+		sampleNumber = 0;
+		radiansPerSample = (2 * Math.PI * rateInHz) / sampleRate;
+	}
+	
+	// Set a new dry level value from UI
+	public void setDryLevel(int dryLevel) {
+
+		this.dryLevel.set(dryLevel);
+	}
+
+	// Set a new wet level value from UI
+	public void setWetLevel(int wetLevel) {
+
+		this.wetLevel.set(wetLevel);
+	}
+
+	// Set feedback phase from UI
+	public void setFeedbackPhase(boolean invertPhase) {
+
+		this.invertPhase = invertPhase;
+
+		// Phase is carried as the sign of the feedback
+		feedback.set(invertPhase ? -feedbackLevel : feedbackLevel);
+	}
+
+	// Set a new feedback level value from UI
+	public void setFeedbackLevel(int feedbackLevel) {
+
+		this.feedbackLevel = feedbackLevel;
+
+		feedback.set(invertPhase ? -feedbackLevel : feedbackLevel);
+	}
+
+	// Calculate buffer sizes from delay values
+	public void doInitialization() {
+
+		// See if we have the necessary data to initialize delay
+		if ((sampleRate != 0) && (numberOfChannels != 0) &&
+            (!initializationComplete)) {
+
+			// Calculate number of samples required for delay
+			delayOffset = (delayInMs * sampleRate) / 1000;
+
+			// Leave room for the LFO to sweep the tap back by the
+			// largest depth
+			depthRoom = (int) ((MAXDEPTHINMS * sampleRate) / 1000) + 2;
+
+			// Each channel has a delay line of its own
+			delayLines = new DelayLine[numberOfChannels];
+			for (int ch=0; ch < numberOfChannels; ch++)
+				delayLines[ch] = new DelayLine(delayOffset + depthRoom);
+
+			// Indicate initialization is complete
+			initializationComplete = true;
+		}
+	}
+
+	// Trap sample rate during negotiation
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+		doInitialization();
+		calculateStepSize();
+	}
+
+	// Trap number of channels during negotiation
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		numberOfChannels = preferred.getValue();
+		doInitialization();
+	}
+
+	// Private class data
+	private volatile boolean initializationComplete = false;
+	private volatile int delayInMs;
+	private volatile double halfDepth = 1;
+	private double halfDepthInSamples;
+	private volatile double rateInHz;
+	private volatile boolean isSinLFO;
+	private volatile boolean lfoChanged;
+	private boolean sinLFO;
+	private volatile boolean invertPhase;
+	private double step;
+	private double sweepValue = 0;
+	private int sampleNumber = 0;
+	private double radiansPerSample;
+
+	private int depthLevel;
+	private SmoothedParameter dryLevel;
+	private SmoothedParameter wetLevel;
+	private volatile int feedbackLevel;
+	private SmoothedParameter feedback;
+	private AtomicReference<DelayLine []> pendingDelay;
+	private volatile int delayOffset;
+	private int depthRoom;
+
+	private int sampleRate = 0;
+	private int numberOfChannels = 0;
+
+	private DelayLine [] delayLines = null;
+
+	// Delay taps and levels of the current block
+	private ChannelFanOut fanOut;
+	private int channelsRun;
+	private float [][] blockBuffers;
+	private int blockFrames;
+	private double [] delays = new double[0];
+	private double [] dryLevels = new double[0];
+	private double [] wetLevels = new double[0];
+	private double [] feedbacks = new double[0];
+}
@@ -1,6 +1,6 @@
 // Flanger/ChorusUI Class
 // Written by: Craig A. Lindley
-// Last Update: 05/19/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -24,13 +24,13 @@ public class ChorusUI extends BaseUI implements CloseableFrameIF {
 	public static final double MAXDEPTHINMS = 30;
 	public static final double MINDEPTHINMS = 0;
 
-	public static final int DEFAULTDELAYINMS = 18;
-	public static final int DEFAULTDEPTHINMS = 10;
-	public static final int DEFAULTRATEINHZ  = 2;
-	public static final int DEFAULTDEPTHLEVEL= 10;
-	public static final int DEFAULTDRYLEVEL  = 30;
-	public static final int DEFAULTWETLEVEL  = 30;
-	public static final int DEFAULTFEEDBACKLEVEL = 0;
+	public static final int DEFAULTDELAYINMS = Chorus.DEFAULTDELAYINMS;
+	public static final int DEFAULTDEPTHINMS = Chorus.DEFAULTDEPTHINMS;
+	public static final int DEFAULTRATEINHZ  = Chorus.DEFAULTRATEINHZ;
+	public static final int DEFAULTDEPTHLEVEL= Chorus.DEFAULTDEPTHLEVEL;
+	public static final int DEFAULTDRYLEVEL  = Chorus.DEFAULTDRYLEVEL;
+	public static final int DEFAULTWETLEVEL  = Chorus.DEFAULTWETLEVEL;
+	public static final int DEFAULTFEEDBACKLEVEL = Chorus.DEFAULTFEEDBACKLEVEL;
 
 	public ChorusUI(Blinker blink, AbstractAudio aa) {
 		
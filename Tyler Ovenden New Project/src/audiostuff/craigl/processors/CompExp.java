@@ -0,0 +1,308 @@
+// Compressor/Expander/Limiter/Noise Gate Class
+// Last Update: 10/18/26
+
+// This version of the processor illustrates implementation
+// of a soft transition between the no compression and compression states.
+// The hard knee version is contained in the file CompExpHard.java.
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * Compressor/expander/limiter/noise gate with no user interface and a
+ * soft transition between the no compression and compression states.
+ * Its parameters are set by calling the setter methods and start out at
+ * the default values below. CompExpWithUI adds a user interface on top
+ * of this class.
+ */
+public class CompExp extends AbstractAudio implements CompExpIF {
+
+	// Parameter limits used by the processing
+	public  static final double MINBTRATIO = 25.0;
+	public  static final double MINATRATIO = -11.0;
+
+	// Parameter defaults
+	public  static final double THRESHOLDDEF = -16;
+	public  static final double BTRATIODEF   = 1.0;
+	public  static final double ATRATIODEF   = 0.0;
+	public  static final double ATTACKMSDEF  = 50;
+	public  static final double RELEASEMSDEF = 100;
+	public  static final double GAINDBDEF    = 0.0;
+
+	// Set to true to output debug messages to the console.
+	private static final boolean DEBUG = false;
+
+	// Finals for soft transitions. TRANSITIONTIME is the time (in seconds) 
+	// allowed for the gain to change from the non-compression level to
+	// the compression level and vise versa. DELTA is how close the compression
+	// level must be to the ramping value to be considered equal.
+	private static final double TRANSITIONTIME = 0.1;
+	private static final double DELTA = 0.025;
+
+	/**
+	 * CompExp class constructor
+	 */
+	public CompExp() {
+
+		this("Compressor/Expander/Limiter/Noise Gate Processor");
+	}
+
+	/**
+	 * CompExp class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected CompExp(String name) {
+		super(name, PROCESSOR);
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+
+		// Start out with the default parameters
+		setThreshold(THRESHOLDDEF);
+		setBelowThresholdRatio(BTRATIODEF);
+		setAboveThresholdRatio(ATRATIODEF);
+		setAttack(ATTACKMSDEF);
+		setRelease(RELEASEMSDEF);
+		setGain(GAINDBDEF);
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Get samples from previous stage
+		int len = previous.getSamples(buffer, length);
+		
+		// If bypass is enabled, short circuit processing
+		if (getByPass() || !initializationComplete) 
+			return len;
+
+		// We have samples to process
+		for (int i=0; i < len; i++) {
+
+			// Process gain adjustment counters every sample
+			
+			// Ramp above threshold gain
+			if (Math.abs(atRatio - gain1) > DELTA) {
+				
+				if ((atRatio > 1.0) && (gain1 < atRatio))
+					gain1 += transitionStep;
+				else if ((atRatio < 1.0) && (gain1 > atRatio))
+					gain1 -= transitionStep;
+			}
+			// Ramp unity gain value
+			if (Math.abs(gain2 - 1.0) > DELTA) {
+				if ((atRatio > 1.0) && (gain2 > 1.0))
+					gain2 -= transitionStep;
+				else
+					gain2 += transitionStep;
+			}
+
+			// Get a sample
+			double sample = (double) buffer[i];
+
+			if (Math.abs(sample) >= thresholdValue) {
+				// Sample value exceeds threshold
+
+				releaseCount++;
+				releaseCount %= (calcReleaseCount + 1);
+
+				if (attackExpired) {
+					// Attack satisfied, process sample
+					if (!limiting)
+						sample *= gain1;
+					else
+						sample = (sample < 0) ? 
+							-thresholdValue : thresholdValue;
+
+				}	else	{
+					// Attack count has not expired. Process sample
+					// using default gain
+					sample *= gain2;
+					
+					// Update attack counter
+					attackCount--;
+					if (attackCount <= 0) {
+						// Attack count exhausted
+						attackExpired = true;
+						releaseCount = calcReleaseCount;
+						gain1 = gain2;
+					}
+				}
+
+			}	else	{
+				// Sample value did not exceed threshold
+				if (attackExpired) {
+					// Release time has not expired, so process as if the
+					// sample did exceed threshold.
+					if (!limiting) 
+						sample *= gain1;
+
+					// Update release counter
+					releaseCount--;
+					if (releaseCount <= 0) {
+						// Release count exhausted
+						attackExpired = false;
+						attackCount = calcAttackCount;
+						gain2 = gain1;
+					}
+				}	else	{
+					// No compression/expansion. Process sample
+					// using default gain
+					sample *= gain2;
+					
+					// Update attack count
+					attackCount++;
+					attackCount %= (calcAttackCount + 1);
+				}
+				// Now process below threshold noise gating
+				sample *= btRatio;
+			}
+			// Apply gain
+			sample *= gain;
+
+			// Range check results
+			if (sample > 32767.0)
+				sample = 32767.0;
+			else if (sample < -32768.0)
+				sample = -32768.0;
+
+			// Store sample back into buffer
+			buffer[i] = (short) sample;
+		}
+		// Return count of sample processed
+		return len;
+	}
+
+	// These methods set the processing parameters
+	public void setThreshold(double thresholdInDB) {
+
+		// thresholdValue is the sample value which is thresholdInDB
+		// below the maximum value of 32767.0
+		thresholdValue = Math.pow(10, thresholdInDB / 20.0) * 32767.0;
+		pdb("thresholdValue: " + thresholdValue);
+	}
+	
+	public void setBelowThresholdRatio(double ratio) {
+
+		// Check for noise gating function
+		gating = (ratio >= MINBTRATIO);
+		pdb("gating: " + gating);
+		
+		// A noise gate clamps output to zero
+		if (gating)
+			btRatio = 0.0;
+		else 
+			btRatio = 1.0 / ratio;
+
+		pdb("btRatio: " + btRatio);
+	}
+	
+	public void setAboveThresholdRatio(double dBRatio) {
+
+		limiting = (dBRatio <= MINATRATIO);
+		pdb("limiting: " + limiting);
+
+		atRatio = Math.pow(10, dBRatio / 20);
+		pdb("atRatio: " + atRatio);
+		
+		// Calculate step size for gain ramps. That is, the rate at which
+		// the gain transitions from 1.0 (0 dB) to the expansion or
+		// compression level.
+		transitionStep = Math.abs(atRatio - 1.0) / transitionCount;
+		pdb("transitionStep: " + transitionStep);
+
+		gain2 = 1.0;
+	}
+	
+	public void setAttack(double attackInMs) {
+
+		this.attackInMs = attackInMs;
+		calcAttackCount = (int)(channels * attackInMs * sampleRate / 1000);
+		attackCount = calcAttackCount;
+		pdb("attackCount: " + attackCount);
+	}
+	
+	public void setRelease(double releaseInMs) {
+
+		this.releaseInMs = releaseInMs;
+		calcReleaseCount = (int)(channels * releaseInMs * sampleRate / 1000);
+		releaseCount = calcReleaseCount;
+		pdb("releaseCount: " + releaseCount);
+	}
+	
+	public void setGain(double gainInDb) {
+
+		this.gain = Math.pow(10, gainInDb / 20);
+		pdb("gain: " + gain);
+
+	}
+	
+	// Perform calculations that require a known sample rate
+	private void doInitialization() {
+
+		calcAttackCount = (int)(channels * attackInMs * sampleRate / 1000);
+		attackCount = calcAttackCount;
+
+		calcReleaseCount= (int)(channels * releaseInMs * sampleRate / 1000);
+		releaseCount = calcReleaseCount;
+
+		// Calculate transition time in samples
+		transitionCount = (int)(sampleRate * TRANSITIONTIME);
+
+		gain2 = 1.0;
+
+		// Indicate initialization is complete
+		initializationComplete = true;
+	}
+	
+	// Grab value of sample rate during negotiation
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	// Grab number of channels during negotiation
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		
+		channels = preferred.getValue();
+	}
+
+	public void pdb(String s) {
+
+		if (DEBUG)
+			System.out.println(s);
+	}
+
+	// Private class data
+	private boolean initializationComplete;
+	private int sampleRate = 0;
+	private int channels = 1;
+	private double thresholdValue = 32767.0;
+	private double btRatio = 1.0;
+	private double atRatio = 1.0;
+	private double attackInMs = 0;
+	private double releaseInMs = 0;
+	private double attackCount = 0;
+	private double releaseCount = 0;
+	private double gain = 1.0;
+	private boolean limiting = false;
+	private boolean gating = false;
+
+	private int calcAttackCount = 0;
+	private int calcReleaseCount = 0;
+	private int transitionCount = 0;
+	private boolean attackExpired = false;
+
+	private double gain1 = 1.0;
+	private double gain2 = 1.0;
+	private double transitionStep = 0.001;
+
+}
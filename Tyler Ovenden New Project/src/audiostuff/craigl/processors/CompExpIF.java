@@ -0,0 +1,22 @@
+// Compressor/Expander Interface
+// Last Update: 10/18/26
+
+// Implemented by the processors CompExpUI can drive, so the same
+// sliders work the soft and hard knee CompExp processors and Dynamics
+
+package audiostuff.craigl.processors;
+
+public interface CompExpIF {
+
+	public void setThreshold(double thresholdInDB);
+
+	public void setBelowThresholdRatio(double ratio);
+
+	public void setAboveThresholdRatio(double dBRatio);
+
+	public void setAttack(double attackInMs);
+
+	public void setRelease(double releaseInMs);
+
+	public void setGain(double gainInDb);
+}
@@ -1,6 +1,6 @@
 // Compressor/Expander UI Class
 // Written by: Craig A. Lindley
-// Last Update: 06/26/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -19,31 +19,38 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 
 	private static final double MAXTHRESHOLDDB = 0;
 	private static final double MINTHRESHOLDDB = -60;
-	public  static final double THRESHOLDDEF   = -16;
+	public  static final double THRESHOLDDEF   = CompExp.THRESHOLDDEF;
 
 	private static final double MAXBTRATIO = 1.0;
-	public  static final double MINBTRATIO = 25.0;
-	public  static final double BTRATIODEF = 1.0;
+	public  static final double MINBTRATIO = CompExp.MINBTRATIO;
+	public  static final double BTRATIODEF = CompExp.BTRATIODEF;
 
 	public  static final double MAXATRATIO = +11.0;
-	public  static final double MINATRATIO = -11.0;
-	public  static final double ATRATIODEF = 0.0;
+	public  static final double MINATRATIO = CompExp.MINATRATIO;
+	public  static final double ATRATIODEF = CompExp.ATRATIODEF;
 	
 	private static final double MAXATTACKMS = 500;
 	private static final double MINATTACKMS = 0;
-	public  static final double ATTACKMSDEF = 50;
+	public  static final double ATTACKMSDEF = CompExp.ATTACKMSDEF;
 
 	private static final double MAXRELEASEMS = 2000;
 	private static final double MINRELEASEMS = 0;
-	public  static final double RELEASEMSDEF = 100;
+	public  static final double RELEASEMSDEF = CompExp.RELEASEMSDEF;
 
 	public  static final double MAXGAININDB = +12.0;
 	private static final double MINGAININDB = -12.0;
-	public  static final double GAINDBDEF   =  0.0;
+	public  static final double GAINDBDEF   =  CompExp.GAINDBDEF;
 
 	public CompExpUI(Blinker blink, AbstractAudio aa) {
+
+		this(blink, aa, "Compressor/Expander/Limiter/Noise Gate Processor");
+	}
+
+	// Constructor for the UIs of processors which add their own controls
+	// below the sliders. aa must implement CompExpIF and AudioUIIF.
+	protected CompExpUI(Blinker blink, AbstractAudio aa, String title) {
 		
-		super("Compressor/Expander/Limiter/Noise Gate Processor", aa);
+		super(title, aa);
 
 		// Register this UI as being interested in window close events
 		registerCloseListener(this);
@@ -93,11 +100,21 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		Label l = new Label("Power On");
 		addDefaultComponent(mp, l, gbl, gbc, 66, 31, 8, 1);
 
+		// Let a subclass add its controls
+		addControls(blink, mp, gbl, gbc);
+
 		// Finish up but don't make visible yet
 		add(mp);
 		pack();
 	}
 
+	// Called while the UI is built to add controls from row 32 down.
+	// Runs before the constructor of a subclass, so it must not rely on
+	// the subclass's fields being initialized.
+	protected void addControls(Blinker blink, Panel mp,
+							   GridBagLayout gbl, GridBagConstraints gbc) {
+	}
+
 	// Create a slide pot with specified configuration
 	private RealValuedSlidePot createSlider(double maxValue,
 											double minValue,
@@ -291,7 +308,7 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update graph
 		gs.setThreshold(value);
 
-		((CompExpWithUI)aa).setThreshold(value);
+		((CompExpIF)aa).setThreshold(value);
 	}
 
 	// Called when the below threshold pot is manipulated.
@@ -305,7 +322,7 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update graph
 		gs.setBelowThresholdRatio(value);
 
-		((CompExpWithUI)aa).setBelowThresholdRatio(value);
+		((CompExpIF)aa).setBelowThresholdRatio(value);
 	}
 
 	// Called when the above threshold pot is manipulated.
@@ -344,7 +361,7 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update processor and graph
 		gs.setAboveThresholdRatio(value);
 
-		((CompExpWithUI)aa).setAboveThresholdRatio(value);
+		((CompExpIF)aa).setAboveThresholdRatio(value);
 	}
 
 	// Called when the specific pot is manipulated.
@@ -355,7 +372,7 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update display
 		rl.setValue(value);
 
-		((CompExpWithUI)aa).setAttack(value);
+		((CompExpIF)aa).setAttack(value);
 	}
 
 	// Called when the specific pot is manipulated.
@@ -366,7 +383,7 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update display
 		rl.setValue(value);
 
-		((CompExpWithUI)aa).setRelease(value);
+		((CompExpIF)aa).setRelease(value);
 	}
 
 	// Called when the specific pot is manipulated.
@@ -377,17 +394,17 @@ public class CompExpUI extends BaseUI implements CloseableFrameIF {
 		// Update display
 		rl.setValue(value);
 
-		((CompExpWithUI)aa).setGain(value);
+		((CompExpIF)aa).setGain(value);
 	}
 
 	public void bypassChanged(boolean state) {
 
-		((CompExpWithUI)aa).setByPass(state);
+		aa.setByPass(state);
 	}
 
 	public void windowClosing() {
 
-		((CompExpWithUI)aa).stopUI();
+		((AudioUIIF)aa).stopUI();
 	}
 
 	public static void main(String [] args) {
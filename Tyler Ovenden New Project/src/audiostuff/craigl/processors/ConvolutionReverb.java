@@ -0,0 +1,564 @@
+// Convolution Reverb Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.reverb.*;
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.wave.*;
+
+/**
+ * Reverb processor that convolves the signal with an impulse response
+ * recorded in a real room, read from a WAV file. The convolution is done
+ * by a PartitionedConvolver per channel. A mono impulse response is used
+ * for every channel; otherwise channel n uses channel n of the impulse
+ * response, wrapping around if the signal has more channels than the
+ * impulse response.
+ *
+ * The impulse response is normalized so its loudest channel has unit
+ * energy, which keeps the reverberated signal at about the level of the
+ * dry signal. An impulse response recorded at another sampling rate is
+ * converted to the rate of the signal with a Resampler.
+ *
+ * Samples are processed in blocks of the partition size, so the output is
+ * delayed by that many sample frames. The dry signal is delayed by the
+ * same amount so the two stay aligned. When the input ends the tail of the
+ * reverb is played out before end of input is passed on.
+ *
+ * With many channels the partitions of the channels are convolved on
+ * separate threads.
+ *
+ * A new impulse response or partition size may be set from any thread
+ * while samples are processed. The convolvers are built by the calling
+ * thread, which can take a while for a long impulse response, and handed
+ * over whole. The processing thread swaps them in at the next partition
+ * boundary without ever waiting for them.
+ *
+ * This processor has no user interface. ConvolutionReverbWithUI adds one.
+ */
+public class ConvolutionReverb extends AbstractAudio {
+
+	// Parameter defaults
+	public static final double MIXDEF = 0.25;
+	public static final int PARTITIONSIZEDEF = 1024;
+
+	/**
+	 * ConvolutionReverb class constructor. The processor passes samples
+	 * through unchanged until an impulse response has been loaded.
+	 */
+	public ConvolutionReverb() {
+
+		this("Convolution Reverb Processor", null);
+	}
+
+	/**
+	 * ConvolutionReverb class constructor
+	 *
+	 * @param String irFileName is the name of the WAV file holding the
+	 * impulse response.
+	 */
+	public ConvolutionReverb(String irFileName) {
+
+		this("Convolution Reverb Processor", irFileName);
+	}
+
+	/**
+	 * ConvolutionReverb class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 * @param String irFileName is the name of the WAV file holding the
+	 * impulse response or null if there is none yet.
+	 */
+	protected ConvolutionReverb(String name, String irFileName) {
+
+		super(name, PROCESSOR);
+
+		// Convolvers will be built once the format is known
+		pendingConvolution = new AtomicReference<Convolution>();
+		endOfData = false;
+
+		// Start out with the default parameters
+		mix = MIXDEF;
+		partitionSize = PARTITIONSIZEDEF;
+
+		if (irFileName != null)
+			setImpulseResponse(irFileName);
+	}
+
+	/**
+	 * Load a new impulse response
+	 *
+	 * @param String irFileName is the name of the WAV file holding the
+	 * impulse response.
+	 *
+	 * @return boolean true if the impulse response was loaded
+	 */
+	public boolean setImpulseResponse(String irFileName) {
+
+		WaveRead wr = new WaveRead(irFileName, null);
+		if (!wr.initializeDecoder()) {
+			o("Could not read impulse response: " + irFileName);
+			return false;
+		}
+
+		// The decoder reports the file's format through negotiation
+		MyInt min = new MyInt(0);
+		MyInt max = new MyInt(0);
+		MyInt preferred = new MyInt(0);
+		wr.minMaxSamplingRate(min, max, preferred);
+		int rate = preferred.getValue();
+		wr.minMaxChannels(min, max, preferred);
+		int channels = preferred.getValue();
+
+		// Read all of the samples
+		short [] buffer = new short[AudioConstants.SAMPLEBUFFERSIZE];
+		short [] samples = new short[AudioConstants.SAMPLEBUFFERSIZE];
+		int count = 0;
+		while (true) {
+			int len = wr.getSamples(buffer, buffer.length);
+			if (len <= 0)
+				break;
+
+			if (count + len > samples.length) {
+				short [] newSamples = new short[2 * (count + len)];
+				System.arraycopy(samples, 0, newSamples, 0, count);
+				samples = newSamples;
+			}
+			System.arraycopy(buffer, 0, samples, count, len);
+			count += len;
+		}
+		int frames = count / channels;
+		if (frames == 0) {
+			o("Impulse response is empty: " + irFileName);
+			return false;
+		}
+
+		// Split the channels apart and find the loudest one
+		double [][] ir = new double[channels][frames];
+		double maxEnergy = 0.0;
+		for (int ch=0; ch < channels; ch++) {
+			double energy = 0.0;
+			for (int i=0; i < frames; i++) {
+				double s = samples[(i * channels) + ch];
+				ir[ch][i] = s;
+				energy += s * s;
+			}
+			maxEnergy = Math.max(maxEnergy, energy);
+		}
+		if (maxEnergy > 0.0) {
+			double scale = 1.0 / Math.sqrt(maxEnergy);
+			for (int ch=0; ch < channels; ch++)
+				for (int i=0; i < frames; i++)
+					ir[ch][i] *= scale;
+		}
+
+		setImpulseResponse(ir, frames, rate);
+
+		return true;
+	}
+
+	/**
+	 * Use an impulse response that is already in memory. It is used as is,
+	 * without normalization, and converted if it was recorded at another
+	 * rate.
+	 *
+	 * @param double [][] ir holds one array of samples per channel
+	 * @param int irLength is the number of samples in each channel
+	 * @param int irSampleRate is the sampling rate of the impulse response
+	 */
+	public synchronized void setImpulseResponse(double [][] ir, int irLength,
+												int irSampleRate) {
+
+		this.ir = ir;
+		this.irLength = irLength;
+		this.irSampleRate = irSampleRate;
+
+		doInitialization();
+	}
+
+	/**
+	 * Return the number of samples in each channel of the impulse response
+	 *
+	 * @return int impulse response length or 0 if none is loaded
+	 */
+	public synchronized int getIRLength() {
+
+		return (ir == null) ? 0 : irLength;
+	}
+
+	/**
+	 * Set the size of the blocks the convolution is done in. Larger blocks
+	 * are cheaper to process but delay the output for longer.
+	 *
+	 * @param int partitionSize is a power of two no larger than
+	 * PartitionedConvolver.MAXPARTITIONSIZE.
+	 */
+	public synchronized void setPartitionSize(int partitionSize) {
+
+		this.partitionSize = partitionSize;
+
+		doInitialization();
+	}
+
+	/**
+	 * Return the delay added by the processor
+	 *
+	 * @return int latency in sample frames, zero when bypassed or when
+	 * there is no impulse response
+	 */
+	public int getLatency() {
+
+		Convolution c = newestConvolution;
+		if (getByPass() || (c == null))
+			return 0;
+
+		return c.partitionSize;
+	}
+
+	public void setDryWetMix(double mix) {
+
+		this.mix = mix;
+	}
+
+	// Prepare for running reverb again. The processing thread clears
+	// the convolvers before its next block.
+	public void reset() {
+		o("ConvolutionReverb reset");
+
+		resetRequested = true;
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		if (resetRequested) {
+			resetRequested = false;
+			endOfData = false;
+			if (convolution != null)
+				convolution.clear();
+		}
+
+		// Pick up new convolvers between partitions
+		Convolution c = convolution;
+		if ((c == null) || c.atPartitionStart())
+			c = takePendingConvolution();
+
+		// If bypass is enabled, short circuit processing
+		if (getByPass() || (c == null))
+			return previous.getSamples(buffer, length);
+
+		int requested = length;
+		if (!endOfData) {
+			// Ask for a buffer of samples
+			length = previous.getSamples(buffer, length);
+			if (length == -1) {
+				// Play out everything still in the convolvers
+				endOfData = true;
+				tailRemaining = (c.irLength + c.partitionSize) * c.channels;
+			}
+		}
+		if (endOfData) {
+			if (tailRemaining <= 0) {
+				// Tail is done so be ready to run again
+				c.clear();
+				return -1;
+			}
+			length = Math.min(requested, tailRemaining);
+			for (int i=0; i < length; i++)
+				buffer[i] = 0.0f;
+			tailRemaining -= length;
+		}
+
+		double mix = this.mix;
+		int done = 0;
+		while (done < length) {
+			done += c.process(buffer, done, length - done, mix);
+
+			// Pick up new convolvers between partitions
+			if (c.atPartitionStart())
+				c = takePendingConvolution();
+		}
+		return length;
+	}
+
+	// Swap in convolvers built by another thread, if there are any
+	private Convolution takePendingConvolution() {
+
+		Convolution c = pendingConvolution.getAndSet(null);
+		if (c != null)
+			convolution = c;
+
+		return convolution;
+	}
+
+	// Build the convolvers once the format and impulse response are
+	// known and hand them to the processing thread
+	private synchronized void doInitialization() {
+
+		if ((sampleRate == 0) || (numberOfChannels == 0) || (ir == null))
+			return;
+
+		double [][] response = ir;
+		int length = irLength;
+		if (irSampleRate != sampleRate) {
+			o("Resampling impulse response from " + irSampleRate +
+			  " to " + sampleRate);
+			response = resample(ir, irLength, irSampleRate, sampleRate);
+			if (response == null) {
+				o("Could not resample impulse response");
+				return;
+			}
+			length = response[0].length;
+		}
+
+		Convolution c = new Convolution(response, length, partitionSize,
+										numberOfChannels);
+		newestConvolution = c;
+		pendingConvolution.set(c);
+	}
+
+	// Convert an impulse response to another sampling rate. It is scaled
+	// by the ratio of the rates so the reverb sounds the same at either
+	// rate.
+	private static double [][] resample(double [][] ir, int irLength,
+										int fromRate, int toRate) {
+
+		int channels = ir.length;
+
+		LinkedListVector chain = new LinkedListVector();
+		chain.addElement(new ImpulseSource(ir, irLength, fromRate));
+		Resampler r = new Resampler(toRate);
+		chain.addElement(r);
+
+		if ((r.getSamplingRate() != toRate) ||
+			(r.getNumberOfChannels() != channels))
+			return null;
+
+		// Read all of the converted samples
+		int frames = Math.max(r.getBlockSize() / channels, 1);
+		float [][] block = new float[channels][frames];
+		double [][] out = new double[channels][(int)
+			(((long) irLength * toRate / fromRate) + frames)];
+		double scale = (double) fromRate / toRate;
+		int count = 0;
+		while (true) {
+			int len = r.getSamples(block, frames);
+			if (len <= 0)
+				break;
+
+			if (count + len > out[0].length) {
+				double [][] grown = new double[channels][2 * (count + len)];
+				for (int ch=0; ch < channels; ch++)
+					System.arraycopy(out[ch], 0, grown[ch], 0, count);
+				out = grown;
+			}
+			for (int ch=0; ch < channels; ch++)
+				for (int i=0; i < len; i++)
+					out[ch][count + i] = scale * block[ch][i];
+			count += len;
+		}
+		if (count == 0)
+			return null;
+
+		double [][] response = new double[channels][count];
+		for (int ch=0; ch < channels; ch++)
+			System.arraycopy(out[ch], 0, response[ch], 0, count);
+
+		return response;
+	}
+
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+
+		numberOfChannels = preferred.getValue();
+
+		// Nor until the number of channels is known
+		doInitialization();
+	}
+
+	// The convolvers for one impulse response and format along with
+	// the blocks being gathered and played out. Only the processing
+	// thread uses it once it has been handed over.
+	private static class Convolution implements ChannelProcessorIF {
+
+		Convolution(double [][] ir, int irLength, int partitionSize,
+					int channels) {
+
+			this.irLength = irLength;
+			this.partitionSize = partitionSize;
+			this.channels = channels;
+
+			convolvers = new PartitionedConvolver[channels];
+			for (int ch=0; ch < channels; ch++)
+				convolvers[ch] = new PartitionedConvolver(ir[ch % ir.length],
+														  irLength, partitionSize);
+
+			input = new double[channels][partitionSize];
+			dry = new double[channels][partitionSize];
+			wet = new double[channels][partitionSize];
+			fanOut = new ChannelFanOut(channels, this);
+		}
+
+		// True when no partition is part way thru being gathered
+		boolean atPartitionStart() {
+
+			return (channel == 0) && (position == 0);
+		}
+
+		// Mix the dry and reverberated signals out while gathering the
+		// input for the next partition. Stops early when a partition is
+		// complete. Returns the number of samples processed.
+		int process(float [] buffer, int offset, int length, double mix) {
+
+			double wetGain = mix;
+			double dryGain = 1.0 - mix;
+
+			for (int i=offset; i < offset + length; i++) {
+				double in = buffer[i];
+				buffer[i] = (float) ((dryGain * dry[channel][position]) +
+									 (wetGain * wet[channel][position]));
+				input[channel][position] = in;
+
+				if (++channel == channels) {
+					channel = 0;
+					if (++position == partitionSize) {
+						position = 0;
+
+						// A whole block has arrived so convolve it
+						fanOut.run();
+						return i + 1 - offset;
+					}
+				}
+			}
+			return length;
+		}
+
+		/**
+		 * Convolve the partition of one channel. The input becomes the
+		 * dry signal for the next block out. Called by the channel fan
+		 * out, possibly on another thread.
+		 *
+		 * @param int ch is the channel to convolve
+		 */
+		public void processChannel(int ch) {
+
+			convolvers[ch].process(input[ch], wet[ch]);
+			double [] t = dry[ch];
+			dry[ch] = input[ch];
+			input[ch] = t;
+		}
+
+		// Silence all history
+		void clear() {
+
+			for (int ch=0; ch < channels; ch++) {
+				convolvers[ch].reset();
+				for (int i=0; i < partitionSize; i++) {
+					input[ch][i] = 0.0;
+					dry[ch][i] = 0.0;
+					wet[ch][i] = 0.0;
+				}
+			}
+			channel = 0;
+			position = 0;
+		}
+
+		final int irLength;
+		final int partitionSize;
+		final int channels;
+		private PartitionedConvolver [] convolvers;
+		private ChannelFanOut fanOut;
+		private double [][] input;
+		private double [][] dry;
+		private double [][] wet;
+		private int channel;
+		private int position;
+	}
+
+	// Plays an impulse response into a Resampler
+	private static class ImpulseSource extends AbstractAudio {
+
+		ImpulseSource(double [][] ir, int irLength, int sampleRate) {
+
+			super("Impulse Response", SOURCE);
+
+			this.ir = ir;
+			this.irLength = irLength;
+			this.sampleRate = sampleRate;
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return getSamplesFromFloat(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			int channels = ir.length;
+			int frames = Math.min(length / channels, irLength - offset);
+			if (frames <= 0)
+				return -1;
+
+			for (int i=0; i < frames; i++)
+				for (int ch=0; ch < channels; ch++)
+					buffer[(i * channels) + ch] = (float) ir[ch][offset + i];
+			offset += frames;
+
+			return frames * channels;
+		}
+
+		public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(sampleRate);
+			max.setValue(sampleRate);
+			preferred.setValue(sampleRate);
+		}
+
+		public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(ir.length);
+			max.setValue(ir.length);
+			preferred.setValue(ir.length);
+		}
+
+		private double [][] ir;
+		private int irLength;
+		private int sampleRate;
+		private int offset;
+	}
+
+	// Private class data
+	private volatile boolean resetRequested;
+	private boolean endOfData;
+	private int tailRemaining;
+	private volatile double mix;
+	private int partitionSize;
+	private int sampleRate;
+	private int numberOfChannels;
+	private double [][] ir;
+	private int irLength;
+	private int irSampleRate;
+
+	// Convolvers built for the processing thread to swap in, the ones
+	// it is using and the newest built
+	private AtomicReference<Convolution> pendingConvolution;
+	private Convolution convolution;
+	private volatile Convolution newestConvolution;
+}
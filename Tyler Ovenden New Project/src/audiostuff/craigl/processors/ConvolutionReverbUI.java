@@ -0,0 +1,103 @@
+// ConvolutionReverbUI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.*;
+import java.awt.event.*;
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.uiutils.*;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.beans.pots.*;
+import audiostuff.craigl.beans.leds.*;
+import audiostuff.craigl.beans.buttons.*;
+
+public class ConvolutionReverbUI extends BaseUI implements CloseableFrameIF {
+
+	public  static final double MIXDEF = ConvolutionReverb.MIXDEF;
+
+	public ConvolutionReverbUI(Blinker blink, AbstractAudio aa, String irFileName) {
+		
+		super("Convolution Reverb Processor", aa);
+
+		// Register this UI as being interested in window close events
+		registerCloseListener(this);
+
+		// Create the UI
+		Panel mp = new Panel();
+		GridBagLayout gbl = new GridBagLayout(); 
+		GridBagConstraints gbc = new GridBagConstraints();
+		
+		// Make insets so fields don't actually touch
+		gbc.insets = new Insets(3,3,3,3);
+		mp.setLayout(gbl);
+
+		// Show which impulse response is in use
+		int irLength = ((ConvolutionReverbWithUI)aa).getIRLength();
+		String irString = (irLength == 0) ?
+			"No impulse response loaded" :
+			"Impulse response: " + irFileName + " (" + irLength + " samples)";
+		Label irLabel = new Label(irString, Label.CENTER);
+		addDefaultComponent(mp, irLabel, gbl, gbc, 0, 0, 6, 1);
+
+		// Create the mix pot
+		mixPot = createPot(AudioConstants.KNOBSIZE, "Dry/Wet Mix",
+			"dry, , , , , , , , , ,wet", 1.0, 0.0);
+		mixPot.setTicColor(Color.blue);
+		mixPot.setGradColor(Color.blue);
+		
+		// Set the default value
+		mixPot.setRealValue(MIXDEF);
+		addDefaultComponent(mp, mixPot, gbl, gbc, 1, 1, 3, 3);
+		
+		// Add listener to this pot
+		mixPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				mixChanged(mixPot);
+			}
+		});
+
+		// Create the bypass LED
+		bypassLED = createLED(Color.green, RoundLED.MODEBLINK, false);
+		addDefaultComponent(mp, bypassLED, gbl, gbc, 3, 4, 1, 1);
+		blink.addPropertyChangeListener(bypassLED);
+
+		// Create the bypass button
+		bypassButton = new SquareButton();
+		bypassButton.setPanelColor(AudioConstants.PANELCOLOR);
+		bypassButton.setCaption("Bypass");
+		addDefaultComponent(mp, bypassButton, gbl, gbc, 4, 4, 2, 1);
+		bypassButton.addActionListener(bypassLED);
+		bypassButton.addActionListener(new ActionListener () {
+			public void actionPerformed(ActionEvent e) {
+				boolean state = e.getActionCommand().equals("ON");
+				bypassChanged(state);
+			}
+		});
+		// Finish up but don't make visible yet
+		add(mp);
+		pack();
+	}
+
+	public void bypassChanged(boolean state) {
+
+		((ConvolutionReverbWithUI)aa).setByPass(state);
+	}
+
+	public void mixChanged(RealValuedPot p) {
+
+		((ConvolutionReverbWithUI)aa).setDryWetMix(p.getRealValue());
+	}
+	
+	public void windowClosing() {
+
+		((ConvolutionReverbWithUI)aa).stopUI();
+	}
+
+	// Private class data
+	private static final long serialVersionUID = 1L;
+	private RealValuedPot mixPot;
+
+	private RoundLED bypassLED;
+	private SquareButton bypassButton;
+}
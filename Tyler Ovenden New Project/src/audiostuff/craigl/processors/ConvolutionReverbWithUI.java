@@ -0,0 +1,41 @@
+// Convolution Reverb with UI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.Rectangle;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.utils.*;
+
+public class ConvolutionReverbWithUI extends ConvolutionReverb implements AudioUIIF {
+
+	public ConvolutionReverbWithUI(Blinker blink, String irFileName) {
+		super("Convolution Reverb Processor", irFileName);
+
+		// Create the UI for this processor
+		crui = new ConvolutionReverbUI(blink, this, irFileName);
+	}
+
+	public void showUI(boolean isVisible) {
+        
+        crui.setVisible(isVisible);
+    }
+	
+    public void stopUI() {
+        
+        setByPass(true);
+    }
+
+    public Rectangle getBounds() {
+
+        return crui.getBounds();
+    }
+    
+    public void setBounds(int x, int y, int w, int h) {
+
+        crui.setBounds(x, y, w, h);
+    }
+
+	// Private class data
+	private ConvolutionReverbUI crui = null;
+}
@@ -0,0 +1,206 @@
+// Delay Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Delay processor with no user interface. Its parameters are set by
+ * calling the setter methods and start out at the default values below.
+ * DelayWithUI adds a user interface on top of this class.
+ *
+ * The setters may be called from any thread while samples are being
+ * processed. Level changes are smoothed and a new delay is crossfaded
+ * in from the start of the next block. A delay longer than the delay
+ * line has room for gets a bigger line, built by the calling thread and
+ * swapped in keeping the signal already in the delay.
+ */
+public class Delay extends AbstractAudio {
+
+	// Parameter defaults
+	public static final int DEFAULTDELAYINMS = 100;
+	public static final int DEFAULTDRYLEVEL  = 50;
+	public static final int DEFAULTWETLEVEL  = 50;
+	public static final int DEFAULTFEEDBACKLEVEL = 10;
+
+	/**
+	 * Delay class constructor
+	 */
+	public Delay() {
+
+		this("Delay");
+	}
+
+	/**
+	 * Delay class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected Delay(String name) {
+		
+		super(name, PROCESSOR);
+
+		initializationComplete = false;
+
+		// Start out with the default parameters
+		delayInMs = DEFAULTDELAYINMS;
+		dryLevel = new SmoothedParameter(DEFAULTDRYLEVEL);
+		wetLevel = new SmoothedParameter(DEFAULTWETLEVEL);
+		feedbackLevel = new SmoothedParameter(DEFAULTFEEDBACKLEVEL);
+		pendingDelay = new AtomicReference<DelayLine>();
+	}
+
+	// Process the samples that pass thru this effect		
+	public int getSamples(short [] buffer, int length) {
+
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+        // Grow local sample buffer as required
+		if (localBuffer.length < length)
+			localBuffer = new short[length];
+
+        // Read number of samples requested from previous stage
+		int len = previous.getSamples(localBuffer, length);
+
+		// Pick up parameter changes made since the last block
+		beginBlock();
+
+		// Do the processing
+		for (int i=0; i < len; i++) {
+			int inputSample = (int) localBuffer[i];
+			int delaySample = (int) tap.read(delayLine);
+            int outputSample = (int)
+				(((inputSample * dryLevel.next()) / 100) +
+				 ((delaySample * wetLevel.next()) / 100));
+			
+			// Clamp output to legal range
+			if (outputSample > 32767)
+				outputSample = 32767;
+			else if (outputSample < -32768)
+				outputSample = -32768;
+
+			// Store in output sample
+			buffer[i] = (short) outputSample;
+
+			// Calculate feedback
+			inputSample += (int) ((delaySample * feedbackLevel.next()) / 100);
+
+			// Clamp output to legal range
+			if (inputSample > 32767)
+				inputSample = 32767;
+			else if (inputSample < -32768)
+				inputSample = -32768;
+
+			delayLine.write(inputSample);
+		}
+ 		return len; 
+	}
+
+	public void setDelayInMs(int delayInMs) {
+
+		this.delayInMs = delayInMs;
+
+		// Before initialization the delay is simply remembered
+		if (!initializationComplete)
+			return;
+
+		// A whole number of frames so each channel delays only itself
+		int delayOffset =
+			((delayInMs * sampleRate) / 1000) * numberOfChannels;
+
+		// Build a longer delay line for the processing thread to swap in
+		// if need be
+		if (delayOffset > delayLine.getMaxDelay())
+			pendingDelay.set(new DelayLine(delayOffset));
+
+		targetDelay = delayOffset;
+	}
+
+	public void setDryLevel(int dryLevel) {
+
+		this.dryLevel.set(dryLevel);
+	}
+
+	public void setWetLevel(int wetLevel) {
+
+		this.wetLevel.set(wetLevel);
+	}
+
+	public void setFeedbackLevel(int feedbackLevel) {
+
+		this.feedbackLevel.set(feedbackLevel);
+	}
+
+	// Install changes made by the setters. Called by the processing
+	// thread at the start of each block.
+	private void beginBlock() {
+
+		DelayLine line = pendingDelay.getAndSet(null);
+		if (line != null) {
+			// Keep the signal already in the delay
+			line.copyHistory(delayLine);
+			delayLine = line;
+		}
+		// A delay set after a line is picked up waits for the next block
+		tap.update(Math.max(Math.min(targetDelay, delayLine.getMaxDelay()), 1));
+		dryLevel.update();
+		wetLevel.update();
+		feedbackLevel.update();
+	}
+
+	public void doInitialization() {
+
+		// See if we have the necessary data to initialize delay
+		if ((sampleRate != 0) && (numberOfChannels != 0) &&
+            (!initializationComplete)) {
+
+			// Allocate delay line
+			// A whole number of frames so each channel delays only itself
+			int delayOffset = 
+				((delayInMs * sampleRate) / 1000) * numberOfChannels;
+
+			delayLine = new DelayLine(Math.max(delayOffset, 1));
+			tap = new DelayTap(Math.max(delayOffset, 1));
+			targetDelay = delayOffset;
+
+            // Indicate initialization is complete
+			initializationComplete = true;
+		}
+	}
+	
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		
+		numberOfChannels = preferred.getValue();
+
+		doInitialization();
+	}
+
+	// Private class data
+	private volatile boolean initializationComplete = false;
+	private volatile int delayInMs;
+	private SmoothedParameter dryLevel;
+	private SmoothedParameter wetLevel;
+	private SmoothedParameter feedbackLevel;
+	private AtomicReference<DelayLine> pendingDelay;
+
+	private int sampleRate = 0;
+	private int numberOfChannels = 0;
+	private short [] localBuffer = new short[0];
+	private DelayLine delayLine = null;
+	private volatile int targetDelay;
+	private DelayTap tap = null;
+}
@@ -1,6 +1,6 @@
 // DelayUI Class
 // Written by: Craig A. Lindley
-// Last Update: 03/21/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -34,10 +34,10 @@ By default the medium selector switch is selected
 
 public class DelayUI extends BaseUI implements CloseableFrameIF {
 	
-	public static final int DEFAULTDELAYINMS = 100;
-	public static final int DEFAULTDRYLEVEL  = 50;
-	public static final int DEFAULTWETLEVEL  = 50;
-	public static final int DEFAULTFEEDBACKLEVEL = 10;
+	public static final int DEFAULTDELAYINMS = Delay.DEFAULTDELAYINMS;
+	public static final int DEFAULTDRYLEVEL  = Delay.DEFAULTDRYLEVEL;
+	public static final int DEFAULTWETLEVEL  = Delay.DEFAULTWETLEVEL;
+	public static final int DEFAULTFEEDBACKLEVEL = Delay.DEFAULTFEEDBACKLEVEL;
 	public static final int MAXDELAYINMS = 2000;
 	public static final int COURSEMAXDELAYINMS = MAXDELAYINMS;
 	public static final int MEDIUMMAXDELAYINMS = COURSEMAXDELAYINMS / 10;
@@ -0,0 +1,56 @@
+// Distortion Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * Distortion processor with no user interface. Samples are clipped at
+ * the threshold and then multiplied by the gain. The threshold starts
+ * out at the maximum sample value and the gain at 1.0 so samples pass
+ * unchanged. DistortionWithUI adds a user interface on top of this class.
+ */
+public class Distortion extends AbstractAudio {
+
+	/**
+	 * Distortion class constructor
+	 */
+	public Distortion() {
+		
+		super("Distortion", PROCESSOR);
+	}
+
+	public void setThreshold(int threshold) {
+
+		this.threshold = threshold;
+	}
+	
+	public void setGain(double gain) {
+
+		this.gain = gain;
+	}
+	
+	public int getSamples(short [] buffer, int length) {
+
+		int len = previous.getSamples(buffer, length);
+		if (getByPass())
+			return len;
+		
+		for (int i=0; i < len; i++) {
+			int sample = buffer[i];
+			if (sample > threshold)
+				sample = threshold;
+			else if (sample < -threshold)
+				sample = -threshold;
+
+			buffer[i] = (short)(sample * gain);
+		}
+
+		return len; 
+	}
+
+    // Private class data
+	private int threshold = 32767;
+	private double gain = 1.0;
+}
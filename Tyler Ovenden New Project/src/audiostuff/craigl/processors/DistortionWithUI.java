@@ -1,53 +1,21 @@
 // Distortion Processor with UI 
 // Written by: Craig A. Lindley
-// Last Update: 06/27/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
 import java.awt.Rectangle;
 import audiostuff.craigl.beans.blinker.*;
 import audiostuff.craigl.utils.*;
-import audiostuff.craigl.uiutils.*;
 
-public class DistortionWithUI extends AbstractAudio
+public class DistortionWithUI extends Distortion
 						implements AudioUIIF {
 
 	public DistortionWithUI(Blinker blink) {
 		
-		super("Distortion", PROCESSOR);
-
 		dui = new DistortionUI(blink, this);
 	}
 
-	public void setThreshold(int threshold) {
-
-		this.threshold = threshold;
-	}
-	
-	public void setGain(double gain) {
-
-		this.gain = gain;
-	}
-	
-	public int getSamples(short [] buffer, int length) {
-
-		int len = previous.getSamples(buffer, length);
-		if (getByPass())
-			return len;
-		
-		for (int i=0; i < len; i++) {
-			int sample = buffer[i];
-			if (sample > threshold)
-				sample = threshold;
-			else if (sample < -threshold)
-				sample = -threshold;
-
-			buffer[i] = (short)(sample * gain);
-		}
-
-		return len; 
-	}
-
     public void showUI(boolean isVisible) {
         
         dui.setVisible(isVisible);
@@ -69,7 +37,5 @@ public class DistortionWithUI extends AbstractAudio
     }
 
     // Private class data
-	private int threshold = 32767;
-	private double gain = 1.0;
 	private DistortionUI dui = null;
 }
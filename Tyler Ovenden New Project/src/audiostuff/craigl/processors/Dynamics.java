@@ -0,0 +1,291 @@
+// Dynamics Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.compexp.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Compressor/expander/limiter/noise gate built on a MultibandDynamics
+ * engine. It takes the same parameters as CompExp, with the same
+ * meanings, but follows the level of the signal with a peak or RMS
+ * envelope detector, works the gain out in dB from a soft knee curve and
+ * can look ahead so transients are caught before they get thru. It can
+ * also split the signal into up to MultibandDynamics.MAXBANDS bands at
+ * fixed crossover frequencies and compress each one on its own.
+ *
+ * The look-ahead delays the signal, which getLatency() reports. The
+ * parameters are set by calling the setter methods and start out at the
+ * default values below. DynamicsWithUI adds a user interface on top of
+ * this class.
+ */
+public class Dynamics extends AbstractAudio implements CompExpIF {
+
+	// Parameter limits used by the processing
+	public  static final double MINBTRATIO = GainComputer.MINBTRATIO;
+	public  static final double MINATRATIO = GainComputer.MINATRATIO;
+	public  static final double MAXLOOKAHEADMS = MultibandDynamics.MAXLOOKAHEADMS;
+
+	// Parameter defaults
+	public  static final double THRESHOLDDEF = CompExp.THRESHOLDDEF;
+	public  static final double BTRATIODEF   = CompExp.BTRATIODEF;
+	public  static final double ATRATIODEF   = CompExp.ATRATIODEF;
+	public  static final double ATTACKMSDEF  = CompExp.ATTACKMSDEF;
+	public  static final double RELEASEMSDEF = CompExp.RELEASEMSDEF;
+	public  static final double GAINDBDEF    = CompExp.GAINDBDEF;
+	public  static final double LOOKAHEADMSDEF = 5.0;
+	public  static final int    DETECTORDEF  = DynamicsBand.PEAK;
+	public  static final int    BANDSDEF     = 1;
+
+	/**
+	 * Dynamics class constructor
+	 */
+	public Dynamics() {
+
+		this("Dynamics Processor");
+	}
+
+	/**
+	 * Dynamics class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected Dynamics(String name) {
+		super(name, PROCESSOR);
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+
+		// Start out with the default parameters
+		thresholdInDB = THRESHOLDDEF;
+		btRatio = BTRATIODEF;
+		atRatio = ATRATIODEF;
+		attackInMs = ATTACKMSDEF;
+		releaseInMs = RELEASEMSDEF;
+		gainInDB = GAINDBDEF;
+		lookAheadInMs = LOOKAHEADMSDEF;
+		detector = DETECTORDEF;
+		bands = BANDSDEF;
+	}
+
+	// Prepare for running again
+	public void reset() {
+		o("Dynamics reset");
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.reset();
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		// Ask for a buffer of samples
+		int len = previous.getSamples(buffer, length);
+		if (len == -1)
+			return len;
+
+		// If bypass is enabled, short circuit processing
+		if (getByPass() || !initializationComplete)
+			return len;
+
+		// Range constraining is left to the device that converts the
+		// samples back to short samples.
+		dynamics.doDynamics(buffer, len);
+
+		return len;
+	}
+
+	/**
+	 * Return the delay added by the look-ahead
+	 *
+	 * @return int latency in sample frames
+	 */
+	public int getLatency() {
+
+		MultibandDynamics d = dynamics;
+		return (d != null) ? d.getLatency() : 0;
+	}
+
+	// These methods set the processing parameters
+	public void setThreshold(double thresholdInDB) {
+
+		this.thresholdInDB = thresholdInDB;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setThreshold(thresholdInDB);
+	}
+
+	public void setBelowThresholdRatio(double ratio) {
+
+		btRatio = ratio;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setBelowThresholdRatio(ratio);
+	}
+
+	public void setAboveThresholdRatio(double dBRatio) {
+
+		atRatio = dBRatio;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setAboveThresholdRatio(dBRatio);
+	}
+
+	public void setAttack(double attackInMs) {
+
+		this.attackInMs = attackInMs;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setAttack(attackInMs);
+	}
+
+	public void setRelease(double releaseInMs) {
+
+		this.releaseInMs = releaseInMs;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setRelease(releaseInMs);
+	}
+
+	public void setGain(double gainInDb) {
+
+		gainInDB = gainInDb;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setGain(gainInDb);
+	}
+
+	/**
+	 * Set the look-ahead. The attack time is best set close to it so
+	 * the gain has come down by the time a transient is played.
+	 *
+	 * @param double lookAheadInMs is from zero to MAXLOOKAHEADMS
+	 */
+	public void setLookAhead(double lookAheadInMs) {
+
+		if ((lookAheadInMs < 0.0) || (lookAheadInMs > MAXLOOKAHEADMS))
+			throw new IllegalArgumentException(
+				"Look-ahead must be between 0 and " + MAXLOOKAHEADMS + " ms");
+
+		this.lookAheadInMs = lookAheadInMs;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setLookAheadInMs(lookAheadInMs);
+	}
+
+	/**
+	 * Select the envelope detector
+	 *
+	 * @param int detector is DynamicsBand.PEAK or DynamicsBand.RMS
+	 */
+	public void setDetector(int detector) {
+
+		if ((detector != DynamicsBand.PEAK) && (detector != DynamicsBand.RMS))
+			throw new IllegalArgumentException("Unknown detector");
+
+		this.detector = detector;
+
+		MultibandDynamics d = dynamics;
+		if (d != null)
+			d.setDetector(detector);
+	}
+
+	/**
+	 * Set the number of bands. Changing it starts the bands afresh.
+	 *
+	 * @param int bands is from MultibandDynamics.MINBANDS to MAXBANDS
+	 */
+	public void setBands(int bands) {
+
+		if ((bands < MultibandDynamics.MINBANDS) ||
+			(bands > MultibandDynamics.MAXBANDS))
+			throw new IllegalArgumentException(
+				"bands must be between " + MultibandDynamics.MINBANDS +
+				" and " + MultibandDynamics.MAXBANDS);
+
+		if (bands == this.bands)
+			return;
+
+		this.bands = bands;
+
+		// The new engine is built here and handed over whole
+		if (initializationComplete)
+			doInitialization();
+	}
+
+	private void doInitialization() {
+
+		// The bands depend upon both the sample rate and the number
+		// of channels.
+		if ((sampleRate == 0) || (numberOfChannels == 0))
+			return;
+
+		MultibandDynamics d = new MultibandDynamics(sampleRate, numberOfChannels,
+													bands);
+
+		// Set the saved parameters
+		d.setThreshold(thresholdInDB);
+		d.setBelowThresholdRatio(btRatio);
+		d.setAboveThresholdRatio(atRatio);
+		d.setAttack(attackInMs);
+		d.setRelease(releaseInMs);
+		d.setGain(gainInDB);
+		d.setLookAheadInMs(lookAheadInMs);
+		d.setDetector(detector);
+		dynamics = d;
+
+		// Indicate initialization is complete
+		initializationComplete = true;
+	}
+
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+
+		numberOfChannels = preferred.getValue();
+
+		// Nor until the number of channels is known
+		doInitialization();
+	}
+
+	// Private class data
+	private volatile boolean initializationComplete;
+	private int sampleRate;
+	private int numberOfChannels;
+	private double thresholdInDB;
+	private double btRatio;
+	private double atRatio;
+	private double attackInMs;
+	private double releaseInMs;
+	private double gainInDB;
+	private double lookAheadInMs;
+	private int detector;
+	private int bands;
+
+	// The engine in use
+	private volatile MultibandDynamics dynamics = null;
+}
@@ -0,0 +1,102 @@
+// Dynamics UI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.*;
+import java.awt.event.*;
+import audiostuff.craigl.compexp.*;
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.beans.pots.*;
+import audiostuff.craigl.beans.buttons.*;
+
+// The sliders, graph and bypass of CompExpUI with the look-ahead, number
+// of bands and envelope detector of the Dynamics processor below them.
+
+public class DynamicsUI extends CompExpUI {
+
+	public  static final double LOOKAHEADMSDEF = Dynamics.LOOKAHEADMSDEF;
+	public  static final int    BANDSDEF = Dynamics.BANDSDEF;
+
+	public DynamicsUI(Blinker blink, AbstractAudio aa) {
+
+		super(blink, aa, "Dynamics Processor");
+	}
+
+	// Add the controls CompExpUI does not have. Called from the
+	// CompExpUI constructor, so the controls are only held in locals.
+	protected void addControls(Blinker blink, Panel mp,
+							   GridBagLayout gbl, GridBagConstraints gbc) {
+
+		// Create the look-ahead pot
+		final RealValuedPot lookAheadPot = createPot(AudioConstants.KNOBSIZE,
+			"Look-ahead", "0, , , , , , , , , ,20ms",
+			Dynamics.MAXLOOKAHEADMS, 0.0);
+		lookAheadPot.setTicColor(Color.yellow);
+		lookAheadPot.setGradColor(Color.yellow);
+
+		// Set the default value
+		lookAheadPot.setRealValue(LOOKAHEADMSDEF);
+		addDefaultComponent(mp, lookAheadPot, gbl, gbc, 5, 32, 10, 3);
+
+		// Add listener to this pot
+		lookAheadPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				lookAheadChanged(lookAheadPot);
+			}
+		});
+
+		// Create the number of bands pot
+		final IntValuedPot bandsPot = createPot(AudioConstants.KNOBSIZE,
+			"Bands", "1,2,3,4,5",
+			MultibandDynamics.MAXBANDS, MultibandDynamics.MINBANDS);
+		bandsPot.setNumberOfSections(
+			MultibandDynamics.MAXBANDS - MultibandDynamics.MINBANDS);
+		bandsPot.setTicColor(Color.green);
+		bandsPot.setGradColor(Color.green);
+
+		// Set the default value
+		bandsPot.setIntValue(BANDSDEF);
+		addDefaultComponent(mp, bandsPot, gbl, gbc, 20, 32, 10, 3);
+
+		// Add listener to this pot
+		bandsPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				bandsChanged(bandsPot);
+			}
+		});
+
+		// Create the detector button
+		SquareButton rmsButton = new SquareButton();
+		rmsButton.setTextColor(Color.black);
+		rmsButton.setPanelColor(AudioConstants.PANELCOLOR);
+		rmsButton.setCaption("RMS");
+		addDefaultComponent(mp, rmsButton, gbl, gbc, 35, 33, 4, 1);
+		rmsButton.addActionListener(new ActionListener () {
+			public void actionPerformed(ActionEvent e) {
+				boolean state = e.getActionCommand().equals("ON");
+				detectorChanged(state);
+			}
+		});
+	}
+
+	public void lookAheadChanged(RealValuedPot p) {
+
+		((DynamicsWithUI)aa).setLookAhead(p.getRealValue());
+	}
+
+	public void bandsChanged(IntValuedPot p) {
+
+		((DynamicsWithUI)aa).setBands(p.getIntValue());
+	}
+
+	public void detectorChanged(boolean rms) {
+
+		((DynamicsWithUI)aa).setDetector(rms ?
+			DynamicsBand.RMS : DynamicsBand.PEAK);
+	}
+
+	// Private class data
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,41 @@
+// Dynamics with UI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.Rectangle;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.utils.*;
+
+public class DynamicsWithUI extends Dynamics implements AudioUIIF {
+
+	public DynamicsWithUI(Blinker blink) {
+		super("Dynamics Processor");
+
+		// Create the UI for this processor
+		dui = new DynamicsUI(blink, this);
+	}
+
+	public void showUI(boolean isVisible) {
+
+        dui.setVisible(isVisible);
+    }
+
+    public void stopUI() {
+
+        setByPass(true);
+    }
+
+    public Rectangle getBounds() {
+
+        return dui.getBounds();
+    }
+
+    public void setBounds(int x, int y, int w, int h) {
+
+        dui.setBounds(x, y, w, h);
+    }
+
+	// Private class data
+	private DynamicsUI dui = null;
+}
@@ -0,0 +1,216 @@
+// FDN Reverb Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.reverb.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Reverb processor built on a FeedbackDelayNetwork. It gives a denser,
+ * smoother tail than the Schroeder reverb of Reverb, with high
+ * frequencies dying away faster than low ones, for less work per delay
+ * line. Its parameters are set by calling the setter methods and start
+ * out at the default values below. When the input ends the tail of the
+ * reverb is played out before end of input is passed on.
+ *
+ * This processor has no user interface. FDNReverbWithUI adds one.
+ */
+public class FDNReverb extends AbstractAudio {
+
+	// Parameter defaults
+	public static final int LINESDEF = FeedbackDelayNetwork.LINESDEF;
+	public static final double SUSTAINTIMEMSDEF = FeedbackDelayNetwork.SUSTAINTIMEMSDEF;
+	public static final double DAMPINGDEF = FeedbackDelayNetwork.DAMPINGDEF;
+	public static final double MODULATIONDEPTHMSDEF = FeedbackDelayNetwork.MODULATIONDEPTHMSDEF;
+	public static final double MIXDEF = FeedbackDelayNetwork.MIXDEF;
+
+	/**
+	 * FDNReverb class constructor
+	 */
+	public FDNReverb() {
+
+		this("FDN Reverb Processor", LINESDEF);
+	}
+
+	/**
+	 * FDNReverb class constructor
+	 *
+	 * @param int lines is the number of delay lines in the network, a
+	 * power of two between FeedbackDelayNetwork.MINLINES and MAXLINES
+	 */
+	public FDNReverb(int lines) {
+
+		this("FDN Reverb Processor", lines);
+	}
+
+	/**
+	 * FDNReverb class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 * @param int lines is the number of delay lines in the network
+	 */
+	protected FDNReverb(String name, int lines) {
+
+		super(name, PROCESSOR);
+
+		if ((lines < FeedbackDelayNetwork.MINLINES) ||
+			(lines > FeedbackDelayNetwork.MAXLINES) ||
+			((lines & (lines - 1)) != 0))
+			throw new IllegalArgumentException(
+				"lines must be a power of two between " +
+				FeedbackDelayNetwork.MINLINES + " and " +
+				FeedbackDelayNetwork.MAXLINES);
+
+		this.lines = lines;
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+		endOfData = false;
+
+		// Start out with the default parameters
+		matrix = FeedbackDelayNetwork.HOUSEHOLDER;
+		sustainTimeInMs = SUSTAINTIMEMSDEF;
+		damping = DAMPINGDEF;
+		modulationDepthInMs = MODULATIONDEPTHMSDEF;
+		mix = MIXDEF;
+	}
+
+	// Prepare for running reverb again
+	public void reset() {
+		o("FDNReverb reset");
+
+		endOfData = false;
+
+		if (reverb != null)
+			reverb.reset();
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		// If bypass is enabled, short circuit processing
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		// Must use endOfData to stop reading input otherwise
+		// if source is file it will continually be reread.
+		if (!endOfData)	{
+			// Ask for a buffer of samples
+			length = previous.getSamples(buffer, length);
+			if (length == -1)
+				endOfData = true;
+
+			// Do the reverb on the samples
+			return reverb.doReverb(buffer, length);
+		}	else	{
+			// Propagate the tail
+			return reverb.doReverb(buffer, -1);
+		}
+	}
+
+	/**
+	 * Select the feedback matrix of the network
+	 *
+	 * @param int matrix is FeedbackDelayNetwork.HOUSEHOLDER or HADAMARD
+	 */
+	public void setMatrix(int matrix) {
+
+		this.matrix = matrix;
+
+		if (reverb != null)
+			reverb.setMatrix(matrix);
+	}
+
+	public void setSustainTime(double sustainTimeInMs) {
+
+		// Remember what sustain time was requested
+		this.sustainTimeInMs = sustainTimeInMs;
+
+		if (reverb != null)
+			reverb.setSustainInMs(sustainTimeInMs);
+	}
+
+	public void setDamping(double damping) {
+
+		this.damping = damping;
+
+		if (reverb != null)
+			reverb.setDamping(damping);
+	}
+
+	public void setModulationDepth(double depthInMs) {
+
+		this.modulationDepthInMs = depthInMs;
+
+		if (reverb != null)
+			reverb.setModulationDepthInMs(depthInMs);
+	}
+
+	public void setDryWetMix(double mix) {
+
+		// Remember what mix was requested
+		this.mix = mix;
+
+		if (reverb != null)
+			reverb.setDryWetMix(mix);
+	}
+
+	private void doInitialization() {
+
+		// The delay lines depend upon both the sample rate and the number
+		// of channels.
+		if ((sampleRate == 0) || (numberOfChannels == 0))
+			return;
+
+		reverb = new FeedbackDelayNetwork(sampleRate, numberOfChannels, lines);
+
+		// Set the saved parameters
+		reverb.setMatrix(matrix);
+		reverb.setSustainInMs(sustainTimeInMs);
+		reverb.setDamping(damping);
+		reverb.setModulationDepthInMs(modulationDepthInMs);
+		reverb.setDryWetMix(mix);
+
+		// Indicate initialization is complete
+		initializationComplete = true;
+	}
+
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+
+		numberOfChannels = preferred.getValue();
+
+		// Nor until the number of channels is known
+		doInitialization();
+	}
+
+	// Private class data
+	private boolean initializationComplete;
+	private boolean endOfData;
+	private int lines;
+	private int matrix;
+	private double sustainTimeInMs;
+	private double damping;
+	private double modulationDepthInMs;
+	private double mix;
+	private int sampleRate;
+	private int numberOfChannels;
+	private FeedbackDelayNetwork reverb;
+}
@@ -0,0 +1,193 @@
+// FDNReverbUI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.*;
+import java.awt.event.*;
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.uiutils.*;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.beans.pots.*;
+import audiostuff.craigl.beans.leds.*;
+import audiostuff.craigl.beans.buttons.*;
+import audiostuff.craigl.reverb.FeedbackDelayNetwork;
+
+public class FDNReverbUI extends BaseUI implements CloseableFrameIF {
+
+	private static final double SUSTAINTIMEMSMIN = 100;
+	private static final double SUSTAINTIMEMSMAX = 5000;
+	public  static final double SUSTAINTIMEMSDEF = FDNReverb.SUSTAINTIMEMSDEF;
+	public  static final double DAMPINGDEF = FDNReverb.DAMPINGDEF;
+	public  static final double MODULATIONDEPTHMSDEF = FDNReverb.MODULATIONDEPTHMSDEF;
+	public  static final double MIXDEF = FDNReverb.MIXDEF;
+
+	public FDNReverbUI(Blinker blink, AbstractAudio aa) {
+
+		super("FDN Reverb Processor", aa);
+
+		// Register this UI as being interested in window close events
+		registerCloseListener(this);
+
+		// Create the UI
+		Panel mp = new Panel();
+		GridBagLayout gbl = new GridBagLayout();
+		GridBagConstraints gbc = new GridBagConstraints();
+
+		// Make insets so fields don't actually touch
+		gbc.insets = new Insets(3,3,3,3);
+		mp.setLayout(gbl);
+
+		// Create the sustain time pot
+		sustainPot = createPot(AudioConstants.KNOBSIZE, "Sustain Time",
+			" , , , , , , , , , , ",
+			SUSTAINTIMEMSMAX, SUSTAINTIMEMSMIN);
+		sustainPot.setTicColor(Color.green);
+		sustainPot.setGradColor(Color.green);
+		sustainPot.setLabelsString("0.1s, , , , , , , , , ,5s");
+
+		// Set the default value
+		sustainPot.setRealValue(SUSTAINTIMEMSDEF);
+		sustainChanged(sustainPot);
+		addDefaultComponent(mp, sustainPot, gbl, gbc, 0, 0, 3, 3);
+
+		// Add listener to this pot
+		sustainPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				sustainChanged(sustainPot);
+			}
+		});
+
+		// Create the damping pot
+		dampingPot = createPot(AudioConstants.KNOBSIZE, "HF Damping",
+			"none, , , , , , , , , ,max", 1.0, 0.0);
+		dampingPot.setTicColor(Color.red);
+		dampingPot.setGradColor(Color.red);
+
+		// Set the default value
+		dampingPot.setRealValue(DAMPINGDEF);
+		addDefaultComponent(mp, dampingPot, gbl, gbc, 3, 0, 3, 3);
+
+		// Add listener to this pot
+		dampingPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				dampingChanged(dampingPot);
+			}
+		});
+
+		// Create the modulation depth pot
+		modulationPot = createPot(AudioConstants.KNOBSIZE, "Modulation",
+			"0ms, , , , , , , , , ,2ms",
+			FeedbackDelayNetwork.MAXMODULATIONDEPTHMS, 0.0);
+		modulationPot.setTicColor(Color.yellow);
+		modulationPot.setGradColor(Color.yellow);
+
+		// Set the default value
+		modulationPot.setRealValue(MODULATIONDEPTHMSDEF);
+		addDefaultComponent(mp, modulationPot, gbl, gbc, 6, 0, 3, 3);
+
+		// Add listener to this pot
+		modulationPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				modulationChanged(modulationPot);
+			}
+		});
+
+		// Create the mix pot
+		mixPot = createPot(AudioConstants.KNOBSIZE, "Dry/Wet Mix",
+			"dry, , , , , , , , , ,wet", 1.0, 0.0);
+		mixPot.setTicColor(Color.blue);
+		mixPot.setGradColor(Color.blue);
+
+		// Set the default value
+		mixPot.setRealValue(MIXDEF);
+		addDefaultComponent(mp, mixPot, gbl, gbc, 9, 0, 3, 3);
+
+		// Add listener to this pot
+		mixPot.addAdjustmentListener(new AdjustmentListener () {
+			public void adjustmentValueChanged(AdjustmentEvent e) {
+				mixChanged(mixPot);
+			}
+		});
+
+		// Create the feedback matrix button
+		matrixButton = new SquareButton();
+		matrixButton.setPanelColor(AudioConstants.PANELCOLOR);
+		matrixButton.setCaption("Hadamard");
+		addDefaultComponent(mp, matrixButton, gbl, gbc, 1, 4, 2, 1);
+		matrixButton.addActionListener(new ActionListener () {
+			public void actionPerformed(ActionEvent e) {
+				boolean state = e.getActionCommand().equals("ON");
+				matrixChanged(state);
+			}
+		});
+
+		// Create the bypass LED
+		bypassLED = createLED(Color.green, RoundLED.MODEBLINK, false);
+		addDefaultComponent(mp, bypassLED, gbl, gbc, 9, 4, 1, 1);
+		blink.addPropertyChangeListener(bypassLED);
+
+		// Create the bypass button
+		bypassButton = new SquareButton();
+		bypassButton.setPanelColor(AudioConstants.PANELCOLOR);
+		bypassButton.setCaption("Bypass");
+		addDefaultComponent(mp, bypassButton, gbl, gbc, 10, 4, 2, 1);
+		bypassButton.addActionListener(bypassLED);
+		bypassButton.addActionListener(new ActionListener () {
+			public void actionPerformed(ActionEvent e) {
+				boolean state = e.getActionCommand().equals("ON");
+				bypassChanged(state);
+			}
+		});
+		// Finish up but don't make visible yet
+		add(mp);
+		pack();
+	}
+
+	public void bypassChanged(boolean state) {
+
+		((FDNReverbWithUI)aa).setByPass(state);
+	}
+
+	public void matrixChanged(boolean hadamard) {
+
+		((FDNReverbWithUI)aa).setMatrix(hadamard ?
+			FeedbackDelayNetwork.HADAMARD : FeedbackDelayNetwork.HOUSEHOLDER);
+	}
+
+	public void sustainChanged(RealValuedPot p) {
+
+		((FDNReverbWithUI)aa).setSustainTime(p.getRealValue());
+	}
+
+	public void dampingChanged(RealValuedPot p) {
+
+		((FDNReverbWithUI)aa).setDamping(p.getRealValue());
+	}
+
+	public void modulationChanged(RealValuedPot p) {
+
+		((FDNReverbWithUI)aa).setModulationDepth(p.getRealValue());
+	}
+
+	public void mixChanged(RealValuedPot p) {
+
+		((FDNReverbWithUI)aa).setDryWetMix(p.getRealValue());
+	}
+
+	public void windowClosing() {
+
+		((FDNReverbWithUI)aa).stopUI();
+	}
+
+	// Private class data
+	private static final long serialVersionUID = 1L;
+	private RealValuedPot sustainPot;
+	private RealValuedPot dampingPot;
+	private RealValuedPot modulationPot;
+	private RealValuedPot mixPot;
+
+	private SquareButton matrixButton;
+	private RoundLED bypassLED;
+	private SquareButton bypassButton;
+}
@@ -0,0 +1,41 @@
+// FDN Reverb with UI Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import java.awt.Rectangle;
+import audiostuff.craigl.beans.blinker.*;
+import audiostuff.craigl.utils.*;
+
+public class FDNReverbWithUI extends FDNReverb implements AudioUIIF {
+
+	public FDNReverbWithUI(Blinker blink) {
+		super("FDN Reverb Processor", LINESDEF);
+
+		// Create the UI for this processor
+		frui = new FDNReverbUI(blink, this);
+	}
+
+	public void showUI(boolean isVisible) {
+
+        frui.setVisible(isVisible);
+    }
+
+    public void stopUI() {
+
+        setByPass(true);
+    }
+
+    public Rectangle getBounds() {
+
+        return frui.getBounds();
+    }
+
+    public void setBounds(int x, int y, int w, int h) {
+
+        frui.setBounds(x, y, w, h);
+    }
+
+	// Private class data
+	private FDNReverbUI frui = null;
+}
@@ -0,0 +1,263 @@
+// Graphic Equalizer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.filters.*;
+import audiostuff.craigl.utils.*;
+
+/*
+This graphic equalizer processor uses the optimized bandpass
+filters implemented in the IIRBandpassFilter and IIRBandpassFilterDesign
+classes in the filters package, run together in a single pass by the
+IIRBandpassFilterBank class. A quality factor (Q) of 1.4 was
+chosen for the filters to minimize the ripple in the passband with
+full boost or cut. Range of boost and cut is +12db .. -12db.
+
+The frequency of the bandpass filters were choosen to be:
+50Hz, 100Hz, 200Hz, 400Hz, 800Hz, 1.6KHz, 3.2KHz, 6.4KHz, 12.8KHz
+
+At a 11025 sample rate or lower, the highest two filters are disabled due to
+Nyquist criteria. At a sample rate of 22050, only the highest filter is
+disabled. At a 44100 sample rate, all filters are enabled.
+*/ 
+
+/**
+ * Graphic equalizer with no user interface. The gain of each band is set
+ * by calling the band's gain method and may be set before the sampling
+ * rate is known. GraphicEQWithUI adds a user interface on top of this
+ * class.
+ *
+ * Samples are processed in planar form and every channel has its own
+ * filter history. With many channels the channels are processed on
+ * separate threads.
+ */
+public class GraphicEQ extends AbstractAudio implements ChannelProcessorIF {
+
+	private static final double Q = 1.4;
+
+	// Number of bands
+	private static final int BANDS = 9;
+
+	// Center frequency of each band
+	private static final int [] FREQUENCIES = {
+		50, 100, 200, 400, 800, 1600, 3200, 6400, 12800
+	};
+	
+	/**
+	 * GraphicEQ class constructor
+	 */
+	public GraphicEQ() {
+
+		this("Graphic Equalizer");
+	}
+
+	/**
+	 * GraphicEQ class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected GraphicEQ(String name) {
+		super(name, PROCESSOR);
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+
+		// All bands start out at unity gain
+		gains = new double[BANDS];
+		for (int i=0; i < BANDS; i++)
+			gains[i] = 1.0;
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		// If bypass is enabled, short circuit filtering
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Filter the planar samples that pass thru this equalizer
+	public int getSamples(float [][] buffers, int frames) {
+
+		int len = previous.getSamples(buffers, frames);
+
+		if ((len <= 0) || getByPass() || !initializationComplete)
+			return len;
+
+		beginBlock(buffers, len);
+		fanOut.run();
+
+		return len;
+	}
+
+	// Pick up the bank and its gains for the block. The gains are the
+	// same for every channel so they are worked out once here.
+	private void beginBlock(float [][] buffers, int frames) {
+
+		int channels = buffers.length;
+		if ((dBuffers == null) || (dBuffers.length != channels)) {
+			dBuffers = new double[channels][1];
+			fanOut = new ChannelFanOut(channels, this);
+		}
+
+		IIRBandpassFilterBank b = bank;
+		if (b.getChannels() != channels)
+			b.setChannels(channels);
+		b.beginBlock(frames);
+
+		blockBank = b;
+		blockBuffers = buffers;
+		blockFrames = frames;
+	}
+
+	/**
+	 * Run the filter bank over one channel of the current block. Called
+	 * by the channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] buffer = blockBuffers[channel];
+		int frames = blockFrames;
+		double gainFactor = this.gainFactor;
+
+		// Realloc buffer as required
+		double [] dBuffer = dBuffers[channel];
+		if (dBuffer.length < frames) {
+			dBuffer = new double[frames];
+			dBuffers[channel] = dBuffer;
+		}
+
+		// Move samples into summation buffer for processing
+		// Prescale the data according to number of filter elements
+		for (int i=0; i < frames; i++)
+			dBuffer[i] = buffer[i] * gainFactor;
+
+		// Apply the filters. The bank runs every band in one pass.
+		blockBank.doFilter(channel, buffer, dBuffer, frames);
+
+		// Return the filtered samples. Range constraining is left
+		// to the device that converts them back to short samples.
+		for (int i=0; i < frames; i++)
+			buffer[i] = (float) dBuffer[i];
+	}
+
+	// These methods set the gain of each band
+	public void f50HzGain(double gain) {
+
+		setGain(0, gain);
+	}
+	
+	public void f100HzGain(double gain) {
+
+		setGain(1, gain);
+	}
+	
+	public void f200HzGain(double gain) {
+
+		setGain(2, gain);
+	}
+	
+	public void f400HzGain(double gain) {
+
+		setGain(3, gain);
+	}
+	
+	public void f800HzGain(double gain) {
+
+		setGain(4, gain);
+	}
+	
+	public void f1600HzGain(double gain) {
+
+		setGain(5, gain);
+	}
+	
+	public void f3200HzGain(double gain) {
+
+		setGain(6, gain);
+	}
+	
+	public void f6400HzGain(double gain) {
+
+		setGain(7, gain);
+	}
+	
+	public void f12800HzGain(double gain) {
+
+		setGain(8, gain);
+	}
+	
+	// Save the gain of a band and pass it on if the band is in use
+	private void setGain(int band, double gain) {
+
+		gains[band] = gain;
+
+		IIRBandpassFilterBank b = bank;
+		if ((b != null) && (band < b.getBands()))
+			b.setAmplitudeAdj(band, gain);
+	}
+
+	private void doInitialization() {
+
+		// Bands above the Nyquist frequency are left out
+		int bands = BANDS;
+		if (sampleRate <= 25600)
+			bands--;
+		if (sampleRate <= 12800)
+			bands--;
+
+		// Design the filters now that the sampling rate is known
+		IIRBandpassFilterDesign [] designs = new IIRBandpassFilterDesign[bands];
+		for (int i=0; i < bands; i++) {
+			designs[i] = new IIRBandpassFilterDesign(FREQUENCIES[i], sampleRate, Q);
+			designs[i].doFilterDesign();
+		}
+
+		// Implement the filter designs
+		IIRBandpassFilterBank b = new IIRBandpassFilterBank(designs);
+		for (int i=0; i < bands; i++)
+			b.setAmplitudeAdj(i, gains[i]);
+		bank = b;
+
+		// Total the number of filter gain elements in chain
+		gainFactor = 1.0 / (bands + 1);
+
+		// All filters designed, indicate initialization is complete
+		initializationComplete = true;
+	}
+	
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+		
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	// Private class data
+	private double [][] dBuffers;		// Summation buffer of each channel
+	private ChannelFanOut fanOut;
+	private IIRBandpassFilterBank blockBank;
+	private float [][] blockBuffers;
+	private int blockFrames;
+	private int sampleRate;
+	private boolean initializationComplete;
+	private double gainFactor;
+	private double [] gains;
+
+	// All of the bands in use
+	private volatile IIRBandpassFilterBank bank = null;
+}
@@ -0,0 +1,318 @@
+// Parametric Equalizer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.filters.*;
+import audiostuff.craigl.utils.*;
+
+/*
+This parametric equalizer processor features three filter sections.
+A high pass shelving filter with adjustable cutoff frequency, a bandpass
+peaking filter with adjustable center frequency and quality factor (Q)
+and a low pass shelving filter with adjustable cutoff frequency. All 
+filters are second order. This gives the highpass and lowpass filters
+a slope of 12 db/octave rolloff. The range of boost and cut is
++/- 12 db.
+
+All filter sections are IIR filters. The frequency ranges of the highpass
+and bandpass filters are limited by the Nyquist frequency. The limit
+is one half the sampling rate. The dampling factor controls how much
+peaking the highpass and lowpass filters have. A factor of 1.0 exhibits
+very little if any peaking.
+*/ 
+
+/**
+ * Parametric equalizer with no user interface. Its parameters are set by
+ * calling the setter methods, may be set before the sampling rate is known
+ * and start out at the default values below. ParametricEQWithUI adds a
+ * user interface on top of this class.
+ *
+ * The setters may be called from any thread while samples are being
+ * filtered. Filters are redesigned by the calling thread and the new
+ * coefficients take effect at the start of the next block. Gain changes
+ * are smoothed by the filters.
+ *
+ * Samples are processed in planar form and every channel has its own
+ * filter history. With many channels the channels are processed on
+ * separate threads.
+ */
+public class ParametricEQ extends AbstractAudio implements ChannelProcessorIF {
+
+	// Parameter defaults
+	public static final int HIGHPASSFREQDEF = 5000;
+	public static final int BANDPASSFREQDEF = 3000;
+	public static final double BANDPASSQDEF = 8.0;
+	public static final int LOWPASSFREQDEF = 200;
+
+	private static final double DAMPINGFACTOR = 1.0;
+	
+	/**
+	 * ParametricEQ class constructor
+	 */
+	public ParametricEQ() {
+
+		this("Parametric Equalizer");
+	}
+
+	/**
+	 * ParametricEQ class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected ParametricEQ(String name) {
+		super(name, PROCESSOR);
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+
+		// Default values for the filters
+		currentLPFreq = LOWPASSFREQDEF;
+		currentBPFreq = BANDPASSFREQDEF;
+		currentBPQ = BANDPASSQDEF;
+		currentHPFreq = HIGHPASSFREQDEF;
+		currentLPGain = 1.0;
+		currentBPGain = 1.0;
+		currentHPGain = 1.0;
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		// If bypass is enabled, short circuit filtering
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Filter the planar samples that pass thru this equalizer
+	public int getSamples(float [][] buffers, int frames) {
+
+		int len = previous.getSamples(buffers, frames);
+
+		if ((len <= 0) || getByPass() || !initializationComplete)
+			return len;
+
+		beginBlock(buffers, len);
+		fanOut.run();
+
+		return len;
+	}
+
+	// Pick up new coefficients and gains for the block. They are the
+	// same for every channel so they are worked out once here.
+	private void beginBlock(float [][] buffers, int frames) {
+
+		int channels = buffers.length;
+		if ((dBuffers == null) || (dBuffers.length != channels)) {
+			dBuffers = new double[channels][1];
+			fanOut = new ChannelFanOut(channels, this);
+		}
+
+		if (lowPassShelf.getChannels() != channels) {
+			lowPassShelf.setChannels(channels);
+			bandPassPeak.setChannels(channels);
+			highPassShelf.setChannels(channels);
+		}
+		lowPassShelf.beginBlock(frames);
+		bandPassPeak.beginBlock(frames);
+		highPassShelf.beginBlock(frames);
+
+		blockBuffers = buffers;
+		blockFrames = frames;
+	}
+
+	/**
+	 * Run the filters over one channel of the current block. Called by
+	 * the channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] buffer = blockBuffers[channel];
+		int frames = blockFrames;
+		double gainFactor = this.gainFactor;
+
+		// Realloc buffer as required
+		double [] dBuffer = dBuffers[channel];
+		if (dBuffer.length < frames) {
+			dBuffer = new double[frames];
+			dBuffers[channel] = dBuffer;
+		}
+
+		// Move samples into summation buffer for processing
+		// Prescale the data according to number of filter elements
+		for (int i=0; i < frames; i++)
+			dBuffer[i] = buffer[i] * gainFactor;
+
+		// Apply the filters
+		lowPassShelf.doFilter(channel, buffer, dBuffer, frames);
+		bandPassPeak.doFilter(channel, buffer, dBuffer, frames);
+		highPassShelf.doFilter(channel, buffer, dBuffer, frames);
+
+		// Return the filtered samples. Range constraining is left
+		// to the device that converts them back to short samples.
+		for (int i=0; i < frames; i++)
+			buffer[i] = (float) dBuffer[i];
+	}
+
+	// These methods set the filter parameters
+	public void lowPassShelfGain(double gain) {
+
+		currentLPGain = gain;
+
+		if (lowPassShelf != null)
+			lowPassShelf.setAmplitudeAdj(gain);
+	}
+	
+	public void bandPassPeakGain(double gain) {
+
+		currentBPGain = gain;
+
+		if (bandPassPeak != null)
+			bandPassPeak.setAmplitudeAdj(gain);
+	}
+	
+	public void highPassShelfGain(double gain) {
+
+		currentHPGain = gain;
+
+		if (highPassShelf != null)
+			highPassShelf.setAmplitudeAdj(gain);
+	}
+	
+	public void lowPassShelfFreq(int freq) {
+
+		currentLPFreq = freq;
+
+		if (lowPassShelf != null) {
+			// Recalculate and install the filter with new freq
+			lpfd = new IIRLowpassFilterDesign(freq, sampleRate, DAMPINGFACTOR);
+			lpfd.doFilterDesign();
+			lowPassShelf.updateFilterCoefficients(lpfd);
+		}
+	}
+	
+	public void bandPassPeakFreq(int freq) {
+
+		currentBPFreq = freq;
+
+		if ((bandPassPeak != null)  && (freq < (sampleRate / 2))){
+			// Recalculate and install the filter with new freq
+			bpfd = new IIRBandpassFilterDesign(currentBPFreq, 
+											   sampleRate, currentBPQ);
+			bpfd.doFilterDesign();
+			bandPassPeak.updateFilterCoefficients(bpfd);
+		}
+	}
+	
+	public void highPassShelfFreq(int freq) {
+
+		currentHPFreq = freq;
+
+		if ((highPassShelf != null) && (freq < (sampleRate / 2))){
+			hpfd = new IIRHighpassFilterDesign(freq, sampleRate, DAMPINGFACTOR);
+			hpfd.doFilterDesign();
+			highPassShelf.updateFilterCoefficients(hpfd);
+		}
+	}
+	
+	public void bandPassPeakQ(double q) {
+
+		currentBPQ = q;
+
+		if (bandPassPeak != null) {
+			// Recalculate and install the filter with new freq
+			bpfd = new IIRBandpassFilterDesign(currentBPFreq, 
+											   sampleRate, currentBPQ);
+			bpfd.doFilterDesign();
+			bandPassPeak.updateFilterCoefficients(bpfd);
+		}
+	}
+	
+	private void doInitialization() {
+
+		// Total the number of filter gain elements in chain
+		int gainElements = 1;
+
+		// Design the filters now that the sampling rate is known.
+		// Design the low pass filter
+		lpfd = new IIRLowpassFilterDesign(currentLPFreq,
+										  sampleRate, DAMPINGFACTOR);
+		lpfd.doFilterDesign();
+
+		// Implement the filter design
+		lowPassShelf = new IIRLowpassFilter(lpfd);
+		lowPassShelf.setAmplitudeAdj(currentLPGain);
+		gainElements++;
+
+		// Design the band filter
+		bpfd = new IIRBandpassFilterDesign(currentBPFreq,
+										   sampleRate, currentBPQ);
+		bpfd.doFilterDesign();
+
+		// Implement the filter design
+		bandPassPeak = new IIRBandpassFilter(bpfd);
+		bandPassPeak.setAmplitudeAdj(currentBPGain);
+		gainElements++;
+
+		// Design the high pass filter
+		hpfd = new IIRHighpassFilterDesign(currentHPFreq,
+										   sampleRate, DAMPINGFACTOR);
+		hpfd.doFilterDesign();
+
+		// Implement the filter design
+		highPassShelf = new IIRHighpassFilter(hpfd);
+		highPassShelf.setAmplitudeAdj(currentHPGain);
+		gainElements++;
+
+		gainFactor = 1.0 / gainElements;
+
+		// All filters designed, indicate initialization is complete
+		initializationComplete = true;
+	}
+	
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	// Private class data
+	private double [][] dBuffers;		// Summation buffer of each channel
+	private ChannelFanOut fanOut;
+	private float [][] blockBuffers;
+	private int blockFrames;
+	public  int sampleRate;
+	private volatile int currentLPFreq;
+	private volatile int currentBPFreq;
+	private volatile double currentBPQ;
+	private volatile int currentHPFreq;
+	private volatile double currentLPGain;
+	private volatile double currentBPGain;
+	private volatile double currentHPGain;
+	private volatile boolean initializationComplete;
+	private double gainFactor;
+	
+	// Individual filter object instances
+	private IIRLowpassFilterDesign lpfd; 
+	private IIRLowpassFilter lowPassShelf = null;
+	
+	private IIRBandpassFilterDesign bpfd;
+	private IIRBandpassFilter bandPassPeak = null;
+	
+	private IIRHighpassFilterDesign hpfd;
+	private IIRHighpassFilter highPassShelf = null;
+}
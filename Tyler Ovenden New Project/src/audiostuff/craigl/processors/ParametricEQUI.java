@@ -1,6 +1,6 @@
 // Parametric Equalizer Front Panel Class
 // Written by: Craig A. Lindley
-// Last Update: 07/05/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -18,19 +18,19 @@ public class ParametricEQUI extends BaseUI implements CloseableFrameIF {
 
 	private static final int HIGHPASSFREQMIN = 5000;
 	private static final int HIGHPASSFREQMAX = 16000;
-	public  static final int HIGHPASSFREQDEF = 5000;
+	public  static final int HIGHPASSFREQDEF = ParametricEQ.HIGHPASSFREQDEF;
 
 	private static final int BANDPASSFREQMIN = 1500;
 	private static final int BANDPASSFREQMAX = 6000;
-	public  static final int BANDPASSFREQDEF = 3000;
+	public  static final int BANDPASSFREQDEF = ParametricEQ.BANDPASSFREQDEF;
 
 	private static final double BANDPASSQMIN = 1.1;
 	private static final double BANDPASSQMAX = 16.0;
-	public  static final double BANDPASSQDEF = 8.0;
+	public  static final double BANDPASSQDEF = ParametricEQ.BANDPASSQDEF;
 
 	private static final int LOWPASSFREQMIN = 40;
 	private static final int LOWPASSFREQMAX = 1500;
-	public  static final int LOWPASSFREQDEF = 200;
+	public  static final int LOWPASSFREQDEF = ParametricEQ.LOWPASSFREQDEF;
 
 	public ParametricEQUI(Blinker blink, AbstractAudio aa) {
 
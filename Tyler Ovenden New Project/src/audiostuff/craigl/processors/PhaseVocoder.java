@@ -0,0 +1,598 @@
+// Phase Vocoder Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.spectrumanalyzer.FFT;
+import audiostuff.craigl.utils.*;
+
+/*
+Time stretching and pitch shifting with a phase vocoder.
+
+The input is cut into Hann windowed frames that overlap by a factor of
+OVERLAP and each frame is taken into the frequency domain. Frames are
+read from the input every analysis hop and written to the output every
+synthesis hop, so the ratio of the two hops stretches time. For each
+bin the change in phase since the previous frame, less the change the
+bin's own frequency accounts for, gives the true frequency of the
+partial in that bin. The output phase of each peak of the spectrum is
+advanced at that frequency over the synthesis hop, so partials stay
+continuous however far apart the frames are written. The bins around a
+peak keep the phase relation to it they had in the input (identity
+phase locking), which keeps each partial coherent across its bins and
+avoids the phasy sound of advancing every bin on its own. The frames are taken back to the time
+domain, windowed again and overlap added.
+
+Pitch is shifted by stretching time by the product of the stretch and
+pitch ratios and then reading the stretched signal back faster or slower
+by the pitch ratio with cubic interpolation. The two ratios are
+therefore independent. When the pitch is raised the interpolation is
+not band limited, so content near the top of the band may alias.
+
+The frame length is the power of two nearest above FRAMETIMEINMS at the
+sampling rate. All buffers are allocated when the first samples are
+requested and the FFT tables are shared with every other FFT of the
+same size.
+*/
+
+/**
+ * Phase vocoder time stretcher and pitch shifter with no user interface.
+ * Time stretch and pitch ratios may be changed from another thread while
+ * samples are being processed and take effect at the next frame.
+ *
+ * A stretch of 2.0 plays the input at half speed and a pitch ratio of
+ * 2.0 raises it one octave. Both ratios are limited to the range
+ * MINRATIO to MAXRATIO.
+ *
+ * Any number of channels is handled. Samples are processed in planar
+ * form and with many channels each channel's frames are transformed on
+ * a separate thread.
+ */
+public class PhaseVocoder extends AbstractAudio implements ChannelProcessorIF {
+
+	// Range of the time stretch and pitch ratios
+	public static final double MINRATIO = 0.25;
+	public static final double MAXRATIO = 4.0;
+
+	// Shortest time an analysis frame covers
+	private static final int FRAMETIMEINMS = 40;
+
+	// Limits on the frame length in samples
+	private static final int MINFRAMESIZE = 256;
+	private static final int MAXFRAMESIZE = 8192;
+
+	// Frames overlap by this factor
+	private static final int OVERLAP = 4;
+
+	private static final double TWOPI = 2.0 * Math.PI;
+
+	// Work done by processChannel
+	private static final int SYNTHESIZE  = 0;
+	private static final int INTERPOLATE = 1;
+
+	/**
+	 * PhaseVocoder class constructor
+	 */
+	public PhaseVocoder() {
+
+		super("PhaseVocoder", PROCESSOR);
+
+		// Start out with no change
+		stretch = 1.0;
+		pitch = 1.0;
+	}
+
+	/**
+	 * Set the time stretch ratio. May be called from any thread.
+	 *
+	 * @param double stretch is the ratio of output to input duration.
+	 * 2.0 plays at half speed, 0.5 at double speed.
+	 */
+	public void setTimeStretch(double stretch) {
+
+		if ((stretch < MINRATIO) || (stretch > MAXRATIO))
+			throw new IllegalArgumentException("Time stretch out of range");
+
+		this.stretch = stretch;
+	}
+
+	/**
+	 * Return the time stretch ratio
+	 *
+	 * @return double containing the ratio
+	 */
+	public double getTimeStretch() {
+
+		return stretch;
+	}
+
+	/**
+	 * Set the pitch ratio. May be called from any thread.
+	 *
+	 * @param double pitch is the ratio of output to input frequency.
+	 * 2.0 raises the pitch one octave.
+	 */
+	public void setPitchRatio(double pitch) {
+
+		if ((pitch < MINRATIO) || (pitch > MAXRATIO))
+			throw new IllegalArgumentException("Pitch ratio out of range");
+
+		this.pitch = pitch;
+	}
+
+	/**
+	 * Return the pitch ratio
+	 *
+	 * @return double containing the ratio
+	 */
+	public double getPitchRatio() {
+
+		return pitch;
+	}
+
+	/**
+	 * Set the pitch shift in half steps (semitones)
+	 *
+	 * @param double halfSteps is the shift, positive to raise the pitch
+	 */
+	public void setPitchShift(double halfSteps) {
+
+		setPitchRatio(Math.pow(2.0, halfSteps / 12.0));
+	}
+
+	// Process the samples that pass thru this effect
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		if (getByPass())
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Produce stretched and shifted planar samples
+	public int getSamples(float [][] buffers, int frames) {
+
+		if (getByPass())
+			return previous.getSamples(buffers, frames);
+
+		if ((history == null) || (history.length != buffers.length))
+			initializeState(buffers.length);
+
+		// The pitch ratio is read once per call
+		double step = pitch;
+
+		int produced = 0;
+		while (produced < frames) {
+
+			// Read back as much of the stretched signal as is on hand
+			int count = planOutputs(produced, frames - produced, step);
+			if (count != 0) {
+				mode = INTERPOLATE;
+				blockBuffers = buffers;
+				blockStart = produced;
+				blockCount = count;
+				fanOut.run();
+
+				produced += count;
+				continue;
+			}
+
+			// Stretch another frame
+			if (!makeFrame())
+				break;
+		}
+
+		if ((produced == 0) && finished) {
+			// All done, be ready to run again
+			resetState();
+			return -1;
+		}
+		return produced;
+	}
+
+	/**
+	 * Do the work planned for one channel. Called by the channel fan
+	 * out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		if (mode == SYNTHESIZE)
+			synthesizeFrame(channel);
+		else
+			interpolate(channel);
+	}
+
+	// Analyze the frame at frameStart and overlap add its resynthesis
+	private void synthesizeFrame(int channel) {
+
+		float [] in = history[channel];
+		double [] re = reals[channel];
+		double [] im = imags[channel];
+		double [] last = lastPhases[channel];
+		double [] sum = sumPhases[channel];
+		float [] ola = olas[channel];
+		int half = frameSize / 2;
+
+		// Window the frame and take it into the frequency domain
+		for (int i=0; i < frameSize; i++)
+			re[i] = in[frameStart + i] * window[i];
+
+		fft.doRealFFT(re, im);
+
+		double hopScale = firstFrame ? 1.0 : (double) synthesisHop / frameHop;
+
+		double [] mag = magnitudes[channel];
+		double [] phase = phases[channel];
+		for (int k=0; k <= half; k++) {
+			mag[k] = Math.sqrt(re[k] * re[k] + im[k] * im[k]);
+			phase[k] = Math.atan2(im[k], re[k]);
+		}
+
+		if (firstFrame) {
+			for (int k=0; k <= half; k++)
+				sum[k] = phase[k];
+		}	else	{
+			// Find the peaks of the spectrum
+			int [] peak = peaks[channel];
+			int peakCount = 0;
+			for (int k=0; k <= half; k++) {
+				double m = mag[k];
+				if ((m > 0.0) &&
+					((k < 1) || (m > mag[k - 1])) &&
+					((k < 2) || (m > mag[k - 2])) &&
+					((k > half - 1) || (m >= mag[k + 1])) &&
+					((k > half - 2) || (m >= mag[k + 2])))
+					peak[peakCount++] = k;
+			}
+
+			// Advance each peak at its true frequency
+			double [] peakPhase = peakPhases[channel];
+			for (int i=0; i < peakCount; i++) {
+				int k = peak[i];
+
+				// Deviation from the bin's own frequency
+				double expected = binFrequencies[k] * frameHop;
+				double deviation = phase[k] - last[k] - expected;
+				deviation -= TWOPI * Math.rint(deviation / TWOPI);
+
+				// Advance over the synthesis hop
+				peakPhase[i] = sum[k] + (expected + deviation) * hopScale;
+			}
+
+			// The bins around each peak keep their phase relative to it
+			int lower = 0;
+			for (int i=0; i < peakCount; i++) {
+				int k = peak[i];
+				int upper = (i == peakCount - 1) ? half : (k + peak[i + 1]) / 2;
+				for (int j=lower; j <= upper; j++) {
+					double p = peakPhase[i] + phase[j] - phase[k];
+					sum[j] = p - TWOPI * Math.rint(p / TWOPI);
+				}
+				lower = upper + 1;
+			}
+		}
+		for (int k=0; k <= half; k++) {
+			last[k] = phase[k];
+
+			re[k] = mag[k] * Math.cos(sum[k]);
+			im[k] = mag[k] * Math.sin(sum[k]);
+		}
+
+		fft.doRealIFFT(re, im);
+
+		// Window again and overlap add
+		for (int i=0; i < frameSize; i++)
+			ola[i] += (float) (re[i] * window[i] * olaScale);
+
+		// The first synthesis hop is complete, move it out
+		float [] out = stretched[channel];
+		System.arraycopy(ola, 0, out, stretchedFilled, synthesisHop);
+		System.arraycopy(ola, synthesisHop, ola, 0, frameSize - synthesisHop);
+		for (int i=frameSize - synthesisHop; i < frameSize; i++)
+			ola[i] = 0.0f;
+	}
+
+	// Read back the stretched signal for the outputs planned
+	private void interpolate(int channel) {
+
+		float [] out = blockBuffers[channel];
+		float [] y = stretched[channel];
+		int end = blockStart + blockCount;
+
+		for (int i=blockStart; i < end; i++) {
+			int p = positions[i];
+			double f = fractions[i];
+
+			// Catmull-Rom cubic through four neighbouring samples
+			double y0 = y[p - 1];
+			double y1 = y[p];
+			double y2 = y[p + 1];
+			double y3 = y[p + 2];
+			double c1 = 0.5 * (y2 - y0);
+			double c2 = y0 - 2.5 * y1 + 2.0 * y2 - 0.5 * y3;
+			double c3 = 0.5 * (y3 - y0) + 1.5 * (y1 - y2);
+
+			out[i] = (float) (((c3 * f + c2) * f + c1) * f + y1);
+		}
+	}
+
+	// Record the read position of up to count outputs, starting at
+	// output index start, for which there is stretched signal on hand.
+	// Returns the number of outputs planned.
+	private int planOutputs(int start, int count, double step) {
+
+		if (positions.length < start + count) {
+			int [] p = new int[start + count];
+			double [] f = new double[start + count];
+			System.arraycopy(positions, 0, p, 0, positions.length);
+			System.arraycopy(fractions, 0, f, 0, fractions.length);
+			positions = p;
+			fractions = f;
+		}
+
+		int planned = 0;
+		while (planned < count) {
+			int p = (int) readPosition;
+			if (p + 2 >= stretchedFilled)
+				break;
+
+			positions[start + planned] = p;
+			fractions[start + planned] = readPosition - p;
+			planned++;
+
+			readPosition += step;
+		}
+		return planned;
+	}
+
+	// Stretch the next frame on every channel. Returns false when no
+	// more stretched signal can be made for now.
+	private boolean makeFrame() {
+
+		if (framesDone) {
+			finished = true;
+			return false;
+		}
+
+		// Make sure the frame's input is on hand
+		while ((int) analysisPosition + frameSize > filled) {
+			int got = fetchInput();
+			if (got == -1) {
+				// Input used up. Move out what is left in the overlap
+				// add buffers and pad for the interpolation.
+				discardStretched();
+				for (int ch=0; ch < history.length; ch++) {
+					float [] out = stretched[ch];
+					System.arraycopy(olas[ch], 0, out, stretchedFilled,
+									 frameSize - synthesisHop);
+					for (int i=0; i < 3; i++)
+						out[stretchedFilled + frameSize - synthesisHop + i] = 0.0f;
+				}
+				stretchedFilled += frameSize - synthesisHop + 3;
+				framesDone = true;
+				return true;
+			}
+			if (got == 0)
+				return false;		// Nothing available right now
+		}
+
+		discardStretched();
+
+		// Hop from the previous frame
+		int start = (int) analysisPosition;
+		frameHop = start - lastFrameStart;
+		lastFrameStart = start;
+
+		mode = SYNTHESIZE;
+		frameStart = start;
+		fanOut.run();
+		firstFrame = false;
+		stretchedFilled += synthesisHop;
+
+		// Step to the next frame. The ratios are read once per frame.
+		double analysisHop = synthesisHop / (stretch * pitch);
+		analysisPosition += Math.max(analysisHop, 1.0);
+
+		return true;
+	}
+
+	// Drop the stretched signal the interpolation is done with
+	private void discardStretched() {
+
+		int drop = Math.min((int) readPosition - 1, stretchedFilled);
+		if (drop <= 0)
+			return;
+
+		int keep = stretchedFilled - drop;
+		for (int ch=0; ch < stretched.length; ch++)
+			System.arraycopy(stretched[ch], drop, stretched[ch], 0, keep);
+		stretchedFilled = keep;
+		readPosition -= drop;
+	}
+
+	// Move the unused input to the front and read more after it.
+	// Returns the number of frames added, -1 once the input and the
+	// silence that flushes it are used up.
+	private int fetchInput() {
+
+		int channels = history.length;
+
+		// Discard what no frame needs any more
+		int start = (int) analysisPosition;
+		if (start > 0) {
+			int keep = filled - start;
+			for (int ch=0; ch < channels; ch++)
+				System.arraycopy(history[ch], start, history[ch], 0, keep);
+			filled = keep;
+			analysisPosition -= start;
+			lastFrameStart -= start;
+		}
+
+		int room = history[0].length - filled;
+
+		if (inputEnded) {
+			// Flush the last frames with silence
+			if (tailLeft == 0)
+				return -1;
+			int tail = Math.min(tailLeft, room);
+			for (int ch=0; ch < channels; ch++)
+				for (int i=0; i < tail; i++)
+					history[ch][filled + i] = 0.0f;
+			filled += tail;
+			tailLeft -= tail;
+			return tail;
+		}
+
+		int len = previous.getSamples(inputBuffers,
+									  Math.min(room, inputBuffers[0].length));
+		if (len == -1) {
+			inputEnded = true;
+			tailLeft = frameSize;
+			return fetchInput();
+		}
+
+		for (int ch=0; ch < channels; ch++)
+			System.arraycopy(inputBuffers[ch], 0, history[ch], filled, len);
+		filled += len;
+		return len;
+	}
+
+	// Allocate the frame buffers for a number of channels
+	private void initializeState(int channels) {
+
+		// Frame length for the sampling rate
+		int minSize = (FRAMETIMEINMS * getSamplingRate()) / 1000;
+		int bits = 0;
+		while (((1 << bits) < minSize) || ((1 << bits) < MINFRAMESIZE))
+			bits++;
+		while ((1 << bits) > MAXFRAMESIZE)
+			bits--;
+
+		fft = new FFT(bits);
+		frameSize = 1 << bits;
+		synthesisHop = frameSize / OVERLAP;
+		int half = frameSize / 2;
+
+		// Periodic Hann window used on the way in and the way out
+		window = new double[frameSize];
+		double windowPower = 0.0;
+		for (int i=0; i < frameSize; i++) {
+			window[i] = 0.5 - 0.5 * Math.cos((TWOPI * i) / frameSize);
+			windowPower += window[i] * window[i];
+		}
+		// Overlapped squared windows sum to a constant, scale it to one
+		olaScale = synthesisHop / windowPower;
+
+		binFrequencies = new double[half + 1];
+		for (int k=0; k <= half; k++)
+			binFrequencies[k] = (TWOPI * k) / frameSize;
+
+		int frames = Math.max(getBlockSize() / channels, 1);
+		history = new float[channels][frameSize + frames];
+		inputBuffers = new float[channels][frames];
+		reals = new double[channels][frameSize];
+		imags = new double[channels][frameSize];
+		magnitudes = new double[channels][half + 1];
+		phases = new double[channels][half + 1];
+		peaks = new int[channels][half + 1];
+		peakPhases = new double[channels][half + 1];
+		lastPhases = new double[channels][half + 1];
+		sumPhases = new double[channels][half + 1];
+		olas = new float[channels][frameSize];
+		stretched = new float[channels][2 * frameSize + 8];
+
+		fanOut = new ChannelFanOut(channels, this);
+		resetState();
+	}
+
+	// Start again with empty buffers
+	private void resetState() {
+
+		int channels = history.length;
+
+		// The first frame is centered on the first input sample
+		filled = frameSize / 2;
+		for (int ch=0; ch < channels; ch++) {
+			for (int i=0; i < filled; i++)
+				history[ch][i] = 0.0f;
+			for (int i=0; i < frameSize; i++)
+				olas[ch][i] = 0.0f;
+			stretched[ch][0] = 0.0f;
+		}
+		analysisPosition = 0.0;
+		lastFrameStart = 0;
+		firstFrame = true;
+
+		// Reading starts where the first input sample comes out. The
+		// sample before it is there for the interpolation.
+		stretchedFilled = 1;
+		readPosition = 1 + frameSize / 2;
+
+		inputEnded = false;
+		tailLeft = 0;
+		framesDone = false;
+		finished = false;
+	}
+
+	// Stage told to reset
+	protected void reset() {
+
+		if (history != null)
+			resetState();
+	}
+
+	// Private class data
+	private volatile double stretch;
+	private volatile double pitch;
+
+	private FFT fft;
+	private int frameSize;
+	private int synthesisHop;
+	private double [] window;
+	private double olaScale;
+	private double [] binFrequencies;	// Radians per sample of each bin
+
+	private float [][] history;			// Input not yet used up
+	private float [][] inputBuffers;
+	private int filled;					// Frames of history in use
+	private double analysisPosition;	// Start of the next frame
+	private int lastFrameStart;
+	private boolean inputEnded;
+	private int tailLeft;				// Silence still to flush with
+
+	private double [][] reals;
+	private double [][] imags;
+	private double [][] magnitudes;
+	private double [][] phases;
+	private int [][] peaks;				// Bins of the spectral peaks
+	private double [][] peakPhases;
+	private double [][] lastPhases;		// Analysis phases of last frame
+	private double [][] sumPhases;		// Synthesis phases
+	private float [][] olas;			// Overlap add accumulators
+	private float [][] stretched;		// Stretched signal to read back
+	private int stretchedFilled;
+	private double readPosition;
+	private boolean framesDone;
+	private boolean finished;
+
+	// Work planned for the current pass
+	private ChannelFanOut fanOut;
+	private int mode;
+	private int frameStart;
+	private int frameHop;
+	private boolean firstFrame;
+	private float [][] blockBuffers;
+	private int blockStart;
+	private int blockCount;
+	private int [] positions = new int[0];
+	private double [] fractions = new double[0];
+}
@@ -0,0 +1,284 @@
+// Phaser Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/**
+ * Phaser processor with no user interface. Its parameters are set by
+ * calling the setter methods and start out at the default values below.
+ * PhaserWithUI adds a user interface on top of this class.
+ *
+ * Any number of channels is handled. Samples are processed in planar
+ * form, a channel at a time, with each channel running its own allpass
+ * filters from a sweep worked out once per block. With many channels
+ * the channels are processed on separate threads.
+ */
+public class Phaser extends AbstractAudio implements ChannelProcessorIF {
+
+	// Parameter defaults
+	public static final double DEFAULTSWEEPRATEINHZ = 1.0;
+	public static final double DEFAULTSWEEPRANGEINOCTAVES = 5;
+	public static final double DEFAULTBASEFREQINHZ  = 100;
+	public static final int    DEFAULTDRYLEVEL  = 30;
+	public static final int    DEFAULTWETLEVEL  = 30;
+	public static final int    DEFAULTFEEDBACKLEVEL = 10;
+
+	/**
+	 * Phaser class constructor
+	 */
+	public Phaser() {
+
+		this("Phaser");
+	}
+
+	/**
+	 * Phaser class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected Phaser(String name) {
+		
+		super(name, PROCESSOR);
+
+		initializationComplete = false;
+		invertPhase = false;
+
+		// Start out with the default parameters
+		sweepRate = DEFAULTSWEEPRATEINHZ;
+		sweepRange = DEFAULTSWEEPRANGEINOCTAVES;
+		baseFreq = DEFAULTBASEFREQINHZ;
+		dryLevel = DEFAULTDRYLEVEL;
+		wetLevel = DEFAULTWETLEVEL;
+		feedbackLevel = DEFAULTFEEDBACKLEVEL;
+	}
+
+	// Process the samples that pass thru this effect		
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Process the planar samples that pass thru this effect
+	public int getSamples(float [][] buffers, int frames) {
+
+		int len = previous.getSamples(buffers, frames);
+		
+		if ((len <= 0) || getByPass() || !initializationComplete)
+			return len;
+
+		// Not in bypass mode, process the samples
+		beginBlock(buffers, len);
+		fanOut.run();
+
+		return len;
+	}
+
+	// Work out the sweep for the block. The sweep is the same for every
+	// channel so it is calculated once here, leaving each channel with
+	// only its own allpass filters to run.
+	private void beginBlock(float [][] buffers, int frames) {
+
+		int channels = buffers.length;
+		if ((state == null) || (state.length != channels)) {
+			// Each channel has four allpass outputs and inputs
+			state = new double[channels][8];
+			fanOut = new ChannelFanOut(channels, this);
+		}
+		if (coefficients.length < frames)
+			coefficients = new double[frames];
+
+		for (int i=0; i < frames; i++) {
+			
+			// Calculate A in difference equation
+			coefficients[i] = (1.0 - wp) / (1.0 + wp);
+
+			// Update sweep
+			wp *= currentStep;		// Apply step value
+			
+			if(wp > maxWp)			// Exceed max Wp ?
+				currentStep = 1.0 / step;
+			else if(wp < minWp)		// Exceed min Wp ?
+				currentStep = step;
+		}
+
+		// Levels hold for the whole block so every channel uses the same
+		blockBuffers = buffers;
+		blockFrames = frames;
+		blockFeedback = ((invertPhase ? -1:1) * feedbackLevel) / 100.0;
+		blockWet = wetLevel / 100.0;
+		blockDry = dryLevel / 100.0;
+	}
+
+	/**
+	 * Run the allpass filters over one channel of the current block.
+	 * Called by the channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] buffer = blockBuffers[channel];
+		double [] s = state[channel];
+
+		// Work on the filter history in locals
+		double thisOut1 = s[0], thisOut2 = s[1], thisOut3 = s[2], thisOut4 = s[3];
+		double prevIn1  = s[4], prevIn2  = s[5], prevIn3  = s[6], prevIn4  = s[7];
+
+		double fb = blockFeedback;
+		double wet = blockWet;
+		double dry = blockDry;
+
+		for (int i=0; i < blockFrames; i++) {
+			
+			double A = coefficients[i];
+
+			float inSample = buffer[i];
+
+			double in = inSample + (fb * thisOut4);
+ 			
+			// Do the first allpass filter
+			thisOut1 = A * (in       + thisOut1) - prevIn1;
+			prevIn1 = in;
+
+ 			// Do the second allpass filter
+			thisOut2 = A * (thisOut1 + thisOut2) - prevIn2;
+			prevIn2 = thisOut1;
+
+ 			// Do the third allpass filter
+			thisOut3 = A * (thisOut2 + thisOut3) - prevIn3;
+			prevIn3 = thisOut2;
+
+ 			// Do the forth allpass filter
+			thisOut4 = A * (thisOut3 + thisOut4) - prevIn4;
+			prevIn4 = thisOut3;
+
+			// Range constraining is left to the device that converts
+			// the samples back to short.
+			buffer[i] = (float) ((thisOut4 * wet) + (inSample * dry));
+		}
+
+		// Save the history for the next block
+		s[0] = thisOut1; s[1] = thisOut2; s[2] = thisOut3; s[3] = thisOut4;
+		s[4] = prevIn1;  s[5] = prevIn2;  s[6] = prevIn3;  s[7] = prevIn4;
+	}
+
+	public void setSweepRate(double sweepRate) {
+
+		this.sweepRate = sweepRate;
+
+		// Redo initialization
+		doInitialization();
+	}
+
+	public void setSweepRange(double sweepRange) {
+
+		this.sweepRange = sweepRange;
+
+		// Redo initialization
+		doInitialization();
+	}
+
+	// Mode is either sin or triangle
+	public void setBaseFreq(double baseFreq) {
+
+		this.baseFreq = baseFreq;
+
+		// Redo initialization
+		doInitialization();
+	}
+
+	public void setDryLevel(int dryLevel) {
+
+		this.dryLevel = dryLevel;
+	}
+
+	public void setWetLevel(int wetLevel) {
+
+		this.wetLevel = wetLevel;
+	}
+
+	public void setFeedbackPhase(boolean invertPhase) {
+
+		this.invertPhase = invertPhase;
+	}
+
+	public void setFeedbackLevel(int feedbackLevel) {
+
+		this.feedbackLevel = feedbackLevel;
+	}
+
+	public void doInitialization() {
+
+		// Cannot initialize until sample rate is known
+		if (sampleRate != 0) {
+			
+			wp = minWp = (2.0 * Math.PI * baseFreq) / sampleRate;
+ 			
+			// Convert octave range to freq range
+			double freqRange = Math.pow(2.0, sweepRange);
+			
+			maxWp = minWp * freqRange;
+
+			currentStep = step = Math.pow(freqRange, sweepRate / (sampleRate / 2.0));
+
+			// Indicate initialization is complete
+			initializationComplete = true;
+		}
+	}
+	
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		numberOfChannels = preferred.getValue();
+	}
+
+	// Private class data
+	private double [][] state;			// Allpass history of each channel
+	private double [] coefficients = new double[0];
+	private ChannelFanOut fanOut;
+	private float [][] blockBuffers;
+	private int blockFrames;
+	private double blockFeedback;
+	private double blockWet;
+	private double blockDry;
+
+	private double sweepRate;
+	private double sweepRange;
+	private double baseFreq;
+	private double wp;
+	private double minWp;
+	private double maxWp;
+	private double step;
+	private double currentStep;
+	private double sweepValue = 0;
+	private boolean invertPhase;
+	private int dryLevel;
+	private int wetLevel;
+	private int feedbackLevel;
+
+	private int sampleRate = 0;
+	private int numberOfChannels = 0;
+	private boolean initializationComplete;
+}
+
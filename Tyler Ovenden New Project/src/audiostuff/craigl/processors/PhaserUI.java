@@ -1,6 +1,6 @@
 // Phaser UI Class
 // Written by: Craig A. Lindley
-// Last Update: 03/21/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -24,12 +24,12 @@ public class PhaserUI extends BaseUI implements CloseableFrameIF {
 	public static final double MAXBASEFREQINHZ = 150;
 	public static final double MINBASEFREQINHZ = 50;
 
-	public static final double DEFAULTSWEEPRATEINHZ = 1.0;
-	public static final double DEFAULTSWEEPRANGEINOCTAVES = 5;
-	public static final double DEFAULTBASEFREQINHZ  = 100;
-	public static final int    DEFAULTDRYLEVEL  = 30;
-	public static final int    DEFAULTWETLEVEL  = 30;
-	public static final int    DEFAULTFEEDBACKLEVEL = 10;
+	public static final double DEFAULTSWEEPRATEINHZ = Phaser.DEFAULTSWEEPRATEINHZ;
+	public static final double DEFAULTSWEEPRANGEINOCTAVES = Phaser.DEFAULTSWEEPRANGEINOCTAVES;
+	public static final double DEFAULTBASEFREQINHZ  = Phaser.DEFAULTBASEFREQINHZ;
+	public static final int    DEFAULTDRYLEVEL  = Phaser.DEFAULTDRYLEVEL;
+	public static final int    DEFAULTWETLEVEL  = Phaser.DEFAULTWETLEVEL;
+	public static final int    DEFAULTFEEDBACKLEVEL = Phaser.DEFAULTFEEDBACKLEVEL;
 
 	public PhaserUI(Blinker blink, AbstractAudio aa) {
 		
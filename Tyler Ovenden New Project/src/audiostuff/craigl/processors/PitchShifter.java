@@ -0,0 +1,472 @@
+// Pitch Shifter Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/*
+The algorithm for this pitch shifter was adapted from the
+article titled "Examining Audio DSP Algorithms" by
+Dennis Cronin published in Dr. Dobb's Journal.
+*/
+
+/**
+ * Pitch shifter with no user interface. Its parameters are set by calling
+ * the setter methods and start out at the default values below.
+ * PitchShifterWithUI adds a user interface on top of this class.
+ *
+ * Any number of channels is handled. Samples are processed in planar
+ * form: the sweep and cross fade between the two delay taps are stepped
+ * once per frame for all channels, and each channel runs through its own
+ * delay line, on a separate thread when there are many channels.
+ */
+public class PitchShifter extends AbstractAudio implements ChannelProcessorIF {
+
+	// Parameter defaults
+	public static final int DEFAULTDRYLEVEL  = 25;
+	public static final int DEFAULTWETLEVEL  = 75;
+	public static final int DEFAULTFEEDBACKLEVEL = 0;
+
+	// Fixed delay period with which to do pitch shifting
+	private static final int FIXEDDELAYINMS = 100;
+	// Fade in/out times
+	private static final int CROSSFADETIMEINMS = 12;
+	// Constant by which one tone differs from the next when the
+	// interval is a halftone.
+	private static final double twelvethRootOfTwo = Math.pow(2, 1.0 / 12.0);
+	
+	/**
+	 * PitchShifter class constructor
+	 */
+	public PitchShifter() {
+
+		this("PitchShifter");
+	}
+
+	/**
+	 * PitchShifter class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected PitchShifter(String name) {
+
+		super(name, PROCESSOR);
+
+		// Initialize various parameters
+		initializationComplete = false;	// Initialization not yet performed
+		sweepUp = true;		// Assume upward change in frequency
+		sweep = 0.0;		// Initial value for sweep rate
+		channelA = true;	// Setup to use channel A sweep
+		blendA = 1.0;		// Blend values for the two delay channels
+		blendB = 0.0;
+
+		// Start out with the default parameters
+		dryLevel = DEFAULTDRYLEVEL;
+		wetLevel = DEFAULTWETLEVEL;
+		feedbackLevel = DEFAULTFEEDBACKLEVEL;
+	}
+
+	// Process the samples that pass thru this effect		
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		// Don't perform processing until initialization is
+		// complete and bypass is not active.
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Process the planar samples that pass thru this effect
+	public int getSamples(float [][] buffers, int frames) {
+
+		if (getByPass() || !initializationComplete)
+			return previous.getSamples(buffers, frames);
+
+        // Read number of samples requested from previous stage.
+		// Samples are processed in place.
+		int len = previous.getSamples(buffers, frames);
+		if (len <= 0)
+			return len;
+
+		// Work out the delay taps once for all channels, then run
+		// each channel through its own delay buffer
+		beginBlock(buffers, len);
+		fanOut.run();
+
+		return len;
+	}
+
+	/**
+	 * Run the delay over one channel of the current block. Called by the
+	 * channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] buffer = blockBuffers[channel];
+		DelayLine delayLine = delayLines[channel];
+
+		for (int i=0; i < blockFrames; i++) {
+
+			// Get a sample to process
+			float inputSample = buffer[i];
+
+			// Grab four samples at a time. This is required for
+			// interpolation and blending.
+			float dsALow  = delayLine.read(delaysALow[i]);
+			float dsAHigh = delayLine.read(delaysAHigh[i]);
+			float dsBLow  = delayLine.read(delaysBLow[i]);
+			float dsBHigh = delayLine.read(delaysBHigh[i]);
+
+			// Do the linear interpolation
+			double weight = weights[i];
+			double delaySampleA = (dsAHigh * weight) + (dsALow * (1.0 - weight));
+			double delaySampleB = (dsBHigh * weight) + (dsBLow * (1.0 - weight));
+
+			// Combine delay channels A and B with appropriate blending
+			double outputSample = 
+				(delaySampleA * blendsA[i]) + (delaySampleB * blendsB[i]);
+
+			// Store sample in delay buffer
+			delayLine.write((float)
+				(inputSample + ((outputSample * blockFeedbackLevel) / 100)));
+
+			// Prepare sample for output by combining wet and dry
+			// values
+			buffer[i] = (float)
+				(((inputSample  * blockDryLevel) / 100) +
+				 ((outputSample * blockWetLevel) / 100));
+		}
+	}
+
+	// Step the sweep and cross fade through the block recording the
+	// delay taps and blend values for each frame. These are the same for
+	// every channel. The taps are followed as positions in a delay line
+	// of the same capacity as the channels' and recorded as their
+	// distance behind the write position.
+	private void beginBlock(float [][] buffers, int frames) {
+
+		if ((fanOut == null) || (buffers.length != channelsRun)) {
+			channelsRun = buffers.length;
+			fanOut = new ChannelFanOut(channelsRun, this);
+		}
+		if (weights.length < frames) {
+			delaysALow  = new int[frames];
+			delaysAHigh = new int[frames];
+			delaysBLow  = new int[frames];
+			delaysBHigh = new int[frames];
+			weights = new double[frames];
+			blendsA = new double[frames];
+			blendsB = new double[frames];
+		}
+		blockBuffers = buffers;
+		blockFrames = frames;
+		blockDryLevel = dryLevel;
+		blockWetLevel = wetLevel;
+		blockFeedbackLevel = feedbackLevel;
+
+		for (int i=0; i < frames; i++) {
+
+			// Record the taps and blending for this frame
+			delaysALow[i]  = (writeIndex - readIndexALow)  & mask;
+			delaysAHigh[i] = (writeIndex - readIndexAHigh) & mask;
+			delaysBLow[i]  = (writeIndex - readIndexBLow)  & mask;
+			delaysBHigh[i] = (writeIndex - readIndexBHigh) & mask;
+			weights[i] = sweepUp ? sweep : (1.0 - sweep);
+			blendsA[i] = blendA;
+			blendsB[i] = blendB;
+
+			// Update write index
+			writeIndex = (writeIndex + 1) & mask;
+
+			// Update cross fade blending values each sample interval
+			if (crossFadeCount != 0) {
+				crossFadeCount--;
+				
+				// Get new blending values for both channels
+				blendA = fadeA[crossFadeCount];
+				blendB = fadeB[crossFadeCount];
+			}
+
+			// Update sweep value once per frame
+			sweep += step;
+
+			if (sweepUp) {
+				// Upward frequency change
+	            
+				// Advance indices to reduce delay
+		        readIndexALow = readIndexAHigh;
+				readIndexAHigh = (readIndexAHigh + 1) & mask;
+		        readIndexBLow = readIndexBHigh;
+				readIndexBHigh = (readIndexBHigh + 1) & mask;
+
+				// Check for overflow
+				if (sweep < 1.0) {
+					// No overflow, continue with next sample
+					continue;
+				}
+				
+				// Octave exceeded bump ptrs again
+				sweep = 0.0;
+				readIndexALow = readIndexAHigh;
+				readIndexAHigh = (readIndexAHigh + 1) & mask;
+				readIndexBLow = readIndexBHigh;
+				readIndexBHigh = (readIndexBHigh + 1) & mask;
+				
+				// See if it is time to switch to other delay channel
+				if (activeCount-- == 0) {
+					// Reset fade in/out count
+					crossFadeCount = numberOfCrossFadeSamples;
+					activeCount = activeSampleCount;
+					if (channelA) {
+						channelA = false;
+						readIndexBHigh = 
+							(writeIndex - numberOfDelaySamples) & mask;
+						// Swap blend coefficient arrays
+						fadeA = fadeOut;
+						fadeB = fadeIn;
+					}	else	{
+						channelA = true;
+						readIndexAHigh = 
+							(writeIndex - numberOfDelaySamples) & mask;
+						// Swap blend coefficient arrays
+						fadeA = fadeIn;
+						fadeB = fadeOut;
+					}
+				}
+			
+			}	else	{
+				// Downward frequency change
+
+				// Check for overflow
+				if (sweep < 1.0) {
+					// No overflow, advance indices
+					readIndexALow = readIndexAHigh;
+					readIndexAHigh = (readIndexAHigh + 1) & mask;
+					readIndexBLow = readIndexBHigh;
+					readIndexBHigh = (readIndexBHigh + 1) & mask;
+
+					// Continue with processing the next sample
+					continue;
+				}
+				// Octave exceeded don't bump indices so the delay
+				// is increased
+				sweep = 0.0;
+				
+				// See if it is time to switch to other delay channel
+				if (activeCount-- == 0) {
+					// Reset fade in/out count
+					crossFadeCount = numberOfCrossFadeSamples;
+					activeCount = activeSampleCount;
+					if (channelA) {
+						channelA = false;
+						readIndexBHigh = 
+							(writeIndex - numberOfDelaySamples) & mask;
+						// Swap blend coefficient arrays
+						fadeA = fadeOut;
+						fadeB = fadeIn;
+					}	else	{
+						channelA = true;
+						readIndexAHigh = 
+							(writeIndex - numberOfDelaySamples) & mask;
+						// Swap blend coefficient arrays
+						fadeA = fadeIn;
+						fadeB = fadeOut;
+					}
+				}
+			}
+		}
+	}
+
+	// Called when the user changes the dry level. 
+	public void setDryLevel(int dryLevel) {
+
+		// Value in the range 0..100
+		this.dryLevel = dryLevel;
+	}
+
+	// Called when the user changes the wet level. 
+	public void setWetLevel(int wetLevel) {
+
+		// Value in the range 0..100
+		this.wetLevel = wetLevel;
+	}
+
+	// Called when the user changes the feedback level.
+	public void setFeedbackLevel(int feedbackLevel) {
+
+		// Value in the range 0..100
+		this.feedbackLevel = feedbackLevel;
+	}
+
+	// Called when the user changes the pitch shift value
+	public void setPitchShift(int pitchShift) {
+
+		// Values are in half steps (semitones) in the 
+		// range -12..0..+12 corresponding to -/+ 1 octave for
+		// a range of 2 octaves.
+
+		// Determine which direction the sweep is going
+		sweepUp = (pitchShift >= 0);
+
+		setIndices();
+
+		double newStep = 1.0;
+
+		// If pitch shift is 0 short circuit calculations
+		if (pitchShift == 0)
+			step = 0;
+
+		else	{
+			// Step is rate at which samples read out
+			for (int i=0; i < Math.abs(pitchShift); i++) {
+				if (pitchShift > 0)
+					newStep *= twelvethRootOfTwo;
+				else
+					newStep /= twelvethRootOfTwo;
+			}
+			step = Math.abs(newStep - 1.0);
+		}
+		// Reset the following values whenever pitch shift value changes
+		sweep = 0.0;
+		crossFadeCount = 0;
+		activeSampleCount = numberOfDelaySamples - 
+			(int)(numberOfCrossFadeSamples * (newStep - 1.0) - 2); 
+	}
+
+	// Set read/write indices depending upon frequency change direction
+	private void setIndices() {
+
+		// Index where dry sample is written
+	    writeIndex = 0;
+		readIndexBLow = 0;
+		readIndexBHigh = 0;
+
+		if (sweepUp) {
+			// Sweeping upward, start at max delay
+		    readIndexALow = -numberOfDelaySamples & mask;
+		
+		}	else	{
+		
+			// Sweeping downward, start at min delay
+			readIndexALow = -2 & mask;
+		}
+		// Initialize other read ptr
+		readIndexAHigh = (readIndexALow + 1) & mask;
+	}
+  	
+	// Do necessary initialization as required for pitch shifting
+	private void doInitialization() {
+
+		// See if we have the necessary data to initialize delay
+		if ((sampleRate != 0) && (numberOfChannels != 0) &&
+            (!initializationComplete)) {
+
+			// Fixed delay and cross fade lengths in samples
+			numberOfDelaySamples = (FIXEDDELAYINMS * sampleRate) / 1000;
+			numberOfCrossFadeSamples = 
+				(CROSSFADETIMEINMS * sampleRate) / 1000;
+
+			// Allocate delay lines for the fixed delay time. Each
+			// channel has a line of its own. Sweeping down the delay
+			// grows past the fixed delay by up to half a cross fade
+			// before the taps change over.
+			int maxDelay = numberOfDelaySamples + numberOfCrossFadeSamples + 4;
+			delayLines = new DelayLine[numberOfChannels];
+			for (int ch=0; ch < numberOfChannels; ch++)
+				delayLines[ch] = new DelayLine(maxDelay);
+			mask = delayLines[0].getCapacity() - 1;
+
+            // Initialize indices in the delay lines
+		    setIndices();
+			
+			// Allocate arrays for cross fade coefficients
+			fadeIn  = new double[numberOfCrossFadeSamples];
+			fadeOut = new double[numberOfCrossFadeSamples];
+			
+			// Fill in the arrays with fade in/out values. Sin and Cos
+			// values are used for smooth results.
+			for (int i=0; i < numberOfCrossFadeSamples; i++) {
+				double angle = (i * Math.PI) / (2.0 * numberOfCrossFadeSamples);
+				fadeIn[i]  = Math.cos(angle);
+				fadeOut[i] = Math.sin(angle);
+			}
+            // Indicate initialization is complete
+			initializationComplete = true;
+		}
+	}
+	
+	// Negotiate the sample rate
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		sampleRate = preferred.getValue();
+		doInitialization();
+	}
+
+	// Negotiate the number of channels
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		numberOfChannels = preferred.getValue();
+		doInitialization();
+	}
+
+	// Private class data
+	private boolean initializationComplete;
+	private boolean sweepUp;
+	private double step;
+	private double sweep;
+	private int dryLevel;
+	private int wetLevel;
+	private int feedbackLevel;
+
+	private int sampleRate = 0;
+	private int numberOfChannels = 0;
+	private DelayLine [] delayLines = null;
+	private int mask;
+    private int readIndexALow;
+    private int readIndexAHigh;
+    private int readIndexBLow;
+    private int readIndexBHigh;
+    private int writeIndex;
+	private int numberOfDelaySamples;
+	private int numberOfCrossFadeSamples;
+	private int crossFadeCount;
+	private int activeSampleCount;
+	private int activeCount;
+	private boolean channelA;
+	private double blendA;
+	private double blendB;
+
+	private double [] fadeIn;
+	private double [] fadeOut;
+	private double [] fadeA;
+	private double [] fadeB;
+
+	// Delay taps and blending of the current block
+	private ChannelFanOut fanOut;
+	private int channelsRun;
+	private float [][] blockBuffers;
+	private int blockFrames;
+	private int blockDryLevel;
+	private int blockWetLevel;
+	private int blockFeedbackLevel;
+	private int [] delaysALow  = new int[0];
+	private int [] delaysAHigh = new int[0];
+	private int [] delaysBLow  = new int[0];
+	private int [] delaysBHigh = new int[0];
+	private double [] weights = new double[0];
+	private double [] blendsA = new double[0];
+	private double [] blendsB = new double[0];
+}
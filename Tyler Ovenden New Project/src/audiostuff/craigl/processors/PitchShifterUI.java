@@ -1,6 +1,6 @@
 // PitchShifter UI Class
 // Written by: Craig A. Lindley
-// Last Update: 03/21/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -17,9 +17,9 @@ import audiostuff.craigl.beans.buttons.*;
 
 public class PitchShifterUI extends BaseUI implements CloseableFrameIF {
 	
-	public static final int DEFAULTDRYLEVEL  = 25;
-	public static final int DEFAULTWETLEVEL  = 75;
-	public static final int DEFAULTFEEDBACKLEVEL = 0;
+	public static final int DEFAULTDRYLEVEL  = PitchShifter.DEFAULTDRYLEVEL;
+	public static final int DEFAULTWETLEVEL  = PitchShifter.DEFAULTWETLEVEL;
+	public static final int DEFAULTFEEDBACKLEVEL = PitchShifter.DEFAULTFEEDBACKLEVEL;
 
 	public PitchShifterUI(Blinker blink, AbstractAudio aa) {
 		
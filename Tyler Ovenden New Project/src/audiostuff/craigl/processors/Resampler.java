@@ -0,0 +1,528 @@
+// Resampler Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.utils.*;
+
+/*
+Changes the sampling rate of a signal by a rational ratio using a
+polyphase windowed sinc filter.
+
+For a conversion from rate fin to rate fout the ratio is reduced to
+up / down. Conceptually the input is upsampled by up, low pass filtered
+and then downsampled by down. Only the filter taps that land on real
+input samples are ever computed, so each output sample is a short dot
+product of the input around its position with one of up sets of filter
+taps, its phase. All of the phases are computed once when the rates are
+known and kept in a table.
+
+The filter is a sinc with ZEROCROSSINGS zero crossings either side of
+center, cut off just below the lower of the two Nyquist frequencies and
+shaped by a Kaiser window. When downsampling the filter widens in
+proportion so the stop band stays where it should. For ratios with more
+than MAXPHASES phases the phase is rounded down to one of MAXPHASES
+evenly spaced phases.
+
+The filter delays the signal by ZEROCROSSINGS input samples. The
+history is primed with silence and the filter is flushed with silence
+when the input ends, so the output carries the whole signal.
+*/
+
+/**
+ * Sampling rate converter. The owner of a chain calls insertWhereNeeded()
+ * before negotiation to put a Resampler in front of each device that
+ * needs a rate the devices before it cannot supply, so a chain can mix
+ * devices running at different rates. The devices before the Resampler
+ * negotiate their rate among themselves and it converts to the rate
+ * negotiated by the devices after it. A Resampler may also be placed in a chain by hand, with or
+ * without a fixed output rate.
+ *
+ * With setRatio() a Resampler instead changes the number of samples by a
+ * fixed ratio without changing the sampling rate, which changes the speed
+ * and pitch of the signal.
+ *
+ * Any number of channels is handled. Samples are processed in planar
+ * form and with many channels the channels are filtered on separate
+ * threads. Bypass has no effect while rates are being converted.
+ */
+public class Resampler extends AbstractAudio implements ChannelProcessorIF {
+
+	// Zero crossings of the sinc either side of center
+	public static final int ZEROCROSSINGS = 16;
+
+	// Largest number of filter phases kept in the table
+	public static final int MAXPHASES = 512;
+
+	// Largest number of taps per phase, reached when downsampling by a
+	// large ratio
+	public static final int MAXTAPS = 1024;
+
+	// Fraction of the lower Nyquist frequency the pass band extends to
+	private static final double ROLLOFF = 0.92;
+
+	// Range of rates a resampler accepts and produces
+	public static final int MINRATE = 1;
+	public static final int MAXRATE = 384000;
+
+	// Kaiser window shape, about 90 dB of stop band rejection
+	private static final double KAISERBETA = 9.0;
+
+	/**
+	 * Resampler class constructor. The output rate is whatever the
+	 * devices after this one negotiate.
+	 */
+	public Resampler() {
+
+		this(0);
+	}
+
+	/**
+	 * Resampler class constructor for a fixed output rate
+	 *
+	 * @param int outputRate is the rate to convert to
+	 */
+	public Resampler(int outputRate) {
+
+		super("Resampler", PROCESSOR);
+
+		if (outputRate < 0)
+			throw new IllegalArgumentException("Output rate must not be negative");
+
+		this.outputRate = outputRate;
+	}
+
+	/**
+	 * Place a resampler in front of every device of a chain that needs a
+	 * sampling rate the devices before it cannot supply. Called by the
+	 * owner of the chain once the chain is built and before the sampling
+	 * rate is negotiated.
+	 *
+	 * @param LinkedListVector chain holds the devices of the chain
+	 *
+	 * @return int containing the number of resamplers inserted
+	 */
+	public static int insertWhereNeeded(LinkedListVector chain) {
+
+		int inserted = 0;
+		for (int i=1; i < chain.size(); i++) {
+			AbstractAudio device = chain.elementAt(i);
+			int rate = device.getDeclaredSamplingRate();
+			if ((rate == 0) || (device.previous instanceof Resampler))
+				continue;
+
+			// Find the rates the devices before it can run at
+			MyInt min = new MyInt(MINRATE);
+			MyInt max = new MyInt(MAXRATE);
+			MyInt preferred = new MyInt(rate);
+			device.previous.minMaxSamplingRate(min, max, preferred);
+
+			if ((rate < min.getValue()) || (rate > max.getValue())) {
+				chain.insertElementAt(new Resampler(), i++);
+				inserted++;
+
+				o("Resampling to " + rate + " before " + device.getName());
+			}
+		}
+		return inserted;
+	}
+
+	/**
+	 * Change the number of samples by a fixed ratio while keeping the
+	 * sampling rate. A ratio of 2 / 1 doubles the length of the signal,
+	 * playing it at half speed an octave down. Must be called before
+	 * negotiation.
+	 *
+	 * @param int up is the number of output samples
+	 * @param int down is the number of input samples they are made from
+	 */
+	public void setRatio(int up, int down) {
+
+		if ((up <= 0) || (down <= 0))
+			throw new IllegalArgumentException("Ratio terms must be positive");
+
+		fixedRatio = true;
+		ratioUp = up;
+		ratioDown = down;
+	}
+
+	/**
+	 * Return the rate of the samples entering this device
+	 *
+	 * @return int containing the input rate
+	 */
+	public int getInputRate() {
+
+		return fixedRatio ? getSamplingRate() : inputRate;
+	}
+
+	/**
+	 * Return the delay added by the filter
+	 *
+	 * @return int latency in sample frames at the output rate
+	 */
+	public int getLatency() {
+
+		if (passThrough())
+			return 0;
+
+		// The filter delays by half its taps at the input rate
+		double ratio = fixedRatio ? (double) ratioUp / ratioDown :
+									(double) getSamplingRate() / inputRate;
+		int halfTaps = (int) Math.ceil(ZEROCROSSINGS / Math.min(1.0, ratio));
+		halfTaps = Math.min(halfTaps, MAXTAPS / 2);
+
+		return (int) Math.round(halfTaps * ratio);
+	}
+
+	// Process the samples that pass thru this device
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	// Float samples are processed a channel at a time
+	public int getSamples(float [] buffer, int length) {
+
+		if (passThrough())
+			return previous.getSamples(buffer, length);
+
+		return getSamplesFromPlanar(buffer, length);
+	}
+
+	// Produce planar samples at the output rate
+	public int getSamples(float [][] buffers, int frames) {
+
+		if (passThrough())
+			return previous.getSamples(buffers, frames);
+
+		if ((history == null) || (history.length != buffers.length))
+			initializeState(buffers.length);
+
+		int produced = 0;
+		while (produced < frames) {
+
+			// Find how many outputs the input on hand allows
+			int count = planOutputs(produced, frames - produced);
+			if (count == 0) {
+				// Not enough input, fetch more
+				int got = fetchInput();
+				if (got < 0)
+					break;			// Input and tail are used up
+				if (got == 0)
+					break;			// Nothing available right now
+				continue;
+			}
+
+			// Filter every channel
+			blockBuffers = buffers;
+			blockStart = produced;
+			blockCount = count;
+			fanOut.run();
+
+			produced += count;
+		}
+
+		if ((produced == 0) && tailFlushed) {
+			// All done, be ready to run again
+			resetState();
+			return -1;
+		}
+		return produced;
+	}
+
+	/**
+	 * Filter one channel of the outputs planned for the current pass.
+	 * Called by the channel fan out, possibly on another thread.
+	 *
+	 * @param int channel is the channel to process
+	 */
+	public void processChannel(int channel) {
+
+		float [] out = blockBuffers[channel];
+		float [] in = history[channel];
+		int end = blockStart + blockCount;
+
+		for (int i=blockStart; i < end; i++) {
+			double [] h = phaseTable[phases[i]];
+			int base = positions[i];
+			double sum = 0.0;
+			for (int k=0; k < taps; k++)
+				sum += in[base + k] * h[k];
+
+			out[i] = (float) sum;
+		}
+	}
+
+	// Record the input position and phase of up to count outputs,
+	// starting at output index start, for which there is enough input.
+	// Returns the number of outputs planned.
+	private int planOutputs(int start, int count) {
+
+		if (positions.length < start + count) {
+			int [] p = new int[start + count];
+			int [] f = new int[start + count];
+			System.arraycopy(positions, 0, p, 0, positions.length);
+			System.arraycopy(phases, 0, f, 0, phases.length);
+			positions = p;
+			phases = f;
+		}
+
+		int planned = 0;
+		while ((planned < count) && (position + taps <= filled)) {
+			positions[start + planned] = position;
+			if (up <= MAXPHASES)
+				phases[start + planned] = (int) phase;
+			else
+				phases[start + planned] = (int) ((phase * tablePhases) / up);
+			planned++;
+
+			// Step to the next output
+			phase += down;
+			position += (int) (phase / up);
+			phase %= up;
+		}
+		return planned;
+	}
+
+	// Move the unused history to the front and read more input after it.
+	// Returns the number of frames added, -1 once the tail is flushed.
+	private int fetchInput() {
+
+		int channels = history.length;
+
+		// Discard what no output needs any more
+		if (position > 0) {
+			int keep = filled - position;
+			for (int ch=0; ch < channels; ch++)
+				System.arraycopy(history[ch], position, history[ch], 0, keep);
+			filled = keep;
+			position = 0;
+		}
+
+		if (tailFlushed)
+			return -1;
+
+		int room = history[0].length - filled;
+		int len = inputEnded ? -1 :
+			previous.getSamples(inputBuffers, Math.min(room, inputBuffers[0].length));
+
+		if (len == -1) {
+			// Flush the filter with silence so the last input is heard
+			inputEnded = true;
+			tailFlushed = true;
+			int tail = Math.min(taps / 2, room);
+			for (int ch=0; ch < channels; ch++)
+				for (int i=0; i < tail; i++)
+					history[ch][filled + i] = 0.0f;
+			filled += tail;
+			return tail;
+		}
+
+		for (int ch=0; ch < channels; ch++)
+			System.arraycopy(inputBuffers[ch], 0, history[ch], filled, len);
+		filled += len;
+		return len;
+	}
+
+	// True when samples need no conversion
+	private boolean passThrough() {
+
+		if (fixedRatio)
+			return getByPass() || (ratioUp == ratioDown);
+
+		return (inputRate == 0) || (inputRate == getSamplingRate());
+	}
+
+	// Work out the ratio and build the table of filter phases
+	private void designFilter() {
+
+		int numerator, denominator;
+		if (fixedRatio) {
+			numerator = ratioUp;
+			denominator = ratioDown;
+		}	else	{
+			numerator = getSamplingRate();
+			denominator = inputRate;
+		}
+		int g = gcd(numerator, denominator);
+		up = numerator / g;
+		down = denominator / g;
+
+		// Each output must overlap the input of the one before it
+		if (down > up * (MAXTAPS / (2 * ZEROCROSSINGS)))
+			throw new IllegalArgumentException("Cannot downsample from " +
+				denominator + " to " + numerator);
+
+		// Cut off below the lower of the two Nyquist frequencies,
+		// in cycles per input sample
+		double scale = Math.min(1.0, (double) up / down);
+		double cutoff = 0.5 * ROLLOFF * scale;
+
+		// Taps either side of center widen as the cutoff drops
+		int halfTaps = (int) Math.ceil(ZEROCROSSINGS / scale);
+		halfTaps = Math.min(halfTaps, MAXTAPS / 2);
+		taps = 2 * halfTaps;
+
+		tablePhases = Math.min(up, MAXPHASES);
+		phaseTable = new double[tablePhases][taps];
+
+		double i0Beta = besselI0(KAISERBETA);
+		for (int p=0; p < tablePhases; p++) {
+			double fraction = (double) p / tablePhases;
+			double [] h = phaseTable[p];
+			double sum = 0.0;
+			for (int k=0; k < taps; k++) {
+				// Distance of this tap from the output position in
+				// input samples
+				double x = k - halfTaps + 1 - fraction;
+
+				double sinc = (x == 0.0) ? 1.0 :
+					Math.sin(2 * Math.PI * cutoff * x) / (2 * Math.PI * cutoff * x);
+
+				double u = x / halfTaps;
+				double window = (Math.abs(u) >= 1.0) ? 0.0 :
+					besselI0(KAISERBETA * Math.sqrt(1.0 - u * u)) / i0Beta;
+
+				h[k] = sinc * window;
+				sum += h[k];
+			}
+			// Unity gain at DC for every phase
+			for (int k=0; k < taps; k++)
+				h[k] /= sum;
+		}
+	}
+
+	// Allocate the history and prime it with silence
+	private void initializeState(int channels) {
+
+		designFilter();
+
+		int frames = Math.max(getBlockSize() / channels, 1);
+		history = new float[channels][taps + frames];
+		inputBuffers = new float[channels][frames];
+		fanOut = new ChannelFanOut(channels, this);
+		resetState();
+	}
+
+	// Start again with an empty filter
+	private void resetState() {
+
+		// The first output is centered on the first input sample
+		filled = (taps / 2) - 1;
+		for (int ch=0; ch < history.length; ch++)
+			for (int i=0; i < filled; i++)
+				history[ch][i] = 0.0f;
+
+		position = 0;
+		phase = 0;
+		inputEnded = false;
+		tailFlushed = false;
+	}
+
+	// Stage told to reset
+	protected void reset() {
+
+		if (history != null)
+			resetState();
+	}
+
+	/**
+	 * The devices before this one negotiate their own rate. Devices after
+	 * it see whatever rate they ask for, or the fixed output rate.
+	 */
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		if (fixedRatio) {
+			// Rate passes straight through
+			super.minMaxSamplingRate(min, max, preferred);
+			return;
+		}
+
+		if (previous != null) {
+			MyInt inMin = new MyInt(MINRATE);
+			MyInt inMax = new MyInt(MAXRATE);
+			MyInt inPreferred = new MyInt(preferred.getValue());
+
+			previous.minMaxSamplingRate(inMin, inMax, inPreferred);
+			if (inMin.getValue() > inMax.getValue()) {
+				// Pass the failure on to the device negotiating
+				min.setValue(inMin.getValue());
+				max.setValue(inMax.getValue());
+				return;
+			}
+
+			inputRate = inPreferred.getValue();
+		}
+
+		// Any output rate can be produced
+		min.setValue(MINRATE);
+		max.setValue(MAXRATE);
+		if (outputRate != 0)
+			preferred.setValue(outputRate);
+		else
+			preferred.setValue(inputRate);
+	}
+
+	// The devices before this one run at the input rate
+	protected int upstreamSamplingRate(int sr) {
+
+		return fixedRatio ? sr : inputRate;
+	}
+
+	// Greatest common divisor
+	private static int gcd(int a, int b) {
+
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	// Modified Bessel function of the first kind, order zero
+	private static double besselI0(double x) {
+
+		double sum = 1.0;
+		double term = 1.0;
+		double halfX = x / 2.0;
+		for (int k=1; k < 50; k++) {
+			term *= (halfX / k) * (halfX / k);
+			sum += term;
+			if (term < sum * 1e-12)
+				break;
+		}
+		return sum;
+	}
+
+	// Private class data
+	private int outputRate;
+	private int inputRate;
+	private boolean fixedRatio;
+	private int ratioUp;
+	private int ratioDown;
+
+	private int up;
+	private int down;
+	private int taps;
+	private int tablePhases;
+	private double [][] phaseTable;
+
+	private float [][] history;			// Input not yet used up
+	private float [][] inputBuffers;
+	private int filled;					// Frames of history in use
+	private int position;				// First tap of the next output
+	private long phase;					// Phase of the next output, 0..up-1
+	private boolean inputEnded;
+	private boolean tailFlushed;
+
+	// Outputs planned for the current pass
+	private ChannelFanOut fanOut;
+	private float [][] blockBuffers;
+	private int blockStart;
+	private int blockCount;
+	private int [] positions = new int[0];
+	private int [] phases = new int[0];
+}
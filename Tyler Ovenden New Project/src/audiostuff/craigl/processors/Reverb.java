@@ -0,0 +1,187 @@
+// Reverb Processor
+// Last Update: 10/18/26
+
+package audiostuff.craigl.processors;
+
+import audiostuff.craigl.reverb.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Schroeder reverb processor with no user interface. Its parameters are
+ * set by calling the setter methods and start out at the default values
+ * below. ReverbWithUI adds a user interface on top of this class.
+ */
+public class Reverb extends AbstractAudio {
+
+	// Parameter defaults
+	public static final double SUSTAINTIMEMSDEF = 500;
+	public static final double MIXDEF = 0.25;
+
+	/**
+	 * Reverb class constructor
+	 */
+	public Reverb() {
+
+		this("Reverb Processor");
+	}
+
+	/**
+	 * Reverb class constructor for subclasses
+	 *
+	 * @param String name is the name of the processor
+	 */
+	protected Reverb(String name) {
+
+		super(name, PROCESSOR);
+
+		// Initialization will take place after sample rate is known
+		initializationComplete = false;
+		endOfData = false;
+
+		// Start out with the default parameters
+		sustainTimeInMs = SUSTAINTIMEMSDEF;
+		mix = MIXDEF;
+	}
+
+	// Prepare for running reverb again
+	public void reset() {
+		o("Reverb reset");
+	
+		endOfData = false;
+		
+		// Calling this function will reset all comb and allpass filters
+		// in preparation for running again.
+		if (reverb != null)
+			reverb.setSustainInMs(sustainTimeInMs);
+	}
+	
+	public int getSamples(short [] buffer, int length) {
+
+		// Samples are processed as floats
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		// If bypass is enabled, short circuit processing
+		if (getByPass() || !initializationComplete) 
+			return previous.getSamples(buffer, length);
+
+		// Must use endOfData to stop reading input otherwise
+		// if source is file it will continually be reread.
+		if (!endOfData)	{
+			// Ask for a buffer of samples
+			length = previous.getSamples(buffer, length);
+			if (length == -1)
+				endOfData = true;
+
+			// Do the reverb on the samples
+			return reverb.doReverb(buffer, length);
+		}	else	{
+			// Propagate the sustain samples
+			return reverb.doReverb(buffer, -1);
+		}
+	}
+
+	// These methods set the reverb parameters
+	public void comb1Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setComb1Delay(delay);
+	}
+	
+	public void comb2Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setComb2Delay(delay);
+	}
+	
+	public void comb3Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setComb3Delay(delay);
+	}
+	
+	public void comb4Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setComb4Delay(delay);
+	}
+	
+	public void allpass1Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setAllpass1Delay(delay);
+	}
+	
+	public void allpass2Delay(double delay) {
+
+		if (reverb != null)
+			reverb.setAllpass2Delay(delay);
+	}
+
+	public void setSustainTime(double sustainTimeInMs) {
+
+		// Remember what sustain time was requested
+		this.sustainTimeInMs = sustainTimeInMs;
+		
+		if (reverb != null) {
+			reverb.setSustainInMs(sustainTimeInMs);
+		}
+	}
+	
+	public void setDryWetMix(double mix) {
+		
+		// Remember what mix was requested
+		this.mix = mix;
+
+		if (reverb != null)
+			reverb.setDryWetMix(mix);
+	}
+	
+	private void doInitialization() {
+
+		// The reverb's delay buffers depend upon both the sample rate
+		// and the number of channels.
+		if ((sampleRate == 0) || (numberOfChannels == 0))
+			return;
+
+		reverb = new SchroederReverb(sampleRate, numberOfChannels);
+		
+		// Set the saved sustain time and mix
+		reverb.setSustainInMs(sustainTimeInMs);
+		reverb.setDryWetMix(mix);
+
+		// Indicate initialization is complete
+		initializationComplete = true;
+	}
+	
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+		
+		sampleRate = preferred.getValue();
+
+		// Cannot do initialization until sample rate is known
+		doInitialization();
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+		
+		numberOfChannels = preferred.getValue();
+
+		// Nor until the number of channels is known
+		doInitialization();
+	}
+
+	// Private class data
+	private boolean initializationComplete;
+	private boolean endOfData;
+	private double sustainTimeInMs;
+	private double mix;
+	private int sampleRate;
+	private int numberOfChannels;
+	private SchroederReverb reverb;
+}
@@ -1,6 +1,6 @@
 // ReverbUI Class
 // Written by: Craig A. Lindley
-// Last Update: 09/13/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.processors;
 
@@ -19,8 +19,8 @@ public class ReverbUI extends BaseUI implements CloseableFrameIF {
 
 	private static final double SUSTAINTIMEMSMIN = 1;
 	private static final double SUSTAINTIMEMSMAX = 1000;
-	public  static final double SUSTAINTIMEMSDEF = 500;
-	public  static final double MIXDEF = 0.25;
+	public  static final double SUSTAINTIMEMSDEF = Reverb.SUSTAINTIMEMSDEF;
+	public  static final double MIXDEF = Reverb.MIXDEF;
 
 	private static final double MINCOMBDELAYMS = 1.0;
 	private static final double MAXCOMBDELAYMS = 100.0;
@@ -1,10 +1,18 @@
 // Allpass Network Class
 // Written by: Craig A. Lindley
-// Last Update: 09/12/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.reverb;
 
-import audiostuff.craigl.utils.AudioConstants;
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.utils.DelayLine;
+import audiostuff.craigl.utils.DelayTap;
+import audiostuff.craigl.utils.SmoothedParameter;
+
+// Like CombFilter, the delay may be changed from another thread. The new
+// delay, and a longer delay line when one is needed, are picked up at
+// the start of the next block, the new delay is crossfaded in and the
+// gain moves smoothly to its new value.
 
 public class AllpassNetwork {
 
@@ -16,10 +24,8 @@ public class AllpassNetwork {
 		this.numberOfChannels = numberOfChannels;
 
 		// Default gain of allpass network
-		double networkGain = 0.7;
-		gain1 = -networkGain;
-		gain2 = 1.0 - (networkGain * networkGain);
-		gain3 = networkGain;
+		gain = new SmoothedParameter(0.7);
+		pendingLine = new AtomicReference<DelayLine>();
 
 		// Default sustain
 		sustainTimeInMs = 65.0;
@@ -32,21 +38,22 @@ public class AllpassNetwork {
 
 		this.delayInMs = delayInMs;
 
-		// Do calculation to determine delay buffer size
-		int delayOffset = (int)
-				((delayInMs + 0.5) * sampleRate * numberOfChannels) / 1000;
-
-		delayBufferSize = AudioConstants.SAMPLEBUFFERSIZE + delayOffset;
+		// Do calculation to determine delay in samples. The delay is
+		// a whole number of frames so each channel delays only itself.
+		int delayOffset = Math.max((int)
+				(((delayInMs + 0.5) * sampleRate) / 1000) * numberOfChannels, 1);
 
-		// Allocate new delay buffer
-		delayBuffer = new double[delayBufferSize];
+		if (delayLine == null) {
+			// First delay is installed right away
+			delayLine = new DelayLine(delayOffset);
+			tap = new DelayTap(delayOffset);
 
-		// Initialize indices
-		// Index where dry sample is written
-		writeIndex = 0;
-			
-		// Index where wet sample is read
-		readIndex = AudioConstants.SAMPLEBUFFERSIZE;
+			gain.jump(Math.pow(0.001, delayInMs / sustainTimeInMs));
+		}	else if (delayOffset > delayLine.getMaxDelay()) {
+			// Have the filtering thread swap in a longer line
+			pendingLine.set(new DelayLine(delayOffset));
+		}
+		targetDelay = delayOffset;
 
 		// Calculate gain for filter
 		calcGain();
@@ -57,12 +64,8 @@ public class AllpassNetwork {
 		// Calculate gain for this filter such that a recirculating
 		// sample will reduce in level 60db in the specified
 		// sustain time.
-		double gain = Math.pow(0.001, delayInMs / sustainTimeInMs);
-
-		// Now update the network gain
-		gain1 = -gain;
-		gain2 = 1.0 - (gain * gain);
-		gain3 = gain;
+		// The network gains are derived from it as it is applied
+		gain.set(Math.pow(0.001, delayInMs / sustainTimeInMs));
 	}
 	
 	// Sustain time is the time it takes the signal to drop
@@ -82,27 +85,33 @@ public class AllpassNetwork {
 	// Do the data processing
 	public int doFilter(double [] inBuf, double [] outBuf, int length) {
 
+		// Pick up a longer delay line, the delay and gain changes
+		DelayLine line = pendingLine.getAndSet(null);
+		if (line != null) {
+			line.copyHistory(delayLine);
+			delayLine = line;
+		}
+		tap.update(Math.min(targetDelay, delayLine.getMaxDelay()));
+		gain.update();
+
 		// See if at end of data
 		if (length != -1) {
 			// Sustain is not in effect because there are input samples
 			for (int i=0; i < length; i++) {
+				double g = gain.next();
 				double inSample = inBuf[i];
-				double outSample = inSample * gain1;
-				double delaySample = delayBuffer[readIndex++];
-				outSample += delaySample * gain2;
+				double outSample = inSample * -g;
+				double delaySample = tap.read(delayLine);
+				outSample += delaySample * (1.0 - (g * g));
 				
 				// Output the new sample
 				outBuf[i] = outSample;
 
 				// Apply gain and feedback to sample
-				inSample += delaySample * gain3;
+				inSample += delaySample * g;
 				
-				// Store sample in delay buffer
-				delayBuffer[writeIndex++] = inSample;
-
-				// Update buffer indices
-				readIndex  %= delayBufferSize;
-				writeIndex %= delayBufferSize;
+				// Store sample in delay line
+				delayLine.write((float) inSample);
 			}
 			return length;
 		
@@ -117,21 +126,18 @@ public class AllpassNetwork {
 			// No more input samples are available therefore sustain is in
 			// mode is in effect.
 			for (int i=0; i < samplesToMove; i++) {
-				double delaySample = delayBuffer[readIndex++];
-				double outSample = delaySample * gain2;
+				double g = gain.next();
+				double delaySample = tap.read(delayLine);
+				double outSample = delaySample * (1.0 - (g * g));
 				
-				// Output is from delay buffer
+				// Output is from delay line
 				outBuf[i] = outSample;
 
 				// Apply gain and feedback to sample
-				double inSample = delaySample * gain3;
+				double inSample = delaySample * g;
 				
-				// Store sample in delay buffer
-				delayBuffer[writeIndex++] = inSample;
-
-				// Update buffer indices
-				readIndex  %= delayBufferSize;
-				writeIndex %= delayBufferSize;
+				// Store sample in delay line
+				delayLine.write((float) inSample);
 				sustainSampleCount--;
 			}
 			return samplesToMove;
@@ -141,16 +147,14 @@ public class AllpassNetwork {
 	// Private class data
 	private int sampleRate;
 	private int numberOfChannels;
-	private double delayInMs;
-	private double sustainTimeInMs;
-	private double gain1;
-	private double gain2;
-	private double gain3;
-	private int sustainSampleCount;
-	private double [] delayBuffer;
-	private int delayBufferSize;
-	private int writeIndex;
-	private int readIndex;
+	private volatile double delayInMs;
+	private volatile double sustainTimeInMs;
+	private SmoothedParameter gain;
+	private volatile int sustainSampleCount;
+	private DelayLine delayLine;
+	private AtomicReference<DelayLine> pendingLine;
+	private volatile int targetDelay;
+	private DelayTap tap;
 }
 
 
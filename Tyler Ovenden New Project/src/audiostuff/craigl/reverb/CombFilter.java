@@ -1,10 +1,19 @@
 // Comb Filter with sustain Class
 // Written by: Craig A. Lindley
-// Last Update: 09/09/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.reverb;
 
-import audiostuff.craigl.utils.AudioConstants;
+import java.util.concurrent.atomic.AtomicReference;
+import audiostuff.craigl.utils.DelayLine;
+import audiostuff.craigl.utils.DelayTap;
+import audiostuff.craigl.utils.SmoothedParameter;
+
+// The delay and sustain may be changed from another thread while the
+// filter runs. A new delay is crossfaded in from the start of the
+// filtering thread's next block. A delay longer than the delay line has room for
+// gets a bigger line, built by the thread changing it and swapped in
+// keeping the signal already in the delay. Gain changes are smoothed.
 
 public class CombFilter {
 
@@ -16,8 +25,9 @@ public class CombFilter {
 		this.numberOfChannels = numberOfChannels;
 
 		// Set some defaults
-		gain = 0.0;
+		gain = new SmoothedParameter(0.0);
 		sustainTimeInMs = 500;
+		pendingLine = new AtomicReference<DelayLine>();
 
 		// Initialize delay parameters
 		setDelayInMs(delayInMs);
@@ -27,21 +37,22 @@ public class CombFilter {
 
 		this.delayInMs = delayInMs;
 
-		// Do calculation to determine delay buffer size
-		int delayOffset = (int)
-				((delayInMs + 0.5) * sampleRate * numberOfChannels) / 1000;
-
-		delayBufferSize = AudioConstants.SAMPLEBUFFERSIZE + delayOffset;
+		// Do calculation to determine delay in samples. The delay is
+		// a whole number of frames so each channel delays only itself.
+		int delayOffset = Math.max((int)
+				(((delayInMs + 0.5) * sampleRate) / 1000) * numberOfChannels, 1);
 
-		// Allocate new delay buffer
-		delayBuffer = new double[delayBufferSize];
+		if (delayLine == null) {
+			// First delay is installed right away
+			delayLine = new DelayLine(delayOffset);
+			tap = new DelayTap(delayOffset);
 
-		// Initialize indices
-		// Index where dry sample is written
-		writeIndex = 0;
-			
-		// Index where wet sample is read
-		readIndex = AudioConstants.SAMPLEBUFFERSIZE;
+			gain.jump(Math.pow(0.001, delayInMs / sustainTimeInMs));
+		}	else if (delayOffset > delayLine.getMaxDelay()) {
+			// Have the filtering thread swap in a longer line
+			pendingLine.set(new DelayLine(delayOffset));
+		}
+		targetDelay = delayOffset;
 
 		// Calculate gain
 		calcGain();
@@ -52,7 +63,7 @@ public class CombFilter {
 		// Calculate gain for this filter such that a recirculating
 		// sample will reduce in level 60db in the specified
 		// sustain time.
-		gain = Math.pow(0.001, delayInMs / sustainTimeInMs);
+		gain.set(Math.pow(0.001, delayInMs / sustainTimeInMs));
 	}
 	
 	// Sustain time is the time it takes the signal to drop
@@ -72,69 +83,107 @@ public class CombFilter {
 	// Do the data processing
 	public int doFilter(short [] inBuf, double [] outBuf, int length) {
 
+		// Pick up parameter changes
+		beginBlock();
+
 		// See if at end of data
-		if (length != -1) {
-			// There are input samples so sustain is not in effect
-			for (int i=0; i < length; i++) {
-				double sample = (double) inBuf[i];
-				double delaySample = delayBuffer[readIndex++];
-				
-				// Output is from delay buffer
-				outBuf[i] += delaySample;
-
-				// Apply gain and feedback to sample
-				sample += delaySample * gain;
-				
-				// Store sample in delay buffer
-				delayBuffer[writeIndex++] = sample;
-
-				// Update buffer indices
-				readIndex  %= delayBufferSize;
-				writeIndex %= delayBufferSize;
-			}
-			return length;
-		
-		}	else	{
+		if (length == -1)
+			return doSustain(outBuf);
+
+		// There are input samples so sustain is not in effect
+		for (int i=0; i < length; i++) {
+			double sample = (double) inBuf[i];
+			double delaySample = tap.read(delayLine);
+			
+			// Output is from delay line
+			outBuf[i] += delaySample;
+
+			// Apply gain and feedback to sample
+			sample += delaySample * gain.next();
+			
+			// Store sample in delay line
+			delayLine.write((float) sample);
+		}
+		return length;
+	}
+
+	// Do the data processing on float samples
+	public int doFilter(float [] inBuf, double [] outBuf, int length) {
+
+		// Pick up parameter changes
+		beginBlock();
+
+		// See if at end of data
+		if (length == -1)
+			return doSustain(outBuf);
+
+		// There are input samples so sustain is not in effect
+		for (int i=0; i < length; i++) {
+			double sample = inBuf[i];
+			double delaySample = tap.read(delayLine);
+			
+			// Output is from delay line
+			outBuf[i] += delaySample;
+
+			// Apply gain and feedback to sample
+			sample += delaySample * gain.next();
+			
+			// Store sample in delay line
+			delayLine.write((float) sample);
+		}
+		return length;
+	}
+
+	// Swap in a longer delay line, pick up the delay and start any gain
+	// change
+	private void beginBlock() {
+
+		DelayLine line = pendingLine.getAndSet(null);
+		if (line != null) {
+			line.copyHistory(delayLine);
+			delayLine = line;
+		}
+		// A delay set after a line is picked up waits for the next block
+		tap.update(Math.min(targetDelay, delayLine.getMaxDelay()));
+		gain.update();
+	}
+
+	// No more input samples are available therefore sustain 
+	// mode is in effect.
+	private int doSustain(double [] outBuf) {
+
+		int samplesToMove = Math.min(outBuf.length, sustainSampleCount);
+		if (samplesToMove <= 0) 
+			return -1;
 		
-			// No more input samples are available therefore sustain 
-			// mode is in effect.
-			int samplesToMove = Math.min(outBuf.length, sustainSampleCount);
-			if (samplesToMove <= 0) 
-				return -1;
+		// Move the sustain samples
+		for (int i=0; i < samplesToMove; i++) {
+			double delaySample = tap.read(delayLine);
+			
+			// Output is from delay line
+			outBuf[i] += delaySample;
+
+			// Apply gain and feedback to sample
+			delaySample *= gain.next();
 			
-			// Move the sustain samples
-			for (int i=0; i < samplesToMove; i++) {
-				double delaySample = delayBuffer[readIndex++];
-				
-				// Output is from delay buffer
-				outBuf[i] += delaySample;
-
-				// Apply gain and feedback to sample
-				delaySample *= gain;
-				
-				// Store sample in delay buffer
-				delayBuffer[writeIndex++] = delaySample;
-
-				// Update buffer indices
-				readIndex  %= delayBufferSize;
-				writeIndex %= delayBufferSize;
-				sustainSampleCount--;
-			}
-			return samplesToMove;
+			// Store sample in delay line
+			delayLine.write((float) delaySample);
+			sustainSampleCount--;
 		}
+		return samplesToMove;
 	}
 
 	// Private class data
 	private int sampleRate;
 	private int numberOfChannels;
-	private double delayInMs;
-	private double sustainTimeInMs;
-	private double gain;
-	private int sustainSampleCount;
-	private double [] delayBuffer;
-	private int delayBufferSize;
-	private int writeIndex;
-	private int readIndex;
+	private volatile double delayInMs;
+	private volatile double sustainTimeInMs;
+	private SmoothedParameter gain;
+	private volatile int sustainSampleCount;
+	private DelayLine delayLine;
+	private AtomicReference<DelayLine> pendingLine;
+	private volatile int targetDelay;
+	private DelayTap tap;
 }
 
 
@@ -0,0 +1,639 @@
+// Feedback Delay Network Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.reverb;
+
+import java.util.Arrays;
+import audiostuff.craigl.utils.SampleConverter;
+import audiostuff.craigl.utils.SmoothedParameter;
+
+/*
+A feedback delay network (FDN) reverb, as described by J.-M. Jot and
+J. O. Smith. A number of delay lines of mutually prime lengths run side by
+side. Every sample the outputs of all of the lines are passed thru a
+lowpass damping filter and a gain, mixed together by an orthogonal
+feedback matrix and written back into the lines along with the input. The
+matrix sends every line into every other one, so the echo density builds
+up far faster than in the parallel combs of a SchroederReverb and without
+the metallic ring of a few combs.
+
+The gain of each line gives the sustain time at low frequencies. Its
+damping filter gives the sustain time at high frequencies, which is
+shorter by the damping factor, as in a real room where air and walls
+absorb the highs first. Both are worked out per line from its length so
+every line decays at the same rate. The line lengths are slowly modulated,
+each at a rate of its own, which spreads the resonances of the network
+and keeps long tails from ringing.
+
+The feedback matrix is either a Householder reflection, which costs one
+sum over the lines, or a Hadamard matrix, which mixes more densely and is
+applied as a fast Walsh-Hadamard transform. Both keep the energy of the
+lines, so the network is stable for any sustain time.
+
+Channels are mixed to mono on the way in. Each output channel takes the
+lines with the signs of a different row of a Hadamard matrix, so the
+channels come out decorrelated and a mono source is given width.
+
+Every line is longer than CHUNKFRAMES samples, so the samples a chunk of
+that many frames reads from the lines were all written before the chunk
+began. Each step of the network is therefore done for the whole chunk
+before the next step starts. The reads, the matrix, the output taps and
+the writes back into the lines each work thru a chunk of one line at a
+time, in plain loops over arrays that the JIT is free to unroll and
+vectorize. Only the damping filters, which each depend on their last
+output, run a frame at a time, with all of the lines side by side. All
+lines share one array and one write position. The modulation moves once
+per chunk and the line lengths are swept linearly in between.
+
+Parameters may be changed from another thread while the reverb runs.
+Sustain, damping, modulation depth and matrix changes take effect at the
+start of the next block; the mix is smoothed.
+*/
+
+public class FeedbackDelayNetwork {
+
+	// Feedback matrices
+	public static final int HOUSEHOLDER = 0;
+	public static final int HADAMARD = 1;
+
+	// The number of lines is a power of two in this range
+	public static final int MINLINES = 4;
+	public static final int MAXLINES = 32;
+
+	// Parameter defaults, which simulate a medium sized hall
+	public static final int LINESDEF = 16;
+	public static final double SUSTAINTIMEMSDEF = 1500;
+	public static final double DAMPINGDEF = 0.5;
+	public static final double MODULATIONDEPTHMSDEF = 0.3;
+	public static final double MIXDEF = 0.25;
+
+	// Deepest modulation the delay lines have room for
+	public static final double MAXMODULATIONDEPTHMS = 2.0;
+
+	/**
+	 * FeedbackDelayNetwork class constructor
+	 *
+	 * @param int sampleRate is the sampling rate of the samples
+	 * @param int numberOfChannels is the number of interleaved channels
+	 * @param int lines is the number of delay lines, a power of two
+	 * between MINLINES and MAXLINES
+	 */
+	public FeedbackDelayNetwork(int sampleRate, int numberOfChannels, int lines) {
+
+		if ((lines < MINLINES) || (lines > MAXLINES) ||
+			((lines & (lines - 1)) != 0))
+			throw new IllegalArgumentException(
+				"lines must be a power of two between " + MINLINES +
+				" and " + MAXLINES);
+
+		if (numberOfChannels < 1)
+			throw new IllegalArgumentException("numberOfChannels must be > 0");
+
+		// Save incoming
+		this.sampleRate = sampleRate;
+		this.numberOfChannels = numberOfChannels;
+		this.lines = lines;
+
+		// Spread the line lengths evenly on a log scale and make each one
+		// prime so the lines have no common echoes
+		delayLengths = new int[lines];
+		double ratio = LONGESTDELAYMS / SHORTESTDELAYMS;
+		for (int i=0; i < lines; i++) {
+			double ms = SHORTESTDELAYMS * Math.pow(ratio, (double) i / (lines - 1));
+			delayLengths[i] = nextPrime((int) ((ms * sampleRate) / 1000));
+		}
+
+		// One array holds every line. Each has a power of two sized part
+		// of its own so positions wrap with a mask.
+		int longest = delayLengths[lines - 1] +
+			(int) Math.ceil((MAXMODULATIONDEPTHMS * sampleRate) / 1000) + 2;
+		shift = 1;
+		while ((1 << shift) < longest)
+			shift++;
+		mask = (1 << shift) - 1;
+		delayLines = new float[lines << shift];
+
+		// The lines are read a chunk at a time, so a chunk must be
+		// shorter than the shortest line at its deepest modulation
+		int modulationRoom = (int) Math.ceil((MAXMODULATIONDEPTHMS * sampleRate) / 1000);
+		chunkFrames = Math.max(1, Math.min(CHUNKFRAMES,
+			delayLengths[0] - modulationRoom - 2));
+
+		// Line state. Taps and feedback hold a chunk of every line, one
+		// line after another.
+		delays = new float[lines];
+		delaySteps = new float[lines];
+		taps = new float[chunkFrames * lines];
+		feedback = new float[chunkFrames * lines];
+		lowpass = new float[lines];
+		gains = new float[lines];
+		dampings = new float[lines];
+		input = new float[chunkFrames];
+		mixes = new float[chunkFrames];
+		sums = new float[chunkFrames];
+		for (int i=0; i < lines; i++)
+			delays[i] = delayLengths[i];
+
+		// Input signs and output rows are rows of a Hadamard matrix. Row
+		// zero is all ones and is left for the input.
+		inputSigns = new float[lines];
+		for (int i=0; i < lines; i++)
+			inputSigns[i] = hadamardSign(0, i);
+
+		float outputScale = (float) (1.0 / Math.sqrt(lines));
+		outputRows = new float[numberOfChannels][lines];
+		for (int ch=0; ch < numberOfChannels; ch++) {
+			int row = 1 + (ch % (lines - 1));
+			for (int i=0; i < lines; i++)
+				outputRows[ch][i] = hadamardSign(row, i) * outputScale;
+		}
+
+		// Each line is modulated by a sine of a rate of its own, made by
+		// rotating a phasor a chunk at a time. The lines start out of
+		// phase.
+		modulationCos = new float[lines];
+		modulationSin = new float[lines];
+		rotationCos = new float[lines];
+		rotationSin = new float[lines];
+		for (int i=0; i < lines; i++) {
+			double rate = MINMODULATIONHZ +
+				(((MAXMODULATIONHZ - MINMODULATIONHZ) * i) / (lines - 1));
+			double step = (2.0 * Math.PI * rate * chunkFrames) / sampleRate;
+			double start = (2.0 * Math.PI * i) / lines;
+			modulationCos[i] = (float) Math.cos(start);
+			modulationSin[i] = (float) Math.sin(start);
+			rotationCos[i] = (float) Math.cos(step);
+			rotationSin[i] = (float) Math.sin(step);
+		}
+
+		// Set the defaults
+		matrix = HOUSEHOLDER;
+		sustainTimeInMs = SUSTAINTIMEMSDEF;
+		damping = DAMPINGDEF;
+		setModulationDepthInMs(MODULATIONDEPTHMSDEF);
+		mix = new SmoothedParameter(MIXDEF);
+		denormalGuard = DENORMALGUARD;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Return the number of delay lines
+	 *
+	 * @return int containing the line count
+	 */
+	public int getNumberOfLines() {
+
+		return lines;
+	}
+
+	/**
+	 * Select the feedback matrix
+	 *
+	 * @param int matrix is HOUSEHOLDER or HADAMARD
+	 */
+	public void setMatrix(int matrix) {
+
+		if ((matrix != HOUSEHOLDER) && (matrix != HADAMARD))
+			throw new IllegalArgumentException("Unknown feedback matrix");
+
+		this.matrix = matrix;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Set the time low frequencies take to die away by 60 db
+	 *
+	 * @param double sustainTimeInMs is the sustain time in milliseconds
+	 */
+	public void setSustainInMs(double sustainTimeInMs) {
+
+		if (sustainTimeInMs <= 0.0)
+			throw new IllegalArgumentException("Sustain time must be > 0");
+
+		this.sustainTimeInMs = sustainTimeInMs;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Set how much faster high frequencies die away than low ones
+	 *
+	 * @param double damping runs from 0, where high frequencies last as
+	 * long as low ones, to 1, where they last a tenth as long
+	 */
+	public void setDamping(double damping) {
+
+		if ((damping < 0.0) || (damping > 1.0))
+			throw new IllegalArgumentException("Damping must be 0 .. 1");
+
+		this.damping = damping;
+		parametersChanged = true;
+	}
+
+	/**
+	 * Set how far the lengths of the lines are swept
+	 *
+	 * @param double depthInMs is the sweep either side of the line length
+	 * in milliseconds, at most MAXMODULATIONDEPTHMS
+	 */
+	public void setModulationDepthInMs(double depthInMs) {
+
+		if ((depthInMs < 0.0) || (depthInMs > MAXMODULATIONDEPTHMS))
+			throw new IllegalArgumentException(
+				"Modulation depth must be 0 .. " + MAXMODULATIONDEPTHMS + " ms");
+
+		modulationDepth = (float) ((depthInMs * sampleRate) / 1000);
+	}
+
+	/**
+	 * Set the mix between the dry and the wet signal. May be called while
+	 * the reverb runs; the mix moves smoothly to the new value.
+	 *
+	 * @param double mix runs from 0 (dry) to 1 (wet)
+	 */
+	public void setDryWetMix(double mix) {
+
+		this.mix.set(mix);
+	}
+
+	/**
+	 * Silence the delay lines in preparation for running again
+	 */
+	public void reset() {
+
+		clearLines();
+		tailRemaining = 0;
+		inputEnded = false;
+	}
+
+	// Process a buffer of samples at a time thru the reverb
+	public int doReverb(short [] inBuf, int length) {
+
+		// Realloc conversion buffer as required
+		if (fBuffer.length < inBuf.length)
+			fBuffer = new float[inBuf.length];
+
+		if (length != -1)
+			SampleConverter.shortToFloat(inBuf, fBuffer, length);
+
+		// Do the reverb then range constrain the samples
+		length = doReverb(fBuffer, length);
+		if (length != -1)
+			SampleConverter.floatToShort(fBuffer, inBuf, length);
+
+		return length;
+	}
+
+	/**
+	 * Process a buffer of float samples thru the reverb. The processed
+	 * samples are not range constrained. Once the input has ended call
+	 * with a length of -1 to play out the tail of the reverb, which is
+	 * returned in blocks the size of the last input block.
+	 *
+	 * @param float [] inBuf holds the samples, which are replaced with the
+	 * processed samples
+	 * @param int length is the number of samples or -1 at end of input
+	 *
+	 * @return int containing the number of samples processed or -1 when
+	 * the tail has been played out
+	 */
+	public int doReverb(float [] inBuf, int length) {
+
+		beginBlock();
+
+		boolean wetOnly = (length == -1);
+		if (wetOnly) {
+			// Play out the tail on silence
+			if (!inputEnded) {
+				inputEnded = true;
+				tailRemaining = (int)
+					((sustainTimeInMs * sampleRate) / 1000) * numberOfChannels;
+			}
+			if (tailRemaining <= 0) {
+				// Tail is done. The lines are left silent for when the
+				// reverb is reset and run again.
+				clearLines();
+				return -1;
+			}
+			length = Math.min(Math.min(lastLength, inBuf.length), tailRemaining);
+			length -= length % numberOfChannels;
+			if (length <= 0)
+				length = Math.min(inBuf.length, tailRemaining);
+			Arrays.fill(inBuf, 0, length, 0.0f);
+			tailRemaining -= length;
+		}	else	{
+			lastLength = length;
+		}
+
+		int channels = numberOfChannels;
+		float inputScale = 1.0f / channels;
+		float guard = denormalGuard;
+
+		mix.update();
+		int frames = length / channels;
+		for (int start=0; start < frames; start += chunkFrames) {
+			int n = Math.min(chunkFrames, frames - start);
+			int first = start * channels;
+
+			// Mix the channels to mono. The guard keeps the lines from
+			// decaying into denormal numbers, which are very slow.
+			for (int k=0; k < n; k++) {
+				float in = guard;
+				guard = -guard;
+				int frame = first + (k * channels);
+				for (int ch=0; ch < channels; ch++)
+					in += inBuf[frame + ch];
+				input[k] = in * inputScale;
+				mixes[k] = (float) mix.next();
+			}
+
+			advanceModulation();
+			readLines(n);
+			dampLines(n);
+			mixLines(n);
+			writeLines(n);
+
+			// Each channel hears the lines thru a row of its own
+			for (int ch=0; ch < channels; ch++) {
+				float [] row = outputRows[ch];
+				Arrays.fill(sums, 0, n, 0.0f);
+				for (int i=0; i < lines; i++) {
+					int o = i * chunkFrames;
+					float r = row[i];
+					for (int k=0; k < n; k++)
+						sums[k] += r * taps[o + k];
+				}
+
+				int s = first + ch;
+				for (int k=0; k < n; k++, s += channels) {
+					float m = mixes[k];
+					if (wetOnly)
+						inBuf[s] = sums[k] * m;
+					else
+						inBuf[s] = (inBuf[s] * (1.0f - m)) + (sums[k] * m);
+				}
+			}
+		}
+		denormalGuard = guard;
+
+		return frames * channels;
+	}
+
+	// Read a chunk from every line at its modulated length. The lines are
+	// longer than a chunk, so none of the samples read are written by this
+	// chunk. The whole part of the length is held for the chunk and the
+	// fraction swept, which may take it a little past either neighbour.
+	private void readLines(int n) {
+
+		int w = writeIndex;
+		for (int i=0; i < lines; i++) {
+			int base = i << shift;
+			int o = i * chunkFrames;
+			float delay = delays[i];
+			float step = delaySteps[i];
+			int whole = (int) delay;
+			float fraction = delay - whole;
+			int newest = (w - whole) & mask;
+
+			if ((newest > 0) && (newest + n <= mask)) {
+				// The chunk does not wrap round the end of the line
+				int p = base + newest;
+				for (int k=0; k < n; k++) {
+					float newer = delayLines[p + k];
+					float older = delayLines[p + k - 1];
+					float f = fraction + (step * k);
+					taps[o + k] = newer + (f * (older - newer));
+				}
+			}	else	{
+				for (int k=0; k < n; k++) {
+					float newer = delayLines[base + ((newest + k) & mask)];
+					float older = delayLines[base + ((newest + k - 1) & mask)];
+					float f = fraction + (step * k);
+					taps[o + k] = newer + (f * (older - newer));
+				}
+			}
+			delays[i] = delay + (step * n);
+		}
+	}
+
+	// Damp and decay the lines. Each damping filter depends on its last
+	// output, so the lines are worked on side by side.
+	private void dampLines(int n) {
+
+		for (int k=0; k < n; k++)
+			for (int i=0, o=k; i < lines; i++, o += chunkFrames) {
+				float t = taps[o];
+				float l = t + (dampings[i] * (lowpass[i] - t));
+				lowpass[i] = l;
+				feedback[o] = l * gains[i];
+			}
+	}
+
+	// Mix the lines together, a whole chunk of each line at a time. The
+	// Householder reflection subtracts a share of the sum of the lines
+	// from each line, which writeLines() does on the way into the lines.
+	private void mixLines(int n) {
+
+		if (mixMatrix == HADAMARD) {
+			for (int h=1; h < lines; h <<= 1)
+				for (int i=0; i < lines; i += h << 1)
+					for (int j=i; j < i + h; j++) {
+						int oa = j * chunkFrames;
+						int ob = (j + h) * chunkFrames;
+						for (int k=0; k < n; k++) {
+							float a = feedback[oa + k];
+							float b = feedback[ob + k];
+							feedback[oa + k] = a + b;
+							feedback[ob + k] = a - b;
+						}
+					}
+		}	else	{
+			float householder = 2.0f / lines;
+			Arrays.fill(sums, 0, n, 0.0f);
+			for (int i=0; i < lines; i++) {
+				int o = i * chunkFrames;
+				for (int k=0; k < n; k++)
+					sums[k] += feedback[o + k];
+			}
+			for (int k=0; k < n; k++)
+				sums[k] *= householder;
+		}
+	}
+
+	// Feed the lines back with the input
+	private void writeLines(int n) {
+
+		// The Hadamard matrix has nothing left to subtract
+		int w = writeIndex;
+		if (mixMatrix == HADAMARD)
+			Arrays.fill(sums, 0, n, 0.0f);
+
+		for (int i=0; i < lines; i++) {
+			int base = i << shift;
+			int o = i * chunkFrames;
+			float sign = inputSigns[i];
+			if (w + n <= mask) {
+				int p = base + w;
+				for (int k=0; k < n; k++)
+					delayLines[p + k] = (feedback[o + k] - sums[k]) + (sign * input[k]);
+			}	else	{
+				for (int k=0; k < n; k++)
+					delayLines[base + ((w + k) & mask)] =
+						(feedback[o + k] - sums[k]) + (sign * input[k]);
+			}
+		}
+		writeIndex = (w + n) & mask;
+	}
+
+	// Turn every modulation phasor on by a chunk and set each line's
+	// length sweeping towards where the phasor points
+	private void advanceModulation() {
+
+		float depth = modulationDepth;
+		for (int i=0; i < lines; i++) {
+			float c = modulationCos[i];
+			float s = modulationSin[i];
+			modulationCos[i] = (c * rotationCos[i]) - (s * rotationSin[i]);
+			modulationSin[i] = (c * rotationSin[i]) + (s * rotationCos[i]);
+
+			float target = delayLengths[i] + (depth * modulationSin[i]);
+			delaySteps[i] = (target - delays[i]) / chunkFrames;
+		}
+	}
+
+	// Pick up parameter changes and keep the modulation phasors on the
+	// unit circle
+	private void beginBlock() {
+
+		if (parametersChanged) {
+			parametersChanged = false;
+			mixMatrix = matrix;
+			calcGains();
+		}
+
+		for (int i=0; i < lines; i++) {
+			double c = modulationCos[i];
+			double s = modulationSin[i];
+			double scale = 1.0 / Math.sqrt((c * c) + (s * s));
+			modulationCos[i] = (float) (c * scale);
+			modulationSin[i] = (float) (s * scale);
+		}
+	}
+
+	// Silence every line
+	private void clearLines() {
+
+		Arrays.fill(delayLines, 0.0f);
+		Arrays.fill(lowpass, 0.0f);
+		writeIndex = 0;
+	}
+
+	// Work out the gain and damping filter of every line from its length
+	// and the sustain times.
+	private void calcGains() {
+
+		double lowSustain = (sustainTimeInMs * sampleRate) / 1000;
+		double highSustain = lowSustain * (1.0 - (HIGHSUSTAINRANGE * damping));
+
+		// The Hadamard transform is scaled here instead of after mixing
+		double scale = (mixMatrix == HADAMARD) ? 1.0 / Math.sqrt(lines) : 1.0;
+
+		for (int i=0; i < lines; i++) {
+			// Gain per pass round the line for a 60 db drop in the
+			// sustain time, at DC and at the Nyquist frequency
+			double lowGain = Math.pow(0.001, delayLengths[i] / lowSustain);
+			double highGain = Math.pow(0.001, delayLengths[i] / highSustain);
+
+			// A one pole lowpass with a DC gain of one has a gain of
+			// (1 - a) / (1 + a) at the Nyquist frequency
+			double r = highGain / lowGain;
+			dampings[i] = (float) ((1.0 - r) / (1.0 + r));
+			gains[i] = (float) (lowGain * scale);
+		}
+	}
+
+	// Return the sign of an entry of a Sylvester Hadamard matrix, which is
+	// negative when row and column share an odd number of bits
+	private static float hadamardSign(int row, int column) {
+
+		return ((Integer.bitCount(row & column) & 1) == 0) ? 1.0f : -1.0f;
+	}
+
+	// Return the smallest prime no smaller than n
+	private static int nextPrime(int n) {
+
+		if (n <= 2)
+			return 2;
+
+		if ((n & 1) == 0)
+			n++;
+
+		while (true) {
+			boolean prime = true;
+			for (int d=3; d * d <= n; d += 2)
+				if ((n % d) == 0) {
+					prime = false;
+					break;
+				}
+			if (prime)
+				return n;
+
+			n += 2;
+		}
+	}
+
+	// Lengths of the shortest and longest delay lines
+	private static final double SHORTESTDELAYMS = 23.0;
+	private static final double LONGESTDELAYMS = 67.0;
+
+	// Frames processed together
+	private static final int CHUNKFRAMES = 64;
+
+	// Rates the lines are modulated at
+	private static final double MINMODULATIONHZ = 0.3;
+	private static final double MAXMODULATIONHZ = 1.1;
+
+	// High frequency sustain is cut by up to this fraction
+	private static final double HIGHSUSTAINRANGE = 0.9;
+
+	// Too small to hear but large enough to keep floats normal
+	private static final float DENORMALGUARD = 1.0e-18f;
+
+	// Private class data
+	private int sampleRate;
+	private int numberOfChannels;
+	private int lines;
+	private int [] delayLengths;		// Line lengths in samples
+	private float [] delayLines;		// All of the lines, one after another
+	private int shift;					// Log2 of the room each line has
+	private int mask;
+	private int writeIndex;
+	private int chunkFrames;
+	private float [] delays;			// Modulated line lengths
+	private float [] delaySteps;		// Sweep of the lengths per frame
+	private float [] taps;				// Line outputs of the chunk
+	private float [] lowpass;			// Damping filter state
+	private float [] feedback;
+	private float [] input;				// Mono input of the chunk
+	private float [] mixes;				// Mix of each frame of the chunk
+	private float [] sums;				// Sums across the lines
+	private float [] gains;
+	private float [] dampings;
+	private float [] inputSigns;
+	private float [][] outputRows;
+	private float [] modulationCos;
+	private float [] modulationSin;
+	private float [] rotationCos;
+	private float [] rotationSin;
+	private volatile float modulationDepth;
+	private volatile int matrix;
+	private int mixMatrix;				// Matrix of the block being run
+	private volatile double sustainTimeInMs;
+	private volatile double damping;
+	private volatile boolean parametersChanged;
+	private SmoothedParameter mix;
+	private float denormalGuard;
+	private boolean inputEnded;
+	private int tailRemaining;
+	private int lastLength;
+	private float [] fBuffer = new float[1];
+}
@@ -0,0 +1,211 @@
+// Partitioned Convolver Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.reverb;
+
+import java.util.Arrays;
+import audiostuff.craigl.spectrumanalyzer.FFT;
+
+/*
+Convolves one channel of samples with an impulse response using uniformly
+partitioned overlap-save FFT convolution.
+
+The impulse response is cut into partitions of partitionSize samples and
+each partition is transformed once, up front, with a transform twice the
+partition size. Every block of partitionSize input samples is transformed
+together with the block before it and its spectrum is pushed onto a
+frequency domain delay line holding the spectra of the most recent blocks.
+The output block is the inverse transform of the sum of each delayed input
+spectrum times the matching partition spectrum, of which the second half
+is the linear convolution (overlap-save).
+
+Per block this costs one forward and one inverse real FFT of
+2 * partitionSize points plus one complex multiply-add per bin per
+partition, instead of one multiply-add per impulse response sample per
+output sample as a direct form filter would. A stream has to be gathered
+into whole blocks before it can be processed, which costs partitionSize
+samples of latency.
+*/
+
+public class PartitionedConvolver {
+
+	// The transform is twice the partition size and the FFT class is
+	// limited to 2^15 points.
+	public static final int MAXPARTITIONSIZE = 16384;
+
+	/**
+	 * PartitionedConvolver class constructor
+	 *
+	 * @param double [] ir is the impulse response
+	 * @param int irLength is the number of samples of ir to use
+	 * @param int partitionSize is the number of samples in each block
+	 * processed. It must be a power of two no larger than MAXPARTITIONSIZE.
+	 */
+	public PartitionedConvolver(double [] ir, int irLength, int partitionSize) {
+
+		if ((partitionSize < 2) || (partitionSize > MAXPARTITIONSIZE) ||
+			((partitionSize & (partitionSize - 1)) != 0))
+			throw new IllegalArgumentException(
+				"partitionSize must be a power of two between 2 and " +
+				MAXPARTITIONSIZE);
+
+		if (irLength <= 0)
+			throw new IllegalArgumentException("irLength must be > 0");
+
+		// Save incoming
+		this.partitionSize = partitionSize;
+		this.irLength = irLength;
+
+		int bits = 1;
+		while ((1 << bits) < 2 * partitionSize)
+			bits++;
+
+		fftSize = 2 * partitionSize;
+		bins = partitionSize + 1;
+		partitions = (irLength + partitionSize - 1) / partitionSize;
+		fft = new FFT(bits);
+
+		xr = new double[fftSize];
+		xi = new double[fftSize];
+		input = new double[fftSize];
+		accr = new double[bins];
+		acci = new double[bins];
+
+		// Transform each partition of the impulse response. doRealFFT
+		// scales by 1 / fftSize; the partitions are scaled back up so the
+		// unscaled inverse transform gives the convolution directly.
+		hr = new double[partitions * bins];
+		hi = new double[partitions * bins];
+		for (int p=0; p < partitions; p++) {
+			int start = p * partitionSize;
+			int count = Math.min(partitionSize, irLength - start);
+
+			Arrays.fill(xr, 0.0);
+			System.arraycopy(ir, start, xr, 0, count);
+			fft.doRealFFT(xr, xi);
+
+			int base = p * bins;
+			for (int k=0; k < bins; k++) {
+				hr[base + k] = xr[k] * fftSize;
+				hi[base + k] = xi[k] * fftSize;
+			}
+		}
+
+		// The frequency domain delay line
+		fdlr = new double[partitions * bins];
+		fdli = new double[partitions * bins];
+
+		reset();
+	}
+
+	/**
+	 * Return the number of samples in each block processed
+	 *
+	 * @return int containing the partition size
+	 */
+	public int getPartitionSize() {
+
+		return partitionSize;
+	}
+
+	/**
+	 * Return the number of partitions the impulse response was cut into
+	 *
+	 * @return int containing the partition count
+	 */
+	public int getPartitions() {
+
+		return partitions;
+	}
+
+	/**
+	 * Return the length of the impulse response
+	 *
+	 * @return int containing the impulse response length in samples
+	 */
+	public int getIRLength() {
+
+		return irLength;
+	}
+
+	/**
+	 * Clear all history so the next block starts from silence
+	 */
+	public void reset() {
+
+		Arrays.fill(input, 0.0);
+		Arrays.fill(fdlr, 0.0);
+		Arrays.fill(fdli, 0.0);
+		current = 0;
+	}
+
+	/**
+	 * Convolve one block of samples. The output is the convolution of
+	 * everything passed in so far, for the samples of this block.
+	 *
+	 * @param double [] in holds partitionSize input samples
+	 * @param double [] out receives partitionSize output samples. It may
+	 * be the same array as in.
+	 */
+	public void process(double [] in, double [] out) {
+
+		// Slide the input window along by one block
+		System.arraycopy(input, partitionSize, input, 0, partitionSize);
+		System.arraycopy(in, 0, input, partitionSize, partitionSize);
+
+		// Transform the window and store it as the newest spectrum
+		System.arraycopy(input, 0, xr, 0, fftSize);
+		fft.doRealFFT(xr, xi);
+
+		current = (current == 0) ? partitions - 1 : current - 1;
+		int base = current * bins;
+		System.arraycopy(xr, 0, fdlr, base, bins);
+		System.arraycopy(xi, 0, fdli, base, bins);
+
+		// Multiply each delayed spectrum by the matching partition.
+		// Partition p pairs with the spectrum p blocks old.
+		Arrays.fill(accr, 0.0);
+		Arrays.fill(acci, 0.0);
+		int slot = current;
+		for (int p=0; p < partitions; p++) {
+			int x = slot * bins;
+			int h = p * bins;
+			for (int k=0; k < bins; k++) {
+				double ar = fdlr[x + k];
+				double ai = fdli[x + k];
+				double br = hr[h + k];
+				double bi = hi[h + k];
+				accr[k] += ar * br - ai * bi;
+				acci[k] += ar * bi + ai * br;
+			}
+			if (++slot == partitions)
+				slot = 0;
+		}
+
+		// Back to the time domain. The first half of the result is
+		// corrupted by circular wrap around and is thrown away.
+		System.arraycopy(accr, 0, xr, 0, bins);
+		System.arraycopy(acci, 0, xi, 0, bins);
+		fft.doRealIFFT(xr, xi);
+
+		System.arraycopy(xr, partitionSize, out, 0, partitionSize);
+	}
+
+	// Private class data
+	private int partitionSize;
+	private int irLength;
+	private int fftSize;
+	private int bins;
+	private int partitions;
+	private FFT fft;
+	private double [] hr;
+	private double [] hi;
+	private double [] fdlr;
+	private double [] fdli;
+	private int current;
+	private double [] input;
+	private double [] xr;
+	private double [] xi;
+	private double [] accr;
+	private double [] acci;
+}
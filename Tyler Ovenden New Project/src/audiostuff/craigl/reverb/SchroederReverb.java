@@ -1,10 +1,13 @@
 // Schroeder Reverb Class
 // Written by: Craig A. Lindley
-// Last Update: 09/11/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.reverb;
 
-import audiostuff.craigl.processors.ReverbUI;
+import java.util.Arrays;
+import audiostuff.craigl.processors.Reverb;
+import audiostuff.craigl.utils.SampleConverter;
+import audiostuff.craigl.utils.SmoothedParameter;
 
 /*
 This reverb module is called a Schroeder reverb because
@@ -41,10 +44,10 @@ public class SchroederReverb {
 		allpass2 = new AllpassNetwork(sampleRate, numberOfChannels, ALLPASS2DELAYMSDEF);
 
 		// Set initial value for sustain
-		setSustainInMs(ReverbUI.SUSTAINTIMEMSDEF);
+		setSustainInMs(Reverb.SUSTAINTIMEMSDEF);
 
 		// Set dry/wet mix to initial value
-		mix = ReverbUI.MIXDEF;
+		mix = new SmoothedParameter(Reverb.MIXDEF);
 	}
 
 	// Set the comb filter delays
@@ -92,19 +95,45 @@ public class SchroederReverb {
 		allpass2.setSustainTimeInMs(ALLPASS2SUSTAINMSDEF);
 	}
 
-	// Set the mix between the dry and the wet signal
+	// Set the mix between the dry and the wet signal. May be called
+	// while the reverb runs; the mix moves smoothly to the new value.
 	public void setDryWetMix(double mix) {
 
-		this.mix = mix;
+		this.mix.set(mix);
 	}
 
 	// Process a buffer of samples at a time thru the reverb
 	public int doReverb(short [] inBuf, int length) {
 
-		// Allocate buffer as required. Buffer must be initialized
-		// to zeros.
+		// Realloc conversion buffer as required
+		if (fBuffer.length < inBuf.length)
+			fBuffer = new float[inBuf.length];
+
+		if (length != -1)
+			SampleConverter.shortToFloat(inBuf, fBuffer, length);
+
+		// Do the reverb then range constrain the samples
+		length = doReverb(fBuffer, length);
 		if (length != -1)
+			SampleConverter.floatToShort(fBuffer, inBuf, length);
+
+		return length;
+	}
+
+	// Process a buffer of float samples at a time thru the reverb.
+	// The processed samples are not range constrained.
+	public int doReverb(float [] inBuf, int length) {
+
+		// Allocate buffers as required. Once input is exhausted the
+		// buffers keep their size so sustain is returned in blocks of
+		// the same size as the input.
+		if ((length != -1) && (dBuffer.length != length)) {
 			dBuffer  = new double[length];
+			dBuffer1 = new double[length];
+		}	else	{
+			// Comb output buffer must be initialized to zeros
+			Arrays.fill(dBuffer, 0.0);
+		}
 
 		// Apply the combs in parallel, get the possibly new length.
 		// All combs should return the same length.
@@ -125,7 +154,6 @@ public class SchroederReverb {
 		}	else	{
 			newLength = dBuffer.length;
 		}
-		double [] dBuffer1 = new double[newLength];
 
 		// Apply the allpass networks
 		length = 
@@ -135,36 +163,24 @@ public class SchroederReverb {
 			allpass2.doFilter(dBuffer1, dBuffer, length);
 
 		// Apply the mix
+		mix.update();
 		if (!inputExhausted) {
 			// Mix the dry input samples with the processed samples
 			for (int i=0; i < length; i++) {
-				double s = (inBuf[i] * (1.0 - mix)) + (dBuffer[i] * mix);
-				if (s > 32767.0)
-					s = 32767.0;
-				else if (s < -32768.0)
-					s = -32768.0;
-
-				inBuf[i] = (short) s;
+				double m = mix.next();
+				inBuf[i] = (float) ((inBuf[i] * (1.0 - m)) + (dBuffer[i] * m));
 			}
-		
 		}	else {
 			
 			// Only wet samples are available
-			for (int i=0; i < length; i++) {
-				double s = dBuffer[i] * mix;
-				if (s > 32767.0)
-					s = 32767.0;
-				else if (s < -32768.0)
-					s = -32768.0;
-
-				inBuf[i] = (short) s;
-			}
+			for (int i=0; i < length; i++)
+				inBuf[i] = (float) (dBuffer[i] * mix.next());
 		}
 		return length;
 	}
 
 	// Private class data
-	private double mix;
+	private SmoothedParameter mix;
 	private CombFilter comb1;
 	private CombFilter comb2;
 	private CombFilter comb3;
@@ -172,6 +188,8 @@ public class SchroederReverb {
 	private AllpassNetwork allpass1;
 	private AllpassNetwork allpass2;
 	private double [] dBuffer = new double[1];
+	private double [] dBuffer1 = new double[1];
+	private float [] fBuffer = new float[1];
 }
 
 
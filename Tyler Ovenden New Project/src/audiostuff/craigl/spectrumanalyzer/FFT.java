@@ -1,6 +1,6 @@
 // Fast Fourier Transform (FFT) Code
 // Java implementation by: Craig A. Lindley
-// Last Update: 02/27/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.spectrumanalyzer;
 
@@ -17,17 +17,29 @@ package audiostuff.craigl.spectrumanalyzer;
 ** implied warranty.
 */
 
+/*
+The transform was originally a Java implementation of the radix 2
+FFT written by Jef Poskanzer, which calculated its twiddle factors with
+Math.cos and Math.sin inside the butterfly loop. It now works from
+tables of twiddle factors and bit reversed indices which are calculated
+once for each transform size and shared by all FFT objects of that size.
+
+The butterflies are done two radix 2 stages at a time (radix 2^2, which
+is arithmetically a radix 4 decimation in time butterfly) with one plain
+radix 2 stage first when the number of bits is odd.
+
+doRealFFT transforms real data at about half the cost of doFFT by
+packing the even and odd samples into the real and imaginary parts of a
+transform half the size and then separating the results. doRealIFFT
+reverses the process.
+*/
+
 public class FFT {
-	/**
-	 * This is a Java implementation of the fast Fourier transform
-	 * written by Jef Poskanzer. The copyright appears above.
-	 */
 
 	private static final double TWOPI = 2.0 * Math.PI;
-	
+
 	// Limits on the number of bits this algorithm can utilize
 	private static final int LOG2_MAXFFTSIZE = 15;
-	private static final int MAXFFTSIZE = 1 << LOG2_MAXFFTSIZE;
 
 	/**
 	 * FFT class constructor
@@ -44,15 +56,21 @@ public class FFT {
 			System.out.println("" + bits + " is too big");
 			System.exit(1);
 		}
-		for (int i = (1 << bits) - 1; i >= 0; --i) {
-			int k = 0;
-			for (int j = 0; j < bits; ++j) {
-				k *= 2;
-				if ((i & (1 << j)) != 0)
-					k++;
-			}
-			bitreverse[i] = k;
-		}
+		tables = getTables(bits);
+
+		// The real transform is done with a transform of half the size
+		if (bits > 0)
+			halfTables = getTables(bits - 1);
+	}
+
+	/**
+	 * Return the number of points in the transform
+	 *
+	 * @return int number of points
+	 */
+	public int getSize() {
+
+		return 1 << bits;
 	}
 
 	/**
@@ -65,59 +83,313 @@ public class FFT {
 	 * applied. false for a forward transform.
 	 */
 	public void doFFT(double [] xr, double [] xi, boolean invFlag) {
-		int n, n2, i, k, kn2, l, p;
-		double ang, s, c, tr, ti;
-
-		n2 = (n = (1 << bits)) / 2;
-
-		for (l = 0; l < bits; ++l) {
-			for (k = 0; k < n; k += n2) {
-				for (i = 0; i < n2; ++i, ++k) {
-					p = bitreverse[k / n2];
-					ang = TWOPI * p / n;
-					c = Math.cos(ang);
-					s = Math.sin(ang);
-					kn2 = k + n2;
-					
-					if (invFlag)
-						s = -s;
-
-					tr = xr[kn2] * c + xi[kn2] * s;
-					ti = xi[kn2] * c - xr[kn2] * s;
-
-					xr[kn2] = xr[k] - tr;
-					xi[kn2] = xi[k] - ti;
-					xr[k] += tr;
-					xi[k] += ti;
-				}
+
+		int n = 1 << bits;
+
+		transform(tables, xr, xi, invFlag);
+
+		// Finally, multiply each value by 1/n, if this is the forward
+		// transform.
+		if (!invFlag) {
+			double f = 1.0 / n;
+
+			for (int i = 0; i < n ; i++) {
+				xr[i] *= f;
+				xi[i] *= f;
 			}
-			n2 /= 2;
 		}
+	}
+
+	/**
+	 * A forward fast Fourier transform of real data. The results are the
+	 * same as calling doFFT with the data in xr, zeros in xi and invFlag
+	 * false, but the transform takes about half the time.
+	 *
+	 * @param double [] xr holds the real data to be transformed and
+	 * receives the real part of the result.
+	 * @param double [] xi receives the imaginary part of the result. Its
+	 * contents on entry are ignored.
+	 */
+	public void doRealFFT(double [] xr, double [] xi) {
+
+		int n = 1 << bits;
+		if (n == 1) {
+			xi[0] = 0.0;
+			return;
+		}
+		int half = n / 2;
+
+		// Pack the even samples into the real part and the odd samples
+		// into the imaginary part of a transform half the size.
+		for (int i=0; i < half; i++) {
+			xi[i] = xr[2 * i + 1];
+			xr[i] = xr[2 * i];
+		}
+		transform(halfTables, xr, xi, false);
+
+		// Separate the results. For 0 < k < half with Z the packed
+		// transform, E = (Z[k] + conj(Z[half-k])) / 2 is the transform
+		// of the even samples and O = (Z[k] - conj(Z[half-k])) / 2i that
+		// of the odd samples. Then X[k] = E + W^k O and
+		// X[half-k] = conj(E - W^k O).
+		double f = 1.0 / n;
+		double [] cos = tables.cos;
+		double [] sin = tables.sin;
+
+		double z0r = xr[0];
+		double z0i = xi[0];
+		xr[0] = (z0r + z0i) * f;
+		xi[0] = 0.0;
+		xr[half] = (z0r - z0i) * f;
+		xi[half] = 0.0;
+
+		for (int k=1; k <= half / 2; k++) {
+			int nk = half - k;
+			double ar = xr[k];
+			double ai = xi[k];
+			double br = xr[nk];
+			double bi = xi[nk];
+
+			double er = (ar + br) * 0.5;
+			double ei = (ai - bi) * 0.5;
+			double or = (ai + bi) * 0.5;
+			double oi = (br - ar) * 0.5;
+
+			// Multiply O by W^k = cos - i sin
+			double c = cos[k];
+			double s = sin[k];
+			double tr = or * c + oi * s;
+			double ti = oi * c - or * s;
+
+			xr[k]  = (er + tr) * f;
+			xi[k]  = (ei + ti) * f;
+			xr[nk] = (er - tr) * f;
+			xi[nk] = (ti - ei) * f;
+		}
+
+		// The upper half is the complex conjugate of the lower half
+		for (int k=1; k < half; k++) {
+			xr[n - k] =  xr[k];
+			xi[n - k] = -xi[k];
+		}
+	}
+
+	/**
+	 * The inverse of doRealFFT. Takes the lower half of a conjugate
+	 * symmetric spectrum and returns the real signal it came from, at
+	 * about half the cost of an inverse doFFT. Like doFFT with invFlag
+	 * true no scaling is applied, so doRealIFFT(doRealFFT(x)) is x.
+	 *
+	 * @param double [] xr holds the real part of bins 0 to n/2 and
+	 * receives the real signal.
+	 * @param double [] xi holds the imaginary part of bins 0 to n/2. Its
+	 * contents are destroyed.
+	 */
+	public void doRealIFFT(double [] xr, double [] xi) {
+
+		int n = 1 << bits;
+		if (n == 1)
+			return;
+
+		int half = n / 2;
+		double [] cos = tables.cos;
+		double [] sin = tables.sin;
+
+		// Rebuild the packed transform Z = E + iO from the spectrum using
+		// E = X[k] + conj(X[half-k]) and O = (X[k] - conj(X[half-k])) W^-k.
+		// The factor of 2 left in both makes up for the half size inverse.
+		double x0 = xr[0];
+		double xh = xr[half];
+		xr[0] = x0 + xh;
+		xi[0] = x0 - xh;
+
+		for (int k=1; k <= half / 2; k++) {
+			int nk = half - k;
+			double ar = xr[k];
+			double ai = xi[k];
+			double br = xr[nk];
+			double bi = xi[nk];
+
+			double er = ar + br;
+			double ei = ai - bi;
+			double dr = ar - br;
+			double di = ai + bi;
+
+			// Multiply the difference by W^-k = cos + i sin
+			double c = cos[k];
+			double s = sin[k];
+			double or = dr * c - di * s;
+			double oi = dr * s + di * c;
+
+			xr[k]  = er - oi;
+			xi[k]  = ei + or;
+			xr[nk] = er + oi;
+			xi[nk] = or - ei;
+		}
+		transform(halfTables, xr, xi, true);
+
+		// Unpack the even samples from the real part and the odd samples
+		// from the imaginary part. Working downwards never overwrites a
+		// value that has yet to be read.
+		for (int i=half - 1; i >= 0; i--) {
+			xr[2 * i + 1] = xi[i];
+			xr[2 * i] = xr[i];
+		}
+	}
+
+	// Unscaled in place transform using the given tables
+	private static void transform(Tables t, double [] xr, double [] xi,
+								  boolean invFlag) {
 
-		for (k = 0; k < n; k++) {
-			if ((i = bitreverse[k]) <= k)
+		int n = t.bitreverse.length;
+		int [] bitreverse = t.bitreverse;
+		double [] cos = t.cos;
+		double [] sin = t.sin;
+
+		// Twiddle factors are W = cos - i sin for the forward transform
+		// and W = cos + i sin for the inverse.
+		double sg = invFlag ? -1.0 : 1.0;
+
+		// Put the data in bit reversed order
+		for (int k = 0; k < n; k++) {
+			int i = bitreverse[k];
+			if (i <= k)
 				continue;
 
-			tr = xr[k];
-			ti = xi[k];
+			double tr = xr[k];
+			double ti = xi[k];
 			xr[k] = xr[i];
 			xi[k] = xi[i];
 			xr[i] = tr;
 			xi[i] = ti;
 		}
 
-		// Finally, multiply each value by 1/n, if this is the forward
-		// transform.
-		if (!invFlag) {
-			double f = 1.0 / n;
+		int size = 1;
 
-			for (i = 0; i < n ; i++) {
-				xr[i] *= f;
-				xi[i] *= f;
+		// With an odd number of bits do one radix 2 stage first
+		if ((t.bits & 1) != 0) {
+			for (int k = 0; k < n; k += 2) {
+				double tr = xr[k + 1];
+				double ti = xi[k + 1];
+				xr[k + 1] = xr[k] - tr;
+				xi[k + 1] = xi[k] - ti;
+				xr[k] += tr;
+				xi[k] += ti;
 			}
+			size = 2;
 		}
+
+		// Combine four transforms of length size into one of length
+		// 4 * size. Bit reversal leaves the quarters holding the inputs
+		// with residues 0, 2, 1 and 3 modulo 4 respectively.
+		while (size < n) {
+			int q = size;
+			int m = 4 * q;
+			int step = n / m;
+
+			for (int k = 0; k < n; k += m) {
+				for (int j = 0; j < q; j++) {
+					int i0 = k + j;
+					int i1 = i0 + q;
+					int i2 = i1 + q;
+					int i3 = i2 + q;
+					int w = j * step;
+
+					// c0 = x[i0]
+					double c0r = xr[i0];
+					double c0i = xi[i0];
+
+					// c1 = W^j x[i2]
+					double c = cos[w];
+					double s = sg * sin[w];
+					double c1r = xr[i2] * c + xi[i2] * s;
+					double c1i = xi[i2] * c - xr[i2] * s;
+
+					// c2 = W^2j x[i1]
+					c = cos[2 * w];
+					s = sg * sin[2 * w];
+					double c2r = xr[i1] * c + xi[i1] * s;
+					double c2i = xi[i1] * c - xr[i1] * s;
+
+					// c3 = W^3j x[i3]
+					c = cos[3 * w];
+					s = sg * sin[3 * w];
+					double c3r = xr[i3] * c + xi[i3] * s;
+					double c3i = xi[i3] * c - xr[i3] * s;
+
+					double t0r = c0r + c2r;
+					double t0i = c0i + c2i;
+					double t1r = c0r - c2r;
+					double t1i = c0i - c2i;
+					double t2r = c1r + c3r;
+					double t2i = c1i + c3i;
+					double t3r = c1r - c3r;
+					double t3i = c1i - c3i;
+
+					xr[i0] = t0r + t2r;
+					xi[i0] = t0i + t2i;
+					xr[i2] = t0r - t2r;
+					xi[i2] = t0i - t2i;
+
+					// Multiply t3 by -i (forward) or i (inverse)
+					xr[i1] = t1r + sg * t3i;
+					xi[i1] = t1i - sg * t3r;
+					xr[i3] = t1r - sg * t3i;
+					xi[i3] = t1i + sg * t3r;
+				}
+			}
+			size = m;
+		}
+	}
+
+	// Return the shared tables for a transform of 2^bits points
+	private static synchronized Tables getTables(int bits) {
+
+		if (cache[bits] == null)
+			cache[bits] = new Tables(bits);
+
+		return cache[bits];
 	}
+
+	// Twiddle factors and bit reversed indices for one transform size.
+	// Once built these are never modified so they may be shared.
+	private static class Tables {
+
+		Tables(int bits) {
+
+			this.bits = bits;
+
+			int n = 1 << bits;
+			bitreverse = new int[n];
+			for (int i = n - 1; i >= 0; --i) {
+				int k = 0;
+				for (int j = 0; j < bits; ++j) {
+					k *= 2;
+					if ((i & (1 << j)) != 0)
+						k++;
+				}
+				bitreverse[i] = k;
+			}
+
+			// Radix 4 butterflies need W^3j for j < n/4
+			cos = new double[n];
+			sin = new double[n];
+			for (int i = 0; i < n; i++) {
+				double ang = TWOPI * i / n;
+				cos[i] = Math.cos(ang);
+				sin[i] = Math.sin(ang);
+			}
+		}
+
+		final int bits;
+		final int [] bitreverse;
+		final double [] cos;
+		final double [] sin;
+	}
+
 	// Private class data
+	private static Tables [] cache = new Tables[LOG2_MAXFFTSIZE + 1];
 	private int bits;
-	private int [] bitreverse = new int[MAXFFTSIZE];
-}
\ No newline at end of file
+	private Tables tables;
+	private Tables halfTables;
+}
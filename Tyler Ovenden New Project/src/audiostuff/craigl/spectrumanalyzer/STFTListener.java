@@ -0,0 +1,26 @@
+// STFT Listener Interface
+// Last Update: 10/18/26
+
+package audiostuff.craigl.spectrumanalyzer;
+
+/**
+ * Interface implemented by objects that want to receive the magnitude
+ * frames published by an STFTMonitor. Frames are delivered on the
+ * monitor's analysis thread, never on the thread pulling samples through
+ * the monitor.
+ */
+public interface STFTListener {
+
+	/**
+	 * Called each time the monitor publishes a frame. The magnitudes
+	 * array belongs to the monitor and is reused for the next frame, so a
+	 * listener that needs the values after returning must copy them.
+	 *
+	 * @param STFTMonitor monitor is the monitor publishing the frame
+	 * @param float [] magnitudes holds the linear magnitude of each bin
+	 * where 1.0 is a full scale sine wave.
+	 * @param int bins is the number of valid entries in magnitudes. Bin i
+	 * is centered on monitor.getBinFrequency(i).
+	 */
+	public void frameAvailable(STFTMonitor monitor, float [] magnitudes, int bins);
+}
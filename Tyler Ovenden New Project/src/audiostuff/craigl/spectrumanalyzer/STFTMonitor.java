@@ -0,0 +1,516 @@
+// STFT Monitor Device Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.spectrumanalyzer;
+
+import java.util.concurrent.locks.LockSupport;
+import audiostuff.craigl.utils.*;
+
+/**
+ * A monitor device that continuously analyzes the samples passing through
+ * it with a short time Fourier transform. Unlike SpectrumAnalyzer, which
+ * captures a single triggered buffer, the STFTMonitor watches the stream
+ * for as long as it runs.
+ *
+ * Samples pulled through the monitor are mixed down to mono and copied
+ * into a ring buffer; nothing else happens on the thread pulling samples,
+ * so the monitor never holds up the audio path. A separate analysis thread
+ * takes a frame of fftSize samples every hopSize samples, applies the
+ * selected window and transforms it. At the requested frame rate the
+ * analysis thread averages the magnitudes of the frames analyzed since the
+ * last publication and hands the result to every registered STFTListener.
+ * If the analysis thread falls so far behind that the ring buffer has been
+ * overwritten, the lost frames are skipped and counted as dropped.
+ *
+ * All buffers are allocated when the analysis thread starts, so neither
+ * the audio path nor the analysis loop allocates while running.
+ */
+public class STFTMonitor extends AbstractAudio {
+
+	// Window types
+	public static final int HANN		= 0;
+	public static final int BLACKMAN	= 1;
+
+	// Default analysis parameters
+	public static final int FFTBITSDEF		= 11;
+	public static final int HOPSIZEDEF		= 512;
+	public static final int WINDOWDEF		= HANN;
+	public static final int FRAMERATEDEF	= 30;
+
+	// Limits on the size of the transform
+	public static final int MINFFTBITS = 4;
+	public static final int MAXFFTBITS = 15;
+
+	// Full scale sample value used to normalize the magnitudes
+	private static final double FULLSCALE = 32768.0;
+
+	/**
+	 * STFTMonitor class constructor using the default analysis parameters
+	 */
+	public STFTMonitor() {
+
+		this("STFT Monitor", FFTBITSDEF, HOPSIZEDEF, WINDOWDEF, FRAMERATEDEF);
+	}
+
+	/**
+	 * STFTMonitor class constructor
+	 *
+	 * @param String name is the name of this monitor used for
+	 * identification.
+	 * @param int fftBits is a power of two such that 2^fftBits is the
+	 * number of samples in each analysis frame.
+	 * @param int hopSize is the number of samples between the starts of
+	 * consecutive analysis frames. A hop size smaller than the frame size
+	 * overlaps the frames.
+	 * @param int window is the window applied to each frame, either HANN
+	 * or BLACKMAN.
+	 * @param int frameRate is the number of magnitude frames published to
+	 * the listeners each second.
+	 */
+	public STFTMonitor(String name, int fftBits, int hopSize,
+					   int window, int frameRate) {
+
+		super(name, MONITOR);
+
+		if ((fftBits < MINFFTBITS) || (fftBits > MAXFFTBITS))
+			throw new IllegalArgumentException("fftBits must be between " +
+				MINFFTBITS + " and " + MAXFFTBITS);
+
+		if ((hopSize <= 0) || (hopSize > (1 << fftBits)))
+			throw new IllegalArgumentException(
+				"hopSize must be > 0 and no larger than the FFT size");
+
+		if ((window != HANN) && (window != BLACKMAN))
+			throw new IllegalArgumentException("Unknown window type");
+
+		if (frameRate <= 0)
+			throw new IllegalArgumentException("frameRate must be > 0");
+
+		// Save incoming
+		this.fftSize = 1 << fftBits;
+		this.hopSize = hopSize;
+		this.windowType = window;
+		this.frameRate = frameRate;
+
+		bins = (fftSize / 2) + 1;
+		fft = new FFT(fftBits);
+
+		// Build the window and the scale factors that make a full scale
+		// sine wave read 1.0 whatever the window.
+		this.window = new double[fftSize];
+		double sum = 0.0;
+		for (int i=0; i < fftSize; i++) {
+			double x = 2.0 * Math.PI * i / fftSize;
+			if (window == HANN)
+				this.window[i] = 0.5 - (0.5 * Math.cos(x));
+			else
+				this.window[i] = 0.42 - (0.5 * Math.cos(x)) +
+								 (0.08 * Math.cos(2.0 * x));
+			sum += this.window[i];
+		}
+		// doRealFFT scales by 1/fftSize. A sine of amplitude A then shows
+		// up as A * sum / (2 * fftSize) in its bin.
+		scale = (2.0 * fftSize) / (sum * FULLSCALE);
+
+		listeners = new STFTListener[0];
+		worker = null;
+		sampleRate = 0;
+		numberOfChannels = 1;
+	}
+
+	/**
+	 * Register a listener to receive magnitude frames
+	 *
+	 * @param STFTListener l is the listener to add
+	 */
+	public synchronized void addSTFTListener(STFTListener l) {
+
+		STFTListener [] newListeners = new STFTListener[listeners.length + 1];
+		System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+		newListeners[listeners.length] = l;
+		listeners = newListeners;
+	}
+
+	/**
+	 * Remove a previously registered listener
+	 *
+	 * @param STFTListener l is the listener to remove
+	 */
+	public synchronized void removeSTFTListener(STFTListener l) {
+
+		for (int i=0; i < listeners.length; i++) {
+			if (listeners[i] == l) {
+				STFTListener [] newListeners =
+					new STFTListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i + 1, newListeners, i,
+								 listeners.length - i - 1);
+				listeners = newListeners;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of samples in each analysis frame
+	 *
+	 * @return int containing the FFT size
+	 */
+	public int getFFTSize() {
+
+		return fftSize;
+	}
+
+	/**
+	 * Return the number of samples between analysis frames
+	 *
+	 * @return int containing the hop size
+	 */
+	public int getHopSize() {
+
+		return hopSize;
+	}
+
+	/**
+	 * Return the window applied to each analysis frame
+	 *
+	 * @return int HANN or BLACKMAN
+	 */
+	public int getWindow() {
+
+		return windowType;
+	}
+
+	/**
+	 * Return the number of frames published each second
+	 *
+	 * @return int containing the frame rate
+	 */
+	public int getFrameRate() {
+
+		return frameRate;
+	}
+
+	/**
+	 * Return the number of magnitude bins in each published frame
+	 *
+	 * @return int containing fftSize / 2 + 1
+	 */
+	public int getBins() {
+
+		return bins;
+	}
+
+	/**
+	 * Return the center frequency of a bin
+	 *
+	 * @param int bin is the bin number
+	 *
+	 * @return double frequency in Hz or 0 if the sampling rate is not yet
+	 * known.
+	 */
+	public double getBinFrequency(int bin) {
+
+		return ((double) bin * sampleRate) / fftSize;
+	}
+
+	/**
+	 * Return the number of frames transformed so far
+	 *
+	 * @return long containing the count
+	 */
+	public long getFramesAnalyzed() {
+
+		return framesAnalyzed;
+	}
+
+	/**
+	 * Return the number of frames skipped because the analysis thread fell
+	 * behind the audio.
+	 *
+	 * @return long containing the count
+	 */
+	public long getFramesDropped() {
+
+		return framesDropped;
+	}
+
+	/**
+	 * Return the number of frames published to the listeners
+	 *
+	 * @return long containing the count
+	 */
+	public long getFramesPublished() {
+
+		return framesPublished;
+	}
+
+	/**
+	 * Determine if the analysis thread is running
+	 *
+	 * @return boolean true if the analysis thread is running
+	 */
+	public boolean isRunning() {
+
+		return (worker != null) && worker.isAlive();
+	}
+
+	/**
+	 * Start the analysis thread if it is not already running. Normally
+	 * this happens automatically on the first getSamples() call.
+	 */
+	public synchronized void start() {
+
+		if (worker != null)
+			return;
+
+		// The ring must hold a frame plus everything that arrives while
+		// the analysis thread waits for the next publication, with room
+		// to spare for scheduling jitter.
+		int needed = (2 * fftSize) + (4 * Math.max(sampleRate, 1) / frameRate);
+		int ringSize = 1;
+		while (ringSize < needed)
+			ringSize <<= 1;
+
+		ring = new float[ringSize];
+		ringMask = ringSize - 1;
+		xr = new double[fftSize];
+		xi = new double[fftSize];
+		sums = new double[bins];
+		magnitudes = new float[bins];
+
+		written = 0;
+		writePos = 0;
+		channelSum = 0.0f;
+		channelCount = 0;
+		readPos = 0;
+		framesSummed = 0;
+
+		running = true;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				analyze();
+			}
+		}, "STFT Monitor: " + getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stop the analysis thread. It restarts on the next getSamples() call.
+	 */
+	public synchronized void stop() {
+
+		if (worker == null)
+			return;
+
+		running = false;
+		LockSupport.unpark(worker);
+		try {
+			worker.join();
+		}
+		catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		worker = null;
+	}
+
+	/**
+	 * Pass samples through unchanged while copying them for analysis
+	 */
+	public int getSamples(short [] buffer, int length) {
+
+		int len = previous.getSamples(buffer, length);
+
+		if ((len > 0) && !getByPass()) {
+			if (worker == null)
+				start();
+
+			// Mix the channels down to mono
+			for (int i=0; i < len; i++)
+				store(buffer[i]);
+
+			// Make the new samples visible to the analysis thread
+			written = writePos;
+		}
+		return len;
+	}
+
+	/**
+	 * Pass float samples through unchanged while copying them for analysis
+	 */
+	public int getSamples(float [] buffer, int length) {
+
+		int len = previous.getSamples(buffer, length);
+
+		if ((len > 0) && !getByPass()) {
+			if (worker == null)
+				start();
+
+			// Mix the channels down to mono
+			for (int i=0; i < len; i++)
+				store(buffer[i]);
+
+			// Make the new samples visible to the analysis thread
+			written = writePos;
+		}
+		return len;
+	}
+
+	// Overload this method to get the current sample rate
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxSamplingRate(min, max, preferred);
+
+		setAnalysisFormat(preferred.getValue(), numberOfChannels);
+	}
+
+	// Overload this method to get the current number of channels
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		super.minMaxChannels(min, max, preferred);
+
+		setAnalysisFormat(sampleRate, preferred.getValue());
+	}
+
+	// Accumulate one interleaved sample, writing the mono sample to the
+	// ring once every channel of a frame has arrived.
+	private void store(float sample) {
+
+		channelSum += sample;
+		if (++channelCount >= numberOfChannels) {
+			ring[(int) writePos & ringMask] = channelSum / channelCount;
+			writePos++;
+			channelSum = 0.0f;
+			channelCount = 0;
+		}
+	}
+
+	// The ring size depends on the format so the analysis thread is
+	// stopped when the format changes and restarted by the next request.
+	private void setAnalysisFormat(int sampleRate, int numberOfChannels) {
+
+		if ((sampleRate == this.sampleRate) &&
+			(numberOfChannels == this.numberOfChannels))
+			return;
+
+		stop();
+
+		this.sampleRate = sampleRate;
+		this.numberOfChannels = Math.max(numberOfChannels, 1);
+	}
+
+	// Body of the analysis thread
+	private void analyze() {
+
+		long period = 1000000000L / frameRate;
+		long next = System.nanoTime() + period;
+
+		while (running) {
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(this, wait);
+				continue;
+			}
+			// Do not try to catch up on frames missed while descheduled
+			next += period;
+			long now = System.nanoTime();
+			if (next < now)
+				next = now + period;
+
+			transformAvailableFrames();
+
+			if (framesSummed > 0)
+				publish();
+		}
+	}
+
+	// Transform every complete frame that has arrived since the last call
+	private void transformAvailableFrames() {
+
+		long available = written;
+
+		// Skip frames whose samples have already been overwritten
+		long oldest = available - ring.length;
+		if (readPos < oldest) {
+			long hops = ((oldest - readPos) + hopSize - 1) / hopSize;
+			readPos += hops * hopSize;
+			framesDropped += hops;
+		}
+
+		while (readPos + fftSize <= available) {
+			for (int i=0; i < fftSize; i++)
+				xr[i] = ring[(int) (readPos + i) & ringMask] * window[i];
+
+			// The writer may have lapped the frame while it was copied
+			if (written - readPos > ring.length) {
+				readPos += hopSize;
+				framesDropped++;
+				continue;
+			}
+			fft.doRealFFT(xr, xi);
+
+			for (int k=0; k < bins; k++)
+				sums[k] += Math.sqrt((xr[k] * xr[k]) + (xi[k] * xi[k]));
+
+			framesSummed++;
+			framesAnalyzed++;
+			readPos += hopSize;
+		}
+	}
+
+	// Average the frames analyzed since the last publication and send the
+	// result to the listeners.
+	private void publish() {
+
+		double f = scale / framesSummed;
+		for (int k=0; k < bins; k++) {
+			magnitudes[k] = (float) (sums[k] * f);
+			sums[k] = 0.0;
+		}
+		// DC and Nyquist have no negative frequency image
+		magnitudes[0] *= 0.5f;
+		magnitudes[bins - 1] *= 0.5f;
+		framesSummed = 0;
+
+		STFTListener [] l = listeners;
+		for (int i=0; i < l.length; i++)
+			l[i].frameAvailable(this, magnitudes, bins);
+
+		framesPublished++;
+	}
+
+	// Private class data
+	private int fftSize;
+	private int hopSize;
+	private int windowType;
+	private int frameRate;
+	private int bins;
+	private double [] window;
+	private double scale;
+	private FFT fft;
+	private volatile STFTListener [] listeners;
+	private Thread worker;
+	private volatile boolean running;
+	private int sampleRate;
+	private int numberOfChannels;
+
+	// Written by the audio thread
+	private float [] ring;
+	private int ringMask;
+	private long writePos;
+	private volatile long written;
+	private float channelSum;
+	private int channelCount;
+
+	// Used by the analysis thread
+	private double [] xr;
+	private double [] xi;
+	private double [] sums;
+	private float [] magnitudes;
+	private long readPos;
+	private int framesSummed;
+	private volatile long framesAnalyzed;
+	private volatile long framesDropped;
+	private volatile long framesPublished;
+}
@@ -1,6 +1,6 @@
 // Spectrum Analyzer UI Class
 // Written by: Craig A. Lindley
-// Last Update: 11/07/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.spectrumanalyzer;
 
@@ -202,15 +202,13 @@ public class SpectrumAnalyzerUI extends BaseUI implements CloseableFrameIF {
 	
 	public void doSpectrum() {
 
-		// Move the sample data into the arrays for processing. The
+		// Move the sample data into the array for processing. The
 		// data consists of real data only.
-		for(int i=0; i < FFT_SIZE; i++) {
+		for(int i=0; i < FFT_SIZE; i++)
 			realArray[i] = acquisitionBuffer[i];
-			imagArray[i] = 0.0;
-		}
 
-		// Do the forward fft
-		fft.doFFT(realArray, imagArray, false);
+		// Do the forward fft. The real transform fills in imagArray.
+		fft.doRealFFT(realArray, imagArray);
 
 		// Calculate power at each point and store in realArray. We only
 		// care about the first half of the sample values as all of the 
@@ -514,4 +512,4 @@ class ScopeSurface extends Canvas {
 	private FontMetrics fm;
 	private int componentOffset = 0;
 	private boolean paintOK = false;
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,6 +1,6 @@
 // Status Display Panel Class for use in the Spectrum Analyzer UI
 // Written by: Craig A. Lindley
-// Last Update: 03/07/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.spectrumanalyzer;
 
@@ -9,7 +9,7 @@ import java.awt.*;
 public class StatusDisplay extends Panel {
 	/**
 	 * This class is a Panel with five display areas. The first two
-	 * are static and display the sample rate and a mono/stereo
+	 * are static and display the sample rate and a channel mode
 	 * indicator. The third displays the rate or ratio with which one
 	 * component differs in frequency from the next.
 	 * The forth panel shows the frequency of the lowest
@@ -24,14 +24,21 @@ public class StatusDisplay extends Panel {
 	 *
 	 * @param int sampleRate is the sample rate for display 
 	 * @param int numberOfChannels is used to determine if the samples are
-	 * mono or stereo
+	 * mono, stereo or multichannel
 	 */
 	public StatusDisplay(int sampleRate, int numberOfChannels) {
 
 		setLayout(new GridLayout(1, 5));
 
 		add(new Label("Rate: " + sampleRate + " s/sec"));
-		add(new Label("Mode: " + ((numberOfChannels == 2) ? "Stereo":"Mono")));
+		String mode;
+		if (numberOfChannels == 1)
+			mode = "Mono";
+		else if (numberOfChannels == 2)
+			mode = "Stereo";
+		else
+			mode = numberOfChannels + " Ch";
+		add(new Label("Mode: " + mode));
 
 		rateDisplay = new Label("Rate:");
 		add(rateDisplay);
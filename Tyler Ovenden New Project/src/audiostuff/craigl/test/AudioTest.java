@@ -25,7 +25,7 @@ public class AudioTest {
 		"\tSource input device: -i (osc | sosc | file | jmffile | mic sr chs | jmfmic sr chs)\n" +
 		"\tMonitor device: [-m (scope | spectrumanalyzer)]\n" +
 		"\tProcessor device(s): [-p (aadj cache chorus compexp delay distortion\n" +
-		"\t\t\t\teq peq pan phaser pshift reverb)+]\n" +
+		"\t\t\t\teq peq pan phaser pshift reverb fdnreverb dynamics)+]\n" +
 		"\tOutput device: -o (file | jmffile | player | jmfplayer | winplayer)\n";
 
 	private static final String USAGE2 = 
@@ -50,6 +50,8 @@ public class AudioTest {
 		"phaser - phaser effect processor\n" +
 		"pshift - pitch shifter effect processor\n" +
 		"reverb - reverb effect processor\n" +
+		"fdnreverb - feedback delay network reverb processor\n" +
+		"dynamics - look-ahead multiband compressor/expander/limiter/noise gate processor\n" +
 		"player - sample player based on JMF1.0\n" +
 		"jmfplayer - sample player based on JMF2.0\n" +
 		"winplayer - sample player for Windows";
@@ -306,6 +308,18 @@ public class AudioTest {
 						ll.addElement(rui);
 						rui.showUI(true);
 
+					}	else if (arg.equalsIgnoreCase("fdnreverb")) {
+
+						FDNReverbWithUI fui = new FDNReverbWithUI(blinker);
+						ll.addElement(fui);
+						fui.showUI(true);
+
+					}	else if (arg.equalsIgnoreCase("dynamics")) {
+
+						DynamicsWithUI dui = new DynamicsWithUI(blinker);
+						ll.addElement(dui);
+						dui.showUI(true);
+
 					}	else	{
 
 						System.err.println("Unknown processor device");
@@ -0,0 +1,186 @@
+// Decoder Allocation Test
+// Last Update: 10/18/26
+
+package audiostuff.craigl.test;
+
+import java.io.*;
+import java.nio.ByteOrder;
+import java.lang.management.ManagementFactory;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Checks that the decoders do not allocate once they are running. Each
+ * stream and memory mapped decoder reads a file of noise. After a number
+ * of calls to warm the decoder up the bytes allocated by the thread are
+ * measured across many more getSamples() calls, and any allocation at
+ * all is a failure.
+ *
+ * Run with no arguments. Exits with status 1 if any decoder allocates or
+ * if the JVM cannot measure allocation.
+ */
+public class DecoderAllocationTest {
+
+	private static final int BLOCKSIZE = 1024;
+
+	// The compiler must be done with a decoder before it is measured or
+	// the little it allocates on this thread is counted as well
+	private static final int WARMUPCALLS = 20000;
+	private static final int MEASUREDCALLS = 1000;
+
+	// Enough 16 bit samples for every call
+	private static final int FILEBYTES =
+		2 * BLOCKSIZE * (WARMUPCALLS + MEASUREDCALLS + 1);
+
+	// Decoders tested
+	private static final String [] DECODERS = {
+		"DecodePcm8Signed",
+		"DecodePcm8UnSigned",
+		"DecodePcm16BESigned",
+		"DecodePcm16LESigned",
+		"DecodeG711MuLaw",
+		"DecodeMappedPcm8 unsigned",
+		"DecodeMappedPcm8 signed",
+		"DecodeMappedPcm8 mu-law",
+		"DecodeMappedPcm16 big endian",
+		"DecodeMappedPcm16 little endian",
+	};
+
+	public static void main(String [] args) {
+
+		if (!canMeasure()) {
+			System.out.println("Thread allocation can't be measured by this JVM");
+			System.out.println("DecoderAllocationTest FAILED");
+			System.exit(1);
+		}
+
+		boolean passed = true;
+		File file = null;
+		try {
+			file = File.createTempFile("decoder", ".raw");
+			writeFile(file);
+
+			for (int i=0; i < DECODERS.length; i++)
+				passed &= check(i, file);
+		}
+		catch(IOException ioe) {
+			ioe.printStackTrace();
+			passed = false;
+		}
+		finally {
+			if (file != null)
+				file.delete();
+		}
+		System.out.println(passed ? "DecoderAllocationTest passed" : "DecoderAllocationTest FAILED");
+		if (!passed)
+			System.exit(1);
+	}
+
+	// Measure the allocation of one decoder
+	private static boolean check(int index, File file) throws IOException {
+
+		ConvertDataInputStream cdis = new ConvertDataInputStream(file.getPath());
+		try {
+			AbstractDecoderIF decoder = createDecoder(index, cdis);
+			short [] buffer = new short[BLOCKSIZE];
+
+			for (int i=0; i < WARMUPCALLS; i++)
+				decoder.getSamples(buffer, BLOCKSIZE);
+
+			int shortCalls = 0;
+			long before = allocatedBytes();
+			for (int i=0; i < MEASUREDCALLS; i++)
+				if (decoder.getSamples(buffer, BLOCKSIZE) != BLOCKSIZE)
+					shortCalls++;
+			long bytes = allocatedBytes() - before;
+
+			boolean ok = (bytes == 0) && (shortCalls == 0);
+			System.out.println(DECODERS[index] + ": " + bytes + " bytes in " +
+							   MEASUREDCALLS + " calls" +
+							   ((shortCalls != 0) ? ", " + shortCalls + " short reads" : "") +
+							   (ok ? " ok" : " FAILED"));
+			return ok;
+		}
+		finally {
+			cdis.close();
+		}
+	}
+
+	// Create a decoder reading the whole file
+	private static AbstractDecoderIF createDecoder(int index,
+												   ConvertDataInputStream cdis)
+		throws IOException {
+
+		long bytes = cdis.length();
+		switch (index) {
+			case 0:
+				return new DecodePcm8Signed(cdis, bytes);
+			case 1:
+				return new DecodePcm8UnSigned(cdis, bytes);
+			case 2:
+				return new DecodePcm16BESigned(cdis, bytes / 2);
+			case 3:
+				return new DecodePcm16LESigned(cdis, bytes / 2);
+			case 4:
+				return new DecodeG711MuLaw(cdis, bytes);
+			case 5:
+				return new DecodeMappedPcm8(cdis.getChannel(), 0, bytes,
+											DecodeMappedPcm8.UNSIGNED);
+			case 6:
+				return new DecodeMappedPcm8(cdis.getChannel(), 0, bytes,
+											DecodeMappedPcm8.SIGNED);
+			case 7:
+				return new DecodeMappedPcm8(cdis.getChannel(), 0, bytes,
+											DecodeMappedPcm8.MULAW);
+			case 8:
+				return new DecodeMappedPcm16(cdis.getChannel(), 0, bytes / 2,
+											 ByteOrder.BIG_ENDIAN);
+			default:
+				return new DecodeMappedPcm16(cdis.getChannel(), 0, bytes / 2,
+											 ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	// Fill the file with noise
+	private static void writeFile(File file) throws IOException {
+
+		byte [] data = new byte[FILEBYTES];
+		new java.util.Random(12345).nextBytes(data);
+
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			fos.write(data);
+		}
+		finally {
+			fos.close();
+		}
+	}
+
+	// Determine if the allocation of a thread can be measured
+	private static boolean canMeasure() {
+
+		if (!(ManagementFactory.getThreadMXBean() instanceof
+			  com.sun.management.ThreadMXBean))
+			return false;
+
+		com.sun.management.ThreadMXBean tb =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!tb.isThreadAllocatedMemorySupported())
+			return false;
+
+		tb.setThreadAllocatedMemoryEnabled(true);
+		threadBean = tb;
+
+		// The first reading may allocate, so take it here
+		allocatedBytes();
+		return true;
+	}
+
+	// Return the bytes allocated by this thread so far
+	private static long allocatedBytes() {
+
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// Private class data
+	private static com.sun.management.ThreadMXBean threadBean;
+}
@@ -0,0 +1,223 @@
+// EQ Channel Test
+// Last Update: 10/18/26
+
+package audiostuff.craigl.test;
+
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.processors.*;
+
+/**
+ * Checks that the equalizers keep the channels of a signal apart. A
+ * different signal is fed to each channel of a GraphicEQ and of a
+ * ParametricEQ and every channel that comes out is compared with the
+ * same signal run thru a mono equalizer set up the same way. A gain is
+ * changed part way thru so the smoothed gains are checked as well.
+ *
+ * Run with no arguments. Exits with status 1 if any channel differs.
+ */
+public class EQChannelTest {
+
+	private static final int SAMPLERATE = 44100;
+	private static final int FRAMES = 8192;
+	private static final int BLOCKSIZE = 1024;
+	private static final double TOLERANCE = 0.001;
+
+	public static void main(String [] args) {
+
+		boolean passed = true;
+
+		// Two channels are run one after the other and five in parallel
+		int [] channelCounts = {2, 5};
+		for (int i=0; i < channelCounts.length; i++) {
+			float [][] signals = makeSignals(channelCounts[i]);
+
+			passed &= check("GraphicEQ", true, signals);
+			passed &= check("ParametricEQ", false, signals);
+		}
+
+		System.out.println(passed ? "EQChannelTest passed" : "EQChannelTest FAILED");
+		if (!passed)
+			System.exit(1);
+	}
+
+	// Run the signals thru an equalizer together and one at a time and
+	// compare the results
+	private static boolean check(String name, boolean graphic,
+								 float [][] signals) {
+
+		float [][] together = run(graphic, signals);
+
+		boolean passed = true;
+		for (int ch=0; ch < signals.length; ch++) {
+			float [][] mono = run(graphic, new float [][] {signals[ch]});
+
+			double error = 0.0;
+			for (int i=0; i < FRAMES; i++)
+				error = Math.max(error, Math.abs(together[ch][i] - mono[0][i]));
+
+			boolean ok = error <= TOLERANCE;
+			System.out.println(name + " " + signals.length + " channels, channel " +
+							   ch + ": max difference from mono " + error +
+							   (ok ? " ok" : " FAILED"));
+			passed &= ok;
+		}
+		return passed;
+	}
+
+	// Pull the signals thru a newly built equalizer and return what
+	// comes out of each channel
+	private static float [][] run(boolean graphic, float [][] signals) {
+
+		int channels = signals.length;
+
+		TestSource source = new TestSource(signals);
+		AbstractAudio eq;
+		if (graphic) {
+			GraphicEQ g = new GraphicEQ();
+			g.f100HzGain(3.0);
+			g.f800HzGain(0.25);
+			g.f3200HzGain(2.0);
+			eq = g;
+		}	else	{
+			ParametricEQ p = new ParametricEQ();
+			p.lowPassShelfGain(2.5);
+			p.bandPassPeakGain(0.5);
+			p.highPassShelfGain(3.0);
+			eq = p;
+		}
+		TestSink sink = new TestSink(BLOCKSIZE * channels);
+
+		LinkedListVector chain = new LinkedListVector();
+		chain.addElement(source);
+		chain.addElement(eq);
+		chain.addElement(sink);
+
+		// Negotiate just as a real sink would
+		sink.getSamplingRate();
+		sink.getNumberOfChannels();
+
+		float [] buffer = new float[BLOCKSIZE * channels];
+		float [][] output = new float[channels][FRAMES];
+		int frame = 0;
+		while (frame < FRAMES) {
+
+			// Move a gain half way thru
+			if (frame == FRAMES / 2) {
+				if (graphic)
+					((GraphicEQ) eq).f800HzGain(1.5);
+				else
+					((ParametricEQ) eq).bandPassPeakGain(2.0);
+			}
+
+			int len = sink.getSamples(buffer, buffer.length);
+			if (len <= 0)
+				break;
+
+			int frames = len / channels;
+			for (int i=0; i < frames; i++)
+				for (int ch=0; ch < channels; ch++)
+					output[ch][frame + i] = buffer[(i * channels) + ch];
+			frame += frames;
+		}
+		return output;
+	}
+
+	// A different mix of tones and noise for each channel
+	private static float [][] makeSignals(int channels) {
+
+		float [][] signals = new float[channels][FRAMES];
+
+		long seed = 12345;
+		for (int ch=0; ch < channels; ch++) {
+			double freq = 60.0 * (ch + 1) * (ch + 1);
+			for (int i=0; i < FRAMES; i++) {
+				double t = (double) i / SAMPLERATE;
+
+				// Simple linear congruential noise generator
+				seed = (seed * 1103515245 + 12345) & 0x7FFFFFFF;
+				double noise = ((seed >> 8) % 2001) - 1000;
+
+				signals[ch][i] = (float)
+					((6000.0 * Math.sin(2.0 * Math.PI * freq * t)) +
+					 (3000.0 * Math.sin(2.0 * Math.PI * 7.1 * freq * t)) + noise);
+			}
+		}
+		return signals;
+	}
+
+	/**
+	 * Source device that plays a signal for each channel once
+	 */
+	private static class TestSource extends AbstractAudio {
+
+		public TestSource(float [][] signals) {
+
+			super("Test Source", SOURCE);
+
+			// Save incoming
+			this.signals = signals;
+			offset = 0;
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return getSamplesFromFloat(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			int channels = signals.length;
+			int frames = Math.min(length / channels, signals[0].length - offset);
+			if (frames <= 0)
+				return -1;
+
+			for (int i=0; i < frames; i++)
+				for (int ch=0; ch < channels; ch++)
+					buffer[(i * channels) + ch] = signals[ch][offset + i];
+			offset += frames;
+
+			return frames * channels;
+		}
+
+		public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(SAMPLERATE);
+			max.setValue(SAMPLERATE);
+			preferred.setValue(SAMPLERATE);
+		}
+
+		public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(signals.length);
+			max.setValue(signals.length);
+			preferred.setValue(signals.length);
+		}
+
+		// Private class data
+		private float [][] signals;
+		private int offset;
+	}
+
+	/**
+	 * Sink device that asks the chain for a particular block size
+	 */
+	private static class TestSink extends AbstractAudio {
+
+		public TestSink(int blockSize) {
+
+			super("Test Sink", SINK);
+
+			setBlockSizeLimits(0, 0, blockSize);
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+// Pcm8 Decoder Test
+// Last Update: 10/18/26
+
+package audiostuff.craigl.test;
+
+import java.io.*;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Checks that the streamed and the memory mapped decoders of unsigned 8
+ * bit samples agree. A file holding every byte value a few times over is
+ * decoded by DecodePcm8UnSigned and by DecodeMappedPcm8 and the samples
+ * that come out are compared one by one. The streamed decoder is read in
+ * odd sized pieces so partial reads are checked as well.
+ *
+ * Run with no arguments. Exits with status 1 if any sample differs.
+ */
+public class Pcm8DecoderTest {
+
+	private static final int SAMPLES = 256 * 5;
+	private static final int READSIZE = 300;
+
+	public static void main(String [] args) {
+
+		boolean passed;
+		File file = null;
+		try {
+			file = File.createTempFile("pcm8", ".raw");
+			writeFile(file);
+
+			short [] streamed = decodeStreamed(file);
+			short [] mapped = decodeMapped(file);
+
+			passed = compare(streamed, mapped);
+		}
+		catch(IOException ioe) {
+			ioe.printStackTrace();
+			passed = false;
+		}
+		finally {
+			if (file != null)
+				file.delete();
+		}
+		System.out.println(passed ? "Pcm8DecoderTest passed" : "Pcm8DecoderTest FAILED");
+		if (!passed)
+			System.exit(1);
+	}
+
+	// Write every byte value in turn, starting half way up so the
+	// values above 127 are not all at the end
+	private static void writeFile(File file) throws IOException {
+
+		byte [] data = new byte[SAMPLES];
+		for (int i=0; i < SAMPLES; i++)
+			data[i] = (byte) (i + 128);
+
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			fos.write(data);
+		}
+		finally {
+			fos.close();
+		}
+	}
+
+	// Decode the file with the streamed decoder
+	private static short [] decodeStreamed(File file) throws IOException {
+
+		ConvertDataInputStream cdis = new ConvertDataInputStream(file.getPath());
+		try {
+			DecodePcm8UnSigned decoder = new DecodePcm8UnSigned(cdis, SAMPLES);
+			return readAll(decoder);
+		}
+		finally {
+			cdis.close();
+		}
+	}
+
+	// Decode the file with the memory mapped decoder
+	private static short [] decodeMapped(File file) throws IOException {
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			DecodeMappedPcm8 decoder =
+				new DecodeMappedPcm8(raf.getChannel(), 0, SAMPLES,
+									 DecodeMappedPcm8.UNSIGNED);
+			return readAll(decoder);
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	// Read samples from a decoder until it runs out
+	private static short [] readAll(AbstractDecoderIF decoder) {
+
+		short [] samples = new short[SAMPLES];
+		short [] buffer = new short[READSIZE];
+		int count = 0;
+		while (true) {
+			int len = decoder.getSamples(buffer, buffer.length);
+			if (len <= 0)
+				break;
+
+			len = Math.min(len, SAMPLES - count);
+			System.arraycopy(buffer, 0, samples, count, len);
+			count += len;
+		}
+		if (count != SAMPLES)
+			System.out.println(decoder.getName() + " returned " + count +
+							   " samples, expected " + SAMPLES);
+		return samples;
+	}
+
+	// Compare the two decodings sample by sample
+	private static boolean compare(short [] streamed, short [] mapped) {
+
+		int differences = 0;
+		for (int i=0; i < SAMPLES; i++) {
+			if (streamed[i] != mapped[i]) {
+				if (differences < 10)
+					System.out.println("Sample " + i + ": streamed " + streamed[i] +
+									   " mapped " + mapped[i] + " FAILED");
+				differences++;
+			}
+		}
+		System.out.println(differences + " of " + SAMPLES + " samples differ");
+		return differences == 0;
+	}
+}
@@ -0,0 +1,168 @@
+// Pipeline Float Test
+// Last Update: 10/18/26
+
+package audiostuff.craigl.test;
+
+import audiostuff.craigl.utils.*;
+import audiostuff.craigl.processors.*;
+import audiostuff.craigl.pipeline.*;
+
+/**
+ * Checks that pipelining a chain does not change its float output. A
+ * chain of devices that process float samples natively is pulled once as
+ * it is and once with a PipelineExecutor giving every device a thread of
+ * its own, and the float samples reaching the sink are compared. The
+ * source has more than 16 bits of detail, so any rounding to short
+ * samples between the devices shows up as a difference.
+ *
+ * Run with no arguments. Exits with status 1 if any sample differs.
+ */
+public class PipelineFloatTest {
+
+	private static final int SAMPLERATE = 44100;
+	private static final int CHANNELS = 2;
+	private static final int FRAMES = 44100;
+	private static final int BLOCKSIZE = 1024;
+
+	public static void main(String [] args) {
+
+		float [] pulled = run(false);
+		float [] pipelined = run(true);
+
+		int differences = 0;
+		double error = 0.0;
+		for (int i=0; i < pulled.length; i++) {
+			if (pulled[i] != pipelined[i]) {
+				differences++;
+				error = Math.max(error, Math.abs(pulled[i] - pipelined[i]));
+			}
+		}
+		System.out.println(differences + " of " + pulled.length +
+						   " samples differ, max difference " + error);
+
+		boolean passed = (differences == 0);
+		System.out.println(passed ? "PipelineFloatTest passed" : "PipelineFloatTest FAILED");
+		if (!passed)
+			System.exit(1);
+	}
+
+	// Pull the signal thru a newly built chain and return what reaches
+	// the sink
+	private static float [] run(boolean pipelined) {
+
+		TestSink sink = new TestSink(BLOCKSIZE);
+
+		LinkedListVector chain = new LinkedListVector();
+		chain.addElement(new TestSource());
+		chain.addElement(new Chorus());
+		chain.addElement(new Reverb());
+		GraphicEQ eq = new GraphicEQ();
+		eq.f100HzGain(3.0);
+		eq.f3200HzGain(0.5);
+		chain.addElement(eq);
+		chain.addElement(new PitchShifter());
+		chain.addElement(sink);
+
+		PipelineExecutor pe = null;
+		if (pipelined)
+			pe = new PipelineExecutor(chain, BLOCKSIZE);
+
+		// Negotiate just as a real sink would
+		sink.getSamplingRate();
+		sink.getNumberOfChannels();
+
+		float [] output = new float[FRAMES * CHANNELS];
+		float [] buffer = new float[BLOCKSIZE];
+		int count = 0;
+		while (count < output.length) {
+			int len = sink.getSamples(buffer, BLOCKSIZE);
+			if (len <= 0)
+				break;
+
+			len = Math.min(len, output.length - count);
+			System.arraycopy(buffer, 0, output, count, len);
+			count += len;
+		}
+		if (pe != null)
+			pe.shutdown();
+
+		return output;
+	}
+
+	/**
+	 * Source device that plays a tone with a fraction of an LSB added to
+	 * every sample
+	 */
+	private static class TestSource extends AbstractAudio {
+
+		public TestSource() {
+
+			super("Test Source", SOURCE);
+
+			frame = 0;
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return getSamplesFromFloat(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			int frames = Math.min(length / CHANNELS, FRAMES - frame);
+			if (frames <= 0)
+				return -1;
+
+			for (int i=0; i < frames; i++) {
+				double t = (double) (frame + i) / SAMPLERATE;
+				for (int ch=0; ch < CHANNELS; ch++)
+					buffer[(i * CHANNELS) + ch] = (float)
+						((8000.0 * Math.sin(2.0 * Math.PI * 220.0 * (ch + 1) * t)) +
+						 (0.37 * (ch + 1)));
+			}
+			frame += frames;
+
+			return frames * CHANNELS;
+		}
+
+		public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(SAMPLERATE);
+			max.setValue(SAMPLERATE);
+			preferred.setValue(SAMPLERATE);
+		}
+
+		public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+			min.setValue(CHANNELS);
+			max.setValue(CHANNELS);
+			preferred.setValue(CHANNELS);
+		}
+
+		// Private class data
+		private int frame;
+	}
+
+	/**
+	 * Sink device that asks the chain for a particular block size
+	 */
+	private static class TestSink extends AbstractAudio {
+
+		public TestSink(int blockSize) {
+
+			super("Test Sink", SINK);
+
+			setBlockSizeLimits(0, 0, blockSize);
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			return previous.getSamples(buffer, length);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 // Abstract Audio Class
 // Written by: Craig A. Lindley
-// Last Update: 03/02/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
@@ -35,9 +35,13 @@ public abstract class AbstractAudio {
 		
 		samplingRate = 0;
 		numberOfChannels = 0;
+		blockSize = 0;
+		minBlockSize = 0;
+		maxBlockSize = 0;
 
 		samplingRateFrozen = false;
 		numberOfChannelsFrozen = false;
+		blockSizeFrozen = false;
 
 		byPass = false;
 	}
@@ -79,6 +83,7 @@ public abstract class AbstractAudio {
 		retString += " Type: " + typeString(type);
 		retString += " Rate: " + samplingRate;
 		retString += " Channels: " + numberOfChannels;
+		retString += " Block: " + blockSize;
 		retString += " Bypass: " + byPass + ">\n";
 
 		return retString;
@@ -122,6 +127,125 @@ public abstract class AbstractAudio {
 	 */ 
 	public abstract int getSamples(short [] buffer, int length);
 
+	/**
+	 * Float version of getSamples(). Samples are in the 16 bit range
+	 * (-32768.0 .. 32767.0) but are not clamped, so a chain of devices
+	 * that override this method passes samples along without repeated
+	 * conversion, clamping or loss of precision.
+	 *
+	 * Devices that only implement the short version need not do anything;
+	 * this default implementation bridges to it. A device that processes
+	 * float samples natively overrides this method and implements the
+	 * short version by calling getSamplesFromFloat().
+	 *
+	 * @param float [] buffer is a buffer that this stage of processing
+	 * should fill with data for subsequent return to calling code.
+	 * @param int length is the number of samples that are requested
+	 *
+	 * @return int indicating the number of samples available or -1 if
+	 * the end of input or file has been reached.
+	 */
+	public int getSamples(float [] buffer, int length) {
+
+		if (shortBridgeBuffer.length < length)
+			shortBridgeBuffer = new short[length];
+
+		int len = getSamples(shortBridgeBuffer, length);
+		if (len > 0)
+			SampleConverter.shortToFloat(shortBridgeBuffer, buffer, len);
+
+		return len;
+	}
+
+	/**
+	 * Implements the short version of getSamples() for devices that
+	 * process float samples natively. Samples are clamped to the 16 bit
+	 * range on the way out.
+	 *
+	 * @param short [] buffer is the buffer to fill
+	 * @param int length is the number of samples that are requested
+	 *
+	 * @return int indicating the number of samples available or -1 if
+	 * the end of input or file has been reached.
+	 */
+	protected int getSamplesFromFloat(short [] buffer, int length) {
+
+		if (floatBridgeBuffer.length < length)
+			floatBridgeBuffer = new float[length];
+
+		int len = getSamples(floatBridgeBuffer, length);
+		if (len > 0)
+			SampleConverter.floatToShort(floatBridgeBuffer, buffer, len);
+
+		return len;
+	}
+
+	/**
+	 * Planar version of getSamples(). Each channel's samples are in a
+	 * buffer of their own rather than interleaved, so a device can run
+	 * a contiguous loop over each channel and keep its per channel state
+	 * apart. Samples use the float scale.
+	 *
+	 * Devices that only implement the interleaved versions need not do
+	 * anything; this default implementation bridges to the float version.
+	 * A device that processes planar samples natively overrides this
+	 * method and implements the float version by calling
+	 * getSamplesFromPlanar().
+	 *
+	 * @param float [][] buffers holds a buffer for each channel of the
+	 * signal path, each at least frames samples long
+	 * @param int frames is the number of samples per channel requested
+	 *
+	 * @return int indicating the number of samples per channel available
+	 * or -1 if the end of input or file has been reached.
+	 */
+	public int getSamples(float [][] buffers, int frames) {
+
+		int channels = buffers.length;
+		int length = frames * channels;
+		if (planarBridgeBuffer.length < length)
+			planarBridgeBuffer = new float[length];
+
+		int len = getSamples(planarBridgeBuffer, length);
+		if (len <= 0)
+			return len;
+
+		int available = len / channels;
+		SampleConverter.deinterleave(planarBridgeBuffer, buffers,
+									 channels, available);
+		return available;
+	}
+
+	/**
+	 * Implements the float version of getSamples() for devices that
+	 * process planar samples natively. Only whole frames, one sample for
+	 * every channel, are requested, so fewer samples than asked for may
+	 * be returned when length is not a multiple of the number of
+	 * channels.
+	 *
+	 * @param float [] buffer is the buffer to fill
+	 * @param int length is the number of samples that are requested
+	 *
+	 * @return int indicating the number of samples available or -1 if
+	 * the end of input or file has been reached.
+	 */
+	protected int getSamplesFromPlanar(float [] buffer, int length) {
+
+		int channels = Math.max(getNumberOfChannels(), 1);
+		int frames = length / channels;
+
+		if ((planarBuffers == null) || (planarBuffers.length != channels) ||
+			(planarBuffers[0].length < frames))
+			planarBuffers = new float[channels][frames];
+
+		int available = getSamples(planarBuffers, frames);
+		if (available <= 0)
+			return available;
+
+		SampleConverter.interleave(planarBuffers, buffer, channels, available);
+		return available * channels;
+	}
+
 	/**
 	 * Return the current by pass state of this device.
 	 *
@@ -142,20 +266,48 @@ public abstract class AbstractAudio {
 
 		this.byPass = byPass;
 	}
+
+	/**
+	 * Return the delay this device adds to the samples passing thru it.
+	 * Devices whose output lags their input, such as those that work in
+	 * blocks of a fixed size, override this so a Mixer can line up
+	 * parallel branches.
+	 *
+	 * @return int latency in sample frames
+	 */
+	public int getLatency() {
+
+		return 0;
+	}
 	
 	/**
 	 * Retrieve the sample rate of the signal path. If not already
 	 * set, this call with instigate negotiation.
 	 *
-	 * @return int containing the agreed upon sample rate
+	 * @return int containing the agreed upon sample rate or -1 if the
+	 * devices in the signal path could not agree on one.
 	 */
 	public int getSamplingRate() {
 		if (!samplingRateFrozen)		// Not frozen?
-			negotiateSamplingRate();	// Go figure it out
+			if (!negotiateSamplingRate())	// Go figure it out
+				return -1;
 
 		return samplingRate;			// Return sampling rate
 	}
 
+	/**
+	 * Return the sample rate this device asked for with
+	 * setSamplingRate() before negotiation. Once negotiated this is the
+	 * rate of the signal path.
+	 *
+	 * @return int containing the sample rate or zero if this device
+	 * can run at any rate.
+	 */
+	public int getDeclaredSamplingRate() {
+
+		return samplingRate;
+	}
+
 	/**
 	 * Sets the sample rate for this device if possible
 	 *
@@ -164,7 +316,7 @@ public abstract class AbstractAudio {
 	protected void setSamplingRate(int s) {
 		if (samplingRateFrozen) {
 			System.out.println("Can't change sampling rate");
-			System.exit(1);
+			return;
 		}
 		samplingRate = s;
 	}
@@ -179,11 +331,13 @@ public abstract class AbstractAudio {
 	 * is acceptable and then setSamplingRateRecursive is called to force
 	 * the agreed upon sample rate into each of the AbstractAudio devices
 	 * in the signal chain.
+	 *
+	 * @return boolean true if a sample rate was agreed upon
 	 */
-	protected void negotiateSamplingRate() {
+	protected boolean negotiateSamplingRate() {
 
 		if (next != null)					// Are we right most?
-			next.negotiateSamplingRate();	// No, propagate to the right
+			return next.negotiateSamplingRate();	// No, propagate to the right
 		else {								// Yes, we are
 			// Set reasonable defaults
 			MyInt min = new MyInt(11025);
@@ -194,9 +348,10 @@ public abstract class AbstractAudio {
 			minMaxSamplingRate(min, max, preferred);
 			if (min.getValue() > max.getValue()) {	// Check for bogus values
 				System.out.println("Couldn't negotiate sampling rate");
-				System.exit(1);
+				return false;
 			}
 			setSamplingRateRecursive(preferred.getValue()); // Set them everywhere
+			return true;
 		}
 	}
 
@@ -247,22 +402,38 @@ public abstract class AbstractAudio {
 	public void setSamplingRateRecursive(int sr) {
 
 		if (previous != null)			// Are we left most?
-			previous.setSamplingRateRecursive(sr);
+			previous.setSamplingRateRecursive(upstreamSamplingRate(sr));
 
 		setSamplingRate(sr);			// Set it
 		samplingRateFrozen = true;		// Yes, we've negotiated
 	}
 
+	/**
+	 * Return the sampling rate the devices before this one should run
+	 * at when this device runs at sr. Only devices that change the
+	 * sampling rate, such as a Resampler, override this.
+	 *
+	 * @param int sr is the sampling rate of this device
+	 *
+	 * @return int containing the sampling rate of the previous device
+	 */
+	protected int upstreamSamplingRate(int sr) {
+
+		return sr;
+	}
+
 	/**
 	 * Retrieve the number of channel of the signal path. If not already
 	 * set, this call with instigate negotiation.
 	 *
-	 * @return int containing the agreed upon number of channels
+	 * @return int containing the agreed upon number of channels or -1
+	 * if the devices in the signal path could not agree on a number.
 	 */
 	public int getNumberOfChannels() {
 	
 		if (!numberOfChannelsFrozen)
-			negotiateNumberOfChannels();
+			if (!negotiateNumberOfChannels())
+				return -1;
 
 		return numberOfChannels;
 	}
@@ -275,7 +446,7 @@ public abstract class AbstractAudio {
 	protected void setNumberOfChannels(int channels) {
 		if (numberOfChannelsFrozen) {
 			System.out.println("Can't change number of channels");
-			System.exit(1);
+			return;
 		}
 		numberOfChannels = channels;
 	}
@@ -290,24 +461,27 @@ public abstract class AbstractAudio {
 	 * is acceptable and then setChannelsRecursive is called to force
 	 * the agreed upon number of channels into each of the AbstractAudio devices
 	 * in the signal chain.
+	 *
+	 * @return boolean true if a number of channels was agreed upon
 	 */
-	protected void negotiateNumberOfChannels() {
+	protected boolean negotiateNumberOfChannels() {
 
 		if (next != null)						// Are we right most device?
-			next.negotiateNumberOfChannels();	// Move towards the right
+			return next.negotiateNumberOfChannels();	// Move towards the right
 		else {
 			// Set default values
 			MyInt min = new MyInt(1);
-			MyInt max = new MyInt(2);
+			MyInt max = new MyInt(AudioConstants.MAXCHANNELS);
 			MyInt preferred = new MyInt(1);
 
 			// Negotiate for the real values
 			minMaxChannels(min, max, preferred);
 			if (min.getValue() > max.getValue()) {
 				System.out.println("Couldn't negotiate channels");
-				System.exit(1);
+				return false;
 			}
 			setChannelsRecursive(preferred.getValue());
+			return true;
 		}
 	}
 
@@ -351,8 +525,8 @@ public abstract class AbstractAudio {
 	 * in the signal chain and then on return sets the number of channels
 	 * variable in each stage of the chain.
 	 * 
-	 * @param int ch is the number of channels to set either 1 for mono or
-	 * 2 for stereo.
+	 * @param int ch is the number of channels to set, 1 for mono, 2 for
+	 * stereo and up to AudioConstants.MAXCHANNELS for surround formats.
 	 */
 	public void setChannelsRecursive(int ch) {
 
@@ -365,6 +539,150 @@ public abstract class AbstractAudio {
 		numberOfChannelsFrozen = true;
 	}
 
+	/**
+	 * Retrieve the block size of the signal path. This is the number of
+	 * samples (counting each channel's sample separately) requested by
+	 * each getSamples() call. Devices use it to size their buffers. If not
+	 * already set, this call will instigate negotiation.
+	 *
+	 * @return int containing the agreed upon block size or -1 if the
+	 * devices in the signal path could not agree on one.
+	 */
+	public int getBlockSize() {
+
+		if (!blockSizeFrozen)
+			if (!negotiateBlockSize())
+				return -1;
+
+		return blockSize;
+	}
+
+	/**
+	 * Sets the block size for this device if possible
+	 *
+	 * @param int size is the block size to set
+	 */
+	protected void setBlockSize(int size) {
+		if (blockSizeFrozen) {
+			System.out.println("Can't change block size");
+			return;
+		}
+		blockSize = size;
+	}
+
+	/**
+	 * Declare the range of block sizes this device can work with and
+	 * the size it would prefer. Must be called before negotiation occurs.
+	 * A value of zero means this device has no requirement for that
+	 * parameter. Calling this on the sink with a small preferred size is
+	 * how an application asks for a low latency signal path.
+	 *
+	 * @param int min is the smallest block size this device accepts
+	 * @param int max is the largest block size this device accepts
+	 * @param int preferred is the block size this device prefers
+	 */
+	public void setBlockSizeLimits(int min, int max, int preferred) {
+
+		setBlockSize(preferred);
+		minBlockSize = min;
+		maxBlockSize = max;
+	}
+
+	/**
+	 * Called to instigate block size negotiation in the signal chain
+	 * of AbstractAudio devices. This works the same way as sampling rate
+	 * negotiation. The call propagates towards the sink, where default
+	 * values are set and minMaxBlockSize is called to gather the limits
+	 * of all devices. The agreed upon value is then forced into each
+	 * device by setBlockSizeRecursive.
+	 *
+	 * @return boolean true if a block size was agreed upon
+	 */
+	protected boolean negotiateBlockSize() {
+
+		if (next != null)					// Are we right most?
+			return next.negotiateBlockSize();	// No, propagate to the right
+		else {								// Yes, we are
+			// Set reasonable defaults
+			MyInt min = new MyInt(AudioConstants.MINBLOCKSIZE);
+			MyInt max = new MyInt(AudioConstants.MAXBLOCKSIZE);
+			MyInt preferred = new MyInt(AudioConstants.SAMPLEBUFFERSIZE);
+
+			// Get the real values
+			minMaxBlockSize(min, max, preferred);
+			if (min.getValue() > max.getValue()) {	// Check for bogus values
+				System.out.println("Couldn't negotiate block size");
+				return false;
+			}
+			// Keep blocks a whole number of frames. Channels may not be
+			// known yet when a device asks for the block size while
+			// channels are being negotiated, in which case whole stereo
+			// pairs are kept as before.
+			int frame = numberOfChannelsFrozen ? numberOfChannels : 2;
+			int size = preferred.getValue() - (preferred.getValue() % frame);
+			while (size < min.getValue())
+				size += frame;
+
+			setBlockSizeRecursive(size);	// Set it everywhere
+			return true;
+		}
+	}
+
+	/**
+	 * Called to find the min, preferred and max values for block size
+	 * the devices in the signal path find acceptable. Unlike sampling
+	 * rate, each device narrows the min and max values by the limits it
+	 * declared with setBlockSizeLimits. Devices with other requirements
+	 * can override this method.
+	 *
+	 * @param MyInt min is the wrapped minimum block size this signal
+	 * path can tolerate.
+	 * @param MyInt max is the wrapped maximum block size this signal
+	 * path can tolerate.
+	 * @param MyInt preferred is the wrapped block size this signal
+	 * path prefers.
+	 */
+	public void minMaxBlockSize(MyInt min, MyInt max, MyInt preferred) {
+
+		// Propagate call until first device in chain is located
+		if (previous != null)
+			previous.minMaxBlockSize(min, max, preferred);
+
+		// Narrow the range by this stage's limits
+		if ((minBlockSize != 0) && (minBlockSize > min.getValue()))
+			min.setValue(minBlockSize);
+
+		if ((maxBlockSize != 0) && (maxBlockSize < max.getValue()))
+			max.setValue(maxBlockSize);
+
+		// Does this stage have a block size preference?
+		if (blockSize != 0)
+			preferred.setValue(blockSize);
+
+		// Force preferred value to be within min, max range
+		if (preferred.getValue() < min.getValue())
+			preferred.setValue(min.getValue());
+
+		if (preferred.getValue() > max.getValue())
+			preferred.setValue(max.getValue());
+	}
+
+	/**
+	 * Causes all the device stages to have their block size set
+	 * to the specified value.
+	 *
+	 * @param int size is the block size that was negotiated and needs
+	 * therefore to be set into each stage.
+	 */
+	public void setBlockSizeRecursive(int size) {
+
+		if (previous != null)			// Are we left most?
+			previous.setBlockSizeRecursive(size);
+
+		setBlockSize(size);				// Set it
+		blockSizeFrozen = true;			// Yes, we've negotiated
+	}
+
 	/**
 	 * Override this method if reset functionality is required
 	 * for your AbstractAudio device derivative. If not overridden
@@ -457,7 +775,15 @@ public abstract class AbstractAudio {
 	private int type;
 	private int samplingRate;
 	private int numberOfChannels;
+	private int blockSize;
+	private int minBlockSize;
+	private int maxBlockSize;
 	private boolean samplingRateFrozen;
 	private boolean numberOfChannelsFrozen;
+	private boolean blockSizeFrozen;
 	private boolean byPass;
+	private short [] shortBridgeBuffer = new short[0];
+	private float [] floatBridgeBuffer = new float[0];
+	private float [] planarBridgeBuffer = new float[0];
+	private float [][] planarBuffers;
 }
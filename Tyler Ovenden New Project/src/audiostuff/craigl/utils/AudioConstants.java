@@ -1,6 +1,6 @@
 // Audio Constants
 // Written by: Craig A. Lindley
-// Last Update: 01/09/99
+// Last Update: 10/18/26
 
 // Various constants used throughout the code. A change to
 // these and a recompile will ripple through the code.
@@ -12,8 +12,22 @@ import java.awt.Color;
 public class AudioConstants {
 
 	// Size of buffer used throughout the code
+	// This is also the block size a signal chain prefers when none
+	// of its devices ask for a different one.
 	public static final int SAMPLEBUFFERSIZE = 7500;
 
+	// Range of block sizes a signal chain may negotiate
+	public static final int MINBLOCKSIZE = 32;
+	public static final int MAXBLOCKSIZE = 65536;
+
+	// Largest number of channels a signal chain may negotiate. Enough
+	// for 7.1 surround.
+	public static final int MAXCHANNELS = 8;
+
+	// Channel count at which processors spread their channels across
+	// threads
+	public static final int PARALLELCHANNELS = 4;
+
 	public static final Color PANELCOLOR = 
 		new Color((float) 0.87, (float) 0.72, (float) 0.53);
 	
@@ -0,0 +1,284 @@
+// Buffered Sample Writer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes 16 bit samples to a FileChannel through large direct buffers.
+ * Samples are put into a buffer in bulk through a ShortBuffer view in the
+ * file's byte order and the buffer is written to the channel in one call
+ * once it is full, so the cost per sample is little more than a memory
+ * copy.
+ *
+ * With write behind enabled the full buffers are handed to a separate
+ * thread that writes them while the caller goes on filling the next one,
+ * so producing samples and disk output overlap. Buffers are filled and
+ * written in turn, so two counters are all the bookkeeping needed. All
+ * buffers are allocated when the writer is created and are recycled, so
+ * writing never allocates.
+ * An error on the write behind thread is reported by the next call to
+ * write() or close().
+ *
+ * Samples are written at the channel's current position. Headers may be
+ * written anywhere with writeAt() once close() has flushed the samples.
+ */
+public class BufferedSampleWriter {
+
+	// Size of each buffer in bytes
+	public static final int BUFFERBYTES = 1 << 20;
+
+	// Number of buffers used for write behind
+	private static final int WRITEBEHINDBUFFERS = 4;
+
+	/**
+	 * BufferedSampleWriter class constructor
+	 *
+	 * @param FileChannel fc is the channel to write to
+	 * @param ByteOrder order is the byte order of the samples in the file
+	 * @param boolean writeBehind is true to write on a separate thread
+	 */
+	public BufferedSampleWriter(FileChannel fc, ByteOrder order,
+								boolean writeBehind) {
+
+		// Save incoming
+		this.fc = fc;
+
+		int count = writeBehind ? WRITEBEHINDBUFFERS : 1;
+		bytes = new ByteBuffer[count];
+		shorts = new ShortBuffer[count];
+		for (int i=0; i < count; i++) {
+			bytes[i] = ByteBuffer.allocateDirect(BUFFERBYTES).order(order);
+			shorts[i] = bytes[i].asShortBuffer();
+		}
+		current = 0;
+		bytesWritten = 0;
+
+		if (writeBehind) {
+			lock = new Object();
+			writer = new Thread(new Runnable() {
+				public void run() {
+					writeBehind();
+				}
+			}, "Write Behind");
+			writer.setDaemon(true);
+			writer.start();
+		}
+	}
+
+	/**
+	 * Write samples
+	 *
+	 * @param short [] samples holds the samples to write
+	 * @param int length is the number of samples to write
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public void write(short [] samples, int length) throws IOException {
+
+		checkError();
+
+		int done = 0;
+		while (done < length) {
+			ShortBuffer sb = shorts[current];
+			int count = Math.min(length - done, sb.remaining());
+			sb.put(samples, done, count);
+			done += count;
+
+			if (!sb.hasRemaining())
+				flushBuffer();
+		}
+		bytesWritten += 2L * length;
+	}
+
+	/**
+	 * Return the number of sample bytes written so far
+	 *
+	 * @return long containing the byte count
+	 */
+	public long getBytesWritten() {
+
+		return bytesWritten;
+	}
+
+	/**
+	 * Write any buffered samples and wait until they are all in the file.
+	 * Stops the write behind thread. The channel is left open.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public void close() throws IOException {
+
+		if (closed)
+			return;
+
+		if (shorts[current].position() != 0)
+			flushBuffer();
+
+		if (writer != null) {
+			synchronized (lock) {
+				stopping = true;
+				lock.notifyAll();
+			}
+			try {
+				writer.join();
+			}
+			catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing");
+			}
+		}
+		closed = true;
+		checkError();
+	}
+
+	/**
+	 * Give up writing. Samples not yet written are dropped and the write
+	 * behind thread is stopped and waited for, so the channel may then be
+	 * closed safely. Does nothing once close() has finished.
+	 */
+	public void abort() {
+
+		if (closed)
+			return;
+
+		if (writer != null) {
+			synchronized (lock) {
+				aborting = true;
+				stopping = true;
+				lock.notifyAll();
+			}
+			try {
+				writer.join();
+			}
+			catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		closed = true;
+	}
+
+	/**
+	 * Write bytes at a position in the file. Used to fill in headers after
+	 * close() has been called.
+	 *
+	 * @param ByteBuffer bb holds the bytes to write
+	 * @param long position is the file offset to write at
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public void writeAt(ByteBuffer bb, long position) throws IOException {
+
+		while (bb.hasRemaining())
+			position += fc.write(bb, position);
+	}
+
+	// Send the current buffer to the file and move to an empty one
+	private void flushBuffer() throws IOException {
+
+		ByteBuffer bb = bytes[current];
+		bb.position(0);
+		bb.limit(shorts[current].position() * 2);
+
+		if (writer == null) {
+			// Write it here and now
+			writeBuffer(bb);
+			bb.clear();
+			shorts[current].clear();
+			return;
+		}
+
+		// Hand it to the writer and wait until the next one is written
+		synchronized (lock) {
+			filled++;
+			lock.notifyAll();
+
+			try {
+				while (filled - written >= bytes.length)
+					lock.wait();
+			}
+			catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing");
+			}
+		}
+		current = (current + 1) % bytes.length;
+		checkError();
+	}
+
+	// Body of the write behind thread
+	private void writeBehind() {
+
+		try {
+			while (true) {
+				synchronized (lock) {
+					while ((written == filled) && !stopping)
+						lock.wait();
+
+					if ((written == filled) || aborting)
+						return;			// Stopping and all written
+				}
+				int i = (int) (written % bytes.length);
+				ByteBuffer bb = bytes[i];
+
+				// Once an error occurs just recycle the buffers
+				if (error == null) {
+					try {
+						writeBuffer(bb);
+					}
+					catch(IOException ioe) {
+						error = ioe;
+					}
+					catch(RuntimeException re) {
+						// Such as a channel not open for writing. The
+						// buffers must still be recycled or the caller
+						// would wait for them forever.
+						error = new IOException("Write behind failed", re);
+					}
+				}
+				bb.clear();
+				shorts[i].clear();
+
+				synchronized (lock) {
+					written++;
+					lock.notifyAll();
+				}
+			}
+		}
+		catch(InterruptedException ie) {
+			error = new InterruptedIOException("Write behind interrupted");
+		}
+	}
+
+	// Write a whole buffer at the channel's position
+	private void writeBuffer(ByteBuffer bb) throws IOException {
+
+		while (bb.hasRemaining())
+			fc.write(bb);
+	}
+
+	// Report an error from the write behind thread
+	private void checkError() throws IOException {
+
+		if (error != null)
+			throw error;
+	}
+
+	// Private class data
+	private FileChannel fc;
+	private ByteBuffer [] bytes;
+	private ShortBuffer [] shorts;
+	private int current;
+	private long bytesWritten;
+	private boolean closed;
+	private Thread writer;
+	private Object lock;
+	private long filled;
+	private long written;
+	private boolean stopping;
+	private boolean aborting;
+	private volatile IOException error;
+}
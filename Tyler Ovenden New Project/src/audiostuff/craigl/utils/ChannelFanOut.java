@@ -0,0 +1,148 @@
+// Channel Fan Out Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a ChannelProcessorIF over every channel of a block. With few
+ * channels the channels are simply processed one after another on the
+ * calling thread. From AudioConstants.PARALLELCHANNELS channels up, and
+ * when there is more than one processor, the channels are handed to a
+ * pool of worker threads shared by all devices and run() returns once
+ * every channel is done.
+ *
+ * The tasks are created once and reused for every block so running a
+ * block allocates nothing. The channels must not share any state that
+ * is written while they are processed.
+ */
+public class ChannelFanOut {
+
+	/**
+	 * ChannelFanOut class constructor
+	 *
+	 * @param int channels is the number of channels to run
+	 * @param ChannelProcessorIF processor does the work for each channel
+	 */
+	public ChannelFanOut(int channels, ChannelProcessorIF processor) {
+
+		this(channels, processor, AudioConstants.PARALLELCHANNELS);
+	}
+
+	/**
+	 * ChannelFanOut class constructor for work other than channels, such
+	 * as the branches of a Mixer, that is worth spreading across threads
+	 * from a different count
+	 *
+	 * @param int channels is the number of channels to run
+	 * @param ChannelProcessorIF processor does the work for each channel
+	 * @param int parallelChannels is the channel count from which the
+	 * channels are run in parallel
+	 */
+	public ChannelFanOut(int channels, ChannelProcessorIF processor,
+						 int parallelChannels) {
+
+		if (channels < 1)
+			throw new IllegalArgumentException("At least one channel is required");
+
+		// Save incoming
+		this.channels = channels;
+		this.processor = processor;
+
+		parallel = (channels >= parallelChannels) &&
+				   (Runtime.getRuntime().availableProcessors() > 1);
+
+		if (parallel) {
+			tasks = new ChannelTask[channels];
+			for (int ch=0; ch < channels; ch++)
+				tasks[ch] = new ChannelTask(processor, ch);
+			root = new RootTask(tasks);
+		}
+	}
+
+	/**
+	 * Return whether the channels run on separate threads
+	 *
+	 * @return boolean true if the channels are run in parallel
+	 */
+	public boolean isParallel() {
+
+		return parallel;
+	}
+
+	/**
+	 * Process every channel and wait for all of them to finish
+	 */
+	public void run() {
+
+		if (!parallel) {
+			for (int ch=0; ch < channels; ch++)
+				processor.processChannel(ch);
+			return;
+		}
+
+		for (int ch=0; ch < channels; ch++)
+			tasks[ch].reinitialize();
+		root.reinitialize();
+
+		getPool().invoke(root);
+	}
+
+	// Return the pool shared by all devices, creating it on first use
+	private static synchronized ForkJoinPool getPool() {
+
+		if (pool == null)
+			pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+		return pool;
+	}
+
+	// Processes one channel
+	private static class ChannelTask extends RecursiveAction {
+
+		ChannelTask(ChannelProcessorIF processor, int channel) {
+
+			this.processor = processor;
+			this.channel = channel;
+		}
+
+		protected void compute() {
+
+			processor.processChannel(channel);
+		}
+
+		private static final long serialVersionUID = 1L;
+
+		private ChannelProcessorIF processor;
+		private int channel;
+	}
+
+	// Runs all of the channel tasks and waits for them
+	private static class RootTask extends RecursiveAction {
+
+		RootTask(ChannelTask [] tasks) {
+
+			this.tasks = tasks;
+		}
+
+		protected void compute() {
+
+			ForkJoinTask.invokeAll(tasks);
+		}
+
+		private static final long serialVersionUID = 1L;
+
+		private ChannelTask [] tasks;
+	}
+
+	// Private class data
+	private static ForkJoinPool pool;
+	private int channels;
+	private ChannelProcessorIF processor;
+	private boolean parallel;
+	private ChannelTask [] tasks;
+	private RootTask root;
+}
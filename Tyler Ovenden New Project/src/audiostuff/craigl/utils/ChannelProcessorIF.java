@@ -0,0 +1,12 @@
+// Channel Processor Interface
+// Last Update: 10/18/26
+
+// Implemented by devices that process each channel of a block on its own
+// so ChannelFanOut can spread the channels across threads
+
+package audiostuff.craigl.utils;
+
+public interface ChannelProcessorIF {
+
+	public void processChannel(int channel);
+}
@@ -1,10 +1,12 @@
 // DecodeG711MuLaw Class 
 // Written by: Craig A. Lindley
-// Last Update: 04/25/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 
 public class DecodeG711MuLaw implements AbstractDecoderIF {
 
@@ -15,16 +17,35 @@ public class DecodeG711MuLaw implements AbstractDecoderIF {
 		this.cdis = cdis;
 		this.totalSamples = totalSamples;
 
+		// Data is read through the file's channel into a buffer that is
+		// reused for every call
+		channel = cdis.getChannel();
+		buffer = new DirectReadBuffer(ByteOrder.nativeOrder());
+
 		// Prepare mulaw decoding table for converting 8 bit mulaw samples
 		// to 16 bit samples
+		muLawTable = getMuLawTable();
+	}
+
+	/**
+	 * Return the table used to convert mulaw samples to 16 bit samples.
+	 * The table is indexed by the signed value of the mulaw byte plus 128.
+	 *
+	 * @return short [] holding the 256 entry table
+	 */
+	public static synchronized short [] getMuLawTable() {
+
 		if (muLawTable == null) {
 			// Allocate space for table
-			muLawTable = new short[256];
+			short [] table = new short[256];
 
 			// And initialize it with sample values
 			for (int i=0; i < 256; i++)
-				muLawTable[i] = createMuLawTableEntry(i);
+				table[i] = createMuLawTableEntry(i);
+
+			muLawTable = table;
 		}
+		return muLawTable;
 	}
 	
 	public String getName() {
@@ -33,7 +54,7 @@ public class DecodeG711MuLaw implements AbstractDecoderIF {
 	}
 
 	// Create a mu law sample value corresponding to binary index
-	private short createMuLawTableEntry(int index) {
+	private static short createMuLawTableEntry(int index) {
 
 		index = ~index;
 		int exponent = (index >> 4) & 0x7;
@@ -54,12 +75,10 @@ public class DecodeG711MuLaw implements AbstractDecoderIF {
 		}	else
 			totalSamples -= length;
 		
-		byte [] byteBuffer = new byte[length];
-		
 		// Read the data
 		int bytesRead;
 		try {
-			bytesRead = cdis.read(byteBuffer, 0, length);
+			bytesRead = buffer.read(channel, length);
 			if (bytesRead == -1)
 				return -1;
 		}
@@ -67,10 +86,11 @@ public class DecodeG711MuLaw implements AbstractDecoderIF {
 			ioe.printStackTrace();
 			return -1;
 		}
+		ByteBuffer byteBuffer = buffer.getBytes();
 			
 		for (int i=0; i < bytesRead; i++) {
 			// Make unsigned index for table lookup
-			int index = (int) byteBuffer[i] + 128;
+			int index = (int) byteBuffer.get(i) + 128;
 
 			// Lookup the sample value to return
 			sampleBuffer[i] = muLawTable[index];
@@ -81,5 +101,7 @@ public class DecodeG711MuLaw implements AbstractDecoderIF {
 	// Private class data
 	private ConvertDataInputStream cdis;
 	private long totalSamples;
+	private FileChannel channel;
+	private DirectReadBuffer buffer;
 	private static short [] muLawTable = null;
 }
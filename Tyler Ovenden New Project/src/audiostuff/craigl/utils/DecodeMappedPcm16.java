@@ -0,0 +1,65 @@
+// DecodeMappedPcm16 Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Decoder for 16 bit signed PCM samples in a memory mapped file. The
+ * samples are copied out of a ShortBuffer view of each mapped segment,
+ * which takes care of the byte order, so no per sample conversion code
+ * is needed.
+ */
+public class DecodeMappedPcm16 extends MappedDecoder {
+
+	/**
+	 * DecodeMappedPcm16 class constructor
+	 *
+	 * @param FileChannel fc is the channel of the open audio file
+	 * @param long dataPosition is the file offset of the first sample
+	 * @param long totalSamples is the number of samples in the file
+	 * @param ByteOrder order is ByteOrder.LITTLE_ENDIAN for WAV files and
+	 * ByteOrder.BIG_ENDIAN for AU files.
+	 *
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public DecodeMappedPcm16(FileChannel fc, long dataPosition,
+							 long totalSamples, ByteOrder order)
+		throws IOException {
+
+		super(fc, dataPosition, totalSamples, 2);
+
+		// Save incoming
+		this.order = order;
+
+		int segments = (int) ((getTotalSamples() * 2 + SEGMENTBYTES - 1) /
+							  SEGMENTBYTES);
+		views = new ShortBuffer[segments];
+		for (int i=0; i < segments; i++) {
+			ByteBuffer bb = getSegment(i).duplicate();
+			views[i] = bb.order(order).asShortBuffer();
+		}
+	}
+
+	public String getName() {
+
+		return (order == ByteOrder.LITTLE_ENDIAN) ?
+			"DecodeMappedPcm16LE decompressor" :
+			"DecodeMappedPcm16BE decompressor";
+	}
+
+	protected void decode(int segment, int offset, short [] sampleBuffer,
+						  int bufferOffset, int count) {
+
+		ShortBuffer sb = views[segment];
+		sb.position(offset);
+		sb.get(sampleBuffer, bufferOffset, count);
+	}
+
+	// Private class data
+	private ByteOrder order;
+	private ShortBuffer [] views;
+}
@@ -0,0 +1,89 @@
+// DecodeMappedPcm8 Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Decoder for 8 bit samples in a memory mapped file. Every 8 bit
+ * encoding is converted by looking the byte up in a 256 entry table, so
+ * unsigned PCM, signed PCM and G711 mu-law samples are all handled here.
+ */
+public class DecodeMappedPcm8 extends MappedDecoder {
+
+	// Sample encodings
+	public static final int UNSIGNED	= 0;
+	public static final int SIGNED		= 1;
+	public static final int MULAW		= 2;
+
+	/**
+	 * DecodeMappedPcm8 class constructor
+	 *
+	 * @param FileChannel fc is the channel of the open audio file
+	 * @param long dataPosition is the file offset of the first sample
+	 * @param long totalSamples is the number of samples in the file
+	 * @param int encoding is UNSIGNED, SIGNED or MULAW
+	 *
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public DecodeMappedPcm8(FileChannel fc, long dataPosition,
+							long totalSamples, int encoding)
+		throws IOException {
+
+		super(fc, dataPosition, totalSamples, 1);
+
+		// Save incoming
+		this.encoding = encoding;
+
+		// Build the table indexed by the unsigned value of each byte
+		table = new short[256];
+		short [] muLawTable = DecodeG711MuLaw.getMuLawTable();
+		for (int i=0; i < 256; i++) {
+			switch (encoding) {
+				case UNSIGNED:
+					table[i] = (short) ((i - 128) << 8);
+					break;
+
+				case SIGNED:
+					table[i] = (short) (((byte) i) << 8);
+					break;
+
+				case MULAW:
+					// Indexed the same way DecodeG711MuLaw indexes it
+					table[i] = muLawTable[((byte) i) + 128];
+					break;
+
+				default:
+					throw new IllegalArgumentException(
+						"Unknown encoding " + encoding);
+			}
+		}
+	}
+
+	public String getName() {
+
+		switch (encoding) {
+			case UNSIGNED:
+				return "DecodeMappedPcm8UnSigned decompressor";
+			case SIGNED:
+				return "DecodeMappedPcm8Signed decompressor";
+			default:
+				return "DecodeMappedG711MuLaw decompressor";
+		}
+	}
+
+	protected void decode(int segment, int offset, short [] sampleBuffer,
+						  int bufferOffset, int count) {
+
+		ByteBuffer bb = getSegment(segment);
+		for (int i=0; i < count; i++)
+			sampleBuffer[bufferOffset + i] = table[bb.get(offset + i) & 255];
+	}
+
+	// Private class data
+	private int encoding;
+	private short [] table;
+}
@@ -1,10 +1,12 @@
 // DecodePcm16LESigned Class
 // Written by: Craig A. Lindley
-// Last Update: 09/13/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 
 public class DecodePcm16LESigned implements AbstractDecoderIF {
 
@@ -13,6 +15,11 @@ public class DecodePcm16LESigned implements AbstractDecoderIF {
 		// Save incoming
 		this.cdis = cdis;
 		this.totalSamples = totalSamples;
+
+		// Data is read through the file's channel into a buffer that is
+		// reused for every call
+		channel = cdis.getChannel();
+		buffer = new DirectReadBuffer(ByteOrder.LITTLE_ENDIAN);
 	}
 	
 	public String getName() {
@@ -31,13 +38,10 @@ public class DecodePcm16LESigned implements AbstractDecoderIF {
 		}	else
 			totalSamples -= length;
 		
-		int byteLength = 2 * length;
-		byte [] byteBuffer = new byte[byteLength];
-		
 		// Read the data
 		int bytesRead;
 		try {
-			bytesRead = cdis.read(byteBuffer, 0, byteLength);
+			bytesRead = buffer.read(channel, 2 * length);
 			if (bytesRead == -1)
 				return -1;
 		}
@@ -46,17 +50,17 @@ public class DecodePcm16LESigned implements AbstractDecoderIF {
 			return -1;
 		}
 		int count = bytesRead / 2;
-		int index = 0;
 
-		for (int i=0; i < count; i++) {
-			sampleBuffer[i] = (short)((((int) byteBuffer[index++]) & 255) + 
-									  (((int) byteBuffer[index++]) << 8));
-		}
+		// The buffer's view takes care of the byte order
+		buffer.getShorts(sampleBuffer, count);
+
 		return count;
 	}
 
 	// Private class data
 	private ConvertDataInputStream cdis;
 	private long totalSamples;
+	private FileChannel channel;
+	private DirectReadBuffer buffer;
 }
 
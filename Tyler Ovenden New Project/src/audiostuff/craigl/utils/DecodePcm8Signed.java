@@ -1,10 +1,12 @@
 // DecodePcm8Signed Class
 // Written by: Craig A. Lindley
-// Last Update: 04/25/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 
 public class DecodePcm8Signed implements AbstractDecoderIF {
 
@@ -14,6 +16,11 @@ public class DecodePcm8Signed implements AbstractDecoderIF {
 		// Save incoming
 		this.cdis = cdis;
 		this.totalSamples = totalSamples;
+
+		// Data is read through the file's channel into a buffer that is
+		// reused for every call
+		channel = cdis.getChannel();
+		buffer = new DirectReadBuffer(ByteOrder.nativeOrder());
 	}
 	
 	public String getName() {
@@ -33,12 +40,10 @@ public class DecodePcm8Signed implements AbstractDecoderIF {
 		}	else
 			totalSamples -= length;
 		
-		byte [] byteBuffer = new byte[length];
-		
 		// Read the data
 		int bytesRead;
 		try {
-			bytesRead = cdis.read(byteBuffer, 0, length);
+			bytesRead = buffer.read(channel, length);
 			if (bytesRead == -1)
 				return -1;
 		}
@@ -46,9 +51,10 @@ public class DecodePcm8Signed implements AbstractDecoderIF {
 			ioe.printStackTrace();
 			return -1;
 		}
+		ByteBuffer byteBuffer = buffer.getBytes();
 			
 		for (int i=0; i < bytesRead; i++) {
-			int s = (int) byteBuffer[i];
+			int s = (int) byteBuffer.get(i);
 			sampleBuffer[i] = (short)(s << 8);
 		} 
 		return bytesRead;
@@ -57,4 +63,6 @@ public class DecodePcm8Signed implements AbstractDecoderIF {
 	// Private class data
 	private ConvertDataInputStream cdis;
 	private long totalSamples;
-}
+	private FileChannel channel;
+	private DirectReadBuffer buffer;
+}
@@ -1,10 +1,12 @@
 // DecodePcm8UnSigned Class
 // Written by: Craig A. Lindley
-// Last Update: 04/25/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 
 public class DecodePcm8UnSigned implements AbstractDecoderIF {
 
@@ -14,6 +16,11 @@ public class DecodePcm8UnSigned implements AbstractDecoderIF {
 		// Save incoming
 		this.cdis = cdis;
 		this.totalSamples = totalSamples;
+
+		// Data is read through the file's channel into a buffer that is
+		// reused for every call
+		channel = cdis.getChannel();
+		buffer = new DirectReadBuffer(ByteOrder.nativeOrder());
 	}
 	
 	public String getName() {
@@ -32,12 +39,10 @@ public class DecodePcm8UnSigned implements AbstractDecoderIF {
 		}	else
 			totalSamples -= length;
 
-		byte [] byteBuffer = new byte[length];
-		
 		// Read the data
 		int bytesRead;
 		try {
-			bytesRead = cdis.read(byteBuffer, 0, length);
+			bytesRead = buffer.read(channel, length);
 			if (bytesRead == -1)
 				return -1;
 		}
@@ -45,9 +50,10 @@ public class DecodePcm8UnSigned implements AbstractDecoderIF {
 			ioe.printStackTrace();
 			return -1;
 		}
+		ByteBuffer byteBuffer = buffer.getBytes();
 			
 		for (int i=0; i < bytesRead; i++) {
-			int s = (int) byteBuffer[i];
+			int s = byteBuffer.get(i) & 255;
 			sampleBuffer[i] = (short)((s - 128) << 8);
 		} 
 		return bytesRead;
@@ -56,4 +62,6 @@ public class DecodePcm8UnSigned implements AbstractDecoderIF {
 	// Private class data
 	private ConvertDataInputStream cdis;
 	private long totalSamples;
-}
+	private FileChannel channel;
+	private DirectReadBuffer buffer;
+}
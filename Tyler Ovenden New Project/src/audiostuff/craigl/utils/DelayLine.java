@@ -0,0 +1,241 @@
+// Delay Line Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * A circular delay line of float samples shared by the delay based
+ * processors. The capacity is a power of two so positions wrap with a
+ * mask rather than a division, and the write position is the only state
+ * that moves.
+ *
+ * Samples are written one at a time with write() or a block at a time.
+ * A read names how long ago the sample it wants was written: read(1) is
+ * the sample written by the last write(), read(d) the one written d
+ * writes ago. The usual processing loop reads the delayed sample first
+ * and then writes the input plus any feedback. Reads between samples
+ * interpolate linearly, with a four point cubic or with a first order
+ * allpass filter, which keeps the high frequencies of a slowly moving
+ * tap that the other two dull.
+ *
+ * A delay line grows by making a bigger one and copying the history of
+ * the old one into it with copyHistory(), so a delay may be lengthened
+ * without losing the signal it holds.
+ */
+public class DelayLine {
+
+	/**
+	 * DelayLine class constructor
+	 *
+	 * @param int maxDelay is the longest delay, in samples, that will be
+	 * read. Cubic reads may reach two samples beyond it.
+	 */
+	public DelayLine(int maxDelay) {
+
+		if (maxDelay < 1)
+			throw new IllegalArgumentException("Delay must be at least one sample");
+
+		// Leave room for the points either side of a cubic read
+		int capacity = 1;
+		while (capacity < maxDelay + CUBICREACH)
+			capacity <<= 1;
+
+		line = new float[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Return the number of samples the delay line holds
+	 *
+	 * @return int containing the capacity, a power of two
+	 */
+	public int getCapacity() {
+
+		return line.length;
+	}
+
+	/**
+	 * Return the longest delay that may be read
+	 *
+	 * @return int containing the delay in samples
+	 */
+	public int getMaxDelay() {
+
+		return line.length - CUBICREACH;
+	}
+
+	/**
+	 * Write the next sample
+	 *
+	 * @param float sample is the sample to write
+	 */
+	public void write(float sample) {
+
+		line[writeIndex] = sample;
+		writeIndex = (writeIndex + 1) & mask;
+	}
+
+	/**
+	 * Write a block of samples
+	 *
+	 * @param float [] buffer holds the samples
+	 * @param int offset is the index in buffer of the first sample
+	 * @param int count is the number of samples to write
+	 */
+	public void write(float [] buffer, int offset, int count) {
+
+		while (count > 0) {
+			int n = Math.min(count, line.length - writeIndex);
+			System.arraycopy(buffer, offset, line, writeIndex, n);
+			writeIndex = (writeIndex + n) & mask;
+			offset += n;
+			count -= n;
+		}
+	}
+
+	/**
+	 * Read the sample written delay writes ago
+	 *
+	 * @param int delay is at least one and at most getMaxDelay()
+	 *
+	 * @return float containing the sample
+	 */
+	public float read(int delay) {
+
+		return line[(writeIndex - delay) & mask];
+	}
+
+	/**
+	 * Read a block of samples, the oldest first. The block starts with
+	 * the sample written delay writes ago, so with a delay of at least
+	 * count it holds what read(delay) would return for each of the next
+	 * count samples.
+	 *
+	 * @param float [] buffer receives the samples
+	 * @param int offset is the index in buffer of the first sample
+	 * @param int count is the number of samples to read
+	 * @param int delay is the age of the first sample read
+	 */
+	public void read(float [] buffer, int offset, int count, int delay) {
+
+		int index = (writeIndex - delay) & mask;
+		while (count > 0) {
+			int n = Math.min(count, line.length - index);
+			System.arraycopy(line, index, buffer, offset, n);
+			index = (index + n) & mask;
+			offset += n;
+			count -= n;
+		}
+	}
+
+	/**
+	 * Read between samples with linear interpolation
+	 *
+	 * @param double delay is at least one and at most getMaxDelay()
+	 *
+	 * @return float containing the interpolated sample
+	 */
+	public float readLinear(double delay) {
+
+		int whole = (int) delay;
+		float fraction = (float) (delay - whole);
+		int index = writeIndex - whole;
+
+		float newer = line[index & mask];
+		float older = line[(index - 1) & mask];
+
+		return newer + (fraction * (older - newer));
+	}
+
+	/**
+	 * Read between samples with four point cubic (Catmull-Rom)
+	 * interpolation
+	 *
+	 * @param double delay is at least two and at most getMaxDelay()
+	 *
+	 * @return float containing the interpolated sample
+	 */
+	public float readCubic(double delay) {
+
+		int whole = (int) delay;
+		float t = (float) (delay - whole);
+		int index = writeIndex - whole;
+
+		float y0 = line[(index + 1) & mask];
+		float y1 = line[index & mask];
+		float y2 = line[(index - 1) & mask];
+		float y3 = line[(index - 2) & mask];
+
+		float c1 = 0.5f * (y2 - y0);
+		float c2 = y0 - (2.5f * y1) + (2.0f * y2) - (0.5f * y3);
+		float c3 = (0.5f * (y3 - y0)) + (1.5f * (y1 - y2));
+
+		return ((((c3 * t) + c2) * t) + c1) * t + y1;
+	}
+
+	/**
+	 * Read between samples with a first order allpass interpolator. The
+	 * filter has state, so each delay line supports one allpass tap,
+	 * read once per sample written.
+	 *
+	 * @param double delay is at least one and at most getMaxDelay()
+	 *
+	 * @return float containing the interpolated sample
+	 */
+	public float readAllpass(double delay) {
+
+		int whole = (int) delay;
+		double fraction = delay - whole;
+
+		// The allpass is too slow to respond close to a whole delay, so
+		// work with a fraction between ALLPASSMINFRACTION and one more
+		if ((fraction < ALLPASSMINFRACTION) && (whole > 1)) {
+			whole--;
+			fraction += 1.0;
+		}
+		float eta = (float) ((1.0 - fraction) / (1.0 + fraction));
+		int index = writeIndex - whole;
+
+		float newer = line[index & mask];
+		float older = line[(index - 1) & mask];
+
+		allpassState = (eta * (newer - allpassState)) + older;
+		return allpassState;
+	}
+
+	/**
+	 * Copy the most recent samples of another delay line into this one,
+	 * so reads continue where they left off in the other
+	 *
+	 * @param DelayLine from is the delay line whose history is wanted
+	 */
+	public void copyHistory(DelayLine from) {
+
+		int count = Math.min(line.length, from.line.length);
+		for (int delay=count; delay > 0; delay--)
+			write(from.read(delay));
+
+		allpassState = from.allpassState;
+	}
+
+	/**
+	 * Fill the delay line with silence
+	 */
+	public void clear() {
+
+		java.util.Arrays.fill(line, 0.0f);
+		allpassState = 0.0f;
+	}
+
+	// Samples a cubic read reaches past the delay asked for
+	private static final int CUBICREACH = 2;
+
+	// Smallest fraction the allpass interpolator is run with
+	private static final double ALLPASSMINFRACTION = 0.1;
+
+	// Private class data
+	private float [] line;
+	private int mask;
+	private int writeIndex;
+	private float allpassState;
+}
@@ -0,0 +1,86 @@
+// Delay Tap Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * The read position of a fixed delay in a DelayLine. Moving a tap
+ * straight to a new delay makes a step in the output, so when the delay
+ * changes the tap crossfades from the sample at the old delay to the
+ * sample at the new one over FADELENGTH samples. A change made while a
+ * crossfade is under way waits for it to finish.
+ *
+ * A tap belongs to the audio thread. Other threads publish the delay
+ * they want in a field of their own, which the audio thread hands to
+ * update() at a block boundary.
+ */
+public class DelayTap {
+
+	// Length of a crossfade in samples
+	public static final int FADELENGTH = SmoothedParameter.RAMPLENGTHDEF;
+
+	/**
+	 * DelayTap class constructor
+	 *
+	 * @param int delay is the initial delay in samples
+	 */
+	public DelayTap(int delay) {
+
+		this.delay = delay;
+		fromDelay = delay;
+		remaining = 0;
+	}
+
+	/**
+	 * Return the delay the tap is reading at or moving to
+	 *
+	 * @return int containing the delay in samples
+	 */
+	public int getDelay() {
+
+		return delay;
+	}
+
+	/**
+	 * Move the tap to a new delay. Called by the audio thread at a block
+	 * boundary.
+	 *
+	 * @param int delay is the new delay, which the delay line must be
+	 * long enough to read
+	 */
+	public void update(int delay) {
+
+		if ((delay == this.delay) || (remaining != 0))
+			return;
+
+		fromDelay = this.delay;
+		this.delay = delay;
+		remaining = FADELENGTH;
+	}
+
+	/**
+	 * Read the delayed sample. Called once per sample before the delay
+	 * line is written.
+	 *
+	 * @param DelayLine line is the delay line read from
+	 *
+	 * @return float containing the delayed sample
+	 */
+	public float read(DelayLine line) {
+
+		float sample = line.read(delay);
+		if (remaining != 0) {
+			// The old tap fades out as the new one fades in
+			float old = line.read(fromDelay);
+			sample += (remaining-- * FADESCALE) * (old - sample);
+		}
+		return sample;
+	}
+
+	private static final float FADESCALE = 1.0f / FADELENGTH;
+
+	// Private class data
+	private int delay;
+	private int fromDelay;
+	private int remaining;
+}
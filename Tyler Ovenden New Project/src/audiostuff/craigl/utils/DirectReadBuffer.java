@@ -0,0 +1,95 @@
+// Direct Read Buffer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * A direct byte buffer that decoders read file data into. The buffer is
+ * kept from call to call and only replaced when a larger read is asked
+ * for, and reads go through the file's channel straight into the direct
+ * buffer, so once a decoder has seen its largest request it decodes
+ * without allocating. A ShortBuffer view in the file's byte order lets 16
+ * bit samples be copied out in bulk.
+ */
+public class DirectReadBuffer {
+
+	/**
+	 * DirectReadBuffer class constructor
+	 *
+	 * @param ByteOrder order is the byte order of the samples in the file
+	 */
+	public DirectReadBuffer(ByteOrder order) {
+
+		// Save incoming
+		this.order = order;
+
+		allocate(AudioConstants.SAMPLEBUFFERSIZE * 2);
+	}
+
+	/**
+	 * Read up to byteLength bytes from the channel at its current position.
+	 * Fewer bytes are read only at the end of the file.
+	 *
+	 * @param FileChannel fc is the channel to read from
+	 * @param int byteLength is the number of bytes wanted
+	 *
+	 * @return int number of bytes read or -1 if already at end of file
+	 *
+	 * @throws IOException if the file cannot be read
+	 */
+	public int read(FileChannel fc, int byteLength) throws IOException {
+
+		if (byteLength > bytes.capacity())
+			allocate(byteLength);
+
+		bytes.clear();
+		bytes.limit(byteLength);
+		while (bytes.hasRemaining()) {
+			if (fc.read(bytes) < 0)
+				break;
+		}
+		int bytesRead = bytes.position();
+		bytes.flip();
+
+		return ((bytesRead == 0) && (byteLength != 0)) ? -1 : bytesRead;
+	}
+
+	/**
+	 * Return the bytes read by the last read() call. They run from index
+	 * zero to the limit of the buffer.
+	 *
+	 * @return ByteBuffer holding the data
+	 */
+	public ByteBuffer getBytes() {
+
+		return bytes;
+	}
+
+	/**
+	 * Copy 16 bit samples from the data read by the last read() call
+	 *
+	 * @param short [] sampleBuffer receives the samples
+	 * @param int count is the number of samples to copy
+	 */
+	public void getShorts(short [] sampleBuffer, int count) {
+
+		shorts.clear();
+		shorts.get(sampleBuffer, 0, count);
+	}
+
+	// Replace the buffer with one of at least size bytes
+	private void allocate(int size) {
+
+		bytes = ByteBuffer.allocateDirect(size).order(order);
+		shorts = bytes.asShortBuffer();
+	}
+
+	// Private class data
+	private ByteOrder order;
+	private ByteBuffer bytes;
+	private ShortBuffer shorts;
+}
@@ -0,0 +1,179 @@
+// Instrumentation Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.*;
+
+/**
+ * Per stage timing of signal chains. instrument() puts a StageProbe after
+ * every device of a chain. For each stage the number of calls, the
+ * number of samples moved, the time spent in the stage itself excluding
+ * the stages before it, and the longest call are recorded and compared
+ * with the real time the samples last.
+ *
+ * The statistics of every stage are registered as MBeans under the
+ * domain audiostuff.craigl with type AudioStage, so they can be watched
+ * with jconsole or any other JMX client, and may be printed as a table
+ * with dump() or every few seconds with startDump().
+ *
+ * Stages are named by their position in the chain and their device
+ * name. Chains built the same way share statistics, so when many copies
+ * of a chain run at once, as in BatchRender, the figures are totals for
+ * all of them.
+ */
+public class Instrumentation {
+
+	// JMX domain the statistics are registered under
+	public static final String DOMAIN = "audiostuff.craigl";
+
+	/**
+	 * Put a probe after every device of a chain but the last. Must be
+	 * called before the format of the chain is negotiated.
+	 *
+	 * @param LinkedListVector chain holds the devices of the chain, the
+	 * last normally being its sink
+	 */
+	public static void instrument(LinkedListVector chain) {
+
+		int position = 1;
+		for (int i=0; i < chain.size() - 1; i++) {
+			AbstractAudio aa = chain.elementAt(i);
+			if (aa instanceof StageProbe)
+				continue;
+
+			if (!(chain.elementAt(i + 1) instanceof StageProbe)) {
+				String name = ((position < 10) ? "0" : "") + position +
+							  " " + aa.getName();
+
+				// The probe goes in between the device and the next one
+				chain.insertElementAt(new StageProbe(getStats(name)), ++i);
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Return the statistics of a stage, creating and registering them
+	 * the first time the stage is named
+	 *
+	 * @param String stageName is the name of the stage
+	 *
+	 * @return StageStats of the stage
+	 */
+	public static synchronized StageStats getStats(String stageName) {
+
+		StageStats stats = stages.get(stageName);
+		if (stats == null) {
+			stats = new StageStats(stageName);
+			stages.put(stageName, stats);
+			register(stats);
+		}
+		return stats;
+	}
+
+	/**
+	 * Print the statistics of every stage as a table
+	 *
+	 * @param PrintStream out is where to print
+	 */
+	public static void dump(PrintStream out) {
+
+		StageStats [] all;
+		synchronized(Instrumentation.class) {
+			all = new StageStats[stages.size()];
+			stages.values().toArray(all);
+		}
+
+		StringBuffer sb = new StringBuffer();
+		sb.append(String.format("%-28s %10s %12s %10s %8s %10s %8s%n",
+			new Object[] {"Stage", "Calls", "Samples", "Self ms",
+						  "Load %", "Max us", "Max %"}));
+		for (int i=0; i < all.length; i++) {
+			StageStats s = all[i];
+			sb.append(String.format("%-28s %10d %12d %10.1f %8.2f %10.1f %8.1f%n",
+				new Object[] {s.getStageName(),
+					new Long(s.getCalls()),
+					new Long(s.getSamples()),
+					new Double(s.getSelfTimeNanos() / 1.0e6),
+					new Double(s.getRealTimeLoad() * 100),
+					new Double(s.getMaxBlockNanos() / 1.0e3),
+					new Double(s.getMaxBlockLoad() * 100)}));
+		}
+		// Print it all at once so other output does not break it up
+		out.print(sb);
+		out.flush();
+	}
+
+	/**
+	 * Print the statistics every few seconds on a background thread
+	 *
+	 * @param int periodInSeconds is the time between tables
+	 * @param PrintStream out is where to print
+	 */
+	public static synchronized void startDump(int periodInSeconds,
+											  final PrintStream out) {
+
+		if (periodInSeconds < 1)
+			throw new IllegalArgumentException("Period must be at least one second");
+
+		stopDump();
+
+		long period = periodInSeconds * 1000L;
+		timer = new Timer("Instrumentation dump", true);
+		timer.schedule(new TimerTask() {
+			public void run() {
+				dump(out);
+			}
+		}, period, period);
+	}
+
+	/**
+	 * Stop printing the statistics
+	 */
+	public static synchronized void stopDump() {
+
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
+	}
+
+	/**
+	 * Start counting again for every stage
+	 */
+	public static void reset() {
+
+		StageStats [] all;
+		synchronized(Instrumentation.class) {
+			all = new StageStats[stages.size()];
+			stages.values().toArray(all);
+		}
+		for (int i=0; i < all.length; i++)
+			all[i].reset();
+	}
+
+	// Register the statistics of a stage with the platform MBean server.
+	// Timing goes on without JMX if registration fails.
+	private static void register(StageStats stats) {
+
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=AudioStage,name=" +
+											 ObjectName.quote(stats.getStageName()));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(name))
+				server.registerMBean(stats, name);
+		}
+		catch(Exception e) {
+			System.out.println("Can't register " + stats.getStageName() +
+							   " with JMX: " + e);
+		}
+	}
+
+	// Private class data
+	private static TreeMap<String, StageStats> stages = new TreeMap<String, StageStats>();
+	private static Timer timer;
+}
@@ -1,6 +1,6 @@
 // LinkedListVector Class
 // Written by: Craig A. Lindley
-// Last Update: 03/02/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.utils;
 
@@ -113,6 +113,7 @@ public class LinkedListVector {
 			aa.previous.next = a;
 			aa.previous = a;
 		} 
+		count++;
 	}
 
 	/**
@@ -150,7 +151,12 @@ public class LinkedListVector {
 			aa = aa.next;
 
 		// aa is the object to remove
-		if (aa == head) {
+		if ((aa == head) && (aa == tail)) {
+
+			aa.next = aa.previous = null;
+			head = tail = null;
+
+		}	else if (aa == head) {
 			
 			AbstractAudio newHead = aa.next;
 			aa.next = aa.previous = null;
@@ -169,6 +175,7 @@ public class LinkedListVector {
 			prevo.next = nexto;
 			nexto.previous = prevo;
 		}
+		count--;
 	}
 
 	/**
@@ -413,4 +420,4 @@ class LLVEnumeration implements Enumeration {
 
 
 
-	
\ No newline at end of file
+	
\ No newline at end of file
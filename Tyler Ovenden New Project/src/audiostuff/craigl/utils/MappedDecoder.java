@@ -0,0 +1,150 @@
+// Mapped Decoder Base Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * Base class for decoders that read samples straight out of a memory
+ * mapped region of an audio file instead of through a stream. The region
+ * holding the samples is mapped in segments of at most SEGMENTBYTES bytes
+ * because a single MappedByteBuffer cannot exceed 2 GB, so files of any
+ * size can be read. Because any sample can be located by arithmetic
+ * alone, seeking to a sample offset takes constant time.
+ *
+ * Subclasses convert the samples of one segment at a time.
+ */
+public abstract class MappedDecoder implements AbstractDecoderIF {
+
+	// Size of each mapped segment. A power of two so segments always
+	// hold a whole number of samples.
+	public static final long SEGMENTBYTES = 1L << 30;
+
+	/**
+	 * MappedDecoder class constructor
+	 *
+	 * @param FileChannel fc is the channel of the open audio file
+	 * @param long dataPosition is the file offset of the first sample
+	 * @param long totalSamples is the number of samples in the file
+	 * @param int bytesPerSample is the size of each sample in bytes
+	 *
+	 * @throws IOException if the file cannot be mapped
+	 */
+	protected MappedDecoder(FileChannel fc, long dataPosition,
+							long totalSamples, int bytesPerSample)
+		throws IOException {
+
+		// Never read past the end of the file
+		long available = (fc.size() - dataPosition) / bytesPerSample;
+		if (totalSamples > available)
+			totalSamples = Math.max(available, 0);
+
+		// Save incoming
+		this.totalSamples = totalSamples;
+
+		samplesPerSegment = (int) (SEGMENTBYTES / bytesPerSample);
+		long totalBytes = totalSamples * bytesPerSample;
+		int segments = (int) ((totalBytes + SEGMENTBYTES - 1) / SEGMENTBYTES);
+
+		buffers = new MappedByteBuffer[segments];
+		for (int i=0; i < segments; i++) {
+			long offset = i * SEGMENTBYTES;
+			long size = Math.min(SEGMENTBYTES, totalBytes - offset);
+			buffers[i] = fc.map(FileChannel.MapMode.READ_ONLY,
+								dataPosition + offset, size);
+		}
+		position = 0;
+	}
+
+	/**
+	 * Return the number of samples the decoder can return in all
+	 *
+	 * @return long containing the sample count
+	 */
+	public long getTotalSamples() {
+
+		return totalSamples;
+	}
+
+	/**
+	 * Return the offset of the next sample to be returned
+	 *
+	 * @return long containing the sample offset
+	 */
+	public long getPosition() {
+
+		return position;
+	}
+
+	/**
+	 * Move to a sample offset. The next getSamples call starts there.
+	 *
+	 * @param long sampleOffset is the offset of the sample to move to. For
+	 * multichannel data it should be a multiple of the number of channels.
+	 */
+	public void seek(long sampleOffset) {
+
+		if ((sampleOffset < 0) || (sampleOffset > totalSamples))
+			throw new IllegalArgumentException("Sample offset " +
+				sampleOffset + " is outside of 0.." + totalSamples);
+
+		position = sampleOffset;
+	}
+
+	public int getSamples(short [] sampleBuffer, int length) {
+
+		if (position >= totalSamples)
+			return -1;
+
+		if (length > totalSamples - position)
+			length = (int) (totalSamples - position);
+
+		// Copy from one segment at a time
+		int done = 0;
+		while (done < length) {
+			int segment = (int) (position / samplesPerSegment);
+			int offset = (int) (position % samplesPerSegment);
+			int count = Math.min(length - done, samplesPerSegment - offset);
+
+			decode(segment, offset, sampleBuffer, done, count);
+
+			done += count;
+			position += count;
+		}
+		return length;
+	}
+
+	/**
+	 * Return the mapped buffer for a segment
+	 *
+	 * @param int segment is the segment number
+	 *
+	 * @return MappedByteBuffer holding the segment's samples
+	 */
+	protected MappedByteBuffer getSegment(int segment) {
+
+		return buffers[segment];
+	}
+
+	/**
+	 * Convert samples from one segment
+	 *
+	 * @param int segment is the segment to read from
+	 * @param int offset is the sample offset within the segment
+	 * @param short [] sampleBuffer receives the samples
+	 * @param int bufferOffset is where in sampleBuffer to put them
+	 * @param int count is the number of samples to convert
+	 */
+	protected abstract void decode(int segment, int offset,
+								   short [] sampleBuffer, int bufferOffset,
+								   int count);
+
+	// Private class data
+	private MappedByteBuffer [] buffers;
+	private int samplesPerSegment;
+	private long totalSamples;
+	private long position;
+}
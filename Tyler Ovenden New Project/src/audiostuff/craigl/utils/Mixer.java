@@ -0,0 +1,371 @@
+// Mixer Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.util.ArrayList;
+
+/**
+ * Sums parallel branches back into one signal path. Each branch is
+ * attached with addInput() and has a gain of its own. Branches normally
+ * start at the outputs of a Splitter, which together with a Mixer turns
+ * a chain of devices into a graph, for example a dry path alongside a
+ * reverb, or several effects run side by side.
+ *
+ * For every block the branches are pulled at the same time on the pool
+ * of worker threads shared with ChannelFanOut, so the devices of
+ * different branches must not share state. Branches are lined up before
+ * they are summed. The delay of each branch is the sum of the latencies
+ * its devices report with getLatency(), and every branch is delayed to
+ * match the slowest one, which makes the latency of the Mixer. Branches
+ * that deliver fewer samples than asked for are held until the others
+ * catch up, and when a branch ends it is taken as silence until every
+ * branch has ended.
+ *
+ * The Mixer is the first device of the path after the branches, and the
+ * branches take on the format negotiated for it.
+ */
+public class Mixer extends AbstractAudio implements ChannelProcessorIF {
+
+	// Gain defaults
+	public static final double GAINDEF = 1.0;
+
+	/**
+	 * Mixer class constructor
+	 */
+	public Mixer() {
+
+		super("Mixer", PROCESSOR);
+
+		inputs = new ArrayList<AbstractAudio>();
+		gains = new ArrayList<SmoothedParameter>();
+	}
+
+	/**
+	 * Attach a branch. Branches must be attached before samples flow.
+	 *
+	 * @param AbstractAudio branch is the last device of the branch
+	 *
+	 * @return int containing the index of the input
+	 */
+	public synchronized int addInput(AbstractAudio branch) {
+
+		if (branch == null)
+			throw new IllegalArgumentException("Branch must not be null");
+
+		branch.next = this;
+		if (inputs.size() == 0)
+			previous = branch;
+
+		inputs.add(branch);
+		gains.add(new SmoothedParameter(GAINDEF));
+		return inputs.size() - 1;
+	}
+
+	/**
+	 * Return the number of inputs
+	 *
+	 * @return int containing the input count
+	 */
+	public synchronized int getNumberOfInputs() {
+
+		return inputs.size();
+	}
+
+	/**
+	 * Set the gain of an input. May be called while samples flow.
+	 *
+	 * @param int input is the index of the input
+	 * @param double gain multiplies the samples of the input
+	 */
+	public void setGain(int input, double gain) {
+
+		gains.get(input).set(gain);
+	}
+
+	/**
+	 * Return the delay added to line the branches up
+	 *
+	 * @return int latency in sample frames
+	 */
+	public int getLatency() {
+
+		if (latencies == null)
+			measureLatencies();
+
+		return latency;
+	}
+
+	/**
+	 * Return the Splitter the branches start at
+	 *
+	 * @return Splitter feeding the branches or null if the first branch
+	 * does not start at a Splitter
+	 */
+	public Splitter getSplitter() {
+
+		if (latencies == null)
+			measureLatencies();
+
+		return splitter;
+	}
+
+	public int getSamples(short [] buffer, int length) {
+
+		return getSamplesFromFloat(buffer, length);
+	}
+
+	public int getSamples(float [] buffer, int length) {
+
+		if (pending == null)
+			initializeState(length);
+
+		if (pullBuffers[0].length < length)
+			for (int i=0; i < pullBuffers.length; i++)
+				pullBuffers[i] = new float[length];
+
+		while (true) {
+			// Pull every branch that is short of a block
+			this.length = length;
+			fanOut.run();
+
+			// Find how much every branch has ready
+			boolean allEnded = true;
+			boolean progress = false;
+			int ready = Integer.MAX_VALUE;
+			int held = 0;
+			for (int i=0; i < pending.length; i++) {
+				progress |= pulled[i] > 0;
+				held = Math.max(held, pendingCount[i]);
+				if (!ended[i]) {
+					allEnded = false;
+					ready = Math.min(ready, pendingCount[i]);
+				}
+			}
+			if (allEnded) {
+				// Play out the samples held for lining up
+				if (held == 0)
+					return -1;
+
+				ready = held;
+			}
+			ready = Math.min(ready, length);
+			if (!allEnded)
+				ready -= ready % channels;
+
+			if (ready > 0) {
+				mix(buffer, ready);
+				return ready;
+			}
+			if (!progress)
+				return 0;
+		}
+	}
+
+	// Pull samples from one branch. Called with each input index in turn,
+	// possibly on a separate thread.
+	public void processChannel(int input) {
+
+		pulled[input] = 0;
+		int wanted = length - pendingCount[input];
+		if (ended[input] || (wanted <= 0))
+			return;
+
+		int len = inputs.get(input).getSamples(pullBuffers[input], wanted);
+		if (len == -1) {
+			ended[input] = true;
+			return;
+		}
+		if (len <= 0)
+			return;
+
+		if (pending[input].length < pendingCount[input] + len) {
+			float [] grown = new float[pendingCount[input] + len];
+			System.arraycopy(pending[input], 0, grown, 0, pendingCount[input]);
+			pending[input] = grown;
+		}
+		System.arraycopy(pullBuffers[input], 0, pending[input], pendingCount[input], len);
+		pendingCount[input] += len;
+		pulled[input] = len;
+	}
+
+	// Sum count samples of every branch into buffer and drop them from
+	// the samples held
+	private void mix(float [] buffer, int count) {
+
+		for (int k=0; k < count; k++)
+			buffer[k] = 0.0f;
+
+		for (int i=0; i < pending.length; i++) {
+			SmoothedParameter gain = gains.get(i);
+			gain.update();
+
+			// The gain moves once per frame. The last frame may be
+			// partial once the branches have ended.
+			float [] samples = pending[i];
+			int available = Math.min(count, pendingCount[i]);
+			for (int k=0; k < available; k += channels) {
+				float g = (float) gain.next();
+				int frameEnd = Math.min(k + channels, available);
+				for (int j=k; j < frameEnd; j++)
+					buffer[j] += g * samples[j];
+			}
+			pendingCount[i] -= available;
+			System.arraycopy(samples, available, samples, 0, pendingCount[i]);
+		}
+	}
+
+	// Find the delay of every branch and of the slowest one
+	private synchronized void measureLatencies() {
+
+		int [] measured = new int[inputs.size()];
+		int slowest = 0;
+		for (int i=0; i < measured.length; i++) {
+			measured[i] = branchLatency(inputs.get(i), i == 0);
+			slowest = Math.max(slowest, measured[i]);
+		}
+		latency = slowest;
+		latencies = measured;
+	}
+
+	// Return the delay of a branch, found by adding up the latencies of
+	// its devices back to the Splitter output it starts at. A Mixer
+	// inside the branch adds its own latency and the walk carries on
+	// before the Splitter feeding its branches.
+	private int branchLatency(AbstractAudio branch, boolean first) {
+
+		int total = 0;
+		AbstractAudio aa = branch;
+		while ((aa != null) && !(aa instanceof Splitter.Output)) {
+			total += aa.getLatency();
+			if (aa instanceof Mixer)
+				aa = ((Mixer) aa).getSplitter();
+			else
+				aa = aa.previous;
+		}
+		if (first && (aa != null))
+			splitter = ((Splitter.Output) aa).getSplitter();
+
+		return total;
+	}
+
+	// Allocate the branch buffers and fill each with the silence that
+	// lines it up with the slowest branch
+	private void initializeState(int length) {
+
+		channels = Math.max(getNumberOfChannels(), 1);
+		int n = inputs.size();
+
+		pending = new float[n][];
+		pendingCount = new int[n];
+		pullBuffers = new float[n][];
+		pulled = new int[n];
+		ended = new boolean[n];
+		for (int i=0; i < n; i++)
+			pullBuffers[i] = new float[length];
+
+		fanOut = new ChannelFanOut(n, this, 2);
+
+		resetState();
+	}
+
+	private void resetState() {
+
+		measureLatencies();
+		for (int i=0; i < pending.length; i++) {
+			int delay = (latency - latencies[i]) * channels;
+			pending[i] = new float[pullBuffers[i].length + delay];
+			pendingCount[i] = delay;
+			pulled[i] = 0;
+			ended[i] = false;
+		}
+	}
+
+	// Negotiation takes in every branch. The first branch is reached
+	// thru previous by the methods of AbstractAudio.
+
+	public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).minMaxSamplingRate(min, max, preferred);
+
+		super.minMaxSamplingRate(min, max, preferred);
+	}
+
+	public void setSamplingRateRecursive(int sr) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).setSamplingRateRecursive(sr);
+
+		super.setSamplingRateRecursive(sr);
+	}
+
+	public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).minMaxChannels(min, max, preferred);
+
+		super.minMaxChannels(min, max, preferred);
+	}
+
+	public void setChannelsRecursive(int ch) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).setChannelsRecursive(ch);
+
+		super.setChannelsRecursive(ch);
+	}
+
+	public void minMaxBlockSize(MyInt min, MyInt max, MyInt preferred) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).minMaxBlockSize(min, max, preferred);
+
+		super.minMaxBlockSize(min, max, preferred);
+	}
+
+	public void setBlockSizeRecursive(int size) {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).setBlockSizeRecursive(size);
+
+		super.setBlockSizeRecursive(size);
+	}
+
+	protected void propagateReset() {
+
+		for (int i=0; i < inputs.size(); i++)
+			if (inputs.get(i) != previous)
+				inputs.get(i).propagateReset();
+
+		super.propagateReset();
+	}
+
+	// Stage told to reset
+	protected void reset() {
+
+		if (pending != null)
+			resetState();
+	}
+
+	// Private class data
+	private ArrayList<AbstractAudio> inputs;
+	private ArrayList<SmoothedParameter> gains;
+	private int [] latencies;			// Delay of each branch
+	private int latency;				// Delay of the slowest branch
+	private Splitter splitter;
+	private int channels;
+	private ChannelFanOut fanOut;
+	private int length;					// Samples wanted from each branch
+	private float [][] pending;			// Samples pulled but not yet mixed
+	private int [] pendingCount;
+	private float [][] pullBuffers;
+	private int [] pulled;
+	private boolean [] ended;
+}
@@ -0,0 +1,121 @@
+// Sample Converter Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * Static methods for moving samples between the short and float sample
+ * formats used by AbstractAudio devices. Float samples use the same scale
+ * as 16 bit samples (-32768.0 .. 32767.0) so levels and thresholds work
+ * the same in both formats. Float samples may exceed this range between
+ * devices; they are only clamped when converted back to short.
+ */
+public class SampleConverter {
+
+	// Largest and smallest values a 16 bit sample can hold
+	public static final float MAXSAMPLE =  32767.0f;
+	public static final float MINSAMPLE = -32768.0f;
+
+	/**
+	 * Convert short samples to float samples
+	 *
+	 * @param short [] in is the buffer of short samples
+	 * @param float [] out is the buffer to receive the float samples
+	 * @param int length is the number of samples to convert
+	 */
+	public static void shortToFloat(short [] in, float [] out, int length) {
+
+		for (int i=0; i < length; i++)
+			out[i] = in[i];
+	}
+
+	/**
+	 * Convert float samples to short samples. Samples outside of the 16
+	 * bit range are clamped.
+	 *
+	 * @param float [] in is the buffer of float samples
+	 * @param short [] out is the buffer to receive the short samples
+	 * @param int length is the number of samples to convert
+	 */
+	public static void floatToShort(float [] in, short [] out, int length) {
+
+		for (int i=0; i < length; i++) {
+			float sample = in[i];
+			if (sample > MAXSAMPLE)
+				sample = MAXSAMPLE;
+			else if (sample < MINSAMPLE)
+				sample = MINSAMPLE;
+
+			out[i] = (short) sample;
+		}
+	}
+
+	/**
+	 * Split interleaved samples into one buffer per channel
+	 *
+	 * @param float [] in is the buffer of interleaved samples
+	 * @param float [][] out holds a buffer for each channel
+	 * @param int channels is the number of channels
+	 * @param int frames is the number of samples per channel to move
+	 */
+	public static void deinterleave(float [] in, float [][] out,
+									int channels, int frames) {
+
+		if (channels == 1) {
+			System.arraycopy(in, 0, out[0], 0, frames);
+			return;
+		}
+		for (int ch=0; ch < channels; ch++) {
+			float [] channel = out[ch];
+			int index = ch;
+			for (int i=0; i < frames; i++) {
+				channel[i] = in[index];
+				index += channels;
+			}
+		}
+	}
+
+	/**
+	 * Merge one buffer per channel into interleaved samples
+	 *
+	 * @param float [][] in holds a buffer for each channel
+	 * @param float [] out is the buffer to receive the interleaved samples
+	 * @param int channels is the number of channels
+	 * @param int frames is the number of samples per channel to move
+	 */
+	public static void interleave(float [][] in, float [] out,
+								  int channels, int frames) {
+
+		if (channels == 1) {
+			System.arraycopy(in[0], 0, out, 0, frames);
+			return;
+		}
+		for (int ch=0; ch < channels; ch++) {
+			float [] channel = in[ch];
+			int index = ch;
+			for (int i=0; i < frames; i++) {
+				out[index] = channel[i];
+				index += channels;
+			}
+		}
+	}
+
+	/**
+	 * Clamp a single sample to the 16 bit range
+	 *
+	 * @param double sample is the sample to clamp
+	 *
+	 * @return short containing the clamped sample
+	 */
+	public static short clamp(double sample) {
+
+		if (sample > MAXSAMPLE)
+			return Short.MAX_VALUE;
+		else if (sample < MINSAMPLE)
+			return Short.MIN_VALUE;
+
+		return (short) sample;
+	}
+
+	private SampleConverter() {}
+}
@@ -0,0 +1,261 @@
+// Sample Store Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * A growable store of 16 bit samples held outside the Java heap. Samples
+ * are appended in chunks of CHUNKSIZE samples. Chunks are allocated as
+ * direct buffers until the memory limit is reached, after which further
+ * chunks are mapped from a temporary file, so the amount stored is
+ * limited by disk space rather than by the heap or by the range of an
+ * int.
+ *
+ * One thread at a time may append. Any number of Cursors, each with its
+ * own position, may read at the same time as samples are appended and
+ * without taking a lock. A sample is visible to readers once the append
+ * that stored it has returned.
+ */
+public class SampleStore {
+
+	// Samples per chunk, a power of two
+	public static final int CHUNKBITS = 20;
+	public static final int CHUNKSIZE = 1 << CHUNKBITS;
+
+	private static final int CHUNKMASK = CHUNKSIZE - 1;
+	private static final int BYTESPERSAMPLE = 2;
+
+	/**
+	 * SampleStore class constructor
+	 *
+	 * @param long memoryLimit is the number of samples kept in memory
+	 * before the store spills to a temporary file. Zero spills at once.
+	 */
+	public SampleStore(long memoryLimit) {
+
+		if (memoryLimit < 0)
+			throw new IllegalArgumentException("Memory limit must not be negative");
+
+		this.memoryLimit = memoryLimit;
+		chunks = new ShortBuffer[0];
+	}
+
+	/**
+	 * Return the number of samples stored
+	 *
+	 * @return long containing the sample count
+	 */
+	public long getLength() {
+
+		return length;
+	}
+
+	/**
+	 * Return the number of samples held in the temporary file
+	 *
+	 * @return long containing the sample count
+	 */
+	public long getSpilledLength() {
+
+		return Math.max(0, length - memoryChunks * (long) CHUNKSIZE);
+	}
+
+	/**
+	 * Append samples to the store. Only one thread may append at a time.
+	 *
+	 * @param short [] buffer holds the samples
+	 * @param int offset is the index of the first sample in buffer
+	 * @param int count is the number of samples to append
+	 *
+	 * @throws IOException if the temporary file cannot be written
+	 */
+	public void append(short [] buffer, int offset, int count)
+		throws IOException {
+
+		long end = length;
+		while (count > 0) {
+			int chunk = (int) (end >>> CHUNKBITS);
+			if (chunk == chunks.length)
+				addChunk();
+
+			// Write through a view of our own so readers' views are
+			// undisturbed
+			ShortBuffer sb = writeView;
+			int index = (int) (end & CHUNKMASK);
+			int n = Math.min(count, CHUNKSIZE - index);
+			sb.position(index);
+			sb.put(buffer, offset, n);
+
+			offset += n;
+			count -= n;
+			end += n;
+		}
+		// Publish the samples
+		length = end;
+	}
+
+	/**
+	 * Create a cursor for reading the store, positioned at the start
+	 *
+	 * @return Cursor reading this store
+	 */
+	public Cursor newCursor() {
+
+		return new Cursor();
+	}
+
+	/**
+	 * Release the memory and delete the temporary file. Cursors must not
+	 * be used afterwards.
+	 */
+	public synchronized void close() {
+
+		chunks = new ShortBuffer[0];
+		writeView = null;
+		length = 0;
+		memoryChunks = 0;
+		if (spillFile != null) {
+			try {
+				spillChannel.close();
+			}
+			catch(IOException ioe) {}
+			spillFile.delete();
+			spillFile = null;
+			spillChannel = null;
+		}
+	}
+
+	// Add a chunk, in memory while within the limit and otherwise mapped
+	// from the temporary file
+	private synchronized void addChunk() throws IOException {
+
+		int chunk = chunks.length;
+		ByteBuffer bb;
+		if ((chunk + 1) * (long) CHUNKSIZE <= memoryLimit) {
+			bb = ByteBuffer.allocateDirect(CHUNKSIZE * BYTESPERSAMPLE);
+			memoryChunks++;
+		}	else	{
+			if (spillFile == null) {
+				spillFile = File.createTempFile("samplestore", ".pcm");
+				spillFile.deleteOnExit();
+				spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+			}
+			long filePosition =
+				(chunk - memoryChunks) * (long) CHUNKSIZE * BYTESPERSAMPLE;
+			bb = spillChannel.map(FileChannel.MapMode.READ_WRITE,
+								  filePosition, CHUNKSIZE * BYTESPERSAMPLE);
+		}
+		bb.order(ByteOrder.nativeOrder());
+
+		// Readers see the new array only once it is complete
+		ShortBuffer [] grown = new ShortBuffer[chunk + 1];
+		System.arraycopy(chunks, 0, grown, 0, chunk);
+		grown[chunk] = bb.asShortBuffer();
+		writeView = grown[chunk].duplicate();
+		chunks = grown;
+	}
+
+	/**
+	 * A reading position in the store. A cursor belongs to one thread;
+	 * give each reader a cursor of its own.
+	 */
+	public class Cursor {
+
+		/**
+		 * Return the position of the next sample to read
+		 *
+		 * @return long containing the position
+		 */
+		public long getPosition() {
+
+			return position;
+		}
+
+		/**
+		 * Move to a position in the store
+		 *
+		 * @param long position is the position of the next sample to read
+		 */
+		public void setPosition(long position) {
+
+			if (position < 0)
+				throw new IllegalArgumentException("Position must not be negative");
+
+			this.position = position;
+		}
+
+		/**
+		 * Return the number of samples stored beyond the cursor
+		 *
+		 * @return long containing the sample count
+		 */
+		public long available() {
+
+			return Math.max(0, length - position);
+		}
+
+		/**
+		 * Read samples and move past them. Never waits for samples to be
+		 * appended.
+		 *
+		 * @param short [] buffer receives the samples
+		 * @param int offset is the index in buffer of the first sample
+		 * @param int count is the number of samples wanted
+		 *
+		 * @return int containing the number of samples read, which is
+		 * zero when the cursor is at the end of the store
+		 */
+		public int read(short [] buffer, int offset, int count) {
+
+			// Read the length before the chunks it covers
+			long end = length;
+			ShortBuffer [] chunks = SampleStore.this.chunks;
+
+			count = (int) Math.min(count, Math.max(0, end - position));
+			int read = 0;
+			while (read < count) {
+				int chunk = (int) (position >>> CHUNKBITS);
+				ShortBuffer sb = view(chunks, chunk);
+				int index = (int) (position & CHUNKMASK);
+				int n = Math.min(count - read, CHUNKSIZE - index);
+				sb.position(index);
+				sb.get(buffer, offset + read, n);
+
+				read += n;
+				position += n;
+			}
+			return read;
+		}
+
+		// Return this cursor's view of a chunk
+		private ShortBuffer view(ShortBuffer [] chunks, int chunk) {
+
+			if (chunk >= views.length) {
+				ShortBuffer [] grown = new ShortBuffer[chunks.length];
+				System.arraycopy(views, 0, grown, 0, views.length);
+				views = grown;
+			}
+			if (views[chunk] == null)
+				views[chunk] = chunks[chunk].duplicate();
+
+			return views[chunk];
+		}
+
+		// Private class data
+		private long position;
+		private ShortBuffer [] views = new ShortBuffer[0];
+	}
+
+	// Private class data
+	private long memoryLimit;
+	private volatile ShortBuffer [] chunks;
+	private volatile long length;
+	private ShortBuffer writeView;
+	private int memoryChunks;
+	private File spillFile;
+	private FileChannel spillChannel;
+}
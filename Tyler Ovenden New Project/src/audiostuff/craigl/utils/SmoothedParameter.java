@@ -0,0 +1,164 @@
+// Smoothed Parameter Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * A processor parameter that may be changed from any thread, typically
+ * the AWT thread of a user interface, while the audio thread is using it.
+ * A new value is published with set(), a single volatile write, so no
+ * lock is ever taken. The audio thread calls update() at the start of
+ * every block to pick up the latest published value and then calls next()
+ * once per sample, which moves the value to the new target in a linear
+ * ramp instead of jumping there. Parameter moves therefore never produce
+ * a step in the output, and nothing is allocated. Values published
+ * before the first update() take effect at once, so parameters set while
+ * a processor is being initialized do not ramp when it starts.
+ *
+ * Only set() and getTarget() may be called from other threads. The ramp
+ * itself belongs to the audio thread.
+ */
+public class SmoothedParameter {
+
+	// Default length of a ramp in samples
+	public static final int RAMPLENGTHDEF = 512;
+
+	/**
+	 * SmoothedParameter class constructor
+	 *
+	 * @param double value is the initial value of the parameter
+	 */
+	public SmoothedParameter(double value) {
+
+		target = value;
+		rampTarget = value;
+		this.value = value;
+		rampLength = RAMPLENGTHDEF;
+	}
+
+	/**
+	 * Set the number of samples a change takes to complete
+	 *
+	 * @param int rampLength is the length of the ramp in samples. Zero
+	 * makes changes take effect at once.
+	 */
+	public void setRampLength(int rampLength) {
+
+		if (rampLength < 0)
+			throw new IllegalArgumentException("Ramp length must not be negative");
+
+		this.rampLength = rampLength;
+	}
+
+	/**
+	 * Set the time a change takes to complete
+	 *
+	 * @param int sampleRate is the rate next() is called at
+	 * @param double rampTimeInMs is the length of the ramp in milliseconds
+	 */
+	public void setRampTime(int sampleRate, double rampTimeInMs) {
+
+		setRampLength((int) ((sampleRate * rampTimeInMs) / 1000));
+	}
+
+	/**
+	 * Publish a new value. May be called from any thread.
+	 *
+	 * @param double value is the value to move to
+	 */
+	public void set(double value) {
+
+		target = value;
+	}
+
+	/**
+	 * Return the most recently published value
+	 *
+	 * @return double containing the value being moved to
+	 */
+	public double getTarget() {
+
+		return target;
+	}
+
+	/**
+	 * Move straight to a value with no ramp. Only for use when the audio
+	 * thread is not running, for example during initialization.
+	 *
+	 * @param double value is the new value
+	 */
+	public void jump(double value) {
+
+		target = value;
+		rampTarget = value;
+		this.value = value;
+		remaining = 0;
+	}
+
+	/**
+	 * Pick up the most recently published value. Called by the audio
+	 * thread at a block boundary.
+	 *
+	 * @return boolean true if the value is still moving
+	 */
+	public boolean update() {
+
+		double t = target;
+		if (!running) {
+			// First block starts out at the latest value. The published
+			// target is left alone so a set() made since it was read is
+			// picked up by the next block.
+			running = true;
+			rampTarget = t;
+			value = t;
+			remaining = 0;
+		}
+		else if (t != rampTarget) {
+			rampTarget = t;
+			if (rampLength == 0) {
+				value = t;
+				remaining = 0;
+			}
+			else {
+				step = (t - value) / rampLength;
+				remaining = rampLength;
+			}
+		}
+		return remaining != 0;
+	}
+
+	/**
+	 * Return the value for the next sample. Called by the audio thread.
+	 *
+	 * @return double containing the value
+	 */
+	public double next() {
+
+		if (remaining != 0) {
+			if (--remaining == 0)
+				value = rampTarget;		// Land exactly on the target
+			else
+				value += step;
+		}
+		return value;
+	}
+
+	/**
+	 * Return the current value without advancing the ramp
+	 *
+	 * @return double containing the value
+	 */
+	public double getValue() {
+
+		return value;
+	}
+
+	// Private class data
+	private volatile double target;
+	private double rampTarget;
+	private double value;
+	private double step;
+	private int rampLength;
+	private int remaining;
+	private boolean running;
+}
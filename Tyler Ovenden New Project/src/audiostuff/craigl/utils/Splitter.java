@@ -0,0 +1,306 @@
+// Splitter Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.util.ArrayList;
+
+/**
+ * Fans a signal path out into parallel branches. The Splitter is the
+ * last device of the path feeding the branches and each branch starts
+ * with one of its outputs, created with newOutput(). Branches are joined
+ * again by a Mixer.
+ *
+ * Blocks are pulled from the devices before the Splitter once, whichever
+ * output asks first, and kept until every output has read them. The
+ * outputs read the same blocks, so the devices before the Splitter run
+ * only once however many branches there are and no branch ever sees a
+ * copy made for another. An output that falls behind the others simply
+ * holds more blocks, so branches may read at different times and in
+ * different sized pieces. Every output must be read or blocks pile up.
+ *
+ * The outputs may be read from different threads at the same time.
+ * Format negotiation started from any branch reaches the devices before
+ * the Splitter and every other branch by way of the Mixer.
+ */
+public class Splitter extends AbstractAudio {
+
+	/**
+	 * Splitter class constructor
+	 */
+	public Splitter() {
+
+		super("Splitter", PROCESSOR);
+
+		outputs = new ArrayList<Output>();
+		blocks = new ArrayList<Block>();
+		freeBlocks = new ArrayList<Block>();
+	}
+
+	/**
+	 * Create an output. Each branch starts with an output of its own.
+	 * Outputs must be created before samples flow.
+	 *
+	 * @return AbstractAudio device at the head of a new branch
+	 */
+	public synchronized AbstractAudio newOutput() {
+
+		Output output = new Output(outputs.size());
+		outputs.add(output);
+		return output;
+	}
+
+	/**
+	 * Return the number of outputs
+	 *
+	 * @return int containing the output count
+	 */
+	public synchronized int getNumberOfOutputs() {
+
+		return outputs.size();
+	}
+
+	/**
+	 * Samples are read through the outputs, never from the Splitter
+	 * itself
+	 */
+	public int getSamples(short [] buffer, int length) {
+
+		System.out.println("getSamples: Read a Splitter through its outputs");
+		return -1;
+	}
+
+	/**
+	 * Samples are read through the outputs, never from the Splitter
+	 * itself
+	 */
+	public int getSamples(float [] buffer, int length) {
+
+		System.out.println("getSamples: Read a Splitter through its outputs");
+		return -1;
+	}
+
+	// Negotiation started before the Splitter must take in the branches,
+	// so it is passed on to the sink by way of the first branch
+
+	protected boolean negotiateSamplingRate() {
+
+		if (outputs.size() == 0)
+			return super.negotiateSamplingRate();
+		else
+			return outputs.get(0).getSamplingRate() != -1;
+	}
+
+	protected boolean negotiateNumberOfChannels() {
+
+		if (outputs.size() == 0)
+			return super.negotiateNumberOfChannels();
+		else
+			return outputs.get(0).getNumberOfChannels() != -1;
+	}
+
+	protected boolean negotiateBlockSize() {
+
+		if (outputs.size() == 0)
+			return super.negotiateBlockSize();
+		else
+			return outputs.get(0).getBlockSize() != -1;
+	}
+
+	// Every branch sets the agreed values, but they are passed on
+	// towards the source only once as they cannot be set twice
+
+	public synchronized void setSamplingRateRecursive(int sr) {
+
+		if (samplingRateSet)
+			return;
+
+		samplingRateSet = true;
+		super.setSamplingRateRecursive(sr);
+	}
+
+	public synchronized void setChannelsRecursive(int ch) {
+
+		if (channelsSet)
+			return;
+
+		channelsSet = true;
+		super.setChannelsRecursive(ch);
+	}
+
+	public synchronized void setBlockSizeRecursive(int size) {
+
+		if (blockSizeSet)
+			return;
+
+		blockSizeSet = true;
+		super.setBlockSizeRecursive(size);
+	}
+
+	// Forget the blocks held and start every output over
+	protected synchronized void reset() {
+
+		while (blocks.size() != 0)
+			freeBlocks.add(blocks.remove(blocks.size() - 1));
+
+		blockStart = 0;
+		blockEnd = 0;
+		inputEnded = false;
+		for (int i=0; i < outputs.size(); i++)
+			outputs.get(i).position = 0;
+	}
+
+	// Read samples for an output, pulling blocks from the devices before
+	// the Splitter when the output has read all of those held
+	private synchronized int read(Output output, float [] buffer, int length) {
+
+		while ((blockEnd - output.position < length) && !inputEnded) {
+			Block block = (freeBlocks.size() != 0) ?
+				freeBlocks.remove(freeBlocks.size() - 1) : new Block();
+
+			if (block.samples.length < length)
+				block.samples = new float[length];
+
+			int len = previous.getSamples(block.samples, length);
+			if (len <= 0) {
+				inputEnded = (len == -1);
+				freeBlocks.add(block);
+				break;
+			}
+			block.length = len;
+			blocks.add(block);
+			blockEnd += len;
+		}
+
+		int count = (int) Math.min(length, blockEnd - output.position);
+		if (count <= 0)
+			return inputEnded ? -1 : 0;
+
+		// Copy out of the blocks the output has not yet read
+		long start = blockStart;
+		int copied = 0;
+		for (int i=0; (i < blocks.size()) && (copied < count); i++) {
+			Block block = blocks.get(i);
+			long offset = output.position + copied - start;
+			if (offset < block.length) {
+				int n = (int) Math.min(block.length - offset, count - copied);
+				System.arraycopy(block.samples, (int) offset, buffer, copied, n);
+				copied += n;
+			}
+			start += block.length;
+		}
+		output.position += count;
+
+		releaseBlocks();
+		return count;
+	}
+
+	// Recycle the blocks every output has read
+	private void releaseBlocks() {
+
+		long slowest = Long.MAX_VALUE;
+		for (int i=0; i < outputs.size(); i++)
+			slowest = Math.min(slowest, outputs.get(i).position);
+
+		while (blocks.size() != 0) {
+			Block block = blocks.get(0);
+			if (blockStart + block.length > slowest)
+				break;
+
+			freeBlocks.add(blocks.remove(0));
+			blockStart += block.length;
+		}
+	}
+
+	// A block pulled from the devices before the Splitter
+	private static class Block {
+
+		float [] samples = new float[0];
+		int length;
+	}
+
+	/**
+	 * An output of a Splitter, the source at the head of a branch
+	 */
+	public class Output extends AbstractAudio {
+
+		Output(int index) {
+
+			super("Splitter Output " + index, SOURCE);
+		}
+
+		/**
+		 * Return the Splitter this is an output of
+		 *
+		 * @return Splitter feeding this output
+		 */
+		public Splitter getSplitter() {
+
+			return Splitter.this;
+		}
+
+		public int getSamples(short [] buffer, int length) {
+
+			return getSamplesFromFloat(buffer, length);
+		}
+
+		public int getSamples(float [] buffer, int length) {
+
+			return read(this, buffer, length);
+		}
+
+		// The format is that of the devices before the Splitter
+
+		public void minMaxSamplingRate(MyInt min, MyInt max, MyInt preferred) {
+
+			Splitter.this.minMaxSamplingRate(min, max, preferred);
+		}
+
+		public void setSamplingRateRecursive(int sr) {
+
+			Splitter.this.setSamplingRateRecursive(sr);
+			super.setSamplingRateRecursive(sr);
+		}
+
+		public void minMaxChannels(MyInt min, MyInt max, MyInt preferred) {
+
+			Splitter.this.minMaxChannels(min, max, preferred);
+		}
+
+		public void setChannelsRecursive(int ch) {
+
+			Splitter.this.setChannelsRecursive(ch);
+			super.setChannelsRecursive(ch);
+		}
+
+		public void minMaxBlockSize(MyInt min, MyInt max, MyInt preferred) {
+
+			Splitter.this.minMaxBlockSize(min, max, preferred);
+		}
+
+		public void setBlockSizeRecursive(int size) {
+
+			Splitter.this.setBlockSizeRecursive(size);
+			super.setBlockSizeRecursive(size);
+		}
+
+		protected void propagateReset() {
+
+			Splitter.this.propagateReset();
+		}
+
+		// Private class data
+		private long position;
+	}
+
+	// Private class data
+	private ArrayList<Output> outputs;
+	private ArrayList<Block> blocks;
+	private ArrayList<Block> freeBlocks;
+	private long blockStart;			// Position of the first block held
+	private long blockEnd;				// Position after the last block held
+	private boolean inputEnded;
+	private boolean samplingRateSet;
+	private boolean channelsSet;
+	private boolean blockSizeSet;
+}
@@ -0,0 +1,111 @@
+// Stage Probe Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * A pass through device placed after a stage of a signal chain to time
+ * it. Every getSamples() call made on the probe is passed to the stage
+ * and the time it takes is recorded in the stage's StageStats. Probes
+ * further up the chain report the time spent in their stages to the
+ * probe below them, which takes it away so that each stage is charged
+ * only for its own work. Probes are put in place by
+ * Instrumentation.instrument().
+ */
+public class StageProbe extends AbstractAudio {
+
+	/**
+	 * StageProbe class constructor
+	 *
+	 * @param StageStats stats receives the timings of the stage
+	 */
+	public StageProbe(StageStats stats) {
+
+		super("Probe", PROCESSOR);
+
+		this.stats = stats;
+	}
+
+	/**
+	 * Return the statistics this probe records into
+	 *
+	 * @return StageStats of the stage before this probe
+	 */
+	public StageStats getStats() {
+
+		return stats;
+	}
+
+	// Time a call of the stage before this probe
+	public int getSamples(short [] buffer, int length) {
+
+		long [] upstream = upstreamTime.get();
+		long saved = upstream[0];
+		upstream[0] = 0;
+		long start = System.nanoTime();
+
+		int len = previous.getSamples(buffer, length);
+
+		leave(upstream, saved, start, len);
+		return len;
+	}
+
+	// Time a call of the stage before this probe
+	public int getSamples(float [] buffer, int length) {
+
+		long [] upstream = upstreamTime.get();
+		long saved = upstream[0];
+		upstream[0] = 0;
+		long start = System.nanoTime();
+
+		int len = previous.getSamples(buffer, length);
+
+		leave(upstream, saved, start, len);
+		return len;
+	}
+
+	// Time a call of the stage before this probe
+	public int getSamples(float [][] buffers, int frames) {
+
+		long [] upstream = upstreamTime.get();
+		long saved = upstream[0];
+		upstream[0] = 0;
+		long start = System.nanoTime();
+
+		int len = previous.getSamples(buffers, frames);
+
+		leave(upstream, saved, start, (len > 0) ? len * buffers.length : len);
+		return len;
+	}
+
+	// Record the stage's own time and report the whole call to the
+	// probe below. upstream holds the time spent in the probed stages
+	// above this one during the call and saved what the probe below had
+	// collected before the call.
+	private void leave(long [] upstream, long saved, long start, int samples) {
+
+		long elapsed = System.nanoTime() - start;
+		long self = elapsed - upstream[0];
+		upstream[0] = saved + elapsed;
+
+		if (nanosPerSample == 0.0) {
+			// Format is settled by the time samples flow
+			int rate = getSamplingRate();
+			int channels = getNumberOfChannels();
+			nanosPerSample = 1.0e9 / ((double) rate * channels);
+		}
+		int count = Math.max(samples, 0);
+		stats.record(self, count, (long) (count * nanosPerSample));
+	}
+
+	// Time spent in probed stages by the current call, per thread
+	private static final ThreadLocal<long []> upstreamTime = new ThreadLocal<long []>() {
+		protected long [] initialValue() {
+			return new long[1];
+		}
+	};
+
+	// Private class data
+	private StageStats stats;
+	private double nanosPerSample;
+}
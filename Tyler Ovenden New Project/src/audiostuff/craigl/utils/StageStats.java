@@ -0,0 +1,112 @@
+// Stage Statistics Class
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics kept for one stage of an instrumented signal chain. The
+ * stage's probes update them from the audio threads and they are read
+ * through JMX or a text dump from any other thread. Chains rendered at
+ * the same time may share the statistics of a stage, so every counter
+ * may be updated by several threads at once and no lock is taken.
+ */
+public class StageStats implements StageStatsMBean {
+
+	/**
+	 * StageStats class constructor
+	 *
+	 * @param String stageName is the name the stage is reported under
+	 */
+	public StageStats(String stageName) {
+
+		this.stageName = stageName;
+	}
+
+	/**
+	 * Record one call of the stage
+	 *
+	 * @param long selfNanos is the time spent in the stage itself
+	 * @param int samples is the number of samples it returned
+	 * @param long budgetNanos is the duration of those samples
+	 */
+	public void record(long selfNanos, int samples, long budgetNanos) {
+
+		calls.increment();
+		this.samples.add(samples);
+		selfTime.add(selfNanos);
+		budgetTime.add(budgetNanos);
+
+		// Keep the longest call and the largest share of its budget
+		long max = maxBlockNanos.get();
+		while ((selfNanos > max) && !maxBlockNanos.compareAndSet(max, selfNanos))
+			max = maxBlockNanos.get();
+
+		if (budgetNanos > 0) {
+			long load = (selfNanos << LOADSHIFT) / budgetNanos;
+			max = maxBlockLoad.get();
+			while ((load > max) && !maxBlockLoad.compareAndSet(max, load))
+				max = maxBlockLoad.get();
+		}
+	}
+
+	public String getStageName() {
+
+		return stageName;
+	}
+
+	public long getCalls() {
+
+		return calls.sum();
+	}
+
+	public long getSamples() {
+
+		return samples.sum();
+	}
+
+	public long getSelfTimeNanos() {
+
+		return selfTime.sum();
+	}
+
+	public long getMaxBlockNanos() {
+
+		return maxBlockNanos.get();
+	}
+
+	public double getRealTimeLoad() {
+
+		long budget = budgetTime.sum();
+		return (budget == 0) ? 0.0 : (double) selfTime.sum() / budget;
+	}
+
+	public double getMaxBlockLoad() {
+
+		return (double) maxBlockLoad.get() / (1 << LOADSHIFT);
+	}
+
+	public void reset() {
+
+		calls.reset();
+		samples.reset();
+		selfTime.reset();
+		budgetTime.reset();
+		maxBlockNanos.set(0);
+		maxBlockLoad.set(0);
+	}
+
+	// Loads are kept as fixed point numbers with this many fraction bits
+	private static final int LOADSHIFT = 16;
+
+	// Private class data
+	private String stageName;
+	private LongAdder calls = new LongAdder();
+	private LongAdder samples = new LongAdder();
+	private LongAdder selfTime = new LongAdder();
+	private LongAdder budgetTime = new LongAdder();
+	private AtomicLong maxBlockNanos = new AtomicLong();
+	private AtomicLong maxBlockLoad = new AtomicLong();
+}
@@ -0,0 +1,35 @@
+// Stage Statistics MBean Interface
+// Last Update: 10/18/26
+
+package audiostuff.craigl.utils;
+
+/**
+ * Management interface of the statistics kept for one stage of an
+ * instrumented signal chain. See Instrumentation.
+ */
+public interface StageStatsMBean {
+
+	// Name of the stage, its position in the chain then its device name
+	public String getStageName();
+
+	// Number of getSamples() calls made on the stage
+	public long getCalls();
+
+	// Number of samples, counting each channel's separately, it returned
+	public long getSamples();
+
+	// Time spent in the stage itself, not in the stages before it
+	public long getSelfTimeNanos();
+
+	// Longest time a single call spent in the stage itself
+	public long getMaxBlockNanos();
+
+	// Self time as a fraction of the duration of the samples returned
+	public double getRealTimeLoad();
+
+	// Largest fraction of its real time budget a single call used
+	public double getMaxBlockLoad();
+
+	// Start counting again
+	public void reset();
+}
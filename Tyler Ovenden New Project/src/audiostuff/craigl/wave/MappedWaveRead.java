@@ -0,0 +1,310 @@
+// MappedWaveRead Class for reading WAV files through memory mapping
+// Last Update: 10/18/26
+
+package audiostuff.craigl.wave;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import audiostuff.craigl.utils.*;
+
+/**
+ * Reads WAV files like WaveRead does but maps the data chunk of the file
+ * into memory instead of reading it through a stream. The samples are
+ * copied out of the mapping by a MappedDecoder so large files are read
+ * without a system call per buffer, and seek() can move to any sample in
+ * constant time.
+ *
+ * Besides ordinary RIFF files, RF64 and BW64 files, whose sizes are held
+ * in a ds64 chunk so they may exceed 4 GB, are also read.
+ */
+public class MappedWaveRead extends AudioFileDecoder {
+
+	private static final boolean debugging = false;
+
+	// Size field value meaning the real size is in the ds64 chunk
+	private static final long USEDS64 = 0xFFFFFFFFL;
+
+	public MappedWaveRead(String fileName, ReadCompleteIF readCompleteIF) {
+		super(fileName, readCompleteIF);
+
+		o("Wave File: " + fileName);
+
+		raf = null;
+		decoder = null;
+	}
+
+	// Determine if file is a wave file this class can read
+	public static boolean isWaveFile(String fileName) {
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(fileName, "r");
+			ByteBuffer bb = readHeader(raf.getChannel(), 0, 12);
+			long form = tag(bb, 0);
+			long type = tag(bb, 8);
+
+			return isRiffForm(form) && (type == chunkName('W','A','V','E'));
+		}
+		catch(IOException ioe) {
+			o(ioe.getMessage());
+			return false;
+		}
+		finally {
+			close(raf);
+		}
+	}
+
+	// Provide samples to subsequent stages of processing
+	public int getSamples(short [] buffer, int length) {
+
+		if (decoder == null) {
+			// Attempt to initialize decoder
+			if (!initializeDecoder())
+				return -1;
+		}
+		// Read samples through the decoder
+		int samplesRead = decoder.getSamples(buffer, length);
+
+		// See if we have reached the end of the samples
+		if (samplesRead <= 0) {
+			// Close file and prepare for it to be reopened
+			close(raf);
+			raf = null;
+			decoder = null;
+
+			// Do call back for signaling
+			if (readCompleteIF != null)
+				readCompleteIF.signalReadComplete();
+		}
+		return samplesRead;
+	}
+
+	/**
+	 * Move to a sample offset in the file. The next getSamples call
+	 * returns samples starting there.
+	 *
+	 * @param long sampleOffset is the offset of the sample to move to. It
+	 * should be a multiple of the number of channels.
+	 *
+	 * @return boolean true if the file could be positioned
+	 */
+	public boolean seek(long sampleOffset) {
+
+		if (!initializeDecoder())
+			return false;
+
+		((MappedDecoder) decoder).seek(sampleOffset);
+		return true;
+	}
+
+	/**
+	 * Return the number of samples in the file
+	 *
+	 * @return long containing the sample count or -1 if the file cannot
+	 * be read.
+	 */
+	public long getTotalSamples() {
+
+		if (!initializeDecoder())
+			return -1;
+
+		return ((MappedDecoder) decoder).getTotalSamples();
+	}
+
+	// Stage told to reset
+	public void reset() {
+
+		o("MappedWaveRead reset");
+		if (raf != null) {
+			// Close file and prepare for it to be reopened
+			close(raf);
+			raf = null;
+			decoder = null;
+
+			// Do call back for signaling
+			if (readCompleteIF != null)
+				readCompleteIF.signalReadComplete();
+		}
+	}
+
+	// Read wave file header and map the data with the appropriate decoder
+	public boolean initializeDecoder() {
+
+		// See if we have a decoder already
+		if (decoder != null)
+			return true;
+
+		try {
+			raf = new RandomAccessFile(fileName, "r");
+			FileChannel fc = raf.getChannel();
+			long fileSize = fc.size();
+
+			// First chunk better be RIFF, RF64 or BW64 holding WAVE
+			ByteBuffer bb = readHeader(fc, 0, 12);
+			long form = tag(bb, 0);
+			long type = tag(bb, 8);
+			if (!isRiffForm(form) || (type != chunkName('W','A','V','E'))) {
+				close(raf);
+				raf = null;
+				return false;
+			}
+			boolean isRF64 = (form != chunkName('R','I','F','F'));
+
+			// Now we must locate a fmt and a data chunk to continue
+			int chunksFound = 0;
+			long position = 12;
+			long dataPosition = 0;
+			long dataSize = 0;
+			long ds64DataSize = -1;
+
+			while (chunksFound != 0x03) {
+				if (position + 8 > fileSize) {
+					o("No fmt or data chunk in " + fileName);
+					close(raf);
+					raf = null;
+					return false;
+				}
+				// Read next chunk
+				bb = readHeader(fc, position, 8);
+				long chunkType = tag(bb, 0);
+				long chunkSize = bb.getInt(4) & 0xFFFFFFFFL;
+				position += 8;
+
+				// The ds64 chunk of an RF64 file holds the 64 bit sizes
+				if (isRF64 && (chunkType == chunkName('d','s','6','4'))) {
+					bb = readHeader(fc, position, 16);
+					ds64DataSize = bb.getLong(8);
+				}
+
+				// A fmt chunk ?
+				else if (chunkType == chunkName('f','m','t',' ')) {
+					// Found a format chunk
+					chunksFound |= 0x01;
+
+					// Read the important format parameters
+					bb = readHeader(fc, position, 16);
+					format				= bb.getShort(0) & 0xFFFF;
+					numberOfChannels	= bb.getShort(2) & 0xFFFF;
+					sampleRate 			= bb.getInt(4);
+					avgBytesPerSecond	= bb.getInt(8);
+					blockAlignment		= bb.getShort(12) & 0xFFFF;
+					bitsPerSample		= bb.getShort(14) & 0xFFFF;
+
+					if (debugging) {
+						o("format: " + format);
+						o("numberOfChannels: " + numberOfChannels);
+						o("sampleRate: " + sampleRate);
+						o("avgBytesPerSecond: " + avgBytesPerSecond);
+						o("blockAlignment: " + blockAlignment);
+						o("bitsPerSample: " + bitsPerSample);
+					}
+				}
+
+				// A data chunk ?
+				else if (chunkType == chunkName('d','a','t','a')) {
+					// Found a data chunk
+					chunksFound |= 0x02;
+
+					// Save position and size of data in the file
+					dataPosition = position;
+					dataSize = chunkSize;
+					if ((chunkSize == USEDS64) && (ds64DataSize >= 0))
+						dataSize = ds64DataSize;
+
+					// Data may be the last chunk in a file whose sizes
+					// were never filled in. It cannot run past the end.
+					dataSize = Math.min(dataSize, fileSize - dataPosition);
+					chunkSize = dataSize;
+				}
+
+				// Skip to the next chunk. Chunks are padded to even sizes.
+				position += chunkSize + (chunkSize & 1);
+			}
+			// If we get here we have the chunks we need
+			// Determine if we can decode the file
+			switch (format) {
+
+				case 1:		// PCM format
+					// Now determine the decoder to use
+					if (bitsPerSample <= 8)			// 8 bit data
+						decoder = new DecodeMappedPcm8(fc, dataPosition,
+							dataSize, DecodeMappedPcm8.UNSIGNED);
+					else if (bitsPerSample <= 16)	// 16 bit data
+						decoder = new DecodeMappedPcm16(fc, dataPosition,
+							dataSize / 2, ByteOrder.LITTLE_ENDIAN);
+					else {
+						o("Don't support " + bitsPerSample + " bits per sample");
+						close(raf);
+						raf = null;
+						return false;
+					}
+					break;
+
+				case 7:		// 8 bit G711 mulaw format
+					decoder = new DecodeMappedPcm8(fc, dataPosition,
+						dataSize, DecodeMappedPcm8.MULAW);
+					break;
+
+				default:
+					// Don't support this format
+					o("Don't support WAV format: " +  format);
+					close(raf);
+					raf = null;
+					return false;
+			}
+			// Signal all is well
+			return true;
+		} catch(IOException ioe) {
+			o(ioe.getMessage());
+			close(raf);
+			raf = null;
+			return false;
+		}
+	}
+
+	// Determine if a form tag is one of the RIFF forms that hold WAVE data
+	private static boolean isRiffForm(long form) {
+
+		return (form == chunkName('R','I','F','F')) ||
+			   (form == chunkName('R','F','6','4')) ||
+			   (form == chunkName('B','W','6','4'));
+	}
+
+	// Read part of the header into a little endian buffer
+	private static ByteBuffer readHeader(FileChannel fc, long position,
+										 int length) throws IOException {
+
+		ByteBuffer bb = ByteBuffer.allocate(length);
+		while (bb.hasRemaining()) {
+			if (fc.read(bb, position + bb.position()) < 0)
+				throw new EOFException("Unexpected end of file");
+		}
+		bb.order(ByteOrder.LITTLE_ENDIAN);
+		return bb;
+	}
+
+	// Return the chunk tag at index as chunkName would build it
+	private static long tag(ByteBuffer bb, int index) {
+
+		return Integer.reverseBytes(bb.getInt(index)) & 0xFFFFFFFFL;
+	}
+
+	// Close a file ignoring errors
+	private static void close(RandomAccessFile raf) {
+
+		if (raf != null) {
+			try {
+				raf.close();
+			}
+			catch(IOException ioe) {}
+		}
+	}
+
+	// Private class data
+	private RandomAccessFile raf;
+	private int format;
+	private int avgBytesPerSecond;
+	private int blockAlignment;
+	private int bitsPerSample;
+}
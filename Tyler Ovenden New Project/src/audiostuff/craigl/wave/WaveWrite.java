@@ -1,82 +1,85 @@
 // Wave File Writer Class
 // Written by: Craig A. Lindley
-// Last Update: 04/25/99
+// Last Update: 10/18/26
 
 package audiostuff.craigl.wave;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
 import audiostuff.craigl.utils.*;
 import audiostuff.craigl.au.*;
 
 public class WaveWrite implements FileWriterIF {
 
 	private static final int WAVEHDRSIZE = 44;
-	
+
+	// Size of the header writeFile writes, which has room for a ds64 chunk
+	private static final int EXTHDRSIZE = 80;
+
+	// Size of the body of a ds64 chunk without a table
+	private static final int DS64SIZE = 28;
+
+	// Largest size that fits in a RIFF size field
+	private static final long MAXRIFFSIZE = 0xFFFFFFFFL;
+
 	public WaveWrite(String fileName, int sampleRate, int numberOfChannels) {
 
 		// Save incoming
 		this.fileName = fileName;
 		this.sampleRate = sampleRate;
 		this.numberOfChannels = numberOfChannels;
+	}
 
-		// Create buffer for reading samples
-		sampleBuffer = new short[AudioConstants.SAMPLEBUFFERSIZE];
-		
-		// Create byte buffer for converting data
-		sampleBufferBytes = new byte[AudioConstants.SAMPLEBUFFERSIZE * 2];
+	public WaveWrite(String fileName, int sampleRate, int numberOfChannels,
+					 boolean writeBehind) {
+
+		this(fileName, sampleRate, numberOfChannels);
+
+		this.writeBehind = writeBehind;
 	}
 
 	// Write the incoming samples into a 16 bit Wave file
 	// Writing terminates when samples are exhausted
+	// Files whose sizes do not fit the RIFF header are written as RF64
 	public boolean writeFile(AbstractAudio aa) {
 
-		// Open output stream
+		// Find the block size of the signal chain before the file is
+		// created
+		int blockSize = aa.getBlockSize();
+		if (blockSize == -1)
+			return false;
+
+		BufferedSampleWriter writer = null;
+
+		// Open output channel
 		try {
 			out = new RandomAccessFile(fileName, "rw");
-		
-			// Specified file is now open for writing
-			// Create Wave file header with zero data length
-			byte [] header = 
-				build16BitWaveHeader(sampleRate, numberOfChannels, 0, 0);
-				
-			// Write the header to the file
-			out.write(header);
+			out.setLength(0);
+			FileChannel fc = out.getChannel();
 
-			// Now write all the file data
-			int totalBytes =0;
+			// Leave room for the header. It is written once the data
+			// length is known.
+			fc.position(EXTHDRSIZE);
+			writer = new BufferedSampleWriter(fc, ByteOrder.LITTLE_ENDIAN, writeBehind);
 
-			// Read first buffer of samples
-			int length = aa.previous.getSamples(sampleBuffer, AudioConstants.SAMPLEBUFFERSIZE);
+			// Create buffer for reading samples
+			// sized by the block size of the signal chain
+			sampleBuffer = new short[blockSize];
 
+			// Now write all the file data
+			int length = aa.previous.getSamples(sampleBuffer, blockSize);
 			while (length > 0) {
+				writer.write(sampleBuffer, length);
 
-				int index=0;
-				for (int i=0; i < length; i++) {
-					short sample = sampleBuffer[i];
-					sampleBufferBytes[index++] = (byte) (sample & 255);
-					sampleBufferBytes[index++] = (byte) (sample >> 8);
-				}
-				
-				// Write bytes to output file
-				out.write(sampleBufferBytes, 0, length * 2);
-				
-				// Update total byte count
-				totalBytes += length * 2;
-				
 				// Read the next buffer full
-				length = aa.previous.getSamples(sampleBuffer, AudioConstants.SAMPLEBUFFERSIZE);
+				length = aa.previous.getSamples(sampleBuffer, blockSize);
 			}
-			// Go back to the start of the file and rewrite header
-			out.seek(0);
-
-			// New header has correct audio byte count
-			header = 
-				build16BitWaveHeader(sampleRate, numberOfChannels,
-									 totalBytes + WAVEHDRSIZE - 8,
-									 totalBytes);
-				
-			// Write the header to the file
-			out.write(header);
+			writer.close();
+
+			// Write header with correct audio byte count
+			writer.writeAt(buildWaveHeader(sampleRate, numberOfChannels,
+										   writer.getBytesWritten()), 0);
 
 			// All done
 			out.close();
@@ -86,6 +89,74 @@ public class WaveWrite implements FileWriterIF {
 			System.out.println(ioe.getMessage());
 			return false;
 		}
+		finally {
+			// Stop the write behind thread before the file is closed if
+			// writing failed part way
+			if (writer != null)
+				writer.abort();
+
+			try {
+				if (out != null)
+					out.close();
+			}
+			catch(IOException e) {}
+		}
+	}
+
+	// Synthesize the header written by writeFile. A JUNK chunk reserves
+	// room for the ds64 chunk so a file too large for RIFF becomes an RF64
+	// file without the samples having to move.
+	private static ByteBuffer buildWaveHeader(int sampleRate,
+											  int channels,
+											  long dataLength) {
+
+		ByteBuffer bb = ByteBuffer.allocate(EXTHDRSIZE);
+		bb.order(ByteOrder.LITTLE_ENDIAN);
+
+		long riffLength = dataLength + EXTHDRSIZE - 8;
+		boolean isRF64 = riffLength > MAXRIFFSIZE;
+
+		// RIFF or RF64 form holding WAVE
+		putTag(bb, isRF64 ? "RF64" : "RIFF");
+		bb.putInt(isRF64 ? -1 : (int) riffLength);
+		putTag(bb, "WAVE");
+
+		// The ds64 chunk or the JUNK chunk standing in for it
+		putTag(bb, isRF64 ? "ds64" : "JUNK");
+		bb.putInt(DS64SIZE);
+		if (isRF64) {
+			int blockAlign = channels * 2;
+			bb.putLong(riffLength);
+			bb.putLong(dataLength);
+			bb.putLong(dataLength / blockAlign);
+			bb.putInt(0);				// No table entries
+		}
+		else
+			bb.position(bb.position() + DS64SIZE);
+
+		// fmt_ chunk for 16 bit PCM
+		putTag(bb, "fmt ");
+		bb.putInt(16);
+		bb.putShort((short) 1);
+		bb.putShort((short) channels);
+		bb.putInt(sampleRate);
+		bb.putInt(channels * 2 * sampleRate);
+		bb.putShort((short) (channels * 2));
+		bb.putShort((short) 16);
+
+		// data chunk header
+		putTag(bb, "data");
+		bb.putInt(isRF64 ? -1 : (int) dataLength);
+
+		bb.flip();
+		return bb;
+	}
+
+	// Put a four character tag into a header buffer
+	private static void putTag(ByteBuffer bb, String tag) {
+
+		for (int i=0; i < 4; i++)
+			bb.put((byte) tag.charAt(i));
 	}
 
 	// Synthesize an Wave file header for writing to the file
@@ -172,8 +243,8 @@ public class WaveWrite implements FileWriterIF {
 	private String fileName;
 	private int sampleRate;
 	private int numberOfChannels;
+	private boolean writeBehind;
 	private short [] sampleBuffer;
-	private byte  [] sampleBufferBytes;
 	private RandomAccessFile out;
 }
 
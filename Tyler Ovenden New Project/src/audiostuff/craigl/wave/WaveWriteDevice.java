@@ -1,6 +1,6 @@
 // Wave File Writer Device Class
 // Written by: Craig A. Lindley
-// Last Update: 11/09/98
+// Last Update: 10/18/26
 
 package audiostuff.craigl.wave;
 
@@ -16,6 +16,14 @@ public class WaveWriteDevice extends AbstractAudio {
 		this.fileName = fileName;
 	}
 
+	// Write the file with write behind, overlapping the processing of the
+	// chain with the disk output
+	public WaveWriteDevice(String fileName, boolean writeBehind) {
+		this(fileName);
+
+		this.writeBehind = writeBehind;
+	}
+
 	public int getSamples(short [] buffer, int length) {
 	
 		System.out.println("getSamples: Should never get here");
@@ -29,7 +37,7 @@ public class WaveWriteDevice extends AbstractAudio {
 
 			// Get everyone else's idea of format
 			MyInt channelsMin = new MyInt(1);
-			MyInt channelsMax = new MyInt(2);
+			MyInt channelsMax = new MyInt(AudioConstants.MAXCHANNELS);
 			MyInt channelsPreferred = new MyInt(1);
 
 			minMaxChannels(channelsMin, channelsMax, channelsPreferred);
@@ -69,12 +77,14 @@ public class WaveWriteDevice extends AbstractAudio {
 		
 		// Successfully nogotiated parameters
 		// Instantiate WaveWrite and write the file
-		WaveWrite ww = new WaveWrite(fileName, sampleRate, numberOfChannels);
+		WaveWrite ww = new WaveWrite(fileName, sampleRate, numberOfChannels,
+									 writeBehind);
 		return ww.writeFile(this);
 	}
 
 	// Private class data
 	private String fileName;
+	private boolean writeBehind;
 	private boolean parametersNegotiated;
 	private int sampleRate;
 	private int numberOfChannels;